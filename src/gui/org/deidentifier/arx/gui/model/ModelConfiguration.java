@@ -219,7 +219,7 @@ public class ModelConfiguration implements Serializable, Cloneable {
      * @return
      * @see org.deidentifier.arx.ARXConfiguration#getHeuristicSearchThreshold()
      */
-    public int getHeuristicSearchThreshold() {
+    public long getHeuristicSearchThreshold() {
         return config.getHeuristicSearchThreshold();
     }
     
@@ -23,6 +23,7 @@ import java.lang.reflect.InvocationTargetException;
 import org.deidentifier.arx.Data;
 import org.deidentifier.arx.gui.resources.Resources;
 import org.deidentifier.arx.io.ImportAdapter;
+import org.deidentifier.arx.io.ImportAdapterJDBC;
 import org.deidentifier.arx.io.ImportConfiguration;
 import org.deidentifier.arx.io.ImportConfigurationJDBC;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -94,6 +95,9 @@ public class WorkerImport extends Worker<Data> {
             close(config);
             arg0.done();
         } catch (final Exception e) {
+            if (adapter instanceof ImportAdapterJDBC) {
+                ((ImportAdapterJDBC) adapter).close();
+            }
             close(config);
             error = e;
             stop = true;
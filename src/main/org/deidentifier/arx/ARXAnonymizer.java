@@ -40,6 +40,7 @@ import org.deidentifier.arx.criteria.LDiversity;
 import org.deidentifier.arx.criteria.TCloseness;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.distribution.DistributionAggregateFunction;
+import org.deidentifier.arx.framework.check.history.History.EvictionStrategy;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.Dictionary;
@@ -160,9 +161,18 @@ public class ARXAnonymizer { // NO_UCD
     /** Snapshot size snapshot. */
     private double      snapshotSizeSnapshot = 0.8d;
 
+    /** Budget of the on-disk snapshot store in bytes. */
+    private long        historyStoreSize     = 0L;
+
+    /** Whether snapshots are evicted by expected savings instead of recency. */
+    private boolean     historyCostAware     = false;
+
     /** The maximal number of QIs that can be processed. */
     private int         maxQuasiIdentifiers  = Integer.MAX_VALUE;
 
+    /** The number of threads used for transforming data. */
+    private int         parallelism          = 1;
+
 
     /**
      * Creates a new anonymizer with the default configuration.
@@ -234,6 +244,24 @@ public class ARXAnonymizer { // NO_UCD
         return historySize;
     }
     
+    /**
+     * Returns the number of bytes which may be used for storing snapshots on disk.
+     * 
+     * @return The budget
+     */
+    public long getHistoryStoreSize() {
+        return historyStoreSize;
+    }
+    
+    /**
+     * Returns whether snapshots are evicted from the history based on their expected savings.
+     * 
+     * @return
+     */
+    public boolean isHistoryCostAware() {
+        return historyCostAware;
+    }
+    
     /**
      * Gets the snapshot size.
      * 
@@ -261,6 +289,15 @@ public class ARXAnonymizer { // NO_UCD
         return maxQuasiIdentifiers;
     }
 
+    /**
+     * Returns the number of threads used for transforming data.
+     * 
+     * @return The degree of parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
     /**
      * Sets the maximum number of snapshots allowed to store in the history.
      * 
@@ -272,6 +309,32 @@ public class ARXAnonymizer { // NO_UCD
         this.historySize = historySize;
     }
 
+    /**
+     * Sets whether snapshots are evicted from the history based on their expected savings. If enabled,
+     * the snapshot with the lowest number of rows saved per byte, summed over all successors of
+     * its transformation that still need to be checked, is evicted. Otherwise, the least recently used
+     * snapshot is evicted [default=false].
+     * 
+     * @param costAware
+     */
+    public void setHistoryCostAware(final boolean costAware) {
+        this.historyCostAware = costAware;
+    }
+
+    /**
+     * Sets the number of bytes which may be used for storing snapshots on disk. Snapshots
+     * evicted from the history and snapshots that exceed the maximum snapshot size relative
+     * to the dataset are compressed and written to a temporary file, from which they are 
+     * read back when needed. Set to 0 to disable [default=0].
+     * 
+     * @param historyStoreSize
+     *            The budget in bytes
+     */
+    public void setHistoryStoreSize(final long historyStoreSize) {
+        if (historyStoreSize < 0) { throw new IllegalArgumentException("Size of the snapshot store must be positive or 0"); }
+        this.historyStoreSize = historyStoreSize;
+    }
+
     /**
      * Sets a listener.
      * 
@@ -304,6 +367,19 @@ public class ARXAnonymizer { // NO_UCD
         this.snapshotSizeSnapshot = snapshotSizeSnapshot;
     }
 
+    /**
+     * Sets the number of threads used for transforming data. If set to a value larger than one, 
+     * scans over the complete dataset or over snapshots are split into ranges of rows which are
+     * processed concurrently. The results are identical to sequential processing. 
+     * By default, data is transformed by a single thread.
+     * 
+     * @param parallelism The degree of parallelism [default=1]
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) { throw new IllegalArgumentException("Degree of parallelism must be at least 1"); }
+        this.parallelism = parallelism;
+    }
+
     /**
      * Sets the maximal number of quasi-identifiers. Set to Integer.MAX_VALUE to disable the 
      * restriction. By default, the restriction is disabled.
@@ -636,7 +712,8 @@ public class ARXAnonymizer { // NO_UCD
 
         if (!(solutionSpace instanceof SolutionSpaceLong) || config.isHeuristicSearchEnabled() || solutionSpace.getSize().compareTo(BigInteger.valueOf(config.getHeuristicSearchThreshold())) > 0) {
             return LIGHTNINGAlgorithm.create(solutionSpace, checker, config.getHeuristicSearchTimeLimit(),
-                                             config.getHeuristicSearchStepLimit(SearchStepSemantics.CHECKS, numQIs));
+                                             config.getHeuristicSearchStepLimit(SearchStepSemantics.CHECKS, numQIs),
+                                             config.getHeuristicSearchThreads());
             
         } else {
             FLASHStrategy strategy = new FLASHStrategy(solutionSpace, manager.getHierarchies());
@@ -700,7 +777,12 @@ public class ARXAnonymizer { // NO_UCD
                                                                         historySize,
                                                                         snapshotSizeDataset,
                                                                         snapshotSizeSnapshot,
+                                                                        historyStoreSize,
+                                                                        parallelism,
                                                                         solutionSpace);
+        if (historyCostAware) {
+            checker.getHistory().setEvictionStrategy(EvictionStrategy.EXPECTED_SAVINGS);
+        }
 
         // Create an algorithm instance
         AbstractAlgorithm algorithm = getAlgorithm(config,
@@ -730,6 +812,9 @@ public class ARXAnonymizer { // NO_UCD
         this.historySize = anonymizer.historySize;
         this.snapshotSizeDataset = anonymizer.snapshotSizeDataset;
         this.snapshotSizeSnapshot = anonymizer.snapshotSizeSnapshot;
+        this.historyStoreSize = anonymizer.historyStoreSize;
+        this.historyCostAware = anonymizer.historyCostAware;
         this.maxQuasiIdentifiers = anonymizer.maxQuasiIdentifiers;
+        this.parallelism = anonymizer.parallelism;
     }
 }
\ No newline at end of file
@@ -61,6 +61,8 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
     public static final int     DEFAULT_NUMBER_OF_FOLDS = 10;
     /** Default value */
     public static final int     DEFAULT_VECTOR_LENGTH   = 1000;
+    /** Default value */
+    public static final int     DEFAULT_NUMBER_OF_THREADS = 1;
 
     /** Deterministic */
     private boolean             deterministic           = DEFAULT_DETERMINISTIC;
@@ -74,6 +76,8 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
     private int                 vectorLength            = DEFAULT_VECTOR_LENGTH;
     /** Modified */
     private boolean             modified                = false;
+    /** Threads */
+    private int                 numberOfThreads         = DEFAULT_NUMBER_OF_THREADS;
 
     /**
      * Creates a new instance with default settings
@@ -89,13 +93,15 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
      * @param numberOfFolds
      * @param seed
      * @param vectorLength
+     * @param numberOfThreads
      */
-    protected ARXClassificationConfiguration(boolean deterministic, int maxRecords, int numberOfFolds, long seed, int vectorLength) {
+    protected ARXClassificationConfiguration(boolean deterministic, int maxRecords, int numberOfFolds, long seed, int vectorLength, int numberOfThreads) {
         this.deterministic = deterministic;
         this.maxRecords = maxRecords;
         this.numberOfFolds = numberOfFolds;
         this.seed = seed;
         this.vectorLength = vectorLength;
+        this.numberOfThreads = numberOfThreads;
     }
 
     @Override
@@ -115,6 +121,15 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         return numberOfFolds;
     }
 
+    /**
+     * Returns the number of threads used for training and evaluating models
+     * @return the numberOfThreads
+     */
+    public int getNumThreads() {
+        // Instances serialized by previous versions
+        return numberOfThreads > 0 ? numberOfThreads : DEFAULT_NUMBER_OF_THREADS;
+    }
+
     /**
      * @return the seed
      */
@@ -155,6 +170,7 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         this.setNumFolds(config.numberOfFolds);
         this.setSeed((int)config.seed);
         this.setVectorLength(config.vectorLength);
+        this.setNumThreads(config.getNumThreads());
     }
     
     /**
@@ -208,6 +224,24 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         return (T)this;
     }
     
+    /**
+     * Sets the number of threads used for training and evaluating models concurrently. For
+     * each fold, the models trained with input data and the model trained with output data
+     * are processed by separate tasks. Results do not depend on the number of threads.
+     * @param numberOfThreads the numberOfThreads to set
+     */
+    @SuppressWarnings("unchecked")
+    public T setNumThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Must be >0");
+        }
+        if (this.numberOfThreads != numberOfThreads) {
+            setModified();
+            this.numberOfThreads = numberOfThreads;
+        }
+        return (T)this;
+    }
+    
     /**
      * Seed for randomization. Set to Integer.MAX_VALUE for randomization.
      * @param seed the seed to set
@@ -63,7 +63,16 @@ public class ARXConfiguration implements Serializable, Cloneable {
     public static class ARXConfigurationInternal {
         
         /** The wrapped object. */
-        private final ARXConfiguration config;
+        private final ARXConfiguration       config;
+
+        /** Worker-local class-based privacy models, null if not a worker instance. */
+        private final PrivacyCriterion[]     classBasedPrivacyModels;
+
+        /** Worker-local sample-based privacy models, null if not a worker instance. */
+        private final SampleBasedCriterion[] sampleBasedPrivacyModels;
+
+        /** Worker-local quality model, null if not a worker instance. */
+        private final Metric<?>              qualityModel;
         
         /**
          * Creates a new instance.
@@ -71,7 +80,44 @@ public class ARXConfiguration implements Serializable, Cloneable {
          * @param config
          */
         protected ARXConfigurationInternal(ARXConfiguration config){
+            this(config, null, null, null);
+        }
+        
+        /**
+         * Creates a new instance.
+         *
+         * @param config
+         * @param classBasedPrivacyModels
+         * @param sampleBasedPrivacyModels
+         * @param qualityModel
+         */
+        private ARXConfigurationInternal(ARXConfiguration config,
+                                         PrivacyCriterion[] classBasedPrivacyModels,
+                                         SampleBasedCriterion[] sampleBasedPrivacyModels,
+                                         Metric<?> qualityModel) {
             this.config = config;
+            this.classBasedPrivacyModels = classBasedPrivacyModels;
+            this.sampleBasedPrivacyModels = sampleBasedPrivacyModels;
+            this.qualityModel = qualityModel;
+        }
+        
+        /**
+         * Returns a view on the configuration that can be used by another thread
+         * concurrently with this instance. Privacy and quality models are replaced
+         * by their worker instances. Must be called after initialization.
+         *
+         * @return
+         */
+        public ARXConfigurationInternal createWorkerInstance() {
+            PrivacyCriterion[] classBased = getClassBasedPrivacyModelsAsArray().clone();
+            for (int i = 0; i < classBased.length; i++) {
+                classBased[i] = classBased[i].createWorkerInstance();
+            }
+            SampleBasedCriterion[] sampleBased = getSampleBasedPrivacyModelsAsArray().clone();
+            for (int i = 0; i < sampleBased.length; i++) {
+                sampleBased[i] = (SampleBasedCriterion) sampleBased[i].createWorkerInstance();
+            }
+            return new ARXConfigurationInternal(config, classBased, sampleBased, getQualityModel().createWorkerInstance());
         }
 
         /**
@@ -90,7 +136,7 @@ public class ARXConfiguration implements Serializable, Cloneable {
          * @return
          */
         public PrivacyCriterion[] getClassBasedPrivacyModelsAsArray() {
-            return config.getPrivacyModelsAsArray();
+            return classBasedPrivacyModels != null ? classBasedPrivacyModels : config.getPrivacyModelsAsArray();
         }
 
         /**
@@ -153,7 +199,7 @@ public class ARXConfiguration implements Serializable, Cloneable {
          * @return
          */
         public Metric<?> getQualityModel() {
-            return config.getQualityModel();
+            return qualityModel != null ? qualityModel : config.getQualityModel();
         }
         
         /**
@@ -170,7 +216,7 @@ public class ARXConfiguration implements Serializable, Cloneable {
          * @return
          */
         public SampleBasedCriterion[] getSampleBasedPrivacyModelsAsArray() {
-            return config.getSampleBasedPrivacyModelsAsArray();
+            return sampleBasedPrivacyModels != null ? sampleBasedPrivacyModels : config.getSampleBasedPrivacyModelsAsArray();
         }
 
         /**
@@ -372,8 +418,11 @@ public class ARXConfiguration implements Serializable, Cloneable {
     /** Should we use the heuristic search algorithm? */
     private boolean                            heuristicSearchEnabled                = false;
 
+    /** Kept only for backwards compatibility */
+    private Integer                            heuristicSearchThreshold              = null;
+
     /** We will use the heuristic algorithm, if the size of the search space exceeds this threshold */
-    private Integer                            heuristicSearchThreshold              = 100000;
+    private Long                               heuristicSearchThresholdLong          = 100000L;
 
     /** The heuristic algorithm will terminate after the given time limit */
     private Integer                            heuristicSearchTimeLimit              = 30000;
@@ -381,6 +430,12 @@ public class ARXConfiguration implements Serializable, Cloneable {
     /** The heuristic algorithm will terminate after the given number of search steps */
     private Integer                            heuristicSearchStepLimit              = Integer.MAX_VALUE;
 
+    /** The number of threads used by the heuristic algorithm for checking transformations */
+    private Integer                            heuristicSearchThreads                = 1;
+
+    /** Whether generalized data is stored in bit-packed form */
+    private Boolean                            packedDataEnabled                     = false;
+
     /** Cost/benefit configuration */
     private ARXCostBenefitConfiguration        costBenefitConfiguration              = ARXCostBenefitConfiguration.create();
 
@@ -518,8 +573,11 @@ public class ARXConfiguration implements Serializable, Cloneable {
         result.heuristicSearchForSampleBasedCriteria = this.heuristicSearchForSampleBasedCriteria;
         result.heuristicSearchEnabled = this.heuristicSearchEnabled;
         result.heuristicSearchThreshold = this.heuristicSearchThreshold;
+        result.heuristicSearchThresholdLong = this.heuristicSearchThresholdLong;
         result.heuristicSearchTimeLimit = this.heuristicSearchTimeLimit;
         result.heuristicSearchStepLimit = this.heuristicSearchStepLimit;
+        result.heuristicSearchThreads = this.heuristicSearchThreads;
+        result.packedDataEnabled = this.packedDataEnabled;
         result.costBenefitConfiguration = this.getCostBenefitConfiguration().clone();
         result.dpSearchBudget = this.dpSearchBudget;
         result.heuristicSearchStepSemantics = this.heuristicSearchStepSemantics;
@@ -631,16 +689,29 @@ public class ARXConfiguration implements Serializable, Cloneable {
 	    }
     }
     
+    /**
+     * Returns the number of threads used by the heuristic search algorithm for checking
+     * transformations concurrently. The default is 1.
+     * @return
+     */
+    public int getHeuristicSearchThreads() {
+        if (this.heuristicSearchThreads == null) {
+            this.heuristicSearchThreads = 1;
+        }
+        return this.heuristicSearchThreads;
+    }
+    
     /**
      * When the size of the solution space exceeds the returned number of transformations,
      * ARX will use a heuristic search strategy. The default is 100.000.
      * @return
      */
-    public int getHeuristicSearchThreshold() {
-        if (this.heuristicSearchThreshold == null) {
-            this.heuristicSearchThreshold = 100000;
+    public long getHeuristicSearchThreshold() {
+        if (this.heuristicSearchThresholdLong == null) {
+            // For backwards compatibility
+            this.heuristicSearchThresholdLong = this.heuristicSearchThreshold != null ? this.heuristicSearchThreshold : 100000L;
         }
-        return this.heuristicSearchThreshold;
+        return this.heuristicSearchThresholdLong;
     }
   
     /**
@@ -847,6 +918,17 @@ public class ARXConfiguration implements Serializable, Cloneable {
         return this.heuristicSearchEnabled;
     }
     
+    /**
+     * Returns whether generalized data is stored in bit-packed form. The default is <code>false</code>.
+     * @return
+     */
+    public boolean isPackedDataEnabled() {
+        if (this.packedDataEnabled == null) {
+            this.packedDataEnabled = false;
+        }
+        return this.packedDataEnabled;
+    }
+
     /**
      * Is practical monotonicity assumed.
      *
@@ -1023,6 +1105,18 @@ public class ARXConfiguration implements Serializable, Cloneable {
         this.heuristicSearchStepSemantics = searchStepSemantics;
     }
     
+    /**
+     * Sets the number of threads used by the heuristic search algorithm. If set to a value 
+     * larger than one, the successors of a transformation are checked concurrently, each
+     * thread using its own buffers and history. Time and step limits apply to all threads.
+     * The default is 1.
+     * @param threads
+     */
+    public void setHeuristicSearchThreads(int threads) {
+        if (threads <= 0) { throw new IllegalArgumentException("Parameter must be > 0"); }
+        this.heuristicSearchThreads = threads;
+    }
+    
     /**
      * When the size of the solution space exceeds the given number of transformations,
      * ARX will use a heuristic search strategy. The default is 100.000.
@@ -1030,8 +1124,19 @@ public class ARXConfiguration implements Serializable, Cloneable {
      * @return
      */
     public void setHeuristicSearchThreshold(int numberOfTransformations) {
+        this.setHeuristicSearchThreshold((long)numberOfTransformations);
+    }
+    
+    /**
+     * When the size of the solution space exceeds the given number of transformations,
+     * ARX will use a heuristic search strategy. The default is 100.000. Thresholds beyond
+     * Integer.MAX_VALUE allow using optimal search for very large solution spaces.
+     * @param numberOfTransformations
+     * @return
+     */
+    public void setHeuristicSearchThreshold(long numberOfTransformations) {
         if (numberOfTransformations <= 0) { throw new IllegalArgumentException("Parameter must be > 0"); }
-        this.heuristicSearchThreshold = numberOfTransformations;
+        this.heuristicSearchThresholdLong = numberOfTransformations;
     }
     /**
      * The heuristic search algorithm will terminate after the given number of milliseconds.
@@ -1055,6 +1160,17 @@ public class ARXConfiguration implements Serializable, Cloneable {
         this.relMaxOutliers = max;
     }
 
+    /**
+     * Sets whether generalized data is stored in bit-packed form. If enabled, each record
+     * is packed into one or more longs using as many bits per attribute as needed to
+     * represent its domain, which reduces the size of the data buffers used during the
+     * search. The default is <code>false</code>.
+     * @param enabled
+     */
+    public void setPackedDataEnabled(boolean enabled) {
+        this.packedDataEnabled = enabled;
+    }
+
     /**
      * Set, if practical monotonicity assumed.
      *
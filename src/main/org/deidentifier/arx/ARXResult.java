@@ -149,8 +149,7 @@ public class ARXResult {
         // Initialize the metric
         metric.initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
 
-        this.buffer = new DataMatrix(manager.getDataGeneralized().getArray().getNumRows(), 
-                                     manager.getDataGeneralized().getArray().getNumColumns());
+        this.buffer = manager.getDataGeneralized().getArray().createInstance(manager.getDataGeneralized().getArray().getNumRows());
         
         // Initialize the result
         this.registry = handle.getRegistry();
@@ -283,8 +282,9 @@ public class ARXResult {
     /**
      * Returns a handle to data obtained by applying the given transformation. This method allows controlling whether
      * the underlying buffer is copied or not. Setting the flag to true will fork the buffer for every handle, allowing to
-     * obtain multiple handles to different representations of the data set. When setting the flag to false, all previous
-     * handles for output data will be invalidated when a new handle is obtained.
+     * obtain multiple handles to different representations of the data set. Forked handles generalize the input data on
+     * demand and only store microaggregated values and the suppression status of each record. When setting the flag to
+     * false, all previous handles for output data will be invalidated when a new handle is obtained.
      *  
      * @param node the transformation
      * @param fork Set this flag to false, only if you know exactly what you are doing.
@@ -292,6 +292,23 @@ public class ARXResult {
      * @return
      */
     public DataHandle getOutput(ARXNode node, boolean fork) {
+        return getOutput(node, fork, fork);
+    }
+    
+    /**
+     * Returns a handle to data obtained by applying the given transformation. This method allows controlling whether
+     * the underlying buffer is copied or not, and whether the output data is created lazily. Lazily created data
+     * generalizes the input data on demand and only stores microaggregated values and the suppression status of each
+     * record, instead of a copy of the buffer. This is only possible while the rows of the input handle are swapped
+     * together with the rows of the output data. Otherwise, the output data is created eagerly.
+     *  
+     * @param node the transformation
+     * @param fork Set this flag to false, only if you know exactly what you are doing.
+     * @param lazy Whether the output data should be created lazily, if possible
+     * 
+     * @return
+     */
+    public DataHandle getOutput(ARXNode node, boolean fork, boolean lazy) {
         
         // Check lock
         if (fork && bufferLockedByHandle != null) {
@@ -325,7 +342,9 @@ public class ARXResult {
                                                                            this.config.getQualityModel(),
                                                                            this.config.getInternalConfiguration());
         
-        TransformedData information = applicator.applyTransformation(transformation);
+        // Output data is created lazily as a view on the input data, if requested and possible
+        lazy = lazy && isInputBufferShared();
+        TransformedData information = lazy ? applicator.applyTransformationLazily(transformation) : applicator.applyTransformation(transformation);
         transformation.setChecked(information.properties);
 
         // Store
@@ -343,10 +362,9 @@ public class ARXResult {
             lattice.estimateInformationLoss();
         }
         
-        // Clone if needed
-        if (fork) {
+        // Clone if needed. Data which has been created lazily is not backed by the buffer.
+        if (fork && !lazy) {
             information.bufferGeneralized = information.bufferGeneralized.clone(); 
-            information.bufferMicroaggregated = information.bufferMicroaggregated.clone(); 
         }
 
         // Create
@@ -720,6 +738,9 @@ public class ARXResult {
             // Update data types
             output.updateDataTypes(result.optimum.getGeneralization());
             
+            // Records have been recoded
+            this.registry.modified();
+            
             // Mark as optimized
             if (optimized != 0) {
                 output.setOptimized(true);
@@ -963,6 +984,17 @@ public class ARXResult {
         return result;
     }
 
+    /**
+     * Returns whether the rows of the input buffer are swapped together with the rows of output data.
+     * Only in this case, output data can be represented by views on the input buffer.
+     *
+     * @return
+     */
+    private boolean isInputBufferShared() {
+        DataHandleInput input = registry.getInputHandle();
+        return input != null && !input.isReleased() && input.getInputBuffer() == manager.getDataGeneralized().getArray();
+    }
+
     /**
      * Releases the buffer.
      *
@@ -972,6 +1004,10 @@ public class ARXResult {
         if (handle == bufferLockedByHandle) {
             bufferLockedByHandle = null;
             bufferLockedByNode = null;
+        } else {
+            // Forked handles own their buffers
+            handle.getOutputBufferGeneralized().release();
+            handle.getOutputBufferMicroaggregated().release();
         }
     }
 }
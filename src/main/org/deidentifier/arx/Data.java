@@ -26,11 +26,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+import org.deidentifier.arx.io.BinaryDataInput;
 import org.deidentifier.arx.io.CSVDataInput;
 import org.deidentifier.arx.io.CSVOptions;
 import org.deidentifier.arx.io.CSVSyntax;
 import org.deidentifier.arx.io.ImportAdapter;
 import org.deidentifier.arx.io.ImportConfiguration;
+import org.deidentifier.arx.io.ImportConfigurationBinary;
 
 /**
  * Represents input data for the ARX framework.
@@ -117,6 +121,120 @@ public abstract class Data { // NO_UCD
 
     }
 
+    /**
+     * A data object for data in the binary format written by {@link DataHandle#saveBinary(File)}.
+     * The data is read directly into a dictionary and a data matrix when a handle is created.
+     *
+     * @author Fabian Prasser
+     */
+    static class BinaryData extends Data {
+
+        /** Input */
+        private final BinaryDataInput input;
+
+        /** Dictionary */
+        private Dictionary            dictionary;
+
+        /** Data */
+        private DataMatrix            matrix;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param input the input
+         */
+        private BinaryData(final BinaryDataInput input) {
+            this.input = input;
+            DataType<?>[] types = input.getDataTypes();
+            if (types != null) {
+                for (int i = 0; i < types.length; i++) {
+                    this.getDefinition().setDataType(input.getHeader()[i], types[i]);
+                }
+            }
+        }
+
+        @Override
+        protected Integer getLength() {
+            return input.getNumRows();
+        }
+
+        @Override
+        protected Iterator<String[]> iterator() {
+            load();
+            final String[][] mapping = dictionary.getMapping();
+            final String[] header = input.getHeader();
+            return new Iterator<String[]>() {
+
+                private int row = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return row < matrix.getNumRows();
+                }
+
+                @Override
+                public String[] next() throws NoSuchElementException {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String[] result = new String[header.length];
+                    for (int column = 0; column < result.length; column++) {
+                        result[column] = row == -1 ? header[column] : mapping[column][matrix.get(row, column)];
+                    }
+                    row++;
+                    return result;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        /**
+         * Returns the finalized dictionary
+         * @return
+         */
+        Dictionary getDictionary() {
+            load();
+            return dictionary;
+        }
+
+        /**
+         * Returns the header
+         * @return
+         */
+        String[] getHeader() {
+            return input.getHeader();
+        }
+
+        /**
+         * Returns the encoded data
+         * @return
+         */
+        DataMatrix getMatrix() {
+            load();
+            return matrix;
+        }
+
+        /**
+         * Reads the data, if this has not been done before
+         */
+        private void load() {
+            if (matrix == null) {
+                try {
+                    Dictionary dictionary = new Dictionary(input.getHeader().length);
+                    this.matrix = input.read(dictionary, getMemoryMappingThreshold());
+                    dictionary.finalizeAll();
+                    this.dictionary = dictionary;
+                } catch (IOException e) {
+                    throw new RuntimeException("Error while reading data", e);
+                }
+            }
+        }
+    }
+
     /**
      * A data object for iterators.
      *
@@ -131,6 +249,19 @@ public abstract class Data { // NO_UCD
         /** Length*/
         private Integer length;
 
+        /** Input, if data is read from CSV */
+        private CSVDataInput input = null;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param input the input
+         */
+        private IterableData(final CSVDataInput input) {
+            this(input.iterator());
+            this.input = input;
+        }
+
         /**
          * Creates a new instance.
          *
@@ -160,6 +291,11 @@ public abstract class Data { // NO_UCD
         protected Iterator<String[]> iterator() {
             return iterator;
         }
+
+        @Override
+        protected Iterator<Iterator<String[]>> parts() {
+            return input != null ? input.parts() : null;
+        }
     }
 
     /**
@@ -181,6 +317,9 @@ public abstract class Data { // NO_UCD
     public static Data create(final DataSource source) throws IOException {
 
         ImportConfiguration config = source.getConfiguration();
+        if (config instanceof ImportConfigurationBinary) {
+            return new BinaryData(new BinaryDataInput((ImportConfigurationBinary) config));
+        }
         ImportAdapter adapter = ImportAdapter.create(config);
         return create(adapter, adapter.getLength());
     }
@@ -193,7 +332,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset).iterator());
+        return new IterableData(new CSVDataInput(file, charset));
     }
 
     /**
@@ -205,7 +344,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter).iterator());
+        return new IterableData(new CSVDataInput(file, charset, delimiter));
     }
 
     /**
@@ -218,7 +357,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote).iterator());
+        return new IterableData(new CSVDataInput(file, charset, delimiter, quote));
     }
 
     /**
@@ -232,7 +371,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape).iterator());
+        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape));
     }
 
     /**
@@ -247,7 +386,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape, linebreak).iterator());
+        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -259,7 +398,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config).iterator());
+        return new IterableData(new CSVDataInput(file, charset, config));
     }
 
     /**
@@ -272,7 +411,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config, final CSVOptions options) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config, options).iterator());
+        return new IterableData(new CSVDataInput(file, charset, config, options));
     }
 
     /**
@@ -285,7 +424,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config, datatypes).iterator());
+        return new IterableData(new CSVDataInput(file, charset, config, datatypes));
     }
     /**
      * Creates a new data object from a CSV file. Assumes that the file contains a header.
@@ -295,7 +434,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset).iterator());
+        return new IterableData(new CSVDataInput(stream, charset));
     }
 
     /**
@@ -307,7 +446,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, delimiter));
     }
 
     /**
@@ -333,7 +472,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote));
     }
 
     /**
@@ -347,7 +486,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape));
     }
 
     /**
@@ -362,7 +501,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape, linebreak).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -374,7 +513,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final CSVSyntax config) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, config).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, config));
     }
 
     /**
@@ -387,7 +526,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, config, datatypes).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, config, datatypes));
     }
 
     /**
@@ -461,7 +600,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset).iterator());
+        return new IterableData(new CSVDataInput(path, charset));
     }
 
     /**
@@ -473,7 +612,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter).iterator());
+        return new IterableData(new CSVDataInput(path, charset, delimiter));
     }
 
     /**
@@ -486,7 +625,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote).iterator());
+        return new IterableData(new CSVDataInput(path, charset, delimiter, quote));
     }
 
     /**
@@ -500,7 +639,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape).iterator());
+        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape));
     }
 
     /**
@@ -515,7 +654,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape, linebreak).iterator());
+        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -528,7 +667,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final CSVSyntax config, final CSVOptions options) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, config, options).iterator());
+        return new IterableData(new CSVDataInput(path, charset, config, options));
     }
 
     /**
@@ -541,7 +680,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, config, datatypes).iterator());
+        return new IterableData(new CSVDataInput(path, charset, config, datatypes));
     }
 
     /**
@@ -554,12 +693,55 @@ public abstract class Data { // NO_UCD
         return new ArrayData(array);
     }
 
+    /**
+     * Creates a new data object from a file in the binary format written by
+     * {@link DataHandle#saveBinary(File)}.
+     *
+     * @param file the file
+     * @return the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static Data createBinary(final File file) throws IOException {
+        return new BinaryData(new BinaryDataInput(file));
+    }
+
+    /**
+     * Creates a new data object from a stream in the binary format written by
+     * {@link DataHandle#saveBinary(OutputStream, boolean)}. The stream will be closed after
+     * the data has been read.
+     *
+     * @param stream the stream
+     * @return the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static Data createBinary(final InputStream stream) throws IOException {
+        return new BinaryData(new BinaryDataInput(stream));
+    }
+
+    /**
+     * Creates a new data object from a file in the binary format written by
+     * {@link DataHandle#saveBinary(String)}.
+     *
+     * @param path the path
+     * @return the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static Data createBinary(final String path) throws IOException {
+        return createBinary(new File(path));
+    }
+
     /** The data handle. */
     private DataHandleInput handle;
 
     /** The data definition. */
     private DataDefinition  definition = new DataDefinition();
 
+    /** Size in bytes above which encoded data is memory-mapped, null if memory-mapping is disabled */
+    private Long            memoryMappingThreshold;
+
+    /** Number of threads used for encoding data */
+    private int             parallelism = 1;
+
     /**
      * Returns the data definition.
      *
@@ -583,6 +765,55 @@ public abstract class Data { // NO_UCD
         return handle;
     }
 
+    /**
+     * Returns the size in bytes above which the encoded data is stored in a memory-mapped
+     * file instead of the heap. Unless set explicitly, memory-mapping is not used and
+     * <code>Long.MAX_VALUE</code> is returned.
+     * 
+     * @return
+     */
+    public long getMemoryMappingThreshold() {
+        if (memoryMappingThreshold == null) {
+            return Long.MAX_VALUE;
+        }
+        return memoryMappingThreshold;
+    }
+
+    /**
+     * Returns the number of threads used for encoding data when obtaining a handle.
+     * 
+     * @return The degree of parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads used for encoding data when obtaining a handle. If set to a value
+     * larger than one, records are read in chunks, which are encoded concurrently. CSV files are
+     * also split at record boundaries and parsed concurrently. The result is identical to
+     * sequential processing. Must be called before obtaining a handle.
+     * 
+     * @param parallelism The degree of parallelism [default=1]
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) { throw new IllegalArgumentException("Degree of parallelism must be at least 1"); }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the size in bytes above which the encoded data, and all buffers derived from it during
+     * anonymization, are stored in a memory-mapped file instead of the heap. Use <code>0</code> to
+     * always and <code>Long.MAX_VALUE</code> to never use memory-mapping. Must be called before
+     * obtaining a handle.
+     * 
+     * @param threshold [default=Long.MAX_VALUE]
+     */
+    public void setMemoryMappingThreshold(long threshold) {
+        if (threshold < 0) { throw new IllegalArgumentException("Parameter must be >= 0"); }
+        this.memoryMappingThreshold = threshold;
+    }
+
     /**
      * Override to return a length to improve loading
      * @return
@@ -597,4 +828,14 @@ public abstract class Data { // NO_UCD
      * @return the iterator
      */
     protected abstract Iterator<String[]> iterator();
+
+    /**
+     * Override to return iterators over consecutive parts of the data, which can be
+     * parsed concurrently. The first record of the first part is the header. Must not be
+     * used in combination with {@link #iterator()}.
+     * @return
+     */
+    protected Iterator<Iterator<String[]>> parts() {
+        return null;
+    }
 }
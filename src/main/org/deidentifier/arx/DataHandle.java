@@ -42,8 +42,10 @@ import org.deidentifier.arx.DataType.ARXDate;
 import org.deidentifier.arx.DataType.ARXDecimal;
 import org.deidentifier.arx.DataType.ARXInteger;
 import org.deidentifier.arx.DataType.DataTypeDescription;
+import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.certificate.elements.ElementData;
+import org.deidentifier.arx.io.BinaryDataOutput;
 import org.deidentifier.arx.io.CSVDataOutput;
 import org.deidentifier.arx.io.CSVSyntax;
 import org.deidentifier.arx.risk.RiskEstimateBuilder;
@@ -67,6 +69,83 @@ import com.carrotsearch.hppc.ObjectIntOpenHashMap;
  */
 public abstract class DataHandle {
 
+    /**
+     * The values of a column parsed with its data type, indexed by code + 1
+     * 
+     * @author Fabian Prasser
+     */
+    private static class ParsedColumn {
+
+        /** The data type */
+        private final DataType<?> type;
+
+        /** The dictionary */
+        private final String[]    dictionary;
+
+        /** The strings that have been parsed */
+        private final String[]    sources;
+
+        /** The parsed values, UNPARSEABLE for values that cannot be parsed */
+        private final Object[]    values;
+
+        /** The parsed values converted to doubles, built lazily */
+        private double[]          doubles;
+
+        /**
+         * Creates a new instance
+         * @param type
+         * @param dictionary
+         */
+        private ParsedColumn(DataType<?> type, String[] dictionary) {
+            this.type = type;
+            this.dictionary = dictionary;
+            this.sources = new String[dictionary.length + 1];
+            this.values = new Object[dictionary.length + 1];
+        }
+
+        /**
+         * Returns the parsed value of the given string, which is represented by the given code
+         * @param code
+         * @param value
+         * @return
+         */
+        private synchronized Object get(int code, String value) {
+            if (sources[code + 1] != value) {
+                Object parsed;
+                try {
+                    parsed = type.parse(value);
+                } catch (Exception e) {
+                    parsed = UNPARSEABLE;
+                }
+                values[code + 1] = parsed;
+                sources[code + 1] = value;
+            }
+            return values[code + 1];
+        }
+
+        /**
+         * Returns the parsed values converted to doubles
+         * @return
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private synchronized double[] getDoubles() {
+            if (doubles == null) {
+                double[] result = new double[dictionary.length + 1];
+                result[0] = Double.NaN;
+                for (int code = 0; code < dictionary.length; code++) {
+                    Object value = get(code, dictionary[code]);
+                    result[code + 1] = value == null || value == UNPARSEABLE ? Double.NaN :
+                                       ((DataTypeWithRatioScale) type).toDouble(value);
+                }
+                doubles = result;
+            }
+            return doubles;
+        }
+    }
+
+    /** Marker for values that cannot be parsed */
+    private static final Object            UNPARSEABLE      = new Object();
+
     /** The data types. */
     protected DataType<?>[]                columnToDataType = null;
 
@@ -87,6 +166,9 @@ public abstract class DataHandle {
 
     /** The current research subset. */
     protected DataHandle                   subset           = null;
+
+    /** Parsed values of each column, built lazily */
+    private ParsedColumn[]                 parsedColumns    = null;
     
     /**
      * Returns the name of the specified column.
@@ -127,10 +209,10 @@ public abstract class DataHandle {
      * @throws ParseException the parse exception
      */
     public Date getDate(int row, int col) throws ParseException {
-        String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXDate) {
-            return ((ARXDate) type).parse(value);
+            Date date = (Date) getParsedValue(row, col, type);
+            return date == null ? null : new Date(date.getTime());
         } else {
             throw new ParseException("Invalid datatype: " + type.getClass().getSimpleName(), col);
         }
@@ -170,12 +252,11 @@ public abstract class DataHandle {
      * @throws ParseException the parse exception
      */
     public Double getDouble(int row, int col) throws ParseException {
-        String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXDecimal) {
-            return ((ARXDecimal) type).parse(value);
+            return (Double) getParsedValue(row, col, type);
         } else if (type instanceof ARXInteger) {
-            Long _long = ((ARXInteger) type).parse(value);
+            Long _long = (Long) getParsedValue(row, col, type);
             return _long == null ? null : _long.doubleValue();
         } else {
             throw new ParseException("Invalid datatype: " + type.getClass().getSimpleName(), col);
@@ -191,13 +272,12 @@ public abstract class DataHandle {
      * @throws ParseException the parse exception
      */
     public Float getFloat(int row, int col) throws ParseException {
-        String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXDecimal) {
-            Double _double = ((ARXDecimal) type).parse(value);
+            Double _double = (Double) getParsedValue(row, col, type);
             return _double == null ? null : _double.floatValue();
         } else if (type instanceof ARXInteger) {
-            Long _long = ((ARXInteger) type).parse(value);
+            Long _long = (Long) getParsedValue(row, col, type);
             return _long == null ? null : _long.floatValue();
         } else {
             throw new ParseException("Invalid datatype: " + type.getClass().getSimpleName(), col);
@@ -221,10 +301,9 @@ public abstract class DataHandle {
      * @throws ParseException the parse exception
      */
     public Integer getInt(int row, int col) throws ParseException {
-        String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXInteger) {
-            Long _long = ((ARXInteger) type).parse(value);
+            Long _long = (Long) getParsedValue(row, col, type);
             return _long == null ? null : _long.intValue();
         } else {
             throw new ParseException("Invalid datatype: " + type.getClass().getSimpleName(), col);
@@ -240,10 +319,9 @@ public abstract class DataHandle {
      * @throws ParseException the parse exception
      */
     public Long getLong(int row, int col) throws ParseException {
-        String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXInteger) {
-            return ((ARXInteger) type).parse(value);
+            return (Long) getParsedValue(row, col, type);
         } else {
             throw new ParseException("Invalid datatype: " + type.getClass().getSimpleName(), col);
         }
@@ -775,6 +853,54 @@ public abstract class DataHandle {
         output.write(iterator());
     }
 
+    /**
+     * Writes the data to a file in a columnar binary format, which stores the dictionary and the
+     * packed codes of each column. Values are not converted into strings for each record. The file
+     * can be imported with {@link Data#createBinary(File)} or {@link DataSource#createBinarySource(File)}.
+     *
+     * @param file the file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void saveBinary(final File file) throws IOException {
+        saveBinary(file, false);
+    }
+
+    /**
+     * Writes the data to a file in a columnar binary format.
+     *
+     * @param file the file
+     * @param compressed Whether to deflate the content
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void saveBinary(final File file, final boolean compressed) throws IOException {
+        checkReleased();
+        final BinaryDataOutput output = new BinaryDataOutput(file, compressed);
+        output.write(new DataHandleInternal(this));
+    }
+
+    /**
+     * Writes the data to a stream in a columnar binary format. The stream will not be closed.
+     *
+     * @param out Output stream
+     * @param compressed Whether to deflate the content
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void saveBinary(final OutputStream out, final boolean compressed) throws IOException {
+        checkReleased();
+        final BinaryDataOutput output = new BinaryDataOutput(out, compressed);
+        output.write(new DataHandleInternal(this));
+    }
+
+    /**
+     * Writes the data to a file in a columnar binary format.
+     *
+     * @param path the path
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void saveBinary(final String path) throws IOException {
+        saveBinary(new File(path), false);
+    }
+
     /**
      * Sorts the dataset according to the given columns. Will sort input and
      * output analogously.
@@ -988,6 +1114,34 @@ public abstract class DataHandle {
         }
     }
 
+    /**
+     * Returns the values of the given column parsed with its data type and converted to doubles,
+     * indexed by code + 1. Values which are null or which cannot be parsed, including suppressed
+     * values, are represented as NaN. Returns null if the column is not encoded or if its data type
+     * does not have a ratio scale. The array is built once and reused until the data type or the
+     * dictionary changes.
+     *
+     * @param col the col
+     * @return the values
+     */
+    protected double[] internalGetDoubles(int col) {
+        ParsedColumn column = getParsedColumn(col);
+        if (column == null || !(column.type instanceof DataTypeWithRatioScale)) {
+            return null;
+        }
+        return column.getDoubles();
+    }
+
+    /**
+     * Returns the number of modifications of the data represented by this handle and all
+     * handles paired with it, e.g. by sorting, swapping, replacing or recoding records.
+     *
+     * @return the number of modifications
+     */
+    protected long internalGetModifications() {
+        return registry != null ? registry.getModifications() : 0;
+    }
+
     /**
      * Internal representation of get encoded value. Returns -1 for suppressed values.
      *
@@ -997,6 +1151,15 @@ public abstract class DataHandle {
      */
     protected abstract int internalGetEncodedValue(int row, int col, boolean ignoreSuppression);
 
+    /**
+     * Returns the values encoded by {@link #internalGetEncodedValue(int, int, boolean)} for the
+     * given column, indexed by their codes. Returns null if the column is not encoded.
+     *
+     * @param col the col
+     * @return the dictionary
+     */
+    protected abstract String[] internalGetDictionary(int col);
+
     /**
      * Internal representation of get value.
      *
@@ -1025,6 +1188,13 @@ public abstract class DataHandle {
      */
     protected abstract boolean internalReplace(int column, String original, String replacement);
 
+    /**
+     * Discards all parsed values, e.g. after values have been replaced.
+     */
+    protected synchronized void internalResetParsedValues() {
+        parsedColumns = null;
+    }
+
     /**
      * Returns whether the data represented by this handle is anonymous
      * @return
@@ -1062,4 +1232,56 @@ public abstract class DataHandle {
     protected void setView(DataHandle handle) {
         subset = handle;
     }
+
+    /**
+     * Returns the parsed values of the given column. Returns null if the column is not encoded.
+     * The values are rebuilt if the data type or the dictionary of the column has changed.
+     *
+     * @param col the col
+     * @return the parsed values
+     */
+    private synchronized ParsedColumn getParsedColumn(int col) {
+        
+        // Check
+        String[] dictionary = internalGetDictionary(col);
+        if (dictionary == null) {
+            return null;
+        }
+        DataType<?> type = getDataType(getAttributeName(col));
+        
+        // Prepare
+        if (parsedColumns == null) {
+            parsedColumns = new ParsedColumn[getNumColumns()];
+        }
+        
+        // Build
+        ParsedColumn column = parsedColumns[col];
+        if (column == null || column.type != type || column.dictionary != dictionary ||
+            column.values.length != dictionary.length + 1) {
+            column = new ParsedColumn(type, dictionary);
+            parsedColumns[col] = column;
+        }
+        return column;
+    }
+
+    /**
+     * Returns the value of the given cell parsed with the given data type. Each distinct
+     * value is parsed only once.
+     *
+     * @param row the row
+     * @param col the col
+     * @param type the data type of the column
+     * @return the parsed value
+     */
+    private Object getParsedValue(int row, int col, DataType<?> type) {
+        String value = getValue(row, col);
+        ParsedColumn column = getParsedColumn(col);
+        if (column != null) {
+            Object parsed = column.get(internalGetEncodedValue(row, col, false), value);
+            if (parsed != UNPARSEABLE) {
+                return parsed;
+            }
+        }
+        return type.parse(value);
+    }
 }
@@ -17,14 +17,13 @@
 
 package org.deidentifier.arx;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Set;
 
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.framework.data.DataEncoder;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.Dictionary;
 
@@ -64,8 +63,23 @@ public class DataHandleInput extends DataHandle {
      */
     protected DataHandleInput(final Data data) {
         
-        // Obtain and check iterator
-        Iterator<String[]> iterator = data.iterator();
+        // Use encoded data, if available
+        if (data instanceof Data.BinaryData) {
+            Data.BinaryData binary = (Data.BinaryData) data;
+            this.setRegistry(new DataRegistry());
+            this.getRegistry().updateInput(this);
+            this.definition = data.getDefinition().clone();
+            String[] columns = binary.getHeader();
+            super.setHeader(Arrays.copyOf(columns, columns.length));
+            this.dictionary = binary.getDictionary();
+            this.data = binary.getMatrix();
+            this.columnToDataType = getColumnToDataType();
+            return;
+        }
+
+        // Obtain and check iterator. Parse data in parts concurrently, if possible
+        Iterator<Iterator<String[]>> parts = data.getParallelism() > 1 ? data.parts() : null;
+        Iterator<String[]> iterator = parts != null ? parts.next() : data.iterator();
         if (!iterator.hasNext()) { 
             throw new IllegalArgumentException("Data object is empty!"); 
         }
@@ -82,58 +96,13 @@ public class DataHandleInput extends DataHandle {
         // Init dictionary
         this.dictionary = new Dictionary(header.length);
         
-        // Optimized code-path, if the number of records is known
-        if (data.getLength() != null && data.getLength() > 0) {
-            
-            // Records
-            int records = data.getLength();
-
-            // Build array
-            this.data = new DataMatrix(records, header.length);
-            
-            // Encode data on the fly
-            int row = 0;
-            while (iterator.hasNext()) {
-    
-                // Process a tuple
-                String[] strings = iterator.next();
-                int[] tuple = new int[header.length];
-                for (int i = 0; i < header.length; i++) {
-                    String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
-                    value = (value != null) ? value : DataType.NULL_VALUE;
-                    tuple[i] = dictionary.register(i, value);
-                }
-                this.data.setRow(row, tuple);
-                row++;
-            }
-            
-            // Sanity check to prevent loading errors
-            if (row != records) {
-                throw new IllegalStateException("Invalid internal state. Numbers of records don't match. Expected: <" + records + "> is: <" + row + ">");
-            }
-
-        } else { 
-    
-            // Encode data
-            List<int[]> vals = new ArrayList<int[]>();
-            while (iterator.hasNext()) {
-    
-                // Process a tuple
-                String[] strings = iterator.next();
-                int[] tuple = new int[header.length];
-                for (int i = 0; i < header.length; i++) {
-                    String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
-                    value = (value != null) ? value : DataType.NULL_VALUE;
-                    tuple[i] = dictionary.register(i, value);
-                }
-                vals.add(tuple);
-            }
-    
-            // Build array
-            this.data = new DataMatrix(vals.size(), header.length);
-            for (int row = 0; row < vals.size(); row++) {
-                this.data.setRow(row, vals.get(row));
-            }
+        // Encode data. Optimized code-path, if the number of records is known
+        DataEncoder encoder = new DataEncoder(dictionary, header.length, data.getParallelism());
+        if (parts != null) {
+            this.data = encoder.encode(iterator, parts, data.getMemoryMappingThreshold());
+        } else {
+            Integer records = (data.getLength() != null && data.getLength() > 0) ? data.getLength() : null;
+            this.data = encoder.encode(iterator, records, data.getMemoryMappingThreshold());
         }
 
         // finalize dictionary
@@ -330,6 +299,11 @@ public class DataHandleInput extends DataHandle {
         return -1;
     }
 
+    @Override
+    protected String[] internalGetDictionary(final int column) {
+        return dictionary.getMapping()[column];
+    }
+
     @Override
     protected int internalGetEncodedValue(final int row, final int column, final boolean ignoreSuppression) {
         return data.get(row, column);
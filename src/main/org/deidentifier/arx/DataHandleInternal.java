@@ -151,6 +151,28 @@ public class DataHandleInternal {
         return handle.getDistinctValues(column, false, stop);
     }
     
+    /**
+     * Returns the values of the given column, indexed by their codes. Returns null if
+     * the column is not encoded, i.e. if all of its values are suppressed.
+     * @param column
+     * @return
+     */
+    public String[] getDictionary(int column) {
+        return handle.internalGetDictionary(column);
+    }
+    
+    /**
+     * Returns the values of the given column parsed with its data type and converted to doubles,
+     * indexed by code + 1. Values which are null or which cannot be parsed, including suppressed
+     * values, are represented as NaN. Returns null if the column is not encoded or if its data
+     * type does not have a ratio scale. Each distinct value is parsed only once.
+     * @param column
+     * @return
+     */
+    public double[] getDoubles(int column) {
+        return handle.internalGetDoubles(column);
+    }
+    
     /**
      * Gets the encoded value. Returns -1 for suppressed values.
      */
@@ -175,6 +197,15 @@ public class DataHandleInternal {
         return this.handle;
     }
 
+    /**
+     * Returns the number of modifications of the underlying data, e.g. by sorting, swapping,
+     * replacing or recoding records. Can be used to detect whether derived data is outdated.
+     * @return
+     */
+    public long getModifications() {
+        return handle.internalGetModifications();
+    }
+
     /**
      * Method
      * @return
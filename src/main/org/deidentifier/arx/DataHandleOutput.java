@@ -570,6 +570,21 @@ public class DataHandleOutput extends DataHandle {
         return 0;
     }
 
+    @Override
+    protected String[] internalGetDictionary(final int col) {
+
+        // Extract info
+        Data data = columnToData[col];
+        
+        // Handle identifying values
+        if (data == null) {
+            return null;
+        }
+        
+        // Return
+        return data.getDictionary().getMapping()[columnToIndex[col]];
+    }
+
     @Override
     protected int internalGetEncodedValue(final int row,
                                           final int col,
@@ -210,6 +210,11 @@ public class DataHandleSubset extends DataHandle {
         return source.internalCompare(this.subset.getArray()[row1], this.subset.getArray()[row2], columns, ascending);
     }
     
+    @Override
+    protected String[] internalGetDictionary(int col) {
+        return source.internalGetDictionary(col);
+    }
+
     @Override
     protected int internalGetEncodedValue(int row, int col, boolean ignoreSuppression) {
         return source.internalGetEncodedValue(this.subset.getArray()[row], col, ignoreSuppression);
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.deidentifier.arx.ARXLattice.ARXNode;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMatrix;
 
 import cern.colt.GenericSorting;
 import cern.colt.Swapper;
@@ -47,6 +48,9 @@ class DataRegistry {
     /** The output subset handle, if any. */
     private Map<ARXNode, DataHandleSubset> outputSubset = new HashMap<ARXNode, DataHandleSubset>();
 
+    /** The number of modifications of the data, i.e. of sort, swap and replace operations. */
+    private long modifications = 0;
+
     /**
      * Default constructor.
      */
@@ -62,11 +66,24 @@ class DataRegistry {
      * @return
      */
     public boolean replace(int column, String original, String replacement) {
+        modifications++;
         boolean replaced = false; 
         replaced |= input.internalReplace(column, original, replacement);
         if (!output.isEmpty()) {
             replaced |= output.values().iterator().next().internalReplace(column, original, replacement);
         }
+        
+        // Discard parsed values
+        input.internalResetParsedValues();
+        if (inputSubset != null) {
+            inputSubset.internalResetParsedValues();
+        }
+        for (DataHandle handle : output.values()) {
+            handle.internalResetParsedValues();
+        }
+        for (DataHandle handle : outputSubset.values()) {
+            handle.internalResetParsedValues();
+        }
         return replaced;
     }
     
@@ -116,6 +133,7 @@ class DataRegistry {
                          final boolean ascending,
                          final int... columns) {
 
+        modifications++;
         final DataHandle outer = handle;
         final DataHandleSubset subset = getSubset();
         
@@ -159,6 +177,7 @@ class DataRegistry {
                               final boolean ascending,
                               final int... columns) {
 
+        modifications++;
         final DataHandleSubset outer = handle;
         final IntComparator c = new IntComparator() {
             @Override
@@ -193,6 +212,7 @@ class DataRegistry {
      * @param row2
      */
     private void swapAll(DataHandle handle, int row1, int row2) {
+        modifications++;
         if (input != null) {
             input.internalSwap(row1, row2);
         }
@@ -218,6 +238,7 @@ class DataRegistry {
     private void swapSubset(DataHandleSubset handle, int row1, int row2) {
         
         // Nothing to do for subsets
+        modifications++;
         row1 = handle.internalTranslate(row1);
         row2 = handle.internalTranslate(row2);
         if (input != null) input.internalSwap(row1, row2);
@@ -264,6 +285,15 @@ class DataRegistry {
         return this.input.getBaseDataType(attribute);
     }
 
+    /**
+     * Returns the number of modifications of the data represented by the registered handles.
+     * The number increases whenever records are sorted, swapped, replaced or recoded.
+     * @return
+     */
+    protected long getModifications() {
+        return this.modifications;
+    }
+
     /**
      * Returns the input handle
      * @return
@@ -302,6 +332,13 @@ class DataRegistry {
         }
     }
 
+    /**
+     * Marks the data as modified, e.g. after records have been recoded.
+     */
+    protected void modified() {
+        this.modifications++;
+    }
+
     /**
      * Releases the given handle.
      *
@@ -321,6 +358,7 @@ class DataRegistry {
             if (entry.getValue().equals(handle)) {
                 outputSubset.remove(entry.getKey());
                 iter.remove();
+                ClassificationFeatureMatrix.release(handle, handle.subset);
                 handle.doRelease();
                 return;
             }
@@ -329,6 +367,7 @@ class DataRegistry {
         // Handle input
         if (handle.equals(input)) {
             this.reset();
+            ClassificationFeatureMatrix.release(input, input.subset);
             input.doRelease();
         }
     }
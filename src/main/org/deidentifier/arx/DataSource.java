@@ -20,23 +20,46 @@ import java.io.File;
 import java.nio.charset.Charset;
 import java.sql.SQLException;
 
+import org.deidentifier.arx.io.ImportColumnBinary;
 import org.deidentifier.arx.io.ImportColumnCSV;
 import org.deidentifier.arx.io.ImportColumnExcel;
 import org.deidentifier.arx.io.ImportColumnJDBC;
 import org.deidentifier.arx.io.ImportConfiguration;
+import org.deidentifier.arx.io.ImportConfigurationBinary;
 import org.deidentifier.arx.io.ImportConfigurationCSV;
 import org.deidentifier.arx.io.ImportConfigurationExcel;
 import org.deidentifier.arx.io.ImportConfigurationJDBC;
 
 /**
- * This class provides configuration options for importing data from CSV-files, from Excel-files
- * or via a JDBC connection.
+ * This class provides configuration options for importing data from CSV-files, from Excel-files,
+ * from files in ARX's binary format or via a JDBC connection.
  *
  * @author Fabian Prasser
  * @author Florian Kohlmayer
  */
 public class DataSource { // NO_UCD
     
+    /**
+     * Creates a source for a file in the binary format written by {@link DataHandle#saveBinary(File)}.
+     * Such files always contain a header. Values are validated once per distinct value.
+     *
+     * @param file
+     * @return
+     */
+    public static DataSource createBinarySource(File file) {
+        return new DataSource(file);
+    }
+    
+    /**
+     * Creates a source for a file in the binary format written by {@link DataHandle#saveBinary(File)}.
+     *
+     * @param file
+     * @return
+     */
+    public static DataSource createBinarySource(String file) {
+        return createBinarySource(new File(file));
+    }
+    
     /**
      * Creates a CSV data source.
      *
@@ -114,6 +137,15 @@ public class DataSource { // NO_UCD
     /** The config. */
     private final ImportConfiguration config;
     
+    /**
+     * Creates a binary source.
+     *
+     * @param file
+     */
+    private DataSource(File file) {
+        config = new ImportConfigurationBinary(file.getAbsolutePath());
+    }
+    
     /**
      * Creates a CSV source.
      *
@@ -182,6 +214,8 @@ public class DataSource { // NO_UCD
             config.addColumn(new ImportColumnExcel(index, datatype));
         } else if (config instanceof ImportConfigurationJDBC) {
             config.addColumn(new ImportColumnJDBC(index, datatype));
+        } else if (config instanceof ImportConfigurationBinary) {
+            config.addColumn(new ImportColumnBinary(index, datatype));
         }
     }
     
@@ -198,6 +232,8 @@ public class DataSource { // NO_UCD
             config.addColumn(new ImportColumnExcel(index, datatype, cleansing));
         } else if (config instanceof ImportConfigurationJDBC) {
             config.addColumn(new ImportColumnJDBC(index, datatype, cleansing));
+        } else if (config instanceof ImportConfigurationBinary) {
+            config.addColumn(new ImportColumnBinary(index, datatype, cleansing));
         }
     }
     
@@ -225,6 +261,8 @@ public class DataSource { // NO_UCD
             config.addColumn(new ImportColumnExcel(index, alias, datatype));
         } else if (config instanceof ImportConfigurationJDBC) {
             config.addColumn(new ImportColumnJDBC(index, alias, datatype));
+        } else if (config instanceof ImportConfigurationBinary) {
+            config.addColumn(new ImportColumnBinary(index, alias, datatype));
         }
     }
     
@@ -243,6 +281,8 @@ public class DataSource { // NO_UCD
             config.addColumn(new ImportColumnExcel(index, alias, datatype, cleansing));
         } else if (config instanceof ImportConfigurationJDBC) {
             config.addColumn(new ImportColumnJDBC(index, alias, datatype, cleansing));
+        } else if (config instanceof ImportConfigurationBinary) {
+            config.addColumn(new ImportColumnBinary(index, alias, datatype, cleansing));
         }
     }
     
@@ -268,6 +308,8 @@ public class DataSource { // NO_UCD
             config.addColumn(new ImportColumnExcel(name, datatype));
         } else if (config instanceof ImportConfigurationJDBC) {
             config.addColumn(new ImportColumnJDBC(name, datatype));
+        } else if (config instanceof ImportConfigurationBinary) {
+            config.addColumn(new ImportColumnBinary(name, datatype));
         }
     }
     
@@ -285,6 +327,8 @@ public class DataSource { // NO_UCD
             config.addColumn(new ImportColumnExcel(name, datatype, cleansing));
         } else if (config instanceof ImportConfigurationJDBC) {
             config.addColumn(new ImportColumnJDBC(name, datatype, cleansing));
+        } else if (config instanceof ImportConfigurationBinary) {
+            config.addColumn(new ImportColumnBinary(name, datatype, cleansing));
         }
     }
     
@@ -312,6 +356,8 @@ public class DataSource { // NO_UCD
             config.addColumn(new ImportColumnExcel(name, alias, datatype));
         } else if (config instanceof ImportConfigurationJDBC) {
             config.addColumn(new ImportColumnJDBC(name, alias, datatype));
+        } else if (config instanceof ImportConfigurationBinary) {
+            config.addColumn(new ImportColumnBinary(name, alias, datatype));
         }
     }
     
@@ -329,9 +375,42 @@ public class DataSource { // NO_UCD
             config.addColumn(new ImportColumnExcel(name, alias, datatype, cleansing));
         } else if (config instanceof ImportConfigurationJDBC) {
             config.addColumn(new ImportColumnJDBC(name, alias, datatype, cleansing));
+        } else if (config instanceof ImportConfigurationBinary) {
+            config.addColumn(new ImportColumnBinary(name, alias, datatype, cleansing));
         }
     }
     
+    /**
+     * Sets whether the number of rows is determined with a separate query before importing
+     * data via JDBC. If disabled, progress information will not be available.
+     * 
+     * @param countRows
+     */
+    public void setCountRows(boolean countRows) {
+        getJDBCConfiguration().setCountRows(countRows);
+    }
+    
+    /**
+     * Sets the number of rows fetched from the database at once when importing data via JDBC.
+     * Use 0 for the driver's default.
+     * 
+     * @param fetchSize
+     */
+    public void setFetchSize(int fetchSize) {
+        getJDBCConfiguration().setFetchSize(fetchSize);
+    }
+    
+    /**
+     * Splits the table into ranges of values of the given numeric column, which are queried
+     * concurrently when importing data via JDBC.
+     * 
+     * @param column Numeric column, null to disable partitioning
+     * @param threads Number of threads
+     */
+    public void setPartitioning(String column, int threads) {
+        getJDBCConfiguration().setPartitioning(column, threads);
+    }
+    
     /**
      * Returns the configuration.
      *
@@ -340,4 +419,16 @@ public class DataSource { // NO_UCD
     protected ImportConfiguration getConfiguration() {
         return config;
     }
+    
+    /**
+     * Returns the configuration of a JDBC source
+     * 
+     * @return
+     */
+    private ImportConfigurationJDBC getJDBCConfiguration() {
+        if (!(config instanceof ImportConfigurationJDBC)) {
+            throw new IllegalStateException("Only supported for JDBC sources");
+        }
+        return (ImportConfigurationJDBC) config;
+    }
 }
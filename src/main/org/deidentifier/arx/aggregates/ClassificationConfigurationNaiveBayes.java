@@ -70,6 +70,7 @@ public class ClassificationConfigurationNaiveBayes extends ARXClassificationConf
      * @param vectorLength
      * @param type
      * @param sigma
+     * @param numberOfThreads
      */
     protected ClassificationConfigurationNaiveBayes(boolean deterministic,
                                                     int maxRecords,
@@ -77,8 +78,9 @@ public class ClassificationConfigurationNaiveBayes extends ARXClassificationConf
                                                     long seed,
                                                     int vectorLength,
                                                     Type type,
-                                                    double sigma) {
-        super(deterministic, maxRecords, numberOfFolds, seed, vectorLength);
+                                                    double sigma,
+                                                    int numberOfThreads) {
+        super(deterministic, maxRecords, numberOfFolds, seed, vectorLength, numberOfThreads);
         this.type = type;
         this.sigma = sigma;
     }
@@ -91,7 +93,8 @@ public class ClassificationConfigurationNaiveBayes extends ARXClassificationConf
                                                          super.getSeed(),
                                                          super.getVectorLength(),
                                                          type,
-                                                         sigma);
+                                                         sigma,
+                                                         super.getNumThreads());
     }
 
     /**
@@ -27,6 +27,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math3.stat.descriptive.moment.GeometricMean;
@@ -41,9 +42,11 @@ import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.ARXString;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable.Entry;
+import org.deidentifier.arx.aggregates.StatisticsSummary.StatisticsSummaryMoments;
 import org.deidentifier.arx.aggregates.StatisticsSummary.StatisticsSummaryOrdinal;
 import org.deidentifier.arx.common.Groupify;
 import org.deidentifier.arx.common.Groupify.Group;
+import org.deidentifier.arx.common.Tasks;
 import org.deidentifier.arx.common.TupleWrapper;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
@@ -53,6 +56,10 @@ import cern.colt.GenericSorting;
 import cern.colt.Swapper;
 import cern.colt.function.IntComparator;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.carrotsearch.hppc.cursors.ObjectIntCursor;
+
 /**
  * A class offering basic descriptive statistics about data handles.
  *
@@ -60,6 +67,9 @@ import cern.colt.function.IntComparator;
  */
 public class StatisticsBuilder {
 
+    /** Minimal number of rows counted by each thread when computing summary statistics */
+    private static final int        SUMMARY_MIN_ROWS_PER_THREAD = 10000;
+
     /** The handle. */
     private DataHandleInternal      handle;
 
@@ -750,6 +760,26 @@ public class StatisticsBuilder {
      * @return
      */
     public StatisticsQuality getQualityStatistics(DataHandle output, Set<String> qis) {
+        return getQualityStatistics(output, qis, 1);
+    }
+    
+    /**
+     * Returns data quality according to various models. This is a special variant of 
+     * the method supporting arbitrary user-defined outputs. The models are evaluated on 
+     * integer codes of the values, which are derived from the dictionaries of both handles. 
+     * The columns are processed using the given number of threads.
+     * 
+     * @param output
+     * @param qis
+     * @param threads The number of threads to use
+     * @return
+     */
+    public StatisticsQuality getQualityStatistics(DataHandle output, Set<String> qis, int threads) {
+        
+        // Check
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
 
         // Reset stop flag
         interrupt.value = false;
@@ -766,7 +796,8 @@ public class StatisticsBuilder {
         }
 
         // Build and return
-        return new StatisticsQuality(input.getHandle(), output, config, interrupt, progress, qis);
+        DataHandleInternal _output = output == this.handle.getHandle() ? this.handle : output.getStatistics().handle;
+        return new StatisticsQuality(input, _output, config, interrupt, progress, qis, threads);
     }
 
     /**
@@ -802,27 +833,12 @@ public class StatisticsBuilder {
             
             // Meta
             String attribute = handle.getAttributeName(col);
-            DataType<?> type = handle.getDataType(attribute);
-            
-            // Scale
-            DataScale scale = type.getDescription().getScale();
-            
-            // Try to replace nominal scale with ordinal scale based on base data type
-            if (scale == DataScale.NOMINAL && handle.getGeneralization(attribute) != 0) {
-                if (!(handle.getBaseDataType(attribute) instanceof ARXString) &&
-                    getHierarchy(col, true) != null) {
-                    scale = DataScale.ORDINAL;
-                }
-            }
             
             // Store
-            scales.put(attribute, scale);
+            scales.put(attribute, getScale(col));
             statistics.put(attribute, new DescriptiveStatistics());
             geomean.put(attribute, new GeometricMean());
-            ordinal.put(attribute, getSummaryStatisticsOrdinal(handle.getGeneralization(attribute),
-                                                               handle.getDataType(attribute),
-                                                               handle.getBaseDataType(attribute),
-                                                               getHierarchy(col, true)));
+            ordinal.put(attribute, getSummaryStatisticsOrdinal(col));
         }
         
         // Compute summary statistics
@@ -875,115 +891,115 @@ public class StatisticsBuilder {
             
             // Depending on scale
             String attribute = handle.getAttributeName(col);
-            DataScale scale = scales.get(attribute);
-            DataType<T> type = (DataType<T>) handle.getDataType(attribute);
+            DescriptiveStatistics stats = statistics.get(attribute);
             ordinal.get(attribute).analyze();
-            if (scale == DataScale.NOMINAL) {
-                StatisticsSummaryOrdinal stats = ordinal.get(attribute);
-                result.put(attribute, new StatisticsSummary<T>(DataScale.NOMINAL,
-                                                               stats.getNumberOfMeasures(),
-                                                               stats.getDistinctNumberOfValues(),
-                                                               stats.getMode(),
-                                                               type.parse(stats.getMode())));
-            } else if (scale == DataScale.ORDINAL) {
-                StatisticsSummaryOrdinal stats = ordinal.get(attribute);
-                result.put(attribute, new StatisticsSummary<T>(DataScale.ORDINAL,
-                                                               stats.getNumberOfMeasures(),
-                                                               stats.getDistinctNumberOfValues(),
-                                                               stats.getMode(),
-                                                               type.parse(stats.getMode()),
-                                                               stats.getMedian(),
-                                                               type.parse(stats.getMedian()),
-                                                               stats.getMin(),
-                                                               type.parse(stats.getMin()),
-                                                               stats.getMax(),
-                                                               type.parse(stats.getMax())));
-            } else if (scale == DataScale.INTERVAL) {
-                StatisticsSummaryOrdinal stats = ordinal.get(attribute);
-                DescriptiveStatistics stats2 = statistics.get(attribute);
-                boolean isPeriod = type.getDescription().getWrappedClass() == Date.class;
-                
-                // TODO: Something is wrong with commons math's kurtosis
-                double kurtosis = stats2.getKurtosis();
-                kurtosis = kurtosis < 0d ? Double.NaN : kurtosis;
-                double range = stats2.getMax() - stats2.getMin();
-                double stddev = Math.sqrt(stats2.getVariance());
-                
-                result.put(attribute, new StatisticsSummary<T>(DataScale.INTERVAL,
-                                                               stats.getNumberOfMeasures(),
-                                                               stats.getDistinctNumberOfValues(),
-                                                               stats.getMode(),
-                                                               type.parse(stats.getMode()),
-                                                               stats.getMedian(),
-                                                               type.parse(stats.getMedian()),
-                                                               stats.getMin(),
-                                                               type.parse(stats.getMin()),
-                                                               stats.getMax(),
-                                                               type.parse(stats.getMax()),
-                                                               toString(type, stats2.getMean(), false, false),
-                                                               toValue(type, stats2.getMean()),
-                                                               stats2.getMean(),
-                                                               toString(type, stats2.getVariance(), isPeriod, true),
-                                                               toValue(type, stats2.getVariance()),
-                                                               stats2.getVariance(),
-                                                               toString(type, stats2.getPopulationVariance(), isPeriod, true),
-                                                               toValue(type, stats2.getPopulationVariance()),
-                                                               stats2.getPopulationVariance(),
-                                                               toString(type, stddev, isPeriod, false),
-                                                               toValue(type, stddev),
-                                                               stddev,
-                                                               toString(type, range, isPeriod, false),
-                                                               toValue(type, range),
-                                                               stats2.getMax() - stats2.getMin(),
-                                                               toString(type, kurtosis, isPeriod, false),
-                                                               toValue(type, kurtosis),
-                                                               kurtosis));
-            } else if (scale == DataScale.RATIO) {
-                StatisticsSummaryOrdinal stats = ordinal.get(attribute);
-                DescriptiveStatistics stats2 = statistics.get(attribute);
-                GeometricMean geo = geomean.get(attribute);
-                
-                // TODO: Something is wrong with commons math's kurtosis
-                double kurtosis = stats2.getKurtosis();
-                kurtosis = kurtosis < 0d ? Double.NaN : kurtosis;
-                double range = stats2.getMax() - stats2.getMin();
-                double stddev = Math.sqrt(stats2.getVariance());
-                
-                result.put(attribute, new StatisticsSummary<T>(DataScale.RATIO,
-                                                               stats.getNumberOfMeasures(),
-                                                               stats.getDistinctNumberOfValues(),
-                                                               stats.getMode(),
-                                                               type.parse(stats.getMode()),
-                                                               stats.getMedian(),
-                                                               type.parse(stats.getMedian()),
-                                                               stats.getMin(),
-                                                               type.parse(stats.getMin()),
-                                                               stats.getMax(),
-                                                               type.parse(stats.getMax()),
-                                                               toString(type, stats2.getMean(), false, false),
-                                                               toValue(type, stats2.getMean()),
-                                                               stats2.getMean(),
-                                                               toString(type, stats2.getVariance(), false, false),
-                                                               toValue(type, stats2.getVariance()),
-                                                               stats2.getVariance(),
-                                                               toString(type, stats2.getPopulationVariance(), false, false),
-                                                               toValue(type, stats2.getPopulationVariance()),
-                                                               stats2.getPopulationVariance(),
-                                                               toString(type, stddev, false, false),
-                                                               toValue(type, stddev),
-                                                               stddev,
-                                                               toString(type, range, false, false),
-                                                               toValue(type, range),
-                                                               range,
-                                                               toString(type, kurtosis, false, false),
-                                                               toValue(type, kurtosis),
-                                                               kurtosis,
-                                                               toString(type, geo.getResult() - 1d, false, false),
-                                                               toValue(type, geo.getResult() - 1d),
-                                                               stats2.getGeometricMean()));
+            result.put(attribute, getSummaryStatistics((DataType<T>) handle.getDataType(attribute),
+                                                       scales.get(attribute),
+                                                       ordinal.get(attribute),
+                                                       stats.getMean(),
+                                                       stats.getVariance(),
+                                                       stats.getPopulationVariance(),
+                                                       stats.getMin(),
+                                                       stats.getMax(),
+                                                       stats.getKurtosis(),
+                                                       stats.getGeometricMean(),
+                                                       geomean.get(attribute).getResult()));
+        }
+        
+        return result;
+    }
+
+    /**
+     * Returns summary statistics for all attributes. In contrast to {@link #getSummaryStatistics(boolean)},
+     * the data is scanned only once to count the frequencies of the values in each column. This
+     * is done in parallel for blocks of rows. All statistics are then derived from the distinct
+     * values and their frequencies, in parallel for all columns, which means that each distinct
+     * value is parsed only once. The amount of memory required does not depend on the number of rows.
+     * Moments may differ from the results of {@link #getSummaryStatistics(boolean)} due to
+     * floating-point rounding.
+     * 
+     * @param listwiseDeletion A flag enabling list-wise deletion
+     * @param threads The number of threads to use
+     * @return
+     */
+    public Map<String, StatisticsSummary<?>> getSummaryStatistics(final boolean listwiseDeletion, int threads) {
+        
+        // Check
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+
+        // Reset stop flag
+        interrupt.value = false;
+        
+        // Prepare dictionaries. The frequency of code c is stored at index c + 1, because
+        // suppressed values are encoded as -1
+        final int columns = handle.getNumColumns();
+        final String[][] dictionaries = new String[columns][];
+        final boolean[][] nulls = new boolean[columns][];
+        for (int col = 0; col < columns; col++) {
+            String[] dictionary = handle.getDictionary(col);
+            dictionaries[col] = dictionary == null ? new String[0] : dictionary;
+            nulls[col] = new boolean[dictionaries[col].length + 1];
+            for (int code = 0; code < dictionaries[col].length; code++) {
+                nulls[col][code + 1] = DataType.isNull(dictionaries[col][code]);
             }
         }
         
+        // Count frequencies in blocks of rows
+        final int rows = handle.getNumRows();
+        final int blocks = Math.max(1, Math.min(threads, rows / SUMMARY_MIN_ROWS_PER_THREAD));
+        List<Callable<int[][]>> counters = new ArrayList<Callable<int[][]>>();
+        for (int block = 0; block < blocks; block++) {
+            final int start = (int) ((long) rows * block / blocks);
+            final int stop = (int) ((long) rows * (block + 1) / blocks);
+            counters.add(new Callable<int[][]>() {
+                @Override
+                public int[][] call() {
+                    int[][] frequencies = new int[columns][];
+                    for (int col = 0; col < columns; col++) {
+                        frequencies[col] = new int[nulls[col].length];
+                    }
+                    int[] codes = new int[columns];
+                    outer: for (int row = start; row < stop; row++) {
+                        checkInterrupt();
+                        if (listwiseDeletion && handle.isOutlier(row)) {
+                            continue;
+                        }
+                        for (int col = 0; col < columns; col++) {
+                            codes[col] = handle.getEncodedValue(row, col, false) + 1;
+                            if (listwiseDeletion && nulls[col][codes[col]]) {
+                                continue outer;
+                            }
+                        }
+                        for (int col = 0; col < columns; col++) {
+                            frequencies[col][codes[col]]++;
+                        }
+                    }
+                    return frequencies;
+                }
+            });
+        }
+        final List<int[][]> frequencies = Tasks.invokeAll(counters, threads);
+        
+        // Analyze columns
+        List<Callable<StatisticsSummary<?>>> analyzers = new ArrayList<Callable<StatisticsSummary<?>>>();
+        for (int col = 0; col < columns; col++) {
+            final int column = col;
+            analyzers.add(new Callable<StatisticsSummary<?>>() {
+                @Override
+                public StatisticsSummary<?> call() throws Exception {
+                    return getSummaryStatistics(column, dictionaries[column], nulls[column], frequencies);
+                }
+            });
+        }
+        List<StatisticsSummary<?>> summaries = Tasks.invokeAll(analyzers, threads);
+        
+        // Collect
+        Map<String, StatisticsSummary<?>> result = new HashMap<String, StatisticsSummary<?>>();
+        for (int col = 0; col < columns; col++) {
+            result.put(handle.getAttributeName(col), summaries.get(col));
+        }
         return result;
     }
 
@@ -1018,6 +1034,31 @@ public class StatisticsBuilder {
         }
     }
     
+    /**
+     * Returns the scale of measure of the given column
+     * 
+     * @param column
+     * @return
+     */
+    private DataScale getScale(int column) {
+        
+        // Meta
+        String attribute = handle.getAttributeName(column);
+        DataType<?> type = handle.getDataType(attribute);
+        
+        // Scale
+        DataScale scale = type.getDescription().getScale();
+        
+        // Try to replace nominal scale with ordinal scale based on base data type
+        if (scale == DataScale.NOMINAL && handle.getGeneralization(attribute) != 0) {
+            if (!(handle.getBaseDataType(attribute) instanceof ARXString) &&
+                getHierarchy(column, true) != null) {
+                scale = DataScale.ORDINAL;
+            }
+        }
+        return scale;
+    }
+    
     /**
      * Scales the given string array.
      *
@@ -1054,6 +1095,224 @@ public class StatisticsBuilder {
         return result;
     }
     
+    /**
+     * Returns summary statistics for the given column from the frequencies of its codes
+     * 
+     * @param column
+     * @param dictionary
+     * @param nulls
+     * @param frequencies
+     * @return
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> StatisticsSummary<T> getSummaryStatistics(int column,
+                                                          String[] dictionary,
+                                                          boolean[] nulls,
+                                                          List<int[][]> frequencies) {
+        
+        // Merge frequencies of equal values
+        ObjectIntOpenHashMap<String> indices = new ObjectIntOpenHashMap<String>();
+        IntArrayList counts = new IntArrayList();
+        IntArrayList codes = new IntArrayList();
+        for (int code = 0; code < dictionary.length; code++) {
+            String value = dictionary[code];
+            if (DataType.isAny(value) || nulls[code + 1]) {
+                continue;
+            }
+            int count = 0;
+            for (int[][] block : frequencies) {
+                count += block[column][code + 1];
+            }
+            if (count == 0) {
+                continue;
+            }
+            if (indices.containsKey(value)) {
+                int index = indices.lget();
+                counts.set(index, counts.get(index) + count);
+            } else {
+                indices.put(value, counts.size());
+                counts.add(count);
+                codes.add(code);
+            }
+        }
+        String[] distinct = new String[counts.size()];
+        for (ObjectIntCursor<String> cursor : indices) {
+            distinct[cursor.value] = cursor.key;
+        }
+        int[] frequency = counts.toArray();
+        
+        // Check
+        checkInterrupt();
+        
+        // Analyze ordinal properties
+        String attribute = handle.getAttributeName(column);
+        DataType<T> type = (DataType<T>) handle.getDataType(attribute);
+        StatisticsSummaryOrdinal ordinal = getSummaryStatisticsOrdinal(column);
+        ordinal.analyze(distinct, frequency);
+        
+        // Analyze moments, using the values parsed by the handle
+        StatisticsSummaryMoments moments = new StatisticsSummaryMoments(new double[0], new int[0]);
+        if (type instanceof DataTypeWithRatioScale) {
+            double[] parsed = handle.getDoubles(column);
+            double[] values = new double[distinct.length];
+            for (int i = 0; i < values.length; i++) {
+                double value = parsed != null ? parsed[codes.get(i) + 1] : Double.NaN;
+                values[i] = !Double.isNaN(value) ? value : ((DataTypeWithRatioScale) type).toDouble(type.parse(distinct[i]));
+            }
+            moments = new StatisticsSummaryMoments(values, frequency);
+        }
+        
+        // Check
+        checkInterrupt();
+        
+        // Convert
+        return getSummaryStatistics(type,
+                                    getScale(column),
+                                    ordinal,
+                                    moments.getMean(),
+                                    moments.getVariance(),
+                                    moments.getPopulationVariance(),
+                                    moments.getMin(),
+                                    moments.getMax(),
+                                    moments.getKurtosis(),
+                                    moments.getGeometricMean(),
+                                    moments.getGeometricMeanShifted());
+    }
+    
+    /**
+     * Returns summary statistics for a column with the given properties
+     * 
+     * @param type
+     * @param scale
+     * @param stats
+     * @param mean
+     * @param variance
+     * @param populationVariance
+     * @param min
+     * @param max
+     * @param kurtosis
+     * @param geometricMean
+     * @param geometricMeanShifted geometric mean of all values + 1
+     * @return
+     */
+    private <T> StatisticsSummary<T> getSummaryStatistics(DataType<T> type,
+                                                          DataScale scale,
+                                                          StatisticsSummaryOrdinal<?> stats,
+                                                          double mean,
+                                                          double variance,
+                                                          double populationVariance,
+                                                          double min,
+                                                          double max,
+                                                          double kurtosis,
+                                                          double geometricMean,
+                                                          double geometricMeanShifted) {
+        
+        // TODO: Something is wrong with commons math's kurtosis
+        kurtosis = kurtosis < 0d ? Double.NaN : kurtosis;
+        double range = max - min;
+        double stddev = Math.sqrt(variance);
+        
+        // Depending on scale
+        if (scale == DataScale.NOMINAL) {
+            return new StatisticsSummary<T>(DataScale.NOMINAL,
+                                            stats.getNumberOfMeasures(),
+                                            stats.getDistinctNumberOfValues(),
+                                            stats.getMode(),
+                                            type.parse(stats.getMode()));
+        } else if (scale == DataScale.ORDINAL) {
+            return new StatisticsSummary<T>(DataScale.ORDINAL,
+                                            stats.getNumberOfMeasures(),
+                                            stats.getDistinctNumberOfValues(),
+                                            stats.getMode(),
+                                            type.parse(stats.getMode()),
+                                            stats.getMedian(),
+                                            type.parse(stats.getMedian()),
+                                            stats.getMin(),
+                                            type.parse(stats.getMin()),
+                                            stats.getMax(),
+                                            type.parse(stats.getMax()));
+        } else if (scale == DataScale.INTERVAL) {
+            boolean isPeriod = type.getDescription().getWrappedClass() == Date.class;
+            return new StatisticsSummary<T>(DataScale.INTERVAL,
+                                            stats.getNumberOfMeasures(),
+                                            stats.getDistinctNumberOfValues(),
+                                            stats.getMode(),
+                                            type.parse(stats.getMode()),
+                                            stats.getMedian(),
+                                            type.parse(stats.getMedian()),
+                                            stats.getMin(),
+                                            type.parse(stats.getMin()),
+                                            stats.getMax(),
+                                            type.parse(stats.getMax()),
+                                            toString(type, mean, false, false),
+                                            toValue(type, mean),
+                                            mean,
+                                            toString(type, variance, isPeriod, true),
+                                            toValue(type, variance),
+                                            variance,
+                                            toString(type, populationVariance, isPeriod, true),
+                                            toValue(type, populationVariance),
+                                            populationVariance,
+                                            toString(type, stddev, isPeriod, false),
+                                            toValue(type, stddev),
+                                            stddev,
+                                            toString(type, range, isPeriod, false),
+                                            toValue(type, range),
+                                            range,
+                                            toString(type, kurtosis, isPeriod, false),
+                                            toValue(type, kurtosis),
+                                            kurtosis);
+        } else if (scale == DataScale.RATIO) {
+            return new StatisticsSummary<T>(DataScale.RATIO,
+                                            stats.getNumberOfMeasures(),
+                                            stats.getDistinctNumberOfValues(),
+                                            stats.getMode(),
+                                            type.parse(stats.getMode()),
+                                            stats.getMedian(),
+                                            type.parse(stats.getMedian()),
+                                            stats.getMin(),
+                                            type.parse(stats.getMin()),
+                                            stats.getMax(),
+                                            type.parse(stats.getMax()),
+                                            toString(type, mean, false, false),
+                                            toValue(type, mean),
+                                            mean,
+                                            toString(type, variance, false, false),
+                                            toValue(type, variance),
+                                            variance,
+                                            toString(type, populationVariance, false, false),
+                                            toValue(type, populationVariance),
+                                            populationVariance,
+                                            toString(type, stddev, false, false),
+                                            toValue(type, stddev),
+                                            stddev,
+                                            toString(type, range, false, false),
+                                            toValue(type, range),
+                                            range,
+                                            toString(type, kurtosis, false, false),
+                                            toValue(type, kurtosis),
+                                            kurtosis,
+                                            toString(type, geometricMeanShifted - 1d, false, false),
+                                            toValue(type, geometricMeanShifted - 1d),
+                                            geometricMean);
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Returns a summary statistics object for the given column
+     * @param column
+     * @return
+     */
+    private StatisticsSummaryOrdinal<?> getSummaryStatisticsOrdinal(int column) {
+        String attribute = handle.getAttributeName(column);
+        return getSummaryStatisticsOrdinal(handle.getGeneralization(attribute),
+                                           handle.getDataType(attribute),
+                                           handle.getBaseDataType(attribute),
+                                           getHierarchy(column, true));
+    }
+    
     /**
      * Returns a summary statistics object for the given attribute
      * @param generalization
@@ -588,6 +588,27 @@ public class StatisticsBuilderInterruptible { // NO_UCD
             }
         }
     }
+
+    /**
+     * Returns summary statistics for all attributes, which are computed from the frequencies
+     * of the values in each column using the given number of threads.
+     * 
+     * @param listwiseDeletion A flag enabling list-wise deletion
+     * @param threads The number of threads to use
+     * @return
+     * @throws InterruptedException
+     */
+    public Map<String, StatisticsSummary<?>> getSummaryStatistics(boolean listwiseDeletion, int threads) throws InterruptedException {
+        try {
+            return builder.getSummaryStatistics(listwiseDeletion, threads);
+        } catch (Exception e) {
+            if (e instanceof ComputationInterruptedException) {
+                throw new InterruptedException("Interrupted");
+            } else {
+                throw new UnexpectedErrorException(e);
+            }
+        }
+    }
     /**
      * Interrupts all computations.
      */
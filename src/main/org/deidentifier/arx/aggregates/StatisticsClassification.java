@@ -24,6 +24,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.deidentifier.arx.ARXClassificationConfiguration;
 import org.deidentifier.arx.ARXFeatureScaling;
@@ -35,6 +37,7 @@ import org.deidentifier.arx.aggregates.classification.MultiClassLogisticRegressi
 import org.deidentifier.arx.aggregates.classification.MultiClassNaiveBayes;
 import org.deidentifier.arx.aggregates.classification.MultiClassRandomForest;
 import org.deidentifier.arx.aggregates.classification.MultiClassZeroR;
+import org.deidentifier.arx.common.Tasks;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -52,6 +55,51 @@ import cern.colt.function.IntComparator;
  */
 public class StatisticsClassification {
 
+    /**
+     * Results of evaluating either the models trained with the input or
+     * the model trained with the output with one fold
+     * 
+     * @author Fabian Prasser
+     */
+    private static class FoldResult {
+        
+        /** Number of classifications */
+        private int             classifications;
+        /** Whether this is the result of the model trained with the output */
+        private final boolean   output;
+        /** Whether the classifier has been trained */
+        private final boolean   trained;
+        /** Errors of ZeroR */
+        private final double[]  zeroRErrors;
+        /** Correctness of ZeroR */
+        private final boolean[] zeroRCorrect;
+        /** Errors of the classifier trained with the input */
+        private final double[]  originalErrors;
+        /** Correctness of the classifier trained with the input */
+        private final boolean[] originalCorrect;
+        /** Errors of the classifier trained with the output */
+        private final double[]  errors;
+        /** Correctness of the classifier trained with the output */
+        private final boolean[] correct;
+        
+        /**
+         * Creates a new instance
+         * @param size
+         * @param output
+         * @param trained
+         */
+        private FoldResult(int size, boolean output, boolean trained) {
+            this.output = output;
+            this.trained = trained;
+            this.zeroRErrors = output ? null : new double[size];
+            this.zeroRCorrect = output ? null : new boolean[size];
+            this.originalErrors = output ? null : new double[size];
+            this.originalCorrect = output ? null : new boolean[size];
+            this.errors = output && trained ? new double[size] : null;
+            this.correct = output && trained ? new boolean[size] : null;
+        }
+    }
+
     /**
      * A ROC curve
      * 
@@ -312,11 +360,11 @@ public class StatisticsClassification {
      * @param progress 
      * @throws ParseException 
      */
-    StatisticsClassification(DataHandleInternal inputHandle,
-                             DataHandleInternal outputHandle,
+    StatisticsClassification(final DataHandleInternal inputHandle,
+                             final DataHandleInternal outputHandle,
                              String[] features,
                              String clazz,
-                             ARXClassificationConfiguration<?> config,
+                             final ARXClassificationConfiguration<?> config,
                              ARXFeatureScaling scaling, 
                              WrappedBoolean interrupt,
                              WrappedInteger progress) throws ParseException {
@@ -348,107 +396,53 @@ public class StatisticsClassification {
         
         // Train and evaluate
         int k = numSamples > config.getNumFolds() ? config.getNumFolds() : numSamples;
-        List<List<Integer>> folds = getFolds(inputHandle.getNumRows(), numSamples, k);
+        final List<List<Integer>> folds = getFolds(inputHandle.getNumRows(), numSamples, k);
 
         // Track
-        int classifications = 0;
-        double total = 100d / ((double)numSamples * (double)folds.size());
-        double done = 0d;
+        final int models = (inputHandle == outputHandle) ? 1 : 2;
+        final double total = 100d / ((double)numSamples * (double)folds.size() * (double)models);
+        final AtomicLong done = new AtomicLong();
         
         // ROC
-        double[] inputConfidences = new double[numSamples * ( 1 + numClasses)];
-        double[] outputConfidences = (inputHandle == outputHandle) ? null : new double[numSamples * ( 1 + numClasses)];
-        double[] zerorConfidences = new double[numSamples * ( 1 + numClasses)];
+        final double[] inputConfidences = new double[numSamples * ( 1 + numClasses)];
+        final double[] outputConfidences = (inputHandle == outputHandle) ? null : new double[numSamples * ( 1 + numClasses)];
+        final double[] zerorConfidences = new double[numSamples * ( 1 + numClasses)];
+        
+        // For each fold as a validation set and for each model
+        List<Callable<FoldResult>> tasks = new ArrayList<>();
         int confidencesIndex = 0;
-                
-        // For each fold as a validation set
         for (int evaluationFold = 0; evaluationFold < folds.size(); evaluationFold++) {
-            
-            // Create classifiers
-            ClassificationMethod inputClassifier = getClassifier(interrupt, specification, config, inputHandle);
-            ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, specification);
-            ClassificationMethod outputClassifier = null;
-            if (inputHandle != outputHandle) {
-                outputClassifier = getClassifier(interrupt, specification, config, inputHandle);
-            }
-            
-            // Try
-            try {
-                
-                // Train with all training sets
-                boolean trained = false;
-                for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
-                    if (trainingFold != evaluationFold) {                        
-                        for (int index : folds.get(trainingFold)) {
-                            checkInterrupt();
-                            inputClassifier.train(inputHandle, outputHandle, index);
-                            inputZeroR.train(inputHandle, outputHandle, index);
-                            if (outputClassifier != null && !outputHandle.isOutlier(index)) {
-                                outputClassifier.train(outputHandle, outputHandle, index);
-                                trained = true;
-                            }
-                            this.progress.value = (int)((++done) * total);
-                        }
+            for (int model = 0; model < models; model++) {
+                final int fold = evaluationFold;
+                final int offset = confidencesIndex;
+                final boolean output = model == 1;
+                final ClassificationDataSpecification workerSpecification = specification.createWorkerInstance();
+                tasks.add(new Callable<FoldResult>() {
+                    @Override
+                    public FoldResult call() {
+                        return evaluate(inputHandle, outputHandle, config, workerSpecification, folds, fold, output,
+                                        output ? outputConfidences : inputConfidences, zerorConfidences, offset, done, total);
                     }
+                });
+            }
+            confidencesIndex += folds.get(evaluationFold).size() * (numClasses + 1);
+        }
+        
+        // Evaluate concurrently and collect results in order
+        int classifications = 0;
+        for (FoldResult result : Tasks.invokeAll(tasks, config.getNumThreads())) {
+            if (!result.output) {
+                for (int i = 0; i < result.classifications; i++) {
+                    this.zeroRAverageError += result.zeroRErrors[i];
+                    this.zeroRAccuracy += result.zeroRCorrect[i] ? 1d : 0d;
+                    this.originalAverageError += result.originalErrors[i];
+                    this.originalAccuracy += result.originalCorrect[i] ? 1d : 0d;
                 }
-                
-                // Close
-                inputClassifier.close();
-                inputZeroR.close();
-                if (outputClassifier != null && trained) {
-                    outputClassifier.close();
-                }
-                
-                // Now validate
-                for (int index : folds.get(evaluationFold)) {
-                    
-                    // Check
-                    checkInterrupt();
-                    
-                    // Classify
-                    ClassificationResult resultInput = inputClassifier.classify(inputHandle, index);
-                    ClassificationResult resultInputZR = inputZeroR.classify(inputHandle, index);
-                    ClassificationResult resultOutput = outputClassifier == null || !trained ? null : outputClassifier.classify(outputHandle, index);
-                    classifications++;
-                        
-                    // Correct result
-                    String actualValue = outputHandle.getValue(index, specification.classIndex, true);
-                        
-                    // Maintain data about ZeroR
-                    this.zeroRAverageError += resultInputZR.error(actualValue);
-                    this.zeroRAccuracy += resultInputZR.correct(actualValue) ? 1d : 0d;
-                    double[] confidences = resultInputZR.confidences();
-                    zerorConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, zerorConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about input-based classifier
-                    boolean correct = resultInput.correct(actualValue);
-                    this.originalAverageError += resultInput.error(actualValue);
-                    this.originalAccuracy += correct ? 1d : 0d;
-                    confidences = resultInput.confidences();
-                    inputConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, inputConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about output-based                     
-                    if (resultOutput != null) {
-                        correct = resultOutput.correct(actualValue);
-                        this.averageError += resultOutput.error(actualValue);
-                        this.accuracy += correct ? 1d : 0d;
-                        confidences = resultOutput.confidences();
-                        outputConfidences[confidencesIndex] = index;
-                        System.arraycopy(confidences, 0, outputConfidences, confidencesIndex + 1, confidences.length);
-                    }
-                        
-                    // Next
-                    confidencesIndex += numClasses + 1;
-                    
-                    this.progress.value = (int)((++done) * total);
-                }
-            } catch (Exception e) {
-                if (e instanceof ComputationInterruptedException) {
-                    throw e;
-                } else {
-                    throw new UnexpectedErrorException(e);
+                classifications += result.classifications;
+            } else if (result.trained) {
+                for (int i = 0; i < result.classifications; i++) {
+                    this.averageError += result.errors[i];
+                    this.accuracy += result.correct[i] ? 1d : 0d;
                 }
             }
         }
@@ -717,6 +711,136 @@ public class StatisticsClassification {
         }
     }
 
+    /**
+     * Trains classifiers with all but the given fold and evaluates them with the given fold.
+     * Either the classifier trained with the input and ZeroR or the classifier trained with
+     * the output are processed. Confidences are written to the given arrays, starting at the
+     * given offset.
+     * 
+     * @param inputHandle
+     * @param outputHandle
+     * @param config
+     * @param specification
+     * @param folds
+     * @param evaluationFold
+     * @param output
+     * @param confidences
+     * @param zerorConfidences
+     * @param confidencesIndex
+     * @param done
+     * @param total
+     * @return
+     */
+    private FoldResult evaluate(DataHandleInternal inputHandle,
+                                DataHandleInternal outputHandle,
+                                ARXClassificationConfiguration<?> config,
+                                ClassificationDataSpecification specification,
+                                List<List<Integer>> folds,
+                                int evaluationFold,
+                                boolean output,
+                                double[] confidences,
+                                double[] zerorConfidences,
+                                int confidencesIndex,
+                                AtomicLong done,
+                                double total) {
+
+        // Create classifiers
+        ClassificationMethod classifier = getClassifier(interrupt, specification, config, inputHandle);
+        ClassificationMethod inputZeroR = output ? null : new MultiClassZeroR(interrupt, specification);
+        
+        // Try
+        try {
+            
+            // Train with all training sets
+            boolean trained = !output;
+            for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
+                if (trainingFold != evaluationFold) {                        
+                    for (int index : folds.get(trainingFold)) {
+                        checkInterrupt();
+                        if (!output) {
+                            classifier.train(inputHandle, outputHandle, index);
+                            inputZeroR.train(inputHandle, outputHandle, index);
+                        } else if (!outputHandle.isOutlier(index)) {
+                            classifier.train(outputHandle, outputHandle, index);
+                            trained = true;
+                        }
+                        this.progress.value = (int)(done.incrementAndGet() * total);
+                    }
+                }
+            }
+            
+            // Close
+            if (trained) {
+                classifier.close();
+            }
+            if (inputZeroR != null) {
+                inputZeroR.close();
+            }
+            
+            // Now validate
+            FoldResult result = new FoldResult(folds.get(evaluationFold).size(), output, trained);
+            for (int index : folds.get(evaluationFold)) {
+                
+                // Check
+                checkInterrupt();
+                
+                // Nothing to validate
+                if (!trained) {
+                    this.progress.value = (int)(done.incrementAndGet() * total);
+                    continue;
+                }
+                
+                // Classify
+                int classification = result.classifications++;
+                    
+                // Correct result
+                String actualValue = outputHandle.getValue(index, specification.classIndex, true);
+                
+                // Maintain data about input-based classifier and ZeroR
+                if (!output) {
+                    
+                    // ZeroR
+                    ClassificationResult resultInputZR = inputZeroR.classify(inputHandle, index);
+                    result.zeroRErrors[classification] = resultInputZR.error(actualValue);
+                    result.zeroRCorrect[classification] = resultInputZR.correct(actualValue);
+                    double[] values = resultInputZR.confidences();
+                    zerorConfidences[confidencesIndex] = index;
+                    System.arraycopy(values, 0, zerorConfidences, confidencesIndex + 1, values.length);
+                    
+                    // Input-based classifier
+                    ClassificationResult resultInput = classifier.classify(inputHandle, index);
+                    result.originalErrors[classification] = resultInput.error(actualValue);
+                    result.originalCorrect[classification] = resultInput.correct(actualValue);
+                    values = resultInput.confidences();
+                    confidences[confidencesIndex] = index;
+                    System.arraycopy(values, 0, confidences, confidencesIndex + 1, values.length);
+
+                // Maintain data about output-based classifier
+                } else {
+                    ClassificationResult resultOutput = classifier.classify(outputHandle, index);
+                    result.errors[classification] = resultOutput.error(actualValue);
+                    result.correct[classification] = resultOutput.correct(actualValue);
+                    double[] values = resultOutput.confidences();
+                    confidences[confidencesIndex] = index;
+                    System.arraycopy(values, 0, confidences, confidencesIndex + 1, values.length);
+                }
+                    
+                // Next
+                confidencesIndex += numClasses + 1;
+                
+                this.progress.value = (int)(done.incrementAndGet() * total);
+            }
+            return result;
+            
+        } catch (Exception e) {
+            if (e instanceof ComputationInterruptedException) {
+                throw e;
+            } else {
+                throw new UnexpectedErrorException(e);
+            }
+        }
+    }
+
     /**
      * Creates the folds
      * @param numRecords
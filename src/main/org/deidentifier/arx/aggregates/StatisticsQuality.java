@@ -26,11 +26,13 @@ import java.util.Set;
 
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.quality.QualityConfiguration;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShare;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShareRaw;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShareRedaction;
+import org.deidentifier.arx.aggregates.quality.QualityEncoding;
 import org.deidentifier.arx.aggregates.quality.QualityMeasureColumnOriented;
 import org.deidentifier.arx.aggregates.quality.QualityMeasureRowOriented;
 import org.deidentifier.arx.aggregates.quality.QualityModelColumnOrientedLoss;
@@ -95,20 +97,25 @@ public class StatisticsQuality {
      * @param stop
      * @param progress
      * @param qis
+     * @param threads
      */
-    StatisticsQuality(DataHandle input,
-                      DataHandle output,
+    StatisticsQuality(DataHandleInternal _input,
+                      DataHandleInternal _output,
                       ARXConfiguration config,
                       WrappedBoolean stop,
                       WrappedInteger progress,
-                      Set<String> qis) {
+                      Set<String> qis,
+                      int threads) {
      
         // State
         this.stop = stop;
         this.progress = progress;
+        DataHandle input = _input.getHandle();
+        DataHandle output = _output.getHandle();
         
         // Build config
         QualityConfiguration configuration = new QualityConfiguration();
+        configuration.setParallelism(threads);
         // TODO: Do something with ARXConfiguration here.
         
         // Extract quasi-identifiers
@@ -149,6 +156,7 @@ public class StatisticsQuality {
         this.progress.value = 8;
         String[][][] hierarchies = getHierarchies(input, indices, configuration);
         QualityDomainShare[] shares = getDomainShares(input, indices, hierarchies, configuration);
+        QualityEncoding encoding = new QualityEncoding(_input, _output, indices, hierarchies, configuration, stop);
         int suppressedInput = getSuppressed(input);
         int suppressedOutput = getSuppressed(output);
         this.progress.value = 10;
@@ -169,6 +177,7 @@ public class StatisticsQuality {
                                                            hierarchies,
                                                            shares,
                                                            indices,
+                                                           encoding,
                                                            configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
@@ -192,6 +201,7 @@ public class StatisticsQuality {
                                                                            hierarchies,
                                                                            shares,
                                                                            indices,
+                                                                           encoding,
                                                                            configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
@@ -215,6 +225,7 @@ public class StatisticsQuality {
                                                                      hierarchies,
                                                                      shares,
                                                                      indices,
+                                                                     encoding,
                                                                      configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
@@ -238,6 +249,7 @@ public class StatisticsQuality {
                                                                   hierarchies,
                                                                   shares,
                                                                   indices,
+                                                                  encoding,
                                                                   configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
@@ -261,6 +273,7 @@ public class StatisticsQuality {
                                                         hierarchies,
                                                         shares,
                                                         indices,
+                                                        encoding,
                                                         configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
@@ -284,6 +297,7 @@ public class StatisticsQuality {
                                                                   hierarchies,
                                                                   shares,
                                                                   indices,
+                                                                  encoding,
                                                                   configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
@@ -307,6 +321,7 @@ public class StatisticsQuality {
                                                                             hierarchies,
                                                                             shares,
                                                                             indices,
+                                                                            encoding,
                                                                             configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
@@ -330,6 +345,7 @@ public class StatisticsQuality {
                                                             hierarchies,
                                                             shares,
                                                             indices,
+                                                            encoding,
                                                             configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
@@ -353,6 +369,7 @@ public class StatisticsQuality {
                                                                hierarchies,
                                                                shares,
                                                                indices,
+                                                               encoding,
                                                                configuration).evaluate();
             this.checkInterrupt();
         } catch (Exception e) {
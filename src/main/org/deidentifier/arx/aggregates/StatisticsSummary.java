@@ -18,6 +18,7 @@ package org.deidentifier.arx.aggregates;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -35,6 +36,162 @@ import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
  */
 public class StatisticsSummary<T> {
     
+    /**
+     * Moments of variables with interval or ratio scale, computed from distinct values
+     * and their frequencies
+     * @author Fabian Prasser
+     *
+     */
+    static final class StatisticsSummaryMoments {
+
+        /** Var */
+        private double mean                 = Double.NaN;
+        /** Var */
+        private double variance             = Double.NaN;
+        /** Var */
+        private double populationVariance   = Double.NaN;
+        /** Var */
+        private double min                  = Double.NaN;
+        /** Var */
+        private double max                  = Double.NaN;
+        /** Var */
+        private double kurtosis             = Double.NaN;
+        /** Var */
+        private double geometricMean        = Double.NaN;
+        /** Var */
+        private double geometricMeanShifted = Double.NaN;
+
+        /**
+         * Constructor
+         * @param values
+         * @param frequencies
+         */
+        StatisticsSummaryMoments(final double[] values, final int[] frequencies) {
+            
+            // Sums
+            double n = 0d;
+            double sum = 0d;
+            double sumOfLogs = 0d;
+            double sumOfShiftedLogs = 0d;
+            for (int i = 0; i < values.length; i++) {
+                double frequency = frequencies[i];
+                n += frequency;
+                sum += frequency * values[i];
+                sumOfLogs += frequency * Math.log(values[i]);
+                sumOfShiftedLogs += frequency * Math.log(values[i] + 1d);
+                min = i == 0 ? values[i] : Math.min(min, values[i]);
+                max = i == 0 ? values[i] : Math.max(max, values[i]);
+            }
+            if (n == 0d) {
+                return;
+            }
+            
+            // Mean, with correction term
+            mean = sum / n;
+            double deviations = 0d;
+            for (int i = 0; i < values.length; i++) {
+                deviations += frequencies[i] * (values[i] - mean);
+            }
+            mean += deviations / n;
+            geometricMean = Math.exp(sumOfLogs / n);
+            geometricMeanShifted = Math.exp(sumOfShiftedLogs / n);
+            
+            // Central moments
+            double deviations1 = 0d;
+            double deviations2 = 0d;
+            double deviations4 = 0d;
+            for (int i = 0; i < values.length; i++) {
+                double deviation = values[i] - mean;
+                double squared = deviation * deviation;
+                deviations1 += frequencies[i] * deviation;
+                deviations2 += frequencies[i] * squared;
+                deviations4 += frequencies[i] * squared * squared;
+            }
+            
+            // Variances, using the corrected two-pass algorithm
+            if (n == 1d) {
+                variance = 0d;
+                populationVariance = 0d;
+            } else {
+                double squares = deviations2 - (deviations1 * deviations1 / n);
+                variance = squares / (n - 1d);
+                populationVariance = squares / n;
+            }
+            
+            // Sample kurtosis
+            if (n > 3d) {
+                double accum = deviations4 / (variance * variance);
+                double coefficientOne = (n * (n + 1d)) / ((n - 1d) * (n - 2d) * (n - 3d));
+                double termTwo = (3d * (n - 1d) * (n - 1d)) / ((n - 2d) * (n - 3d));
+                kurtosis = coefficientOne * accum - termTwo;
+            }
+        }
+
+        /**
+         * Returns a summary
+         * @return
+         */
+        public double getGeometricMean() {
+            return geometricMean;
+        }
+
+        /**
+         * Returns the geometric mean of all values + 1
+         * @return
+         */
+        public double getGeometricMeanShifted() {
+            return geometricMeanShifted;
+        }
+
+        /**
+         * Returns a summary
+         * @return
+         */
+        public double getKurtosis() {
+            return kurtosis;
+        }
+
+        /**
+         * Returns a summary
+         * @return
+         */
+        public double getMax() {
+            return max;
+        }
+
+        /**
+         * Returns a summary
+         * @return
+         */
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * Returns a summary
+         * @return
+         */
+        public double getMin() {
+            return min;
+        }
+
+        /**
+         * Returns a summary
+         * @return
+         */
+        public double getPopulationVariance() {
+            return populationVariance;
+        }
+
+        /**
+         * Returns a summary
+         * @return
+         */
+        public double getVariance() {
+            return variance;
+        }
+    }
+    
     /**
      * Summary statistics for variables with ordinal scale
      * @author Fabian Prasser
@@ -229,6 +386,96 @@ public class StatisticsSummary<T> {
             // Clear
             values.clear();
         }
+
+        /**
+         * Analyzes the given distinct values, each of which occurs with the given frequency
+         * @param distinct
+         * @param frequencies
+         */
+        void analyze(final String[] distinct, final int[] frequencies) {
+            
+            // Sort by value
+            Integer[] order = new Integer[distinct.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return comparator.compare(distinct[o1], distinct[o2]);
+                }
+            });
+            
+            // Count
+            long size = 0;
+            for (int frequency : frequencies) {
+                size += frequency;
+            }
+            
+            if (size == 0) {
+                min = DataType.NULL_VALUE;
+                max = DataType.NULL_VALUE;
+                mode = DataType.NULL_VALUE;
+                median = DataType.NULL_VALUE;
+                distinctNumberOfValues = 0;
+                numberOfMeasures = 0;
+            } else {
+                
+                // Determine simple things
+                min = distinct[order[0]];
+                max = distinct[order[order.length - 1]];
+                String median1 = getValue(distinct, frequencies, order, (size - 1) / 2);
+                String median2 = getValue(distinct, frequencies, order, size / 2);
+                if (size % 2 == 1) {
+                    median = median2;
+                } else if (type != null && type instanceof DataTypeWithRatioScale<?>) {
+                    @SuppressWarnings("unchecked")
+                    DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>)type;
+                    double value1 = rType.toDouble(type.parse(median1));
+                    double value2 = rType.toDouble(type.parse(median2));
+                    median = type.format(rType.fromDouble((value1 + value2) / 2d));
+                } else {
+                    median = median1 == median2 ? median1 : DataType.NULL_VALUE;
+                }
+                numberOfMeasures = (int) size;
+                distinctNumberOfValues = distinct.length;
+                
+                // Determine mode
+                int count = 0;
+                for (int index : order) {
+                    if (frequencies[index] > count) {
+                        mode = distinct[index];
+                        count = frequencies[index];
+                    }
+                }
+                
+                // Convert to correct output format
+                if (type != null) {
+                    min = type.format(type.parse(min));
+                    max = type.format(type.parse(max));
+                    mode = type.format(type.parse(mode));
+                    median = type.format(type.parse(median));
+                }
+            }
+        }
+        
+        /**
+         * Returns the value at the given position of the sorted sequence of values
+         * @param distinct
+         * @param frequencies
+         * @param order
+         * @param position
+         * @return
+         */
+        private String getValue(String[] distinct, int[] frequencies, Integer[] order, long position) {
+            for (int index : order) {
+                position -= frequencies[index];
+                if (position < 0) {
+                    return distinct[index];
+                }
+            }
+            return distinct[order[order.length - 1]];
+        }
     }
 
     /** The associated scale of measure */
@@ -19,11 +19,13 @@ package org.deidentifier.arx.aggregates.classification;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.deidentifier.arx.ARXFeatureScaling;
 import org.deidentifier.arx.AttributeType.MicroAggregationFunction;
+import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.DataType;
@@ -46,6 +48,8 @@ public class ClassificationDataSpecification {
     public final ClassificationFeatureMetadata[] featureMetadata;
     /** Interrupt */
     private final WrappedBoolean                 interrupt;
+    /** Feature matrices used by this instance */
+    private final Map<DataHandle, ClassificationFeatureMatrix> matrices = new IdentityHashMap<>();
 
     /**
      * Creates a new instance
@@ -92,6 +96,53 @@ public class ClassificationDataSpecification {
         }
     }
 
+    /**
+     * Clone constructor
+     * @param classIndex
+     * @param classMap
+     * @param featureIndices
+     * @param featureMetadata
+     * @param interrupt
+     */
+    private ClassificationDataSpecification(int classIndex,
+                                            Map<String, Integer> classMap,
+                                            int[] featureIndices,
+                                            ClassificationFeatureMetadata[] featureMetadata,
+                                            WrappedBoolean interrupt) {
+        this.classIndex = classIndex;
+        this.classMap = classMap;
+        this.featureIndices = featureIndices;
+        this.featureMetadata = featureMetadata;
+        this.interrupt = interrupt;
+    }
+
+    /**
+     * Returns an instance which can be used by another thread
+     * @return
+     */
+    public ClassificationDataSpecification createWorkerInstance() {
+        ClassificationFeatureMetadata[] metadata = new ClassificationFeatureMetadata[featureMetadata.length];
+        for (int i = 0; i < metadata.length; i++) {
+            metadata[i] = featureMetadata[i].createWorkerInstance();
+        }
+        return new ClassificationDataSpecification(classIndex, classMap, featureIndices, metadata, interrupt);
+    }
+
+    /**
+     * Returns the matrix of the features of the given handle. Instances are not thread-safe,
+     * see {@link #createWorkerInstance()}.
+     * @param handle
+     * @return
+     */
+    public ClassificationFeatureMatrix getFeatureMatrix(DataHandleInternal handle) {
+        ClassificationFeatureMatrix matrix = matrices.get(handle.getHandle());
+        if (matrix == null) {
+            matrix = ClassificationFeatureMatrix.get(handle, this, interrupt);
+            matrices.put(handle.getHandle(), matrix);
+        }
+        return matrix;
+    }
+
     /**
      * Checks whether an interruption happened.
      */
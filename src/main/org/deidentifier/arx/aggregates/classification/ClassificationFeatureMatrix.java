@@ -0,0 +1,336 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.aggregates.classification;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.common.WrappedBoolean;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * A column-major representation of the features of a data handle. For each feature, it
+ * stores one code per record and, for each distinct value, the value itself, its scaled
+ * numeric representation and its identifier. Values are thus decoded, parsed and scaled
+ * only once.<br>
+ * <br>
+ * Recently used matrices are kept in a small LRU cache, which is keyed on the handle, the
+ * features, their data types and their scaling functions. Matrices of a handle are rebuilt
+ * when its data has been modified in the meantime. Matrices are only softly referenced
+ * and they are removed from the cache when the handle is released.
+ *
+ * @author Fabian Prasser
+ */
+public class ClassificationFeatureMatrix {
+
+    /**
+     * Key of the cache
+     *
+     * @author Fabian Prasser
+     */
+    private static class Key {
+
+        /** Handle */
+        private final WeakReference<DataHandle> handle;
+        /** Modifications */
+        private final long                      modifications;
+        /** Features */
+        private final int[]                     features;
+        /** Data types */
+        private final DataType<?>[]             types;
+        /** Scaling functions */
+        private final String[]                  functions;
+        /** Hash code */
+        private final int                       hashCode;
+
+        /**
+         * Creates a new instance
+         * @param handle
+         * @param specification
+         */
+        private Key(DataHandleInternal handle, ClassificationDataSpecification specification) {
+            this.handle = new WeakReference<DataHandle>(handle.getHandle());
+            this.modifications = handle.getModifications();
+            this.features = specification.featureIndices;
+            this.types = new DataType<?>[features.length];
+            this.functions = new String[features.length];
+            for (int i = 0; i < features.length; i++) {
+                this.types[i] = specification.featureMetadata[i].getDataType();
+                this.functions[i] = specification.featureMetadata[i].getScalingFunction();
+            }
+            int result = System.identityHashCode(handle.getHandle());
+            result = 31 * result + (int) (modifications ^ (modifications >>> 32));
+            result = 31 * result + Arrays.hashCode(features);
+            result = 31 * result + Arrays.hashCode(types);
+            result = 31 * result + Arrays.hashCode(functions);
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            Key other = (Key) obj;
+            DataHandle handle = this.handle.get();
+            return handle != null && handle == other.handle.get() &&
+                   modifications == other.modifications &&
+                   Arrays.equals(features, other.features) &&
+                   Arrays.equals(types, other.types) &&
+                   Arrays.equals(functions, other.functions);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /** Number of matrices cached */
+    private static final int                                      CACHE_SIZE = 8;
+
+    /** Cache of recently used matrices */
+    private static final Map<Key, SoftReference<ClassificationFeatureMatrix>> CACHE = new LinkedHashMap<Key, SoftReference<ClassificationFeatureMatrix>>(16, 0.75f, true) {
+        private static final long serialVersionUID = -2441806339431786187L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<ClassificationFeatureMatrix>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Removes all matrices from the cache
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * Returns the matrix for the features of the given handle, as defined by the given specification.
+     * The matrix is obtained from the cache, or built and cached if it is not available. Matrices
+     * are built without holding the lock of the cache. If several threads build the same matrix
+     * concurrently, the first one cached is returned to all of them.
+     *
+     * @param handle
+     * @param specification
+     * @param interrupt
+     * @return
+     */
+    public static ClassificationFeatureMatrix get(DataHandleInternal handle,
+                                                  ClassificationDataSpecification specification,
+                                                  WrappedBoolean interrupt) {
+        
+        // Lookup
+        Key key = new Key(handle, specification);
+        ClassificationFeatureMatrix matrix = getCached(key);
+        if (matrix != null) {
+            return matrix;
+        }
+        
+        // Build and cache, if absent
+        matrix = new ClassificationFeatureMatrix(handle, specification, interrupt);
+        synchronized (CACHE) {
+            ClassificationFeatureMatrix cached = getCached(key);
+            if (cached != null) {
+                return cached;
+            }
+            CACHE.put(key, new SoftReference<ClassificationFeatureMatrix>(matrix));
+            return matrix;
+        }
+    }
+
+    /**
+     * Removes all matrices of the given handles from the cache, as well as all matrices
+     * of handles which have already been garbage collected
+     *
+     * @param handles
+     */
+    public static void release(DataHandle... handles) {
+        synchronized (CACHE) {
+            Iterator<Key> iterator = CACHE.keySet().iterator();
+            while (iterator.hasNext()) {
+                DataHandle handle = iterator.next().handle.get();
+                boolean remove = handle == null;
+                for (int i = 0; i < handles.length && !remove; i++) {
+                    remove = handle == handles[i];
+                }
+                if (remove) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached matrix for the given key, null if it is not available
+     *
+     * @param key
+     * @return
+     */
+    private static ClassificationFeatureMatrix getCached(Key key) {
+        synchronized (CACHE) {
+            SoftReference<ClassificationFeatureMatrix> reference = CACHE.get(key);
+            return reference != null ? reference.get() : null;
+        }
+    }
+
+    /** Number of rows */
+    private final int        rows;
+    /** Codes, indexed by feature and row */
+    private final int[][]    codes;
+    /** Values, indexed by feature and code */
+    private final String[][] values;
+    /** Scaled numeric values, indexed by feature and code. Null for non-numeric features. */
+    private final double[][] numeric;
+    /** Identifiers of the values in the handle, indexed by feature and code */
+    private final int[][]    identifiers;
+
+    /**
+     * Creates a new instance
+     * @param handle
+     * @param specification
+     * @param interrupt
+     */
+    private ClassificationFeatureMatrix(DataHandleInternal handle,
+                                        ClassificationDataSpecification specification,
+                                        WrappedBoolean interrupt) {
+
+        // Prepare
+        int features = specification.featureIndices.length;
+        this.rows = handle.getNumRows();
+        this.codes = new int[features][];
+        this.values = new String[features][];
+        this.numeric = new double[features][];
+        this.identifiers = new int[features][];
+
+        // For each feature
+        for (int feature = 0; feature < features; feature++) {
+            int column = specification.featureIndices[feature];
+            int[] codes = new int[rows];
+            String[] dictionary = handle.getDictionary(column);
+
+            // Use the codes of the handle
+            if (dictionary != null) {
+                for (int row = 0; row < rows; row++) {
+                    checkInterrupt(interrupt, row);
+                    codes[row] = handle.getEncodedValue(row, column, true);
+                }
+                this.values[feature] = dictionary;
+                this.identifiers[feature] = null;
+
+            // Encode values locally
+            } else {
+                ObjectIntOpenHashMap<String> map = new ObjectIntOpenHashMap<String>();
+                for (int row = 0; row < rows; row++) {
+                    checkInterrupt(interrupt, row);
+                    String value = handle.getValue(row, column, true);
+                    int size = map.size();
+                    codes[row] = map.putIfAbsent(value, size) ? size : map.lget();
+                }
+                String[] values = new String[map.size()];
+                for (int i = 0; i < map.allocated.length; i++) {
+                    if (map.allocated[i]) {
+                        values[map.values[i]] = map.keys[i];
+                    }
+                }
+                int[] identifiers = new int[values.length];
+                for (int code = 0; code < values.length; code++) {
+                    identifiers[code] = handle.getValueIdentifier(column, values[code]);
+                }
+                this.values[feature] = values;
+                this.identifiers[feature] = identifiers;
+            }
+            this.codes[feature] = codes;
+
+            // Parse and scale each value that is used once
+            ClassificationFeatureMetadata metadata = specification.featureMetadata[feature];
+            if (metadata.isNumeric()) {
+                double[] numeric = new double[this.values[feature].length];
+                boolean[] used = new boolean[numeric.length];
+                for (int code : codes) {
+                    if (!used[code]) {
+                        used[code] = true;
+                        numeric[code] = metadata.getNumericValue(this.values[feature][code]);
+                    }
+                }
+                this.numeric[feature] = numeric;
+            }
+        }
+    }
+
+    /**
+     * Returns the identifier of the value of the given feature in the given row, as
+     * returned by {@link DataHandleInternal#getValueIdentifier(int, String)}
+     * @param feature
+     * @param row
+     * @return
+     */
+    public int getIdentifier(int feature, int row) {
+        int code = codes[feature][row];
+        return identifiers[feature] != null ? identifiers[feature][code] : code;
+    }
+
+    /**
+     * Returns the scaled numeric value of the given feature in the given row, NaN
+     * if the value cannot be parsed or scaled
+     * @param feature
+     * @param row
+     * @return
+     */
+    public double getNumericValue(int feature, int row) {
+        return numeric[feature] != null ? numeric[feature][codes[feature][row]] : Double.NaN;
+    }
+
+    /**
+     * Returns the number of rows
+     * @return
+     */
+    public int getNumRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the value of the given feature in the given row
+     * @param feature
+     * @param row
+     * @return
+     */
+    public String getValue(int feature, int row) {
+        return values[feature][codes[feature][row]];
+    }
+
+    /**
+     * Checks whether an interruption happened
+     * @param interrupt
+     * @param row
+     */
+    private void checkInterrupt(WrappedBoolean interrupt, int row) {
+        if ((row & 0xFFF) == 0 && interrupt.value) {
+            throw new ComputationInterruptedException("Interrupted");
+        }
+    }
+}
@@ -38,6 +38,8 @@ public class ClassificationFeatureMetadata {
     private final DataType<?> type;
     /** Expression */
     private final Expression  expression;
+    /** Scaling function */
+    private final String      function;
     /** Is this a numeric attribute */
     private final boolean     numeric;
     /** Is this attribute microaggregated in a type preserving manner */
@@ -61,11 +63,58 @@ public class ClassificationFeatureMetadata {
         Expression e = scaling != null ? scaling.getScalingExpression(attribute) : null;
         if (e != null && this.numeric) {
             this.expression = e;
+            this.function = scaling.getScalingFunction(attribute);
         } else {
             this.expression = null;
+            this.function = null;
         }
     }
 
+    /**
+     * Clone constructor
+     * @param attribute
+     * @param type
+     * @param expression
+     * @param function
+     * @param numeric
+     * @param isTypePreservingMicroaggregation
+     */
+    private ClassificationFeatureMetadata(String attribute,
+                                          DataType<?> type,
+                                          Expression expression,
+                                          String function,
+                                          boolean numeric,
+                                          boolean isTypePreservingMicroaggregation) {
+        this.attribute = attribute;
+        this.type = type;
+        this.expression = expression;
+        this.function = function;
+        this.numeric = numeric;
+        this.isTypePreservingMicroaggregation = isTypePreservingMicroaggregation;
+    }
+
+    /**
+     * Returns an instance which can be used by another thread. Data types and
+     * expressions maintain state while parsing and evaluating.
+     * @return
+     */
+    public ClassificationFeatureMetadata createWorkerInstance() {
+        return new ClassificationFeatureMetadata(attribute,
+                                                 type.clone(),
+                                                 expression != null ? new Expression(expression) : null,
+                                                 function,
+                                                 numeric,
+                                                 isTypePreservingMicroaggregation);
+    }
+
+    /**
+     * Returns the data type of the feature
+     * @return
+     */
+    public DataType<?> getDataType() {
+        return this.type;
+    }
+
     /**
      * Returns the name of the feature
      * @return
@@ -90,6 +139,14 @@ public class ClassificationFeatureMetadata {
         return this.expression != null;
     }
     
+    /**
+     * Returns the scaling function, null if this is not a numeric attribute
+     * @return
+     */
+    public String getScalingFunction() {
+        return this.function;
+    }
+    
     /**
      * Returns a scaled double representation, NaN if the value cannot be parsed or scaled
      * 
@@ -146,19 +146,18 @@ public class MultiClassLogisticRegression extends ClassificationMethod {
         
         // For each attribute
         int count = 0;
+        ClassificationFeatureMatrix matrix = specification.getFeatureMatrix(handle);
         for (int index : specification.featureIndices) {
             
             // Obtain data
             ClassificationFeatureMetadata metadata = specification.featureMetadata[count];
-            String value = null;
+            ClassificationFeatureMatrix source = matrix;
             if (classify && metadata.isNumericMicroaggregation()) {
-                value = inputHandle.getValue(row, index, true);
-            } else {
-                value = handle.getValue(row, index, true);
+                source = specification.getFeatureMatrix(inputHandle);
             }
-            Double numeric = metadata.getNumericValue(value);
+            double numeric = source.getNumericValue(count, row);
             if (Double.isNaN(numeric)) {    
-                wordEncoder.addToVector("Attribute-" + index + ":" + value, 1, vector);
+                wordEncoder.addToVector("Attribute-" + index + ":" + source.getValue(count, row), 1, vector);
             } else {
                 wordEncoder.addToVector("Attribute-" + index, numeric, vector);
             }
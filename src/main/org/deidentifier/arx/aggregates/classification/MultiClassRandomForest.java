@@ -189,19 +189,18 @@ public class MultiClassRandomForest extends ClassificationMethod {
         
         // For each attribute
         int count = 0;
+        ClassificationFeatureMatrix matrix = specification.getFeatureMatrix(handle);
         for (int index : specification.featureIndices) {
             
             // Obtain data
             ClassificationFeatureMetadata metadata = specification.featureMetadata[count];
-            String value = null;
+            ClassificationFeatureMatrix source = matrix;
             if (classify && metadata.isNumericMicroaggregation()) {
-                value = inputHandle.getValue(row, index, true);
-            } else {
-                value = handle.getValue(row, index, true);
+                source = specification.getFeatureMatrix(inputHandle);
             }
-            Double numeric = metadata.getNumericValue(value);
+            double numeric = source.getNumericValue(count, row);
             if (Double.isNaN(numeric)) {    
-                vector[count] = handle.getValueIdentifier(index, value);
+                vector[count] = source == matrix ? matrix.getIdentifier(count, row) : handle.getValueIdentifier(index, source.getValue(count, row));
             } else {
                 vector[count] = numeric;
             }
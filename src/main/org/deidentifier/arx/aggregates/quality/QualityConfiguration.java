@@ -27,6 +27,17 @@ public class QualityConfiguration {
     
     /** Value*/
     private String suppressedValue = DataType.ANY_VALUE;
+    
+    /** Degree of parallelism */
+    private int    parallelism     = 1;
+
+    /**
+     * Returns the degree of parallelism
+     * @return
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
 
     /**
      * @return the suppressedValue
@@ -41,4 +52,15 @@ public class QualityConfiguration {
     public void setSuppressedValue(String suppressedValue) {
         this.suppressedValue = suppressedValue;
     }
+
+    /**
+     * Sets the degree of parallelism, i.e. the number of columns processed concurrently
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Degree of parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
 }
@@ -0,0 +1,329 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.aggregates.quality;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.common.Tasks;
+import org.deidentifier.arx.common.WrappedBoolean;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * Integer representation of the quasi-identifiers in input and output data, which is shared
+ * by all quality models. Each column has its own code space, which comprises all values of its
+ * generalization hierarchy and all values found in the data. Codes are derived from the
+ * dictionaries of the data handles, so that each distinct value is hashed only once. Values are
+ * only read as strings for columns which are not encoded.
+ *
+ * @author Fabian Prasser
+ */
+public class QualityEncoding {
+
+    /** Number of rows */
+    private final int          rows;
+
+    /** Values, indexed by column and code */
+    private final String[][]   values;
+
+    /** Input, indexed by column and row */
+    private final int[][]      input;
+
+    /** Output, indexed by column and row */
+    private final int[][]      output;
+
+    /** Hierarchies, indexed by column, row and level */
+    private final int[][][]    hierarchies;
+
+    /** Records suppressed in the output */
+    private final boolean[]    outliers;
+
+    /** Records in the output in which all values are suppressed */
+    private final boolean[]    suppressed;
+
+    /** Columns converted to numbers */
+    private final double[][][] numbers;
+
+    /** Locks for converting columns to numbers */
+    private final Object[]     locks;
+
+    /** Flag */
+    private final WrappedBoolean interrupt;
+
+    /**
+     * Creates a new instance
+     *
+     * @param input
+     * @param output
+     * @param indices
+     * @param hierarchies
+     * @param config
+     * @param interrupt
+     */
+    public QualityEncoding(final DataHandleInternal input,
+                           final DataHandleInternal output,
+                           final int[] indices,
+                           final String[][][] hierarchies,
+                           final QualityConfiguration config,
+                           final WrappedBoolean interrupt) {
+
+        // Prepare
+        this.rows = output.getNumRows();
+        this.interrupt = interrupt;
+        this.values = new String[indices.length][];
+        this.input = new int[indices.length][];
+        this.output = new int[indices.length][];
+        this.hierarchies = new int[indices.length][][];
+        this.numbers = new double[indices.length][][];
+        this.locks = new Object[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            this.locks[i] = new Object();
+        }
+
+        // Encode columns
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < indices.length; i++) {
+            final int index = i;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    encode(input, output, index, indices[index], hierarchies[index], config.getSuppressedValue());
+                    return null;
+                }
+            });
+        }
+        Tasks.invokeAll(tasks, config.getParallelism());
+
+        // Flag suppressed records
+        this.outliers = new boolean[rows];
+        this.suppressed = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            outliers[row] = output.isOutlier(row);
+            suppressed[row] = outliers[row] || isEqual(row);
+            checkInterrupt();
+        }
+    }
+
+    /**
+     * Returns the hierarchy of the given column, encoded as codes indexed by row and level
+     * @param index
+     * @return
+     */
+    public int[][] getHierarchy(int index) {
+        return hierarchies[index];
+    }
+
+    /**
+     * Returns the codes of the given column in input data, indexed by row
+     * @param index
+     * @return
+     */
+    public int[] getInput(int index) {
+        return input[index];
+    }
+
+    /**
+     * Returns the number of rows
+     * @return
+     */
+    public int getNumRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the codes of the given column in output data, indexed by row
+     * @param index
+     * @return
+     */
+    public int[] getOutput(int index) {
+        return output[index];
+    }
+
+    /**
+     * Returns the values of the given column, indexed by code
+     * @param index
+     * @return
+     */
+    public String[] getValues(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns whether the given record is suppressed in output data
+     * @param row
+     * @return
+     */
+    public boolean isOutlier(int row) {
+        return outliers[row];
+    }
+
+    /**
+     * Returns whether the given record is suppressed in output data, or whether all of
+     * its values are equal, which means that they are assumed to be suppressed
+     * @param row
+     * @return
+     */
+    public boolean isSuppressed(int row) {
+        return suppressed[row];
+    }
+
+    /**
+     * Checks whether an interruption happened.
+     */
+    private void checkInterrupt() {
+        if (interrupt.value) { throw new ComputationInterruptedException("Interrupted"); }
+    }
+
+    /**
+     * Encodes the given column
+     * @param input
+     * @param output
+     * @param index
+     * @param column
+     * @param hierarchy
+     * @param suppressedValue
+     */
+    private void encode(DataHandleInternal input,
+                        DataHandleInternal output,
+                        int index,
+                        int column,
+                        String[][] hierarchy,
+                        String suppressedValue) {
+
+        // Prepare
+        ObjectIntOpenHashMap<String> map = new ObjectIntOpenHashMap<String>();
+        List<String> values = new ArrayList<String>();
+
+        // Hierarchy
+        int[][] encoded = new int[hierarchy.length][];
+        for (int row = 0; row < hierarchy.length; row++) {
+            encoded[row] = new int[hierarchy[row].length];
+            for (int level = 0; level < hierarchy[row].length; level++) {
+                encoded[row][level] = register(map, values, hierarchy[row][level]);
+            }
+            checkInterrupt();
+        }
+        register(map, values, suppressedValue);
+
+        // Data
+        int[] inputCodes = encode(input, column, map, values);
+        int[] outputCodes = encode(output, column, map, values);
+
+        // Store
+        this.hierarchies[index] = encoded;
+        this.input[index] = inputCodes;
+        this.output[index] = outputCodes;
+        this.values[index] = values.toArray(new String[values.size()]);
+    }
+
+    /**
+     * Encodes the given column of the given handle
+     * @param handle
+     * @param column
+     * @param map
+     * @param values
+     * @return
+     */
+    private int[] encode(DataHandleInternal handle, int column, ObjectIntOpenHashMap<String> map, List<String> values) {
+
+        // Prepare
+        int[] result = new int[rows];
+        String[] dictionary = handle.getDictionary(column);
+
+        // Read strings, if the column is not encoded
+        if (dictionary == null) {
+            for (int row = 0; row < rows; row++) {
+                result[row] = register(map, values, handle.getValue(row, column));
+                checkInterrupt();
+            }
+            return result;
+        }
+
+        // Translate codes, suppressed values are represented by -1
+        int[] mapping = new int[dictionary.length + 1];
+        for (int row = 0; row < rows; row++) {
+            int code = handle.getEncodedValue(row, column, false) + 1;
+            if (mapping[code] == 0) {
+                mapping[code] = register(map, values, code == 0 ? DataType.ANY_VALUE : dictionary[code - 1]) + 1;
+            }
+            result[row] = mapping[code] - 1;
+            checkInterrupt();
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether all values of the given record in output data are equal
+     * @param row
+     * @return
+     */
+    private boolean isEqual(int row) {
+        for (int i = 1; i < output.length; i++) {
+            if (!values[i - 1][output[i - 1][row]].equals(values[i][output[i][row]])) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Registers a value
+     * @param map
+     * @param values
+     * @param value
+     * @return
+     */
+    private int register(ObjectIntOpenHashMap<String> map, List<String> values, String value) {
+        int size = values.size();
+        if (map.putIfAbsent(value, size)) {
+            values.add(value);
+            return size;
+        } else {
+            return map.lget();
+        }
+    }
+
+    /**
+     * Returns the lock for converting the given column to numbers
+     * @param index
+     * @return
+     */
+    Object getLock(int index) {
+        return locks[index];
+    }
+
+    /**
+     * Returns the given column converted to numbers, if available
+     * @param index
+     * @return
+     */
+    double[][] getNumbers(int index) {
+        return numbers[index];
+    }
+
+    /**
+     * Stores the given column converted to numbers
+     * @param index
+     * @param numbers
+     */
+    void setNumbers(int index, double[][] numbers) {
+        this.numbers[index] = numbers;
+    }
+}
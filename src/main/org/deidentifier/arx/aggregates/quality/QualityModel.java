@@ -17,16 +17,22 @@
 
 package org.deidentifier.arx.aggregates.quality;
 
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataType.ARXDate;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 import org.deidentifier.arx.common.Groupify;
+import org.deidentifier.arx.common.Tasks;
 import org.deidentifier.arx.common.TupleWrapper;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
@@ -89,6 +95,12 @@ abstract class QualityModel<T> {
     /** Roots */
     private final Map<Integer, String>   roots        = new HashMap<>();
 
+    /** Encoded data */
+    private final QualityEncoding        encoding;
+
+    /** Degree of parallelism */
+    private final int                    parallelism;
+
     /** Steps */
     private int                          totalSteps   = 0;
 
@@ -108,6 +120,7 @@ abstract class QualityModel<T> {
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     QualityModel(WrappedBoolean interrupt,
@@ -122,6 +135,7 @@ abstract class QualityModel<T> {
                  String[][][] hierarchies,
                  QualityDomainShare[] shares,
                  int[] indices,
+                 QualityEncoding encoding,
                  QualityConfiguration config) {
         
         // Store data
@@ -139,6 +153,8 @@ abstract class QualityModel<T> {
         this.startWorkload = progress.value;
         this.totalWorkload = totalWorkload;
         this.suppressedValue = config.getSuppressedValue();
+        this.encoding = encoding;
+        this.parallelism = config.getParallelism();
         
         // Collect roots
         for (int index = 0; index < indices.length; index++) {
@@ -175,28 +191,54 @@ abstract class QualityModel<T> {
      */
     protected abstract T evaluate();
 
+    /**
+     * Executes the given tasks, e.g. one per column, using the configured degree of
+     * parallelism and returns their results in order
+     * 
+     * @param tasks
+     * @return
+     */
+    protected <U> List<U> invokeAll(List<Callable<U>> tasks) {
+        return Tasks.invokeAll(tasks, parallelism);
+    }
+
+    /**
+     * Returns a column from the input and output dataset converted to numbers. Each column
+     * is only converted once and then shared between all models.
+     * @param index
+     * @return
+     */
+    protected double[][] getColumnsAsNumbers(int index) {
+        synchronized (encoding.getLock(index)) {
+            double[][] result = encoding.getNumbers(index);
+            if (result == null) {
+                result = getColumnsAsNumbers(input, output, index);
+                encoding.setNumbers(index, result);
+            }
+            return result;
+        }
+    }
+
     /**
      * Returns a columns from the input and output dataset converted to numbers
      * @param input
      * @param output
-     * @param hierarchy
-     * @param column
+     * @param index
      * @return
      */
-    protected double[][] getColumnsAsNumbers(DataHandle input,
+    private double[][] getColumnsAsNumbers(DataHandle input,
                                            DataHandle output,
-                                           String[][] hierarchy,
-                                           int column) {
+                                           int index) {
         
         // Try to parse the input into a number
-        double[] inputAsNumbers = getNumbersFromNumericColumn(input, column);
+        double[] inputAsNumbers = getNumbersFromNumericColumn(input, index);
         double[] outputAsNumbers = null;
                 
         // If this worked
         if (inputAsNumbers != null) {
             
             // Try to parse the output into a number
-            outputAsNumbers = getNumbersFromNumericColumn(inputAsNumbers, output, column);
+            outputAsNumbers = getNumbersFromNumericColumn(inputAsNumbers, output, index);
 
             // If this worked: return
             if (outputAsNumbers != null) {
@@ -205,7 +247,7 @@ abstract class QualityModel<T> {
             }
             
             // Try to parse output based on numeric input
-            outputAsNumbers = getRangeFromNumericColumn(inputAsNumbers, output, column);
+            outputAsNumbers = getRangeFromNumericColumn(inputAsNumbers, output, index);
             
             // If this worked: return
             if (outputAsNumbers != null) {
@@ -214,7 +256,7 @@ abstract class QualityModel<T> {
             }
             
             // Else: use the hierarchy
-            outputAsNumbers = getNumbersFromNumericColumnAndHierarchy(input, inputAsNumbers, output, column, hierarchy);
+            outputAsNumbers = getNumbersFromNumericColumnAndHierarchy(inputAsNumbers, index);
 
             // If this worked: return
             if (outputAsNumbers != null) {
@@ -224,13 +266,29 @@ abstract class QualityModel<T> {
         }    
         
         // In all other cases: fall back to artificial ordinals
-        inputAsNumbers = getNumbersFromHierarchy(input, column, hierarchy);
-        outputAsNumbers = getNumbersFromHierarchy(output, column, hierarchy);
+        inputAsNumbers = getNumbersFromHierarchy(encoding.getInput(index), index);
+        outputAsNumbers = getNumbersFromHierarchy(encoding.getOutput(index), index);
         
         // HIERARCHY - HIERARCHY
         return new double[][]{inputAsNumbers, outputAsNumbers};
     }
 
+    /**
+     * Returns the code of the given value in the given column, -1 if there is none
+     * @param index
+     * @param value
+     * @return
+     */
+    protected int getCode(int index, String value) {
+        String[] values = encoding.getValues(index);
+        for (int code = 0; code < values.length; code++) {
+            if (values[code].equals(value)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Returns the domain shares
      */
@@ -238,6 +296,32 @@ abstract class QualityModel<T> {
         return shares;
     }
 
+    /**
+     * Returns the value of the given cell as a double. Uses the typed accessors of the handle,
+     * which parse each distinct value only once. Silently falls back to 0 for NULL values.
+     * @param handle
+     * @param row
+     * @param column
+     * @return
+     * @throws ParseException
+     */
+    private double getDouble(DataHandle handle, int row, int column) throws ParseException {
+        if (handle.getDataType(handle.getAttributeName(column)) instanceof ARXDate) {
+            Date result = handle.getDate(row, column);
+            return result != null ? result.getTime() : 0d;
+        } else {
+            Double result = handle.getDouble(row, column);
+            return result != null ? result : 0d;
+        }
+    }
+
+    /**
+     * Returns the encoded data
+     */
+    protected QualityEncoding getEncoding() {
+        return encoding;
+    }
+
     /**
      * Returns grouped input
      */
@@ -299,40 +383,37 @@ abstract class QualityModel<T> {
 
     /**
      * Returns a numeric representation, relying on the hierarchy
-     * @param handle
-     * @param column
-     * @param hierarchy
+     * @param codes
+     * @param index
      * @return
      */
-    protected double[] getNumbersFromHierarchy(DataHandle handle,
-                                             int column,
-                                             String[][] hierarchy) {
+    protected double[] getNumbersFromHierarchy(int[] codes, int index) {
 
         try {
             
             // Prepare
-            double[] result = new double[handle.getNumRows() * 2];
+            int[][] hierarchy = encoding.getHierarchy(index);
+            int size = encoding.getValues(index).length;
+            double[] result = new double[codes.length * 2];
             
             // Build maps
-            Map<String, Integer> min = new HashMap<>();
-            Map<String, Integer> max = new HashMap<>();
+            int[] min = new int[size];
+            int[] max = new int[size];
+            Arrays.fill(min, -1);
+            Arrays.fill(max, -1);
             
             // For each level
             for (int level = 0; level < hierarchy[0].length; level++) {
                 for (int id = 0; id < hierarchy.length; id++) {
                     
                     // Access
-                    String value = hierarchy[id][level];
+                    int value = hierarchy[id][level];
                     
                     // Min
-                    Integer minval = min.get(value);
-                    minval = minval == null ? id : Math.min(minval, id);
-                    min.put(value, minval);
+                    min[value] = min[value] == -1 ? id : Math.min(min[value], id);
                     
                     // Max
-                    Integer maxval = max.get(value);
-                    maxval = maxval == null ? id : Math.max(maxval, id);
-                    max.put(value, maxval);
+                    max[value] = max[value] == -1 ? id : Math.max(max[value], id);
                 }
                 
                 // Check
@@ -340,19 +421,23 @@ abstract class QualityModel<T> {
             }
             
             // Add min and max for suppressed values
-            if (!min.containsKey(getSuppressionString())) {
-                min.put(getSuppressionString(), 0);
+            int suppressed = getCode(index, getSuppressionString());
+            if (min[suppressed] == -1) {
+                min[suppressed] = 0;
             }
-            if (!max.containsKey(getSuppressionString())) {
-                max.put(getSuppressionString(), hierarchy.length - 1);
+            if (max[suppressed] == -1) {
+                max[suppressed] = hierarchy.length - 1;
             }
             
             // Map values
-            for (int row = 0; row < handle.getNumRows(); row++) {
-                String value = handle.getValue(row, column);
+            for (int row = 0; row < codes.length; row++) {
+                int value = codes[row];
+                if (min[value] == -1) {
+                    return null;
+                }
                 
-                result[row * 2] = min.get(value);
-                result[row * 2 + 1] = max.get(value);
+                result[row * 2] = min[value];
+                result[row * 2 + 1] = max[value];
                 
                 // Check
                 checkInterrupt();
@@ -370,28 +455,27 @@ abstract class QualityModel<T> {
     /**
      * Parses numbers from a numeric input column
      * @param input
-     * @param column
+     * @param index
      * @return
      */
-    protected double[] getNumbersFromNumericColumn(DataHandle input, int column) {
+    protected double[] getNumbersFromNumericColumn(DataHandle input, int index) {
         
         try {
             
             // Prepare
+            int column = indices[index];
+            int[] codes = encoding.getInput(index);
             String attribute = input.getAttributeName(column);
-            double[] result = new double[input.getNumRows() * 2];
+            double[] result = new double[codes.length * 2];
             
             // Parse numbers
             if (input.getDataType(attribute) instanceof DataTypeWithRatioScale) {
 
-                QualityConfigurationValueParser<?> parser = QualityConfigurationValueParser.create(input.getDataType(attribute));
-                for (int row = 0; row < input.getNumRows(); row++) {
-                    double number = parser.getDouble(input.getValue(row, column));
+                double[] numbers = getNumbers(input, index, codes, false);
+                for (int row = 0; row < codes.length; row++) {
+                    double number = numbers[codes[row]];
                     result[row * 2] = number;
                     result[row * 2 + 1] = number;
-                    
-                    // Check
-                    checkInterrupt();
                 }
                 
                 // Return
@@ -412,16 +496,18 @@ abstract class QualityModel<T> {
      * Parses numbers from a numeric output column
      * @param inputAsNumbers
      * @param output
-     * @param column
+     * @param index
      * @return
      */
-    protected double[] getNumbersFromNumericColumn(double[] inputAsNumbers, DataHandle output, int column) {
+    protected double[] getNumbersFromNumericColumn(double[] inputAsNumbers, DataHandle output, int index) {
         
         try {
 
             // Prepare
+            int column = indices[index];
+            int[] codes = encoding.getOutput(index);
             String attribute = output.getAttributeName(column);
-            double[] result = new double[output.getNumRows() * 2];
+            double[] result = new double[codes.length * 2];
             double[] minmax = getMinMax(inputAsNumbers);
             double minimum = minmax[0];
             double maximum = minmax[1];
@@ -429,20 +515,17 @@ abstract class QualityModel<T> {
             // Parse numbers
             if (output.getDataType(attribute) instanceof DataTypeWithRatioScale) {
 
-                QualityConfigurationValueParser<?> parser = QualityConfigurationValueParser.create(output.getDataType(attribute));
-                for (int row = 0; row < output.getNumRows(); row++) {
+                double[] numbers = getNumbers(output, index, codes, true);
+                for (int row = 0; row < codes.length; row++) {
                     
-                    if (output.isOutlier(row)) {
+                    if (encoding.isOutlier(row)) {
                         result[row * 2] = minimum;
                         result[row * 2 + 1] = maximum;    
                     } else {   
-                        double number = parser.getDouble(output.getValue(row, column));
+                        double number = numbers[codes[row]];
                         result[row * 2] = number;
                         result[row * 2 + 1] = number;
                     }
-                    
-                    // Check
-                    checkInterrupt();
                 }
                 
                 // Return
@@ -461,78 +544,72 @@ abstract class QualityModel<T> {
 
     /**
      * Uses numeric input and a hierarchy to construct ranges
-     * @param input
      * @param inputAsNumbers
-     * @param output
-     * @param column
-     * @param hierarchy
+     * @param index
      * @return
      */
-    protected double[] getNumbersFromNumericColumnAndHierarchy(DataHandle input,
-                                                             double[] inputAsNumbers,
-                                                             DataHandle output,
-                                                             int column,
-                                                             String[][] hierarchy) {
+    protected double[] getNumbersFromNumericColumnAndHierarchy(double[] inputAsNumbers, int index) {
 
         try {
             
             // Prepare
-            double[] result = new double[input.getNumRows() * 2];
+            int[] codes = encoding.getOutput(index);
+            boolean[] suppressed = getSuppressedCodes(index);
+            double[] result = new double[codes.length * 2];
             
             // Build maps
-            Map<String, Double> min = new HashMap<>();
-            Map<String, Double> max = new HashMap<>();
+            int size = encoding.getValues(index).length;
+            double[] min = new double[size];
+            double[] max = new double[size];
+            boolean[] found = new boolean[size];
             double overallMin = Double.MAX_VALUE;
             double overallMax = -Double.MAX_VALUE;
             
             // For each output value
-            for (int row = 0; row < output.getNumRows(); row++) {
+            for (int row = 0; row < codes.length; row++) {
                 
                 // Access
-                String value = output.getValue(row, column);
+                int value = codes[row];
                 double number = inputAsNumbers[row * 2];
                 overallMin = Math.min(overallMin, number);
                 overallMax = Math.max(overallMax, number);
                 
                 // Min
-                Double minval = min.get(value);
-                minval = minval == null ? number : Math.min(minval, number);
-                min.put(value, minval);
+                min[value] = !found[value] ? number : Math.min(min[value], number);
                 
                 // Max
-                Double maxval = max.get(value);
-                maxval = maxval == null ? number : Math.max(maxval, number);
-                max.put(value, maxval);
+                max[value] = !found[value] ? number : Math.max(max[value], number);
+                found[value] = true;
                 
                 // Check
                 checkInterrupt();
             }
             
             // Map values
-            for (int row = 0; row < output.getNumRows(); row++) {
+            for (int row = 0; row < codes.length; row++) {
                 
                 // Check for interrupts
                 checkInterrupt();
                 
                 // Check 1
-                if (output.isOutlier(row)) {
+                if (encoding.isOutlier(row)) {
                     result[row * 2] = overallMin;
                     result[row * 2 + 1] = overallMax;
                     continue;
                 }
                 
-                String value = output.getValue(row, column);
+                int value = codes[row];
                 
                 // Check 2
-                if (isSuppressed(column, value)) {
+                if (suppressed[value]) {
                     result[row * 2] = overallMin;
                     result[row * 2 + 1] = overallMax;
                     continue;
                 }
                 
                 // Map using hierarchy
-                result[row * 2] = min.get(value);
-                result[row * 2 + 1] = max.get(value);
+                result[row * 2] = min[value];
+                result[row * 2 + 1] = max[value];
             }
             
             // Return
@@ -545,6 +622,35 @@ abstract class QualityModel<T> {
         }
     }
 
+    /**
+     * Returns the values of the given column converted to numbers, indexed by code. Each
+     * distinct value is converted only once, using the first row in which it occurs.
+     * @param handle
+     * @param index
+     * @param codes
+     * @param ignoreOutliers
+     * @return
+     * @throws ParseException
+     */
+    private double[] getNumbers(DataHandle handle, int index, int[] codes, boolean ignoreOutliers) throws ParseException {
+        int column = indices[index];
+        double[] result = new double[encoding.getValues(index).length];
+        boolean[] converted = new boolean[result.length];
+        for (int row = 0; row < codes.length; row++) {
+            if (!ignoreOutliers || !encoding.isOutlier(row)) {
+                int code = codes[row];
+                if (!converted[code]) {
+                    result[code] = getDouble(handle, row, column);
+                    converted[code] = true;
+                }
+            }
+            
+            // Check
+            checkInterrupt();
+        }
+        return result;
+    }
+
     /**
      * Returns output
      * 
@@ -558,27 +664,31 @@ abstract class QualityModel<T> {
      * Tries to parse numbers from output when there is a numeric input column
      * @param inputNumbers
      * @param output
-     * @param column
+     * @param index
      * @return
      */
     protected double[] getRangeFromNumericColumn(double[] inputNumbers,
-                                               DataHandle output,
-                                               int column) {
+                                                 DataHandle output,
+                                                 int index) {
         
         try {
             
             // Prepare
+            int column = indices[index];
+            int[] codes = encoding.getOutput(index);
+            String[] values = encoding.getValues(index);
+            boolean[] suppressed = getSuppressedCodes(index);
             String attribute = output.getAttributeName(column);
-            double[] result = new double[output.getNumRows() * 2];
+            double[] result = new double[codes.length * 2];
             double[] minmax = getMinMax(inputNumbers);
             double minimum = minmax[0];
             double maximum = minmax[1];
             
             // Create a sample of the data
             List<String> sample = new ArrayList<>();
-            for (int row = 0; row < output.getNumRows() && sample.size() < 50; row++) {
-                if (!output.isOutlier(row)) {
-                    sample.add(output.getValue(row, column));
+            for (int row = 0; row < codes.length && sample.size() < 50; row++) {
+                if (!encoding.isOutlier(row)) {
+                    sample.add(values[codes[row]]);
                 }
             }
             
@@ -586,19 +696,23 @@ abstract class QualityModel<T> {
             QualityConfigurationValueParser<?> valueParser = QualityConfigurationValueParser.create(output.getDataType(attribute));
             QualityConfigurationRangeParser rangeParser = QualityConfigurationRangeParser.getParser(valueParser, sample);
             
-            // Parse
-            for (int row = 0; row < output.getNumRows(); row++) {
+            // Parse each value once
+            double[][] ranges = new double[values.length][];
+            for (int row = 0; row < codes.length; row++) {
                 
                 // Parse
                 double[] range;
-                if (output.isOutlier(row)) {
+                if (encoding.isOutlier(row)) {
                     range = new double[]{minimum, maximum};
                 } else {
-                    String value = output.getValue(row, column);
-                    if (isSuppressed(column, value)) {
+                    int value = codes[row];
+                    if (suppressed[value]) {
                         range = new double[]{minimum, maximum};    
                     } else {
-                        range = rangeParser.getRange(valueParser, value, minimum, maximum);
+                        if (ranges[value] == null) {
+                            ranges[value] = rangeParser.getRange(valueParser, values[value], minimum, maximum);
+                        }
+                        range = ranges[value];
                     }
                 }
                 
@@ -644,39 +758,18 @@ abstract class QualityModel<T> {
     }
 
     /**
-     * Returns whether a value is suppressed
+     * Returns whether the values of the given column are suppressed, indexed by code
      * 
-     * @param handle
-     * @param row
-     * @param column
+     * @param index
      * @return
      */
-    protected boolean isSuppressed(DataHandle handle, int row, int column) {
-
-        // Check flag
-        if (handle.isOutlier(row)) {
-            return true;
-        } else {
-            return isSuppressed(column, handle.getValue(row, column));
-        }
-    }
-
-    /**
-     * We assume that an entry is suppressed, if all values are equal
-     * 
-     * @param entry
-     * @return
-     */
-    protected boolean isSuppressed(DataHandle handle, int[] indices, int row) {
-
-        // Check flag
-        if (handle.isOutlier(row)) { return true; }
-
-        // Check values
-        for (int i = 1; i < indices.length; i++) {
-            if (!handle.getValue(row, indices[i - 1]).equals(handle.getValue(row, indices[i]))) { return false; }
+    protected boolean[] getSuppressedCodes(int index) {
+        String[] values = encoding.getValues(index);
+        boolean[] result = new boolean[values.length];
+        for (int code = 0; code < values.length; code++) {
+            result[code] = isSuppressed(indices[index], values[code]);
         }
-        return true;
+        return result;
     }
 
     /**
@@ -703,7 +796,7 @@ abstract class QualityModel<T> {
     /**
      * One step performed
      */
-    protected void setStepPerformed() {
+    protected synchronized void setStepPerformed() {
         this.currentSteps++;
         int value = (int)Math.round((double)totalWorkload * (double)currentSteps / (double)totalSteps);
         this.progress.value = startWorkload + value;
@@ -17,6 +17,10 @@
 
 package org.deidentifier.arx.aggregates.quality;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.common.Groupify;
 import org.deidentifier.arx.common.TupleWrapper;
@@ -48,6 +52,7 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelColumnOrientedLoss(WrappedBoolean interrupt,
@@ -62,6 +67,7 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
                                           String[][][] hierarchies,
                                           QualityDomainShare[] shares,
                                           int[] indices,
+                                          QualityEncoding encoding,
                                           QualityConfiguration config) {
         super(interrupt,
               progress,
@@ -75,6 +81,7 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
               hierarchies,
               shares,
               indices,
+              encoding,
               config);
     }
     
@@ -84,7 +91,7 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
         // Prepare
         int[] indices = getIndices();
         DataHandle output = getOutput();
-        QualityDomainShare[] shares = getDomainShares();
+        final QualityDomainShare[] shares = getDomainShares();
         double[] result = new double[indices.length];
         double[] min = new double[indices.length];
         double[] max = new double[indices.length];
@@ -93,31 +100,19 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
         setSteps(result.length);
         
         // For each column
+        List<Callable<Double>> tasks = new ArrayList<Callable<Double>>();
         for (int i = 0; i < result.length; i++) {
-            
-            // Map
-            int column = indices[i];
-            
-            // For each row
-            for (int row = 0; row < output.getNumRows(); row++) {
-                
-                try {
-                    double share = 1d;
-                    if (!isSuppressed(output, indices, row)) {
-                        share = shares[i].getShare(output.getValue(row, column), 0);
-                    }
-                    result[i] += share;
-                } catch (Exception e) {
-                    // Silently catch exceptions
-                    result[i] = Double.NaN;
+            final int index = i;
+            tasks.add(new Callable<Double>() {
+                @Override
+                public Double call() throws Exception {
+                    return evaluate(index, shares[index]);
                 }
-                
-                // Check
-                checkInterrupt();
-            }
-
-            // Progress
-            setStepPerformed();
+            });
+        }
+        List<Double> results = invokeAll(tasks);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = results.get(i);
         }
 
         // For each column
@@ -133,4 +128,49 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
         // Return
         return new QualityMeasureColumnOriented(output, indices, min, result, max);
     }
+
+    /**
+     * Sums up the shares of the values of the given column. Each share is only calculated once.
+     * 
+     * @param index
+     * @param share
+     * @return
+     */
+    private double evaluate(int index, QualityDomainShare share) {
+        
+        // Prepare
+        QualityEncoding encoding = getEncoding();
+        int[] codes = encoding.getOutput(index);
+        String[] values = encoding.getValues(index);
+        double[] shares = new double[values.length];
+        boolean[] available = new boolean[values.length];
+        double result = 0d;
+        
+        // For each row
+        for (int row = 0; row < codes.length; row++) {
+            
+            try {
+                double value = 1d;
+                if (!encoding.isSuppressed(row)) {
+                    int code = codes[row];
+                    if (!available[code]) {
+                        shares[code] = share.getShare(values[code], 0);
+                        available[code] = true;
+                    }
+                    value = shares[code];
+                }
+                result += value;
+            } catch (Exception e) {
+                // Silently catch exceptions
+                result = Double.NaN;
+            }
+            
+            // Check
+            checkInterrupt();
+        }
+
+        // Progress
+        setStepPerformed();
+        return result;
+    }
 }
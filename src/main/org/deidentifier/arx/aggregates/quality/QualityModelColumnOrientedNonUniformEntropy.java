@@ -18,12 +18,9 @@
 package org.deidentifier.arx.aggregates.quality;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.common.Groupify;
@@ -62,6 +59,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelColumnOrientedNonUniformEntropy(WrappedBoolean interrupt,
@@ -76,6 +74,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                                                        String[][][] hierarchies,
                                                        QualityDomainShare[] shares,
                                                        int[] indices,
+                                                       QualityEncoding encoding,
                                                        QualityConfiguration config) {
                      super(interrupt,
                            progress,
@@ -89,6 +88,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                            hierarchies,
                            shares,
                            indices,
+                           encoding,
                            config);
     }
     
@@ -98,7 +98,6 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
         // Prepare
         int[] indices = getIndices();
         DataHandle output = getOutput();
-        String[][][] hierarchies = getHierarchies();
         double[] result = new double[indices.length];
         double[] min = new double[indices.length];
         double[] max = new double[indices.length];
@@ -107,129 +106,167 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
         setSteps(result.length * 3);
         
         // For each column
+        List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>();
         for (int i = 0; i < result.length; i++) {
+            final int index = i;
+            tasks.add(new Callable<double[]>() {
+                @Override
+                public double[] call() throws Exception {
+                    return evaluate(index);
+                }
+            });
+        }
+        List<double[]> results = invokeAll(tasks);
+        for (int i = 0; i < result.length; i++) {
+            min[i] = results.get(i)[0];
+            result[i] = results.get(i)[1];
+            max[i] = results.get(i)[2];
+        }
 
-            // Map
-            int column = indices[i];
+        // Progress
+        setStepsDone();
+        
+        // Return
+        return new QualityMeasureColumnOriented(output, indices, min, result, max);
+    }
 
-            try {
-                
-                // Prepare
-                Map<String, String>[] generalizationFunctions = getGeneralizationFunctions(hierarchies, i);
-                Map<String, Integer> inverseGeneralizationFunction = getInverseGeneralizationFunction(hierarchies, i);
-                
-                // Determine generalization levels
-                final int[] transformations = new int[output.getNumRows()];
-                for (int row = 0; row < output.getNumRows(); row++) {
-                    transformations[row] = inverseGeneralizationFunction.get(output.getValue(row, column));
+    /**
+     * Evaluates the given column
+     * 
+     * @param index
+     * @return minimum, result and maximum
+     */
+    private double[] evaluate(int index) {
+        
+        // Prepare
+        double result = 0d;
+        double min = 0d;
+        double max = 0d;
+
+        try {
+            
+            // Prepare
+            QualityEncoding encoding = getEncoding();
+            int[][] hierarchy = encoding.getHierarchy(index);
+            int[] input = encoding.getInput(index);
+            int[] output = encoding.getOutput(index);
+            int size = encoding.getValues(index).length;
+            int[][] generalizationFunctions = getGeneralizationFunctions(hierarchy, size);
+            int[] inverseGeneralizationFunction = getInverseGeneralizationFunction(hierarchy, size, getCode(index, getSuppressionString()));
+            
+            // Determine generalization levels
+            final int[] transformations = new int[output.length];
+            boolean[] _levels = new boolean[hierarchy[0].length];
+            for (int row = 0; row < output.length; row++) {
+                int level = inverseGeneralizationFunction[output[row]];
+                if (level == -1) {
+                    throw new IllegalArgumentException("Unknown value");
                 }
-                
-                // Group and sort all generalization levels
-                Set<Integer> _levels = new HashSet<Integer>();
-                for (int level : transformations) {
-                    _levels.add(level);
+                transformations[row] = level;
+                _levels[level] = true;
+            }
+            
+            // Group and sort all generalization levels
+            List<Integer> levels = new ArrayList<Integer>();
+            for (int level = 0; level < _levels.length; level++) {
+                if (_levels[level]) {
+                    levels.add(level);
                 }
-                List<Integer> levels = new ArrayList<Integer>();
-                levels.addAll(_levels);
-                Collections.sort(levels);
+            }
 
-                // Progress
-                setStepPerformed();
+            // Progress
+            setStepPerformed();
+            
+            // For each generalization level
+            for (int levelIndex = 0; levelIndex < levels.size(); levelIndex++) {
                 
-                // For each generalization level
-                for (int levelIndex = 0; levelIndex < levels.size(); levelIndex++) {
-                    
-                    // Obtain level
-                    int currentLevel = levels.get(levelIndex);
-                    int previousLevel = levelIndex > 0 ? levels.get(levelIndex - 1) : currentLevel;
-                    
-                    // Frequencies in input or levelIndex - 1 for all rows with transformation level >= level
-                    Map<String, Double> inputFrequencies = levelIndex == 0 ? getInputFrequencies(transformations, column, currentLevel)
-                                                                           : getOutputFrequencies(transformations, generalizationFunctions, column, currentLevel, previousLevel);
+                // Obtain level
+                int currentLevel = levels.get(levelIndex);
+                int previousLevel = levelIndex > 0 ? levels.get(levelIndex - 1) : currentLevel;
+                
+                // Frequencies in input or levelIndex - 1 for all rows with transformation level >= level
+                double[] inputFrequencies = levelIndex == 0 ? getInputFrequencies(transformations, input, size, currentLevel)
+                                                            : getOutputFrequencies(transformations, generalizationFunctions[previousLevel], input, size, currentLevel);
 
-                    // Frequencies of values on the given level in output for all rows with transformation level >= level
-                    Map<String, Double> outputFrequencies = getOutputFrequencies(transformations, generalizationFunctions, column, currentLevel, currentLevel);
-                    
-                    // Sum up loss of values transformation level >= level
-                    DataHandle input = getInput();
-                    for (int row = 0; row < input.getNumRows(); row++) {
+                // Frequencies of values on the given level in output for all rows with transformation level >= level
+                double[] outputFrequencies = getOutputFrequencies(transformations, generalizationFunctions[currentLevel], input, size, currentLevel);
+                
+                // Sum up loss of values transformation level >= level
+                for (int row = 0; row < input.length; row++) {
 
-                        // Input and output value for this cell
-                        String value = input.getValue(row, column);
-                        String inputValue = levelIndex == 0 ? value : generalizationFunctions[previousLevel].get(value);
-                        String outputValue = generalizationFunctions[currentLevel].get(value);
-                        
-                        // Calculate result
-                        if (transformations[row] >= currentLevel) {
-                            result[i] += log2(inputFrequencies.get(inputValue) / outputFrequencies.get(outputValue));
-                        }
+                    // Calculate result
+                    if (transformations[row] >= currentLevel) {
                         
-                        // Check
-                        checkInterrupt();
+                        // Input and output value for this cell
+                        int value = input[row];
+                        int inputValue = levelIndex == 0 ? value : generalizationFunctions[previousLevel][value];
+                        int outputValue = generalizationFunctions[currentLevel][value];
+                        result += log2(inputFrequencies[inputValue] / outputFrequencies[outputValue]);
                     }
-                }
-
-                // Progress
-                setStepPerformed();
-
-                // Calculate maximum
-                DataHandle input = getInput();
-                Map<String, Double> inputFrequencies = getInputFrequencies(transformations, column, 0);
-                for (int row = 0; row < input.getNumRows(); row++) {
-                    max[i] += log2(inputFrequencies.get(input.getValue(row, column)) / (double)input.getNumRows());
-
+                    
                     // Check
                     checkInterrupt();
                 }
+            }
 
-                // Progress
-                setStepPerformed();
+            // Progress
+            setStepPerformed();
 
-                // Invert sign
-                result[i] *= -1;
-                max[i] *= -1;
-                
-                // Explicitly define minimum
-                min[i] = 0;
-                
-            } catch (Exception e) {
-                // Silently catch exceptions
-                result[i] = Double.NaN;
-                min[i] = Double.NaN;
-                max[i] = Double.NaN;
+            // Calculate maximum
+            double[] inputFrequencies = getInputFrequencies(transformations, input, size, 0);
+            for (int row = 0; row < input.length; row++) {
+                max += log2(inputFrequencies[input[row]] / (double)input.length);
+
+                // Check
+                checkInterrupt();
             }
 
-            // Check
-            checkInterrupt();
+            // Progress
+            setStepPerformed();
+
+            // Invert sign
+            result *= -1;
+            max *= -1;
+            
+            // Explicitly define minimum
+            min = 0;
+            
+        } catch (Exception e) {
+            // Silently catch exceptions
+            result = Double.NaN;
+            min = Double.NaN;
+            max = Double.NaN;
         }
 
-        // Progress
-        setStepsDone();
+        // Check
+        checkInterrupt();
         
         // Return
-        return new QualityMeasureColumnOriented(output, indices, min, result, max);
+        return new double[] {min, result, max};
     }
 
     /**
-     * Builds a generalization function mapping input values to the given level of the hierarchy
+     * Builds generalization functions mapping codes of input values to codes of values on the
+     * given level of the hierarchy. Values which are not contained in the hierarchy are mapped
+     * to <code>size</code>.
      * 
-     * @param hierarchies
-     * @param index
+     * @param hierarchy
+     * @param size
      * @return
      */
-    @SuppressWarnings("unchecked")
-    private Map<String, String>[] getGeneralizationFunctions(String[][][] hierarchies, int index) {
+    private int[][] getGeneralizationFunctions(int[][] hierarchy, int size) {
         
         // Prepare
-        Map<String, String>[] result = new HashMap[hierarchies[index][0].length];
+        int[][] result = new int[hierarchy[0].length][];
 
         // For each dimension
-        for (int level = 0; level < hierarchies[index][0].length; level++) {
-            Map<String, String> map = new HashMap<String, String>();
-            for (int row = 0; row < hierarchies[index].length; row++) {
-                map.put(hierarchies[index][row][0], hierarchies[index][row][level]);
+        for (int level = 0; level < hierarchy[0].length; level++) {
+            int[] function = new int[size];
+            Arrays.fill(function, size);
+            for (int row = 0; row < hierarchy.length; row++) {
+                function[hierarchy[row][0]] = hierarchy[row][level];
             }
-            result[level] = map;
+            result[level] = function;
         }
         
         // Return
@@ -239,18 +276,16 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
     /**
      * Returns the frequencies of values in input data for all rows with transformation level >= level
      * @param transformations
-     * @param column
+     * @param input
+     * @param size
      * @param level
      * @return
      */
-    private Map<String, Double> getInputFrequencies( int[] transformations, int column, int level) {
-        DataHandle input = getInput();
-        Map<String, Double> result = new HashMap<String, Double>();
-        for (int row = 0; row < input.getNumRows(); row++) {
+    private double[] getInputFrequencies(int[] transformations, int[] input, int size, int level) {
+        double[] result = new double[size + 1];
+        for (int row = 0; row < input.length; row++) {
             if (transformations[row] >= level) {
-                String value = input.getValue(row, column);
-                Double count = result.get(value);
-                result.put(value, count != null ? count + 1d : 1d);
+                result[input[row]]++;
             }
 
             // Check
@@ -260,22 +295,25 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
     }
 
     /**
-     * Returns the inverse generalization function
-     * @param hierarchies
-     * @param index
+     * Returns the inverse generalization function, mapping codes to the lowest level of the
+     * hierarchy on which they are contained, -1 for values which are not contained
+     * @param hierarchy
+     * @param size
+     * @param suppressed
      * @return
      */
-    private Map<String, Integer> getInverseGeneralizationFunction(String[][][] hierarchies, int index) {
+    private int[] getInverseGeneralizationFunction(int[][] hierarchy, int size, int suppressed) {
 
         // Prepare
-        Map<String, Integer> result = new HashMap<>();
+        int[] result = new int[size];
+        Arrays.fill(result, -1);
 
         // Collect
-        for (int col = 0; col < hierarchies[index][0].length; col++) {
-            for (int row = 0; row < hierarchies[index].length; row++) {
-                String value = hierarchies[index][row][col];
-                if (!result.containsKey(value)) {
-                    result.put(value, col);
+        for (int col = 0; col < hierarchy[0].length; col++) {
+            for (int row = 0; row < hierarchy.length; row++) {
+                int value = hierarchy[row][col];
+                if (result[value] == -1) {
+                    result[value] = col;
                 }
             }
             
@@ -284,8 +322,8 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
         }
         
         // Handle suppressed value
-        if (!result.containsKey(getSuppressionString())) {
-            result.put(getSuppressionString(), hierarchies[index][0].length-1);
+        if (result[suppressed] == -1) {
+            result[suppressed] = hierarchy[0].length - 1;
         }
         
         // Return
@@ -295,24 +333,21 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
     /**
      * Returns the frequencies of values in input data on the target level in output for all rows with transformation level >= level
      * @param transformations
-     * @param generalizationFunctions
-     * @param column
+     * @param generalizationFunction
+     * @param input
+     * @param size
      * @param level
-     * @param target
      * @return
      */
-    private Map<String, Double> getOutputFrequencies(int[] transformations,
-                                                     Map<String, String>[] generalizationFunctions,
-                                                     int column, 
-                                                     int level, 
-                                                     int target) {
-        Map<String, Double> result = new HashMap<String, Double>();
-        DataHandle input = getInput();
-        for (int row = 0; row < input.getNumRows(); row++) {
+    private double[] getOutputFrequencies(int[] transformations,
+                                          int[] generalizationFunction,
+                                          int[] input,
+                                          int size,
+                                          int level) {
+        double[] result = new double[size + 1];
+        for (int row = 0; row < input.length; row++) {
             if (transformations[row] >= level) {
-                String value = generalizationFunctions[target].get(input.getValue(row, column));
-                Double count = result.get(value);
-                result.put(value, count != null ? count + 1d : 1d);
+                result[generalizationFunction[input[row]]]++;
             }
 
             // Check
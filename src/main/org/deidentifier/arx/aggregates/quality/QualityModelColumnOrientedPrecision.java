@@ -17,8 +17,10 @@
 
 package org.deidentifier.arx.aggregates.quality;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.common.Groupify;
@@ -51,6 +53,7 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelColumnOrientedPrecision(WrappedBoolean interrupt,
@@ -65,6 +68,7 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
                                                String[][][] hierarchies,
                                                QualityDomainShare[] shares,
                                                int[] indices,
+                                               QualityEncoding encoding,
                                                QualityConfiguration config) {
              super(interrupt,
                    progress,
@@ -78,6 +82,7 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
                    hierarchies,
                    shares,
                    indices,
+                   encoding,
                    config);
     }
     
@@ -87,8 +92,6 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
         // Prepare
         int[] indices = getIndices();
         DataHandle output = getOutput();
-        String[][][] hierarchies = getHierarchies();
-        Map<String, Double>[] precisions = getPrecisions(hierarchies);
         double[] result = new double[indices.length];
         double[] min = new double[indices.length];
         double[] max = new double[indices.length];
@@ -97,32 +100,19 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
         setSteps(result.length);
         
         // For each column
+        List<Callable<Double>> tasks = new ArrayList<Callable<Double>>();
         for (int i = 0; i < result.length; i++) {
-            
-            // Map
-            int column = indices[i];
-            
-            // For each row
-            for (int row = 0; row < output.getNumRows(); row++) {
-                
-                try {
-                    double precision = 1d;
-                    if (!isSuppressed(output, indices, row)) {
-                        Double temp = precisions[i].get(output.getValue(row, column));
-                        precision = temp != null ? temp : 1d;
-                    }
-                    result[i] += precision;
-                } catch (Exception e) {
-                    // Silently catch exceptions
-                    result[i] = Double.NaN;
+            final int index = i;
+            tasks.add(new Callable<Double>() {
+                @Override
+                public Double call() throws Exception {
+                    return evaluate(index);
                 }
-                
-                // Check
-                checkInterrupt();
-            }
-
-            // Progress
-            setStepPerformed();
+            });
+        }
+        List<Double> results = invokeAll(tasks);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = results.get(i);
         }
 
         // For each column
@@ -140,48 +130,80 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
     }
 
     /**
-     * Returns precisions
-     * @param hierarchies
+     * Sums up the precision of the values of the given column
+     * 
+     * @param index
      * @return
      */
-    private Map<String, Double>[] getPrecisions(String[][][] hierarchies) {
-
+    private double evaluate(int index) {
+        
         // Prepare
-        @SuppressWarnings("unchecked")
-        Map<String, Double>[] precisions = new Map[hierarchies.length];
+        QualityEncoding encoding = getEncoding();
+        int[] codes = encoding.getOutput(index);
+        double[] precision = getPrecision(index);
+        double result = 0d;
         
-        for (int i=0; i<precisions.length; i++) {
+        // For each row
+        for (int row = 0; row < codes.length; row++) {
             
             try {
-                
-                // Extract info
-                String[][] hierarchy = hierarchies[i];
-                
-                // Calculate precision
-                Map<String, Double> precision = new HashMap<String, Double>();
-                for (int col = 0; col < hierarchy[0].length; col++) {
-                    for (int row = 0; row < hierarchy.length; row++) {
-                        String value = hierarchy[row][col];
-                        if (!precision.containsKey(value)) {
-                            precision.put(value, (double)col / ((double)hierarchy[0].length - 1d));
-                        }
-                    }
-                    
-                    // Check
-                    checkInterrupt();
+                double value = 1d;
+                if (!encoding.isSuppressed(row)) {
+                    value = precision[codes[row]];
                 }
-                
-                // Store
-                precisions[i] = precision;
-                
+                result += value;
             } catch (Exception e) {
-                
-                // Drop silently
-                precisions[i] = null;
+                // Silently catch exceptions
+                result = Double.NaN;
             }
+            
+            // Check
+            checkInterrupt();
         }
 
-        // Return
-        return precisions;
+        // Progress
+        setStepPerformed();
+        return result;
+    }
+
+    /**
+     * Returns the precision of the values of the given column, indexed by code. Values which
+     * are not contained in the hierarchy have a precision of 1.
+     * @param index
+     * @return
+     */
+    private double[] getPrecision(int index) {
+
+        try {
+            
+            // Extract info
+            int[][] hierarchy = getEncoding().getHierarchy(index);
+            int size = getEncoding().getValues(index).length;
+            
+            // Calculate precision
+            double[] precision = new double[size];
+            boolean[] available = new boolean[size];
+            Arrays.fill(precision, 1d);
+            for (int col = 0; col < hierarchy[0].length; col++) {
+                for (int row = 0; row < hierarchy.length; row++) {
+                    int value = hierarchy[row][col];
+                    if (!available[value]) {
+                        precision[value] = (double)col / ((double)hierarchy[0].length - 1d);
+                        available[value] = true;
+                    }
+                }
+                
+                // Check
+                checkInterrupt();
+            }
+            
+            // Return
+            return precision;
+            
+        } catch (Exception e) {
+            
+            // Drop silently
+            return null;
+        }
     }
 }
@@ -17,6 +17,10 @@
 
 package org.deidentifier.arx.aggregates.quality;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.common.Groupify;
 import org.deidentifier.arx.common.TupleWrapper;
@@ -46,6 +50,7 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelColumnOrientedSquaredError(WrappedBoolean interrupt,
@@ -60,6 +65,7 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
                                                   String[][][] hierarchies,
                                                   QualityDomainShare[] shares,
                                                   int[] indices,
+                                                  QualityEncoding encoding,
                                                   QualityConfiguration config) {
                 super(interrupt,
                       progress,
@@ -73,6 +79,7 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
                       hierarchies,
                       shares,
                       indices,
+                      encoding,
                       config);
     }
     
@@ -84,99 +91,127 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
         double[] result = new double[indices.length];
         double[] min = new double[indices.length];
         double[] max = new double[indices.length];
-        String[][][] hierarchies = getHierarchies();
         
         // Progress
         setSteps(result.length);
         
         // For each column
+        List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>();
         for (int i = 0; i < result.length; i++) {
+            final int index = i;
+            tasks.add(new Callable<double[]>() {
+                @Override
+                public double[] call() throws Exception {
+                    return evaluate(index);
+                }
+            });
+        }
+        List<double[]> results = invokeAll(tasks);
+        for (int i = 0; i < result.length; i++) {
+            min[i] = results.get(i)[0];
+            result[i] = results.get(i)[1];
+            max[i] = results.get(i)[2];
+        }
+
+        // Progress
+        setStepsDone();
+        
+        // Return
+        return new QualityMeasureColumnOriented(getOutput(), indices, min, result, max);
+    }
+
+    /**
+     * Evaluates the given column
+     * 
+     * @param i
+     * @return minimum, result and maximum
+     */
+    private double[] evaluate(int i) {
+        
+        // Prepare
+        double result = 0d;
+        double min = 0d;
+        double max = 0d;
+        
+        try {
+            
+            // Prepare
+            double[] input = null;
+            double[] output = null;
             
+            // Parse
             try {
-                
-                // Map
-                int column = indices[i];
-                double[] input = null;
-                double[] output = null;
-                
-                // Parse
-                try {
-                    double[][] columnsAsNumbers = getColumnsAsNumbers(getInput(), getOutput(), 
-                                                                      hierarchies[i], column);
-                    if (columnsAsNumbers != null) {
-                        input = columnsAsNumbers[0];
-                        output= columnsAsNumbers[1];
-                    }
-                } catch (Exception e) {
-                    // Fail silently
+                double[][] columnsAsNumbers = getColumnsAsNumbers(i);
+                if (columnsAsNumbers != null) {
+                    input = columnsAsNumbers[0];
+                    output= columnsAsNumbers[1];
                 }
+            } catch (Exception e) {
+                // Fail silently
+            }
 
-                // Check
-                if (input != null && output != null) {
+            // Check
+            if (input != null && output != null) {
+                
+                // For normalization
+                double[] minmax = getMinMax(input);
+                double minimum = minmax[0];
+                double maximum = minmax[1];
+                
+                // 1 / N * SUM_i (x_i - y_i)^2
+                for (int index = 0; index < output.length; index += 2) {
                     
-                    // For normalization
-                    double[] minmax = getMinMax(input);
-                    double minimum = minmax[0];
-                    double maximum = minmax[1];
+                    // Calculate maximum distance
+                    double maxMin = input[index] - minimum;
+                    double maxMax = input[index] - maximum;
                     
-                    // 1 / N * SUM_i (x_i - y_i)^2
-                    for (int index = 0; index < output.length; index += 2) {
+                    // Square for abs()
+                    maxMin *= maxMin;
+                    maxMax *= maxMax;
+                    double maxDiff = Math.max(maxMin, maxMax);
+                    
+                    // If present
+                    if ((!Double.isNaN(output[index]))) {
                         
-                        // Calculate maximum distance
-                        double maxMin = input[index] - minimum;
-                        double maxMax = input[index] - maximum;
+                        // Try bounds
+                        double diff1 = input[index] - output[index];
+                        double diff2 = input[index] - output[index + 1];
                         
                         // Square for abs()
-                        maxMin *= maxMin;
-                        maxMax *= maxMax;
-                        double maxDiff = Math.max(maxMin, maxMax);
+                        diff1 *= diff1;
+                        diff2 *= diff2;
+                        double diff = Math.max(diff1, diff2);
                         
-                        // If present
-                        if ((!Double.isNaN(output[index]))) {
-                            
-                            // Try bounds
-                            double diff1 = input[index] - output[index];
-                            double diff2 = input[index] - output[index + 1];
-                            
-                            // Square for abs()
-                            diff1 *= diff1;
-                            diff2 *= diff2;
-                            double diff = Math.max(diff1, diff2);
-                            
-                            // Store
-                            result[i] += Math.min(diff, maxDiff);
-                            
-                        } else {
-
-                            // Store
-                            result[i] += maxDiff;
-                        }
+                        // Store
+                        result += Math.min(diff, maxDiff);
                         
-                        // Max
-                        max[i] += maxDiff;
+                    } else {
 
-                        // Check
-                        checkInterrupt();
+                        // Store
+                        result += maxDiff;
                     }
                     
-                // Not available
-                } else {
-                    result[i] = Double.NaN;
+                    // Max
+                    max += maxDiff;
+
+                    // Check
+                    checkInterrupt();
                 }
-            } catch (Exception e) {
                 
-                // Ignore silently
-                result[i] = Double.NaN;
+            // Not available
+            } else {
+                result = Double.NaN;
             }
+        } catch (Exception e) {
             
-            // Progress
-            setStepPerformed();
+            // Ignore silently
+            result = Double.NaN;
         }
-
+        
         // Progress
-        setStepsDone();
+        setStepPerformed();
         
         // Return
-        return new QualityMeasureColumnOriented(getOutput(), indices, min, result, max);
+        return new double[] {min, result, max};
     }
 }
@@ -49,6 +49,7 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelRowOrientedAECS(WrappedBoolean interrupt,
@@ -63,6 +64,7 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
                                        String[][][] hierarchies,
                                        QualityDomainShare[] shares,
                                        int[] indices,
+                                       QualityEncoding encoding,
                                        QualityConfiguration config) {
      super(interrupt,
            progress,
@@ -76,6 +78,7 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
            hierarchies,
            shares,
            indices,
+           encoding,
            config);
     }
 
@@ -48,6 +48,7 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelRowOrientedAmbiguity(WrappedBoolean interrupt,
@@ -62,6 +63,7 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
                                             String[][][] hierarchies,
                                             QualityDomainShare[] shares,
                                             int[] indices,
+                                            QualityEncoding encoding,
                                             QualityConfiguration config) {
           super(interrupt,
                 progress,
@@ -75,6 +77,7 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
                 hierarchies,
                 shares,
                 indices,
+                encoding,
                 config);
     }
 
@@ -93,13 +96,27 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
         setSteps(output.getNumRows());
         
         try {
+            
+            // Determine shares once per distinct value
+            QualityEncoding encoding = getEncoding();
+            double[][] _shares = new double[indices.length][];
+            boolean[][] _available = new boolean[indices.length][];
+            for (int i = 0; i < indices.length; i++) {
+                _shares[i] = new double[encoding.getValues(i).length];
+                _available[i] = new boolean[_shares[i].length];
+            }
+            
             for (int row = 0; row < output.getNumRows(); row++) {
                 double rowMin = 1d;
                 double rowResult = 1d;
                 double rowMax = 1d;
                 for (int i = 0; i < indices.length; i++) {
-                    int column = indices[i];
-                    rowResult *= shares[i].getShare(output.getValue(row, column), 0) * shares[i].getDomainSize();
+                    int code = encoding.getOutput(i)[row];
+                    if (!_available[i][code]) {
+                        _shares[i][code] = shares[i].getShare(encoding.getValues(i)[code], 0);
+                        _available[i][code] = true;
+                    }
+                    rowResult *= _shares[i][code] * shares[i].getDomainSize();
                     rowMin *= 1d;
                     rowMax *= shares[i].getDomainSize();
                 }
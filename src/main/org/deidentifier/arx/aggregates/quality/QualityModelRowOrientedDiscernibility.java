@@ -50,6 +50,7 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelRowOrientedDiscernibility(WrappedBoolean interrupt,
@@ -64,6 +65,7 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
                                                  String[][][] hierarchies,
                                                  QualityDomainShare[] shares,
                                                  int[] indices,
+                                                 QualityEncoding encoding,
                                                  QualityConfiguration config) {
                super(interrupt,
                      progress,
@@ -77,6 +79,7 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
                      hierarchies,
                      shares,
                      indices,
+                     encoding,
                      config);
     }
 
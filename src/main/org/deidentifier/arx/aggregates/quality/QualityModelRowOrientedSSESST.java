@@ -19,6 +19,7 @@ package org.deidentifier.arx.aggregates.quality;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.common.Groupify;
@@ -50,6 +51,7 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelRowOrientedSSESST(WrappedBoolean interrupt,
@@ -64,6 +66,7 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
                                          String[][][] hierarchies,
                                          QualityDomainShare[] shares,
                                          int[] indices,
+                                         QualityEncoding encoding,
                                          QualityConfiguration config) {
        super(interrupt,
              progress,
@@ -77,6 +80,7 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
              hierarchies,
              shares,
              indices,
+             encoding,
              config);
     }
 
@@ -89,28 +93,16 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
             int[] indices = getIndices();
             List<double[]> columns1 = new ArrayList<>();
             List<double[]> columns2 = new ArrayList<>();
-            String[][][] hierarchies = getHierarchies();
 
             // Progress
             setSteps(indices.length + 2);
             
             // Collect
-            for (int index = 0; index < indices.length; index++) {
-                try {
-                    int column = indices[index];
-                    double[][] columnsAsNumbers = getColumnsAsNumbers(getInput(), getOutput(), 
-                                                                      hierarchies[index], column);
-                    if (columnsAsNumbers != null) {
-                        columns1.add(columnsAsNumbers[0]);
-                        columns2.add(columnsAsNumbers[1]);
-                    }
-                    
-                } catch (Exception e) {
-                    // Fail silently
+            for (double[][] columnsAsNumbers : getColumnsAsNumbers()) {
+                if (columnsAsNumbers != null) {
+                    columns1.add(columnsAsNumbers[0]);
+                    columns2.add(columnsAsNumbers[1]);
                 }
-
-                // Progress
-                setStepPerformed();
             }
             
             // Check
@@ -150,6 +142,35 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
         }
     }
     
+    /**
+     * Returns all columns from the input and output dataset converted to numbers, null
+     * for columns which cannot be converted
+     * 
+     * @return
+     */
+    private List<double[][]> getColumnsAsNumbers() {
+        List<Callable<double[][]>> tasks = new ArrayList<Callable<double[][]>>();
+        for (int index = 0; index < getIndices().length; index++) {
+            final int _index = index;
+            tasks.add(new Callable<double[][]>() {
+                @Override
+                public double[][] call() throws Exception {
+                    double[][] result = null;
+                    try {
+                        result = getColumnsAsNumbers(_index);
+                    } catch (Exception e) {
+                        // Fail silently
+                    }
+
+                    // Progress
+                    setStepPerformed();
+                    return result;
+                }
+            });
+        }
+        return invokeAll(tasks);
+    }
+    
     /**
      * Returns the SSE
      * 
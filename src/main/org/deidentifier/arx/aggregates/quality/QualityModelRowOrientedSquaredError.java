@@ -19,6 +19,7 @@ package org.deidentifier.arx.aggregates.quality;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.common.Groupify;
@@ -50,6 +51,7 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
      * @param hierarchies
      * @param shares
      * @param indices
+     * @param encoding
      * @param config
      */
     public QualityModelRowOrientedSquaredError(WrappedBoolean interrupt,
@@ -64,6 +66,7 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
                                                String[][][] hierarchies,
                                                QualityDomainShare[] shares,
                                                int[] indices,
+                                               QualityEncoding encoding,
                                                QualityConfiguration config) {
              super(interrupt,
                    progress,
@@ -77,6 +80,7 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
                    hierarchies,
                    shares,
                    indices,
+                   encoding,
                    config);
     }
 
@@ -90,30 +94,42 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
             List<double[]> columns1 = new ArrayList<>();
             List<double[]> columns2 = new ArrayList<>();
             List<Double> stdDevs = new ArrayList<>();
-            String[][][] hierarchies = getHierarchies();
 
             // Progress
             setSteps(indices.length + 2);
             
             // Collect
+            List<Callable<Object[]>> tasks = new ArrayList<Callable<Object[]>>();
             for (int index = 0; index < indices.length; index++) {
-                try {
-                    int column = indices[index];
-                    double[][] columnsAsNumbers = getColumnsAsNumbers(getInput(), getOutput(), 
-                                                                      hierarchies[index], column);
-                    if (columnsAsNumbers != null) {
-                        double stdDev = getStandardDeviation(columnsAsNumbers[0]);
-                        columns1.add(columnsAsNumbers[0]);
-                        columns2.add(columnsAsNumbers[1]);
-                        stdDevs.add(stdDev);
+                final int _index = index;
+                tasks.add(new Callable<Object[]>() {
+                    @Override
+                    public Object[] call() throws Exception {
+                        Object[] result = null;
+                        try {
+                            double[][] columnsAsNumbers = getColumnsAsNumbers(_index);
+                            if (columnsAsNumbers != null) {
+                                double stdDev = getStandardDeviation(columnsAsNumbers[0]);
+                                result = new Object[] {columnsAsNumbers, stdDev};
+                            }
+                            
+                        } catch (Exception e) {
+                            // Fail silently
+                        }
+
+                        // Progress
+                        setStepPerformed();
+                        return result;
                     }
-                    
-                } catch (Exception e) {
-                    // Fail silently
+                });
+            }
+            for (Object[] result : invokeAll(tasks)) {
+                if (result != null) {
+                    double[][] columnsAsNumbers = (double[][]) result[0];
+                    columns1.add(columnsAsNumbers[0]);
+                    columns2.add(columnsAsNumbers[1]);
+                    stdDevs.add((Double) result[1]);
                 }
-
-                // Progress
-                setStepPerformed();
             }
             
             // Check
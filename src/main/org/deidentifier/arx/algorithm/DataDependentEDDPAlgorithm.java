@@ -21,7 +21,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.commons.math3.fraction.BigFraction;
 import org.deidentifier.arx.dp.ExponentialMechanism;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
@@ -176,7 +175,7 @@ public class DataDependentEDDPAlgorithm extends AbstractAlgorithm {
         int i = 0;
         for (Entry<Object, ILScore> entry : transformationIDToScore.entrySet()) {
             values[i] = entry.getKey();
-            scores[i] = toDouble(entry.getValue().getValue());
+            scores[i] = entry.getValue().getDoubleValue();
             i++;
         }
 
@@ -186,21 +185,4 @@ public class DataDependentEDDPAlgorithm extends AbstractAlgorithm {
         // Select and return a value
         return exponentialMechanism.sample();
     }
-    
-    /**
-     * Tries converting fraction into a double which is within one ulp of the exact result.
-     * If this is not possible, an exception is thrown.
-     * @param fraction
-     * @return
-     */
-    private double toDouble(BigFraction fraction) {
-        double d = fraction.doubleValue();
-        if (Double.isInfinite(d) || Double.isNaN(d)) {
-            throw new RuntimeException("Encountered a value which can not be represented as a double");
-        }
-        if (fraction.subtract(new BigFraction(d)).abs().compareTo(new BigFraction(Math.ulp(d))) > 0) {
-            throw new RuntimeException("Encountered a value with insufficient precision");
-        }
-        return d;
-    }
 }
@@ -17,11 +17,12 @@
 
 package org.deidentifier.arx.algorithm;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.PriorityQueue;
 
 import org.deidentifier.arx.algorithm.FLASHPhaseConfiguration.PhaseAnonymityProperty;
@@ -38,38 +39,46 @@ import org.deidentifier.arx.framework.lattice.TransformationLong;
 import org.deidentifier.arx.metric.InformationLoss;
 import org.deidentifier.arx.metric.InformationLossWithBound;
 
-import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
 
 import cern.colt.GenericSorting;
 import cern.colt.Swapper;
 import cern.colt.function.IntComparator;
 import de.linearbits.jhpl.PredictiveProperty;
+import de.linearbits.jhpl.PredictiveProperty.Direction;
 
 /**
- * This class implements the FLASH algorithm.
+ * This class implements the FLASH algorithm. Successors are sorted lazily and kept
+ * in a cache of bounded size, which enables using the algorithm on large solution spaces.
  *
  * @author Fabian Prasser
  * @author Florian Kohlmayer
  */
 public class FLASHAlgorithmImpl extends AbstractAlgorithm {
 
+    /** Maximal number of transformations for which sorted successors are cached */
+    private static final int                MAX_CACHED_SUCCESSORS = 1 << 16;
+
     /** Configuration for the algorithm's phases. */
-    protected final FLASHConfiguration config;
+    protected final FLASHConfiguration      config;
 
-    /** Are the pointers for a node with id 'index' already sorted?. */
-    private final int[][]              sortedSuccessors;
+    /** Sorted pointers to successors of recently visited transformations */
+    private final LinkedHashMap<Long, long[]> sortedSuccessors;
 
     /** The strategy. */
-    private final FLASHStrategy        strategy;
+    private final FLASHStrategy             strategy;
 
     /** List of nodes that may be used for pruning transformations with insufficient utility. */
-    private final List<Integer>        potentiallyInsufficientUtility;
+    private final List<Long>                potentiallyInsufficientUtility;
 
     /** The number of checked transformations */
-    private int                        checked = 0;
+    private long                            checked = 0;
 
     /** Size of the solution space */
-    private final int                  solutionSpaceSize;
+    private final double                    solutionSpaceSize;
+
+    /** Whether all transformations which have been skipped on the last level sorted have the anonymity property */
+    private boolean                         skippedTransformationsAnonymous;
 
     /**
      * Creates a new instance.
@@ -85,17 +94,20 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
                               FLASHConfiguration config) {
 
         super(solutionSpace, checker);
-        if (solutionSpace.getSize().compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
-            throw new IllegalArgumentException("Solution space is too large for running Flash. Choose another algorithm.");
-        }
-        this.solutionSpaceSize = solutionSpace.getSize().intValue();
+        this.solutionSpaceSize = solutionSpace.getSize().doubleValue();
         this.checked = 0;
         this.solutionSpace.setAnonymityPropertyPredictable(config.isAnonymityPropertyPredicable());
         this.strategy = strategy;
-        this.sortedSuccessors = new int[solutionSpaceSize][];
+        this.sortedSuccessors = new LinkedHashMap<Long, long[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2390186311066447215L;
+            @Override
+            protected boolean removeEldestEntry(Entry<Long, long[]> eldest) {
+                return size() > MAX_CACHED_SUCCESSORS;
+            }
+        };
         this.config = config;
         this.potentiallyInsufficientUtility = this.config.isPruneInsufficientUtility() ? 
-                                              new LinkedList<Integer>() : null;
+                                              new LinkedList<Long>() : null;
     }
 
     @Override
@@ -113,7 +125,7 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         checker.getHistory().setStorageStrategy(config.getSnapshotStorageStrategy());
 
         // Initialize
-        PriorityQueue<Integer> queue = new PriorityQueue<Integer>(solutionSpace.getTop().getLevel() + 1, strategy);
+        PriorityQueue<Long> queue = new PriorityQueue<Long>(solutionSpace.getTop().getLevel() + 1, strategy);
         Transformation<Long> bottom = (TransformationLong)solutionSpace.getBottom();
         Transformation<Long> top = (TransformationLong)solutionSpace.getTop();
 
@@ -122,18 +134,35 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         bottom.setProperty(solutionSpace.getPropertyForceSnapshot());
         bottom.setData(result);
 
+        // Binary phases skip anonymous transformations. If the property is predicted upwards,
+        // all transformations above a level that only contains anonymous ones can be skipped.
+        PredictiveProperty anonymityProperty = null;
+        if (config.isBinaryPhaseRequired()) {
+            anonymityProperty = config.getBinaryPhaseConfiguration().getAnonymityProperty() == PhaseAnonymityProperty.ANONYMITY ?
+                                solutionSpace.getPropertyAnonymous() : solutionSpace.getPropertyKAnonymous();
+            anonymityProperty = anonymityProperty.getDirection() == Direction.UP ? anonymityProperty : null;
+        }
+
         // For each node in the lattice
         for (int level = bottom.getLevel(); level <= top.getLevel(); level++) {
-            for (int id : getSortedUnprocessedNodes(level, outerLoopConfiguration.getTriggerSkip())) {
+            long[] unprocessed = getSortedUnprocessedNodes(level, outerLoopConfiguration.getTriggerSkip(), anonymityProperty);
+            for (long id : unprocessed) {
 
                 // Run the correct phase
-                Transformation<Long> transformation = ((SolutionSpaceLong)solutionSpace).getTransformation((long)id);
+                Transformation<Long> transformation = ((SolutionSpaceLong)solutionSpace).getTransformation(id);
                 if (config.isBinaryPhaseRequired()) {
                     binarySearch(transformation, queue);
                 } else {
                     linearSearch(transformation);
                 }
             }
+            
+            // Stop, if all remaining transformations are known to be anonymous. This prevents
+            // enumerating all levels of very large solution spaces.
+            if (anonymityProperty != null && skippedTransformationsAnonymous && 
+                hasProperty(unprocessed, anonymityProperty)) {
+                break;
+            }
         }
 
         // Potentially allows to better estimate utility in the lattice
@@ -143,10 +172,11 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         // Remove the associated result information to leave the lattice in a consistent state
         bottom.setData(null);
 
-        // Clear list of pruning candidates
+        // Clear list of pruning candidates and cached successors
         if (potentiallyInsufficientUtility != null) {
         	potentiallyInsufficientUtility.clear();
         }
+        sortedSuccessors.clear();
         
         // Return whether the optimum has been found
         return this.getGlobalOptimum() != null;
@@ -158,19 +188,19 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
      * @param transformation
      * @param queue
      */
-    private void binarySearch(Transformation<Long> transformation, PriorityQueue<Integer> queue) {
+    private void binarySearch(Transformation<Long> transformation, PriorityQueue<Long> queue) {
 
         // Obtain node action
         DependentAction triggerSkip = config.getBinaryPhaseConfiguration().getTriggerSkip();
 
         // Add to queue
-        queue.add(Long.valueOf(transformation.getIdentifier()).intValue());
+        queue.add(transformation.getIdentifier());
 
         // While queue is not empty
         while (!queue.isEmpty()) {
 
             // Remove head and process
-            transformation = ((SolutionSpaceLong)solutionSpace).getTransformation((long)queue.poll());
+            transformation = ((SolutionSpaceLong)solutionSpace).getTransformation(queue.poll());
             if (!skip(triggerSkip, transformation)) {
 
                 // First phase
@@ -205,7 +235,7 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
             }
         } else if (configuration.getTriggerCheck().appliesTo(transformation)) {
             transformation.setChecked(checker.check(transformation));
-            progress((double)++checked / (double)solutionSpaceSize);
+            progress((double)++checked / solutionSpaceSize);
         }
 
         // Store optimum
@@ -226,7 +256,7 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
      * @param queue
      * @return
      */
-    private Transformation<Long> checkPath(List<Transformation<Long>> path, DependentAction triggerSkip, PriorityQueue<Integer> queue) {
+    private Transformation<Long> checkPath(List<Transformation<Long>> path, DependentAction triggerSkip, PriorityQueue<Long> queue) {
 
         // Obtain anonymity property
         PredictiveProperty anonymityProperty = config.getBinaryPhaseConfiguration().getAnonymityProperty() == PhaseAnonymityProperty.ANONYMITY ?
@@ -252,8 +282,8 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
 
                 // Add nodes to queue
                 if (!transformation.hasProperty(anonymityProperty)) {
-                    for (final int up : getSortedSuccessors(transformation)) {
-                        if (!skip(triggerSkip, ((SolutionSpaceLong)solutionSpace).getTransformation((long)up))) {
+                    for (final long up : getSortedSuccessors(transformation)) {
+                        if (!skip(triggerSkip, ((SolutionSpaceLong)solutionSpace).getTransformation(up))) {
                             queue.add(up);
                         }
                     }
@@ -287,8 +317,8 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         boolean found = true;
         while (found) {
             found = false;
-            for (final int id : getSortedSuccessors(current)) {
-                Transformation<Long> next = ((SolutionSpaceLong)solutionSpace).getTransformation((long)id);
+            for (final long id : getSortedSuccessors(current)) {
+                Transformation<Long> next = ((SolutionSpaceLong)solutionSpace).getTransformation(id);
                 if (!skip(triggerSkip, next)) {
                     current = next;
                     path.add(next);
@@ -305,19 +335,20 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
      *
      * @param transformation
      */
-    private int[] getSortedSuccessors(final Transformation<Long> transformation) {
+    private long[] getSortedSuccessors(final Transformation<Long> transformation) {
         
-        int identifier = Long.valueOf(transformation.getIdentifier()).intValue();
-        if (sortedSuccessors[identifier] == null) {
+        Long identifier = transformation.getIdentifier();
+        long[] result = sortedSuccessors.get(identifier);
+        if (result == null) {
             TransformationList<Long> list = transformation.getSuccessors();
-            int[] result = new int[list.size()];
+            result = new long[list.size()];
             for (int i=0; i<list.size(); i++) {
-                result[i] = list.getQuick(i).intValue();
+                result[i] = list.getQuick(i);
             }
             sort(result);
-            sortedSuccessors[identifier] = result;
+            sortedSuccessors.put(identifier, result);
         }
-        return sortedSuccessors[identifier];
+        return result;
     }
 
     /**
@@ -326,26 +357,46 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
      *
      * @param level The level which is to be sorted
      * @param triggerSkip The trigger to be used for limiting the number of nodes to be sorted
+     * @param property If not null, it is tracked whether all skipped nodes have this property
      * @return A sorted array of nodes remaining on this level
      */
-    private int[] getSortedUnprocessedNodes(int level, DependentAction triggerSkip) {
+    private long[] getSortedUnprocessedNodes(int level, DependentAction triggerSkip, PredictiveProperty property) {
 
         // Create
-        IntArrayList list = new IntArrayList();
+        LongArrayList list = new LongArrayList();
+        skippedTransformationsAnonymous = property != null;
         for (ObjectIterator<Long> iter = ((SolutionSpaceLong)solutionSpace).unsafeGetLevel(level); iter.hasNext();) {
             long id = iter.next();
-            if (!skip(triggerSkip, ((SolutionSpaceLong)solutionSpace).getTransformation(id))) {
-                list.add((int)id);
-            }            
+            Transformation<Long> transformation = ((SolutionSpaceLong)solutionSpace).getTransformation(id);
+            if (!skip(triggerSkip, transformation)) {
+                list.add(id);
+            } else if (skippedTransformationsAnonymous && !transformation.hasProperty(property)) {
+                skippedTransformationsAnonymous = false;
+            }
         }
 
         // Copy & sort
-        int[] array = new int[list.size()];
+        long[] array = new long[list.size()];
         System.arraycopy(list.buffer, 0, array, 0, list.elementsCount);
         sort(array);
         return array;
     }
 
+    /**
+     * Returns whether all given transformations have the given property
+     * @param transformations
+     * @param property
+     * @return
+     */
+    private boolean hasProperty(long[] transformations, PredictiveProperty property) {
+        for (long id : transformations) {
+            if (!((SolutionSpaceLong)solutionSpace).getTransformation(id).hasProperty(property)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Implements a depth-first search with predictive tagging.
      *
@@ -363,8 +414,8 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
             checkAndTag(transformation, config.getLinearPhaseConfiguration());
 
             // DFS
-            for (final int child : getSortedSuccessors(transformation)) {
-                Transformation<Long> childTransformation = ((SolutionSpaceLong)solutionSpace).getTransformation((long)child);
+            for (final long child : getSortedSuccessors(transformation)) {
+                Transformation<Long> childTransformation = ((SolutionSpaceLong)solutionSpace).getTransformation(child);
                 if (!skip(triggerSkip, childTransformation)) {
                     linearSearch(childTransformation);
                 }
@@ -403,7 +454,7 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
 
         // If we haven't yet found an optimum, we simply add the node to the list of pruning candidates
         if (optimalTransformation == null) {
-            potentiallyInsufficientUtility.add(Long.valueOf(node.getIdentifier()).intValue());
+            potentiallyInsufficientUtility.add(node.getIdentifier());
             return;
         }
 
@@ -419,19 +470,19 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
                 node.setProperty(solutionSpace.getPropertySuccessorsPruned());
                 // Else, we store it as a future pruning candidate
             } else {
-                potentiallyInsufficientUtility.add(Long.valueOf(node.getIdentifier()).intValue());
+                potentiallyInsufficientUtility.add(node.getIdentifier());
             }
 
             // If the current node is our new optimum, we check all candidates
         } else {
 
             // For each candidate
-            Iterator<Integer> iterator = potentiallyInsufficientUtility.iterator();
+            Iterator<Long> iterator = potentiallyInsufficientUtility.iterator();
             while (iterator.hasNext()) {
-                Integer current = iterator.next();
+                Long current = iterator.next();
 
                 // Remove the candidate, if it was already pruned in the meantime
-                Transformation<Long> currentTransformation = ((SolutionSpaceLong)solutionSpace).getTransformation((long)current);
+                Transformation<Long> currentTransformation = ((SolutionSpaceLong)solutionSpace).getTransformation(current);
                 if (currentTransformation.hasProperty(solutionSpace.getPropertySuccessorsPruned())) {
                     iterator.remove();
 
@@ -445,7 +496,7 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
 
             // The current optimum is a future pruning candidate
             if (!node.hasProperty(solutionSpace.getPropertySuccessorsPruned())) {
-                potentiallyInsufficientUtility.add(Long.valueOf(node.getIdentifier()).intValue());
+                potentiallyInsufficientUtility.add(node.getIdentifier());
             }
         }
     }
@@ -505,7 +556,7 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
      * 
      * @param array
      */
-    private void sort(final int[] array) {
+    private void sort(final long[] array) {
         GenericSorting.mergeSort(0, array.length, new IntComparator(){
             @Override
             public int compare(int arg0, int arg1) {
@@ -514,7 +565,7 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         }, new Swapper(){
             @Override
             public void swap(int arg0, int arg1) {
-                int temp = array[arg0];
+                long temp = array[arg0];
                 array[arg0] = array[arg1];
                 array[arg1] = temp;
             }
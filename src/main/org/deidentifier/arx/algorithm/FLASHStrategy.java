@@ -18,6 +18,7 @@
 package org.deidentifier.arx.algorithm;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Comparator;
 
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
@@ -26,12 +27,16 @@ import org.deidentifier.arx.framework.lattice.Transformation;
 
 /**
  * This class implements a total order on all transformations in the search space. It is
- * used by the Flash algorithm to achieve stable execution times.
+ * used by the Flash algorithm to achieve stable execution times. The criteria determining
+ * the position of a transformation are cached in a direct-mapped cache of bounded size.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
  */
-public class FLASHStrategy implements Comparator<Integer> {
+public class FLASHStrategy implements Comparator<Long> {
+
+    /** Maximal number of transformations for which criteria are cached */
+    private static final int       MAX_CACHE_SIZE = 1 << 16;
 
     /** The distinct values. */
     private final int[][]       distinct;
@@ -42,8 +47,14 @@ public class FLASHStrategy implements Comparator<Integer> {
     /** The maximal level for each quasi-identifier. */
     private final int[]         maxLevels;
 
-    /** The cached values for a node with id 'index'. */
-    private final double[][]    cache;
+    /** The identifiers of the cached transformations. */
+    private final long[]           cacheKeys;
+
+    /** The cached values for the transformations, three per transformation. */
+    private final double[]         cacheValues;
+
+    /** Mask for mapping identifiers to cache slots. */
+    private final int              cacheMask;
 
     /** The solution space */
     private final SolutionSpace<?> solutionSpace;
@@ -57,11 +68,6 @@ public class FLASHStrategy implements Comparator<Integer> {
     public FLASHStrategy(final SolutionSpace<?> solutionSpace,
                          final GeneralizationHierarchy[] hierarchies) {
 
-        // Check
-        if (solutionSpace.getSize().compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
-            throw new IllegalArgumentException("Solution space is too large for running Flash. Choose another algorithm.");
-        }
-        
         // Store
         this.solutionSpace = solutionSpace;
         
@@ -81,7 +87,12 @@ public class FLASHStrategy implements Comparator<Integer> {
         }
         
         // Prepare cache
-        this.cache = new double[solutionSpace.getSize().intValue()][];
+        int size = solutionSpace.getSize().min(BigInteger.valueOf(MAX_CACHE_SIZE)).intValue();
+        size = Integer.bitCount(size) == 1 ? size : Integer.highestOneBit(size) << 1;
+        this.cacheKeys = new long[size];
+        this.cacheValues = new double[size * 3];
+        this.cacheMask = size - 1;
+        Arrays.fill(this.cacheKeys, -1L);
     }
 
     /**
@@ -94,30 +105,44 @@ public class FLASHStrategy implements Comparator<Integer> {
      * @return the int
      */
     @Override
-    public int compare(final Integer n1, final Integer n2) {
+    public int compare(final Long n1, final Long n2) {
+        return compare(n1.longValue(), n2.longValue());
+    }
 
-        // Obtain vals
-        if (cache[n1] == null) {
-            cache[n1] = getCriteria(n1);
-        }
-        if (cache[n2] == null) {
-            cache[n2] = getCriteria(n2);
-        }
-        final double[] m1 = cache[n1];
-        final double[] m2 = cache[n2];
+    /**
+     * Compares transformations.
+     * 
+     * @param n1
+     *            the n1
+     * @param n2
+     *            the n2
+     * @return the int
+     */
+    public int compare(final long n1, final long n2) {
+
+        // Obtain vals. Both transformations may map to the same slot,
+        // so the values of the first one must be read before obtaining the second one.
+        final int m1 = getSlot(n1);
+        final double level1 = cacheValues[m1];
+        final double prec1 = cacheValues[m1 + 1];
+        final double distinct1 = cacheValues[m1 + 2];
+        final int m2 = getSlot(n2);
+        final double level2 = cacheValues[m2];
+        final double prec2 = cacheValues[m2 + 1];
+        final double distinct2 = cacheValues[m2 + 2];
 
         // Compare vals
-        if (m1[0] < m2[0]) {
+        if (level1 < level2) {
             return -1;
-        } else if (m1[0] > m2[0]) {
+        } else if (level1 > level2) {
             return +1;
-        } else if (m1[1] < m2[1]) {
+        } else if (prec1 < prec2) {
             return -1;
-        } else if (m1[1] > m2[1]) {
+        } else if (prec1 > prec2) {
             return +1;
-        } else if (m1[2] < m2[2]) {
+        } else if (distinct1 < distinct2) {
             return -1;
-        } else if (m1[2] > m2[2]) {
+        } else if (distinct1 > distinct2) {
             return +1;
         } else {
             return 0;
@@ -125,18 +150,19 @@ public class FLASHStrategy implements Comparator<Integer> {
     }
 
     /**
-     * Returns the criteria that determines a transformations's position.
+     * Computes the criteria that determine a transformation's position and stores them
+     * in the given slot of the cache.
      * 
      * @param id the id
-     * @return the value
+     * @param offset the offset in the cache
      */
-    private final double[] getCriteria(final int id) {
+    private final void computeCriteria(final long id, final int offset) {
         
         // Prepare
         double level = 0;
         double prec = 0;
         double ddistinct = 0;
-        Transformation<?> transformation = solutionSpace.getTransformation((long)id);
+        Transformation<?> transformation = solutionSpace.getTransformation(id);
         int[] generalization = transformation.getGeneralization();
         
         // Compute
@@ -149,7 +175,25 @@ public class FLASHStrategy implements Comparator<Integer> {
         prec /= generalization.length;
         ddistinct = 1d - ddistinct;
         
-        // Return
-        return new double[] { level, prec, ddistinct };
+        // Store
+        cacheValues[offset] = level;
+        cacheValues[offset + 1] = prec;
+        cacheValues[offset + 2] = ddistinct;
+    }
+
+    /**
+     * Returns the offset of the criteria for the given transformation in the cache. Computes
+     * the criteria, if they are not cached.
+     * 
+     * @param id the id
+     * @return the offset
+     */
+    private final int getSlot(final long id) {
+        int slot = (int) (id ^ (id >>> 32)) & cacheMask;
+        if (cacheKeys[slot] != id) {
+            computeCriteria(id, slot * 3);
+            cacheKeys[slot] = id;
+        }
+        return slot * 3;
     }
 }
@@ -17,11 +17,22 @@
 
 package org.deidentifier.arx.algorithm;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -48,7 +59,20 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
      * @return
      */
     public static AbstractAlgorithm create(SolutionSpace<?> solutionSpace, TransformationChecker checker, int timeLimit, int checkLimit) {
-        return new LIGHTNINGAlgorithm(solutionSpace, checker, timeLimit, checkLimit);
+        return create(solutionSpace, checker, timeLimit, checkLimit, 1);
+    }
+
+    /**
+     * Creates a new instance
+     * @param solutionSpace
+     * @param checker
+     * @param timeLimit
+     * @param checkLimit 
+     * @param threads Number of threads used for checking the successors of a transformation
+     * @return
+     */
+    public static AbstractAlgorithm create(SolutionSpace<?> solutionSpace, TransformationChecker checker, int timeLimit, int checkLimit, int threads) {
+        return new LIGHTNINGAlgorithm(solutionSpace, checker, timeLimit, checkLimit, threads);
     }
 
     /** Property */
@@ -68,6 +92,12 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
     private int                      checkCount;
     /** The number of checks */
     private final int                checkLimit;
+    /** The number of threads */
+    private final int                threads;
+    /** Executor used for concurrent checks, if any */
+    private ExecutorService          executor;
+    /** Idle checkers used by the executor */
+    private BlockingQueue<TransformationChecker> workers;
     
     /**
     * Constructor
@@ -75,8 +105,9 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
     * @param checker
     * @param timeLimit
     * @param checkLimit
+    * @param threads
     */
-    private LIGHTNINGAlgorithm(SolutionSpace<?> space, TransformationChecker checker, int timeLimit, int checkLimit) {
+    private LIGHTNINGAlgorithm(SolutionSpace<?> space, TransformationChecker checker, int timeLimit, int checkLimit, int threads) {
         super(space, checker);
         this.checker.getHistory().setStorageStrategy(StorageStrategy.ALL);
         int stepping = space.getTop().getLevel();
@@ -87,6 +118,10 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         this.solutionSpace.setAnonymityPropertyPredictable(false);
         this.timeLimit = timeLimit;
         this.checkLimit = checkLimit;
+        this.threads = threads;
+        if (threads <= 0) { 
+            throw new IllegalArgumentException("Invalid number of threads. Must be greater than zero."); 
+        }
         if (timeLimit <= 0) { 
             throw new IllegalArgumentException("Invalid time limit. Must be greater than zero."); 
         }
@@ -97,6 +132,28 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
 
     @Override
     public boolean traverse() {
+        try {
+            if (threads > 1) {
+                initializeWorkers();
+            }
+            return traverseInternal();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                for (TransformationChecker worker : workers) {
+                    worker.reset();
+                }
+                executor = null;
+                workers = null;
+            }
+        }
+    }
+
+    /**
+     * Performs the traversal
+     * @return
+     */
+    private boolean traverseInternal() {
         timeStart = System.currentTimeMillis();
         checkCount = 0;
         PriorityQueue<Object> queue = new PriorityQueue<>(stepping, new Comparator<Object>() {
@@ -137,15 +194,58 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
     */
     private void assureChecked(final Transformation<?> transformation) {
         if (!transformation.hasProperty(propertyChecked)) {
-            transformation.setChecked(checker.check(transformation, true, ScoreType.INFORMATION_LOSS));
-            trackOptimum(transformation);
-            checkCount++;
-            double progressSteps = (double)checkCount / (double)checkLimit;
-            double progressTime = (double)(System.currentTimeMillis() - timeStart) / (double)timeLimit;
-            progress(Math.max(progressSteps, progressTime));
+            setChecked(transformation, checker.check(transformation, true, ScoreType.INFORMATION_LOSS));
         }
     }
 
+    /**
+     * Checks the given transformations concurrently. Results are collected in the given order.
+     * Transformations that have not been checked, because a limit has been reached, are
+     * associated with <code>null</code>.
+     * 
+     * @param transformations
+     * @return
+     */
+    private List<TransformationResult> check(List<Transformation<?>> transformations) {
+        
+        // Submit
+        List<Future<TransformationResult>> futures = new ArrayList<>();
+        for (final Transformation<?> transformation : transformations) {
+            futures.add(executor.submit(new Callable<TransformationResult>() {
+                @Override
+                public TransformationResult call() throws Exception {
+                    if (mustStopTime()) {
+                        return null;
+                    }
+                    TransformationChecker worker = workers.take();
+                    try {
+                        return worker.check(transformation, true, ScoreType.INFORMATION_LOSS);
+                    } finally {
+                        workers.put(worker);
+                    }
+                }
+            }));
+        }
+        
+        // Collect
+        List<TransformationResult> results = new ArrayList<>();
+        try {
+            for (Future<TransformationResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            for (Future<TransformationResult> future : futures) {
+                future.cancel(true);
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        return results;
+    }
+
     /**
     * Performs a depth first search (without backtracking) starting from the the given transformation
     * @param queue
@@ -170,6 +270,11 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
     */
     private Transformation<?> expand(PriorityQueue<Object> queue, Transformation<?> transformation) {
         
+        // Check successors concurrently, if enabled
+        if (executor != null) {
+            return expandConcurrently(queue, transformation);
+        }
+        
         Transformation<?> result = null;
         TransformationList<?> list = transformation.getSuccessors();
         for (int i = 0; i < list.size(); i++) {
@@ -190,13 +295,104 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         return result;
     }
     
+    /**
+    * Returns the successor with minimal information loss, if any, null otherwise.
+    * Successors that have not been checked yet are checked concurrently. The results
+    * are processed in the same order as in {@link #expand(PriorityQueue, Transformation)}.
+    * @param queue
+    * @param transformation
+    * @return
+    */
+    private Transformation<?> expandConcurrently(PriorityQueue<Object> queue, Transformation<?> transformation) {
+        
+        // Collect successors
+        List<Transformation<?>> successors = new ArrayList<>();
+        List<Transformation<?>> unchecked = new ArrayList<>();
+        TransformationList<?> list = transformation.getSuccessors();
+        for (int i = 0; i < list.size(); i++) {
+            Transformation<?> successor = solutionSpace.getTransformation(list.getQuick(i));
+            if (!successor.hasProperty(propertyExpanded) && !successor.hasProperty(propertyInsufficientUtility)) {
+                successors.add(successor);
+                if (!successor.hasProperty(propertyChecked) && unchecked.size() < checkLimit - checkCount) {
+                    unchecked.add(successor);
+                }
+            }
+        }
+        
+        // Check
+        List<TransformationResult> results = check(unchecked);
+        
+        // Process
+        Transformation<?> result = null;
+        int index = 0;
+        for (Transformation<?> successor : successors) {
+            if (!successor.hasProperty(propertyChecked)) {
+                TransformationResult checked = index < results.size() ? results.get(index++) : null;
+                if (checked == null) {
+                    return null;
+                }
+                setChecked(successor, checked);
+            }
+            queue.add(successor.getIdentifier());
+            if (result == null || successor.getInformationLoss().compareTo(result.getInformationLoss()) < 0) {
+                result = successor;
+            }
+            if (mustStop()) {
+                return null;
+            }
+        }
+        transformation.setProperty(propertyExpanded);
+        return result;
+    }
+
+    /**
+     * Creates the executor and the checkers used for concurrent checks
+     */
+    private void initializeWorkers() {
+        this.workers = new LinkedBlockingQueue<>();
+        for (int i = 0; i < threads; i++) {
+            TransformationChecker worker = checker.createWorker();
+            worker.getHistory().setStorageStrategy(StorageStrategy.ALL);
+            this.workers.add(worker);
+        }
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX LIGHTNING worker");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
     /**
      * Returns whether we have exceeded the allowed number of steps or time.
      * @return
      */
     private boolean mustStop() {
-        return ((int)(System.currentTimeMillis() - timeStart) > timeLimit) ||
-               (checkCount >= checkLimit);
+        return mustStopTime() || (checkCount >= checkLimit);
+    }
+
+    /**
+     * Returns whether we have exceeded the allowed time.
+     * @return
+     */
+    private boolean mustStopTime() {
+        return (int)(System.currentTimeMillis() - timeStart) > timeLimit;
+    }
+
+    /**
+    * Stores the result of checking the given transformation and keeps track of the optimum and of progress
+    * @param transformation
+    * @param result
+    */
+    private void setChecked(Transformation<?> transformation, TransformationResult result) {
+        transformation.setChecked(result);
+        trackOptimum(transformation);
+        checkCount++;
+        double progressSteps = (double)checkCount / (double)checkLimit;
+        double progressTime = (double)(System.currentTimeMillis() - timeStart) / (double)timeLimit;
+        progress(Math.max(progressSteps, progressTime));
     }
 
     /**
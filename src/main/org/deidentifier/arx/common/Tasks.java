@@ -0,0 +1,85 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+/**
+ * Helper class for executing tasks concurrently
+ * 
+ * @author Fabian Prasser
+ */
+public final class Tasks {
+
+    /**
+     * Executes the given tasks using the given number of threads and returns their results in order
+     * 
+     * @param tasks
+     * @param threads
+     * @return
+     */
+    public static <U> List<U> invokeAll(List<Callable<U>> tasks, int threads) {
+        
+        List<U> result = new ArrayList<U>(tasks.size());
+        
+        // Sequential
+        if (threads <= 1 || tasks.size() <= 1) {
+            for (Callable<U> task : tasks) {
+                try {
+                    result.add(task.call());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return result;
+        }
+        
+        // Parallel
+        ForkJoinPool pool = new ForkJoinPool(Math.min(threads, tasks.size()));
+        try {
+            for (Future<U> future : pool.invokeAll(tasks)) {
+                result.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            throw new ComputationInterruptedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * No instances
+     */
+    private Tasks() {
+        // Empty by design
+    }
+}
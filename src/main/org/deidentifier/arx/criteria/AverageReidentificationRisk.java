@@ -168,10 +168,7 @@ public class AverageReidentificationRisk extends RiskBasedCriterion {
         }
         
         // Check records at risk
-        double fraction = 0d;
-        for (int size = 1; size < smallestSize; size++) {
-            fraction += distribution.getFractionOfRecordsInClassesOfSize(size);
-        }
+        double fraction = distribution.getFractionOfRecordsInClassesSmallerThan(smallestSize);
         return result && (fraction <= recordsAtRisk);
     }
 }
\ No newline at end of file
@@ -67,6 +67,18 @@ public class HierarchicalDistanceTCloseness extends TCloseness {
         return new HierarchicalDistanceTCloseness(this.getAttribute(), this.getT(), this.hierarchy);
     }
     
+    @Override
+    public HierarchicalDistanceTCloseness createWorkerInstance() {
+        
+        // The tree is used as a buffer during evaluation
+        HierarchicalDistanceTCloseness result = clone();
+        result.index = this.index;
+        result.tree = this.tree != null ? this.tree.clone() : null;
+        result.start = this.start;
+        result.empty = this.empty;
+        return result;
+    }
+    
     /**
      * Returns the hierarchy backing the EMD calculations.
      *
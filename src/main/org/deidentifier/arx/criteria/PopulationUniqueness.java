@@ -17,12 +17,17 @@
 
 package org.deidentifier.arx.criteria;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXPopulationModel;
 import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.certificate.elements.ElementData;
 import org.deidentifier.arx.framework.check.groupify.HashGroupifyDistribution;
 import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.risk.RiskModelHistogram;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness.PopulationUniquenessModel;
 
@@ -33,9 +38,46 @@ import org.deidentifier.arx.risk.RiskModelPopulationUniqueness.PopulationUniquen
  */
 public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
 
+    /**
+     * Key for caching estimates, wrapping the histogram of class sizes
+     * 
+     * @author Fabian Prasser
+     */
+    private static class Key {
+
+        /** Histogram */
+        private final int[] histogram;
+        /** Hash code */
+        private final int   hashCode;
+
+        /**
+         * Creates a new instance
+         * @param histogram
+         */
+        private Key(int[] histogram) {
+            this.histogram = histogram;
+            this.hashCode = Arrays.hashCode(histogram);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            return Arrays.equals(histogram, ((Key) obj).histogram);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     /** SVUID */
     private static final long         serialVersionUID = 618039085843721351L;
 
+    /** Number of estimates cached */
+    private static final int          CACHE_SIZE       = 1000;
+
     /** The statistical model */
     private PopulationUniquenessModel statisticalModel;
 
@@ -45,6 +87,9 @@ public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
     /** The solver config */
     private ARXSolverConfiguration    solverConfig;
 
+    /** Recently computed estimates */
+    private transient Map<Key, Double> cache;
+
     /**
      * Creates a new instance of this criterion. Uses Dankar's method for estimating population uniqueness.
      * This constructor will clone the population model, making further changes to it will not influence
@@ -144,6 +189,11 @@ public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
         if (this.populationModel != null) {
             this.populationModel.makeBackwardsCompatible(manager.getDataGeneralized().getDataLength());
         }
+        
+        // Reset estimates
+        synchronized (this) {
+            this.cache = null;
+        }
     }
 
     @Override
@@ -180,16 +230,7 @@ public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
             return true;
         }
 
-        RiskModelPopulationUniqueness riskModel = new RiskModelPopulationUniqueness(this.populationModel,
-                                                                                    distribution.getHistogram(),
-                                                                                    solverConfig);
-        
-        double populationUniques = 0d;
-        if (this.statisticalModel == PopulationUniquenessModel.DANKAR) {
-            populationUniques = riskModel.getFractionOfUniqueTuplesDankar(false);
-        } else {
-            populationUniques = riskModel.getFractionOfUniqueTuples(this.statisticalModel);
-        }
+        double populationUniques = getFractionOfUniqueTuples(distribution.getHistogram());
         if (populationUniques > 0d && populationUniques <= getRiskThreshold()) {
             return true;
         } else if (populationUniques == 0d && distribution.getFractionOfRecordsInClassesOfSize(1) == 0d) {
@@ -198,4 +239,52 @@ public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
             return false;
         }
     }
+
+    /**
+     * Returns the estimated fraction of unique tuples in the population. Recently computed
+     * estimates are cached, keyed on the histogram of class sizes. Estimates do not depend on
+     * the order in which histograms are checked and are therefore shared with worker instances.
+     * 
+     * @param histogram
+     * @return
+     */
+    private double getFractionOfUniqueTuples(RiskModelHistogram histogram) {
+
+        // Prepare
+        Key key = new Key(histogram.getHistogram());
+        synchronized (this) {
+            if (this.cache == null) {
+                this.cache = new LinkedHashMap<Key, Double>(16, 0.75f, true) {
+                    private static final long serialVersionUID = -3504297282224734571L;
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+                        return size() > CACHE_SIZE;
+                    }
+                };
+            }
+            Double cached = this.cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Estimate
+        RiskModelPopulationUniqueness riskModel = new RiskModelPopulationUniqueness(this.populationModel,
+                                                                                    histogram,
+                                                                                    solverConfig);
+        double result = 0d;
+        if (this.statisticalModel == PopulationUniquenessModel.DANKAR) {
+            result = riskModel.getFractionOfUniqueTuplesDankar(false);
+        } else {
+            result = riskModel.getFractionOfUniqueTuples(this.statisticalModel);
+        }
+
+        // Cache
+        synchronized (this) {
+            if (this.cache != null) {
+                this.cache.put(key, result);
+            }
+        }
+        return result;
+    }
 }
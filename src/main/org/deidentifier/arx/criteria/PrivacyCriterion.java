@@ -74,6 +74,19 @@ public abstract class PrivacyCriterion implements Serializable{
         return this.clone();
     }
     
+    /**
+     * Returns an instance of this initialized model that can be used by another thread 
+     * concurrently with this instance. Data that has been precomputed during initialization
+     * is shared, buffers that are modified during evaluation are not. The default
+     * implementation returns this instance. Models that modify their state in
+     * <code>isAnonymous()</code> must override this method.
+     * 
+     * @return
+     */
+    public PrivacyCriterion createWorkerInstance() {
+        return this;
+    }
+    
     /**
      * If a privacy model uses a data subset, it must overwrite this method
      * @return
@@ -17,12 +17,19 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.framework.check.distribution.Distribution;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
 import org.deidentifier.arx.framework.data.Data;
 import org.deidentifier.arx.framework.data.DataAggregationInformation;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixGeneralized;
+import org.deidentifier.arx.framework.data.DataMatrixMicroaggregated;
 import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -107,7 +114,111 @@ public class TransformationApplicator {
         // Prepare
         microaggregationDictionary.definalizeAll();
         
-
+        // Apply transition and groupify
+        HashGroupify currentGroupify = groupify(transformation);
+        
+        // Determine information loss
+        InformationLoss<?> loss = getInformationLoss(transformation, currentGroupify);
+        
+        // Prepare buffers
+        Data microaggregatedOutput = Data.createWrapper(new DataMatrix(0,0), new String[0], new int[0], new Dictionary(0));
+        Data generalizedOutput = Data.createWrapper(outputGeneralized, inputGeneralized.getHeader(), inputGeneralized.getColumns(), inputGeneralized.getDictionary());
+        
+        // Perform microaggregation. This has to be done before suppression.
+        if (isMicroaggregationRequired()) {
+            microaggregatedOutput = currentGroupify.performMicroaggregation(aggregation, microaggregationDictionary);
+        }
+        
+        // Perform suppression
+        if (config.getAbsoluteSuppressionLimit() != 0 || !currentGroupify.isPrivacyModelFulfilled()) {
+            currentGroupify.performSuppression();
+        }
+        
+        // Return the buffer
+        return new TransformedData(generalizedOutput, microaggregatedOutput, 
+                                   new TransformationResult(currentGroupify.isPrivacyModelFulfilled(), 
+                                              minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null, 
+                                              loss, null));
+    }
+    
+    /**
+     * Applies the given transformation and returns the dataset without copying it from the buffer.
+     * Records are grouped on the buffer, which is overwritten, but the returned data does not depend
+     * on it. Generalized values are derived from the input data on demand, using the generalization
+     * levels of the transformation. Outlier flags are stored in a bitmap, which is computed in the same
+     * pass over the equivalence classes that is needed for suppressing records. This pass also assigns
+     * each record the index of its class. Microaggregated values are computed once for each class on
+     * first access to the microaggregated data. As the generalized data is a view on the input data,
+     * its rows must be swapped together with the rows of the input data.
+     * 
+     * @param transformation
+     * @return
+     */
+    public TransformedData applyTransformationLazily(final Transformation<?> transformation) {
+        
+        // Apply transition and groupify
+        HashGroupify currentGroupify = groupify(transformation);
+        
+        // Determine information loss
+        InformationLoss<?> loss = getInformationLoss(transformation, currentGroupify);
+        
+        // Prepare buffers
+        long[] outliers = DataMatrixGeneralized.getBitmap(inputGeneralized.getDataLength());
+        Data microaggregatedOutput = Data.createWrapper(new DataMatrix(0,0), new String[0], new int[0], new Dictionary(0));
+        DataMatrix view = new DataMatrixGeneralized(inputGeneralized.getArray(), hierarchies, transformation.getGeneralization(), outliers);
+        Data generalizedOutput = Data.createWrapper(view, inputGeneralized.getHeader(), inputGeneralized.getColumns(), inputGeneralized.getDictionary());
+        
+        // Suppress records and determine the equivalence classes of all records in one pass
+        boolean microaggregation = isMicroaggregationRequired();
+        boolean suppression = config.getAbsoluteSuppressionLimit() != 0 || !currentGroupify.isPrivacyModelFulfilled();
+        if (microaggregation) {
+            List<Distribution[]> list = new ArrayList<Distribution[]>();
+            final int[] classes = currentGroupify.getEquivalenceClasses(suppression ? outliers : null, list);
+            final Distribution[][] distributions = list.toArray(new Distribution[list.size()][]);
+            
+            // Perform microaggregation for each class on first access
+            final Dictionary dictionary = new Dictionary(aggregation.getMicroaggregationHeader().length);
+            final int columns = aggregation.getMicroaggregationIndices().length;
+            microaggregatedOutput = Data.createLazyWrapper(new Callable<DataMatrix>() {
+                @Override
+                public DataMatrix call() throws Exception {
+                    int[][] values = HashGroupify.performMicroaggregation(aggregation, dictionary, distributions);
+                    return new DataMatrixMicroaggregated(classes, values, columns);
+                }
+            }, aggregation.getMicroaggregationHeader(), aggregation.getMicroaggregationColumns(), dictionary);
+            
+        } else if (suppression) {
+            currentGroupify.getEquivalenceClasses(outliers, null);
+        }
+        
+        // Return the buffer
+        return new TransformedData(generalizedOutput, microaggregatedOutput, 
+                                   new TransformationResult(currentGroupify.isPrivacyModelFulfilled(), 
+                                              minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null, 
+                                              loss, null));
+    }
+    
+    /**
+     * Returns the information loss of the given transformation
+     * @param transformation
+     * @param groupify
+     * @return
+     */
+    private InformationLoss<?> getInformationLoss(Transformation<?> transformation, HashGroupify groupify) {
+        InformationLoss<?> loss = transformation.getInformationLoss();
+        if (loss == null) {
+            loss = metric.getInformationLoss(transformation, groupify).getInformationLoss();
+        }
+        return loss;
+    }
+    
+    /**
+     * Applies the given transformation to the buffer and groups the records
+     * @param transformation
+     * @return
+     */
+    private HashGroupify groupify(Transformation<?> transformation) {
+        
         int initialSize = (int) (inputGeneralized.getDataLength() * 0.01d);
         Transformer transformer = new Transformer(inputGeneralized.getArray(),
                                                   inputAnalyzed,
@@ -130,34 +241,16 @@ public class TransformationApplicator {
         if (!currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
             currentGroupify.stateResetSuppression();
         }
-        
-        // Determine information loss
-        InformationLoss<?> loss = transformation.getInformationLoss();
-        if (loss == null) {
-            loss = metric.getInformationLoss(transformation, currentGroupify).getInformationLoss();
-        }
-        
-        // Prepare buffers
-        Data microaggregatedOutput = Data.createWrapper(new DataMatrix(0,0), new String[0], new int[0], new Dictionary(0));
-        Data generalizedOutput = Data.createWrapper(transformer.getBuffer(), inputGeneralized.getHeader(), inputGeneralized.getColumns(), inputGeneralized.getDictionary());
-        
-        // Perform microaggregation. This has to be done before suppression.
-        if (aggregation.getColdQIsFunctions().length > 0 ||
-            aggregation.getHotQIsNotGeneralizedFunctions().length > 0 ||
-            aggregation.getHotQIsGeneralizedFunctions().length > 0) {
-            microaggregatedOutput = currentGroupify.performMicroaggregation(aggregation, microaggregationDictionary);
-        }
-        
-        // Perform suppression
-        if (config.getAbsoluteSuppressionLimit() != 0 || !currentGroupify.isPrivacyModelFulfilled()) {
-            currentGroupify.performSuppression();
-        }
-        
-        // Return the buffer
-        return new TransformedData(generalizedOutput, microaggregatedOutput, 
-                                   new TransformationResult(currentGroupify.isPrivacyModelFulfilled(), 
-                                              minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null, 
-                                              loss, null));
+        return currentGroupify;
     }
     
+    /**
+     * Returns whether microaggregation must be performed
+     * @return
+     */
+    private boolean isMicroaggregationRequired() {
+        return aggregation.getColdQIsFunctions().length > 0 ||
+               aggregation.getHotQIsNotGeneralizedFunctions().length > 0 ||
+               aggregation.getHotQIsGeneralizedFunctions().length > 0;
+    }
 }
@@ -87,6 +87,21 @@ public class TransformationChecker {
     /** Is a minimal class size required */
     private final boolean                           minimalClassSizeRequired;
 
+    /** The history max size */
+    private final int                               historyMaxSize;
+
+    /** A history threshold */
+    private final double                            snapshotSizeDataset;
+
+    /** A history threshold */
+    private final double                            snapshotSizeSnapshot;
+
+    /** The budget of the second tier of the history in bytes */
+    private final long                              historyStoreSize;
+
+    /** Lock guarding state shared with workers, i.e. the solution space */
+    private final Object                            lock;
+
     /**
      * Creates a new transformation checker.
      * 
@@ -96,6 +111,8 @@ public class TransformationChecker {
      * @param historyMaxSize The history max size
      * @param snapshotSizeDataset A history threshold
      * @param snapshotSizeSnapshot A history threshold
+     * @param historyStoreSize The budget of the second tier of the history in bytes
+     * @param parallelism The number of threads used for transforming data
      * @param solutionSpace
      */
     public TransformationChecker(final DataManager manager,
@@ -104,10 +121,44 @@ public class TransformationChecker {
                                  final int historyMaxSize,
                                  final double snapshotSizeDataset,
                                  final double snapshotSizeSnapshot,
+                                 final long historyStoreSize,
+                                 final int parallelism,
                                  final SolutionSpace<?> solutionSpace) {
+        this(manager, metric, config, historyMaxSize, snapshotSizeDataset, snapshotSizeSnapshot, historyStoreSize, parallelism, solutionSpace, new Object());
+    }
+
+    /**
+     * Creates a new transformation checker.
+     * 
+     * @param manager The manager
+     * @param metric The metric
+     * @param config The configuration
+     * @param historyMaxSize The history max size
+     * @param snapshotSizeDataset A history threshold
+     * @param snapshotSizeSnapshot A history threshold
+     * @param historyStoreSize The budget of the second tier of the history in bytes
+     * @param parallelism The number of threads used for transforming data
+     * @param solutionSpace
+     * @param lock
+     */
+    private TransformationChecker(final DataManager manager,
+                                  final Metric<?> metric,
+                                  final ARXConfigurationInternal config,
+                                  final int historyMaxSize,
+                                  final double snapshotSizeDataset,
+                                  final double snapshotSizeSnapshot,
+                                  final long historyStoreSize,
+                                  final int parallelism,
+                                  final SolutionSpace<?> solutionSpace,
+                                  final Object lock) {
         
         // Store data
         this.metric = metric;
+        this.lock = lock;
+        this.historyMaxSize = historyMaxSize;
+        this.snapshotSizeDataset = snapshotSizeDataset;
+        this.snapshotSizeSnapshot = snapshotSizeSnapshot;
+        this.historyStoreSize = historyStoreSize;
         this.manager = manager;
         this.config = config;
         this.dataGeneralized = manager.getDataGeneralized();
@@ -131,30 +182,37 @@ public class TransformationChecker {
                                    historyMaxSize,
                                    snapshotSizeDataset,
                                    snapshotSizeSnapshot,
+                                   historyStoreSize,
                                    config,
                                    dictionarySensValue,
                                    dictionarySensFreq,
                                    solutionSpace);
         
+        // Each checker accesses the data through its own views
+        DataMatrix inputGeneralized = manager.getDataGeneralized().getArray().createView();
+        DataMatrix inputAnalyzed = manager.getDataAnalyzed().getArray();
+        inputAnalyzed = inputAnalyzed != null ? inputAnalyzed.createView() : null;
+        
         this.stateMachine = new TransformationCheckerStateMachine(history);
-        this.transformer = new Transformer(manager.getDataGeneralized().getArray(),
-                                           manager.getDataAnalyzed().getArray(),
+        this.transformer = new Transformer(inputGeneralized,
+                                           inputAnalyzed,
                                            manager.getAggregationInformation().getHotThreshold(),
                                            manager.getHierarchies(),
                                            config,
                                            dictionarySensValue,
-                                           dictionarySensFreq);
+                                           dictionarySensFreq,
+                                           parallelism);
         
         this.currentGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                                manager.getDataGeneralized().getArray(),
+                                                inputGeneralized,
                                                 transformer.getBuffer(),
-                                                manager.getDataAnalyzed().getArray(),
+                                                inputAnalyzed,
                                                 manager.getDataGeneralized().getDictionary().getSuppressedCodes());
         
         this.lastGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                             manager.getDataGeneralized().getArray(),
+                                             inputGeneralized,
                                              transformer.getBuffer(),
-                                             manager.getDataAnalyzed().getArray(),
+                                             inputAnalyzed,
                                              manager.getDataGeneralized().getDictionary().getSuppressedCodes());
     }
 
@@ -176,19 +234,23 @@ public class TransformationChecker {
      */
     public TransformationResult check(final Transformation<?> node, final boolean forceMeasureInfoLoss, final ScoreType scoreType) {
         
-        // If the result is already know, simply return it
-        if (node.getData() != null && node.getData() instanceof TransformationResult) {
-            return (TransformationResult) node.getData();
+        final Transition transition;
+        synchronized (lock) {
+            
+            // If the result is already know, simply return it
+            if (node.getData() != null && node.getData() instanceof TransformationResult) {
+                return (TransformationResult) node.getData();
+            }
+            
+            // Store snapshot from last check
+            if (stateMachine.getLastTransformation() != null) {
+                history.store(solutionSpace.getTransformation(stateMachine.getLastTransformation()), currentGroupify, stateMachine.getLastTransition().snapshot);
+            }
+            
+            // Transition
+            transition = stateMachine.transition(node.getGeneralization());
         }
         
-        // Store snapshot from last check
-        if (stateMachine.getLastTransformation() != null) {
-            history.store(solutionSpace.getTransformation(stateMachine.getLastTransformation()), currentGroupify, stateMachine.getLastTransition().snapshot);
-        }
-        
-        // Transition
-        final Transition transition = stateMachine.transition(node.getGeneralization());
-        
         // Switch groupifies
         final HashGroupify temp = lastGroupify;
         lastGroupify = currentGroupify;
@@ -208,6 +270,43 @@ public class TransformationChecker {
         }
         
         // We are done with transforming and adding
+        return analyze(node, forceMeasureInfoLoss, scoreType);
+    }
+    
+    /**
+     * Creates a checker that can be used by another thread to check transformations concurrently
+     * with this instance. The worker has its own buffers and history, as well as worker instances
+     * of the privacy models and the quality model. Access to the solution space is synchronized.
+     * 
+     * @return
+     */
+    public TransformationChecker createWorker() {
+        ARXConfigurationInternal workerConfig = config.createWorkerInstance();
+        Metric<?> workerMetric = metric == config.getQualityModel() ? workerConfig.getQualityModel() : metric.createWorkerInstance();
+        TransformationChecker worker = new TransformationChecker(manager,
+                                         workerMetric,
+                                         workerConfig,
+                                         historyMaxSize,
+                                         snapshotSizeDataset,
+                                         snapshotSizeSnapshot,
+                                         historyStoreSize,
+                                         1,
+                                         solutionSpace,
+                                         lock);
+        worker.getHistory().setEvictionPolicy(history.getEvictionPolicy());
+        return worker;
+    }
+    
+    /**
+     * Analyzes the current groupify operator
+     * @param node
+     * @param forceMeasureInfoLoss
+     * @param scoreType
+     * @return
+     */
+    private TransformationResult analyze(final Transformation<?> node, final boolean forceMeasureInfoLoss, final ScoreType scoreType) {
+        
+        // Analyze
         currentGroupify.stateAnalyze(node, forceMeasureInfoLoss);
         if (forceMeasureInfoLoss && !currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
             currentGroupify.stateResetSuppression();
@@ -306,5 +405,6 @@ public class TransformationChecker {
         history.setSize(0);
         currentGroupify.stateClear();
         lastGroupify.stateClear();
+        transformer.shutdown();
     }
 }
\ No newline at end of file
@@ -17,6 +17,14 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.TransitionType;
 import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
@@ -50,6 +58,9 @@ import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
  */
 public class Transformer {
 
+    /** Minimal number of rows or snapshot entries that will be processed by one worker */
+    private static final int                  PARALLEL_MIN_ROWS_PER_WORKER = 10000;
+
     /** The config. */
     protected final ARXConfigurationInternal  config;
 
@@ -80,6 +91,21 @@ public class Transformer {
     /** Number of columns to analyze */
     protected final int                       dataAnalyzedNumberOfColumns;
 
+    /** The degree of parallelism */
+    protected final int                       parallelism;
+
+    /** The pool of worker threads, created lazily */
+    private ForkJoinPool                      workerPool;
+
+    /** The instances used by the workers, created lazily */
+    private AbstractTransformer[][]           workerInstances;
+
+    /** The views on the output buffer used by the workers, created lazily */
+    private DataMatrix[]                      workerBuffers;
+
+    /** The thread-local groupify operators used by the workers, created lazily */
+    private HashGroupify[]                    workerGroupifies;
+
     /**
      * Instantiates a new transformer.
      *
@@ -90,6 +116,7 @@ public class Transformer {
      * @param config
      * @param dictionarySensValue
      * @param dictionarySensFreq
+     * @param parallelism
      */
     public Transformer(final DataMatrix inputGeneralized,
                        final DataMatrix inputAnalyzed,
@@ -97,22 +124,22 @@ public class Transformer {
                        final GeneralizationHierarchy[] hierarchies,
                        final ARXConfigurationInternal config,
                        final IntArrayDictionary dictionarySensValue,
-                       final IntArrayDictionary dictionarySensFreq) {
+                       final IntArrayDictionary dictionarySensFreq,
+                       final int parallelism) {
 
         this.config = config;
+        this.parallelism = parallelism;
         this.inputGeneralized = inputGeneralized;
         this.dataAnalyzedNumberOfColumns = dataAnalyzedNumberOfColumns;
         this.hierarchies = hierarchies;
-        this.instances = new AbstractTransformer[16];
-        this.outputGeneralized = new DataMatrix(inputGeneralized.getNumRows(), 
-                                                inputGeneralized.getNumColumns());
+        this.outputGeneralized = inputGeneralized.createInstance(inputGeneralized.getNumRows());
 
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = dictionarySensValue;
         this.dictionarySensFreq = dictionarySensFreq;
         this.inputAnalyzed = inputAnalyzed;
 
-        buildTransformers();
+        this.instances = buildTransformers(inputGeneralized, inputAnalyzed);
     }
 
     /**
@@ -145,6 +172,7 @@ public class Transformer {
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = null;
         this.dictionarySensFreq = null;
+        this.parallelism = 1;
 
         // Build just one applicator
         this.instances = new AbstractTransformer[1];
@@ -230,10 +258,37 @@ public class Transformer {
         return outputGeneralized;
     }
 
+    /**
+     * Returns the degree of parallelism
+     * @return
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Releases all threads and buffers used for parallel processing
+     */
+    public void shutdown() {
+        if (workerPool != null) {
+            workerPool.shutdown();
+            workerPool = null;
+        }
+        workerInstances = null;
+        workerBuffers = null;
+        workerGroupifies = null;
+    }
+
     /**
      * Builds the applicators.
+     * 
+     * @param inputGeneralized
+     * @param inputAnalyzed
+     * @return
      */
-    private void buildTransformers() {
+    private AbstractTransformer[] buildTransformers(final DataMatrix inputGeneralized,
+                                                    final DataMatrix inputAnalyzed) {
+        AbstractTransformer[] instances = new AbstractTransformer[16];
         instances[15] = new Transformer15(inputGeneralized,
                                           hierarchies,
                                           inputAnalyzed,
@@ -346,6 +401,115 @@ public class Transformer {
                                           dictionarySensValue,
                                           dictionarySensFreq,
                                           config);
+        return instances;
+    }
+
+    /**
+     * Applies the transformation to the given range of rows or snapshot entries in parallel.
+     * Each worker processes a consecutive partition with its own transformer and groupify
+     * operator. The results are merged in the order of the partitions, which yields the same 
+     * result as sequential processing.
+     * 
+     * @param projection the projection
+     * @param state the state
+     * @param target the target
+     * @param snapshot the snapshot
+     * @param transition the transition
+     * @param startIndex the start index
+     * @param stopIndex the stop index
+     * @param workers the number of workers
+     * @return the hash groupify
+     */
+    private HashGroupify applyParallel(final long projection,
+                                       final int[] state,
+                                       final HashGroupify target,
+                                       final int[] snapshot,
+                                       final TransitionType transition,
+                                       final int startIndex,
+                                       final int stopIndex,
+                                       final int workers) {
+
+        // Prepare
+        initializeWorkers(target);
+        target.stateClear();
+        
+        // Partition and submit
+        List<Future<HashGroupify>> futures = new ArrayList<Future<HashGroupify>>();
+        int total = stopIndex - startIndex;
+        for (int worker = 0; worker < workers; worker++) {
+            int partitionStart = startIndex + (int) ((long) total * worker / workers);
+            int partitionStop = startIndex + (int) ((long) total * (worker + 1) / workers);
+            AbstractTransformer transformer = getTransformer(workerInstances[worker], projection);
+            transformer.init(projection,
+                             state,
+                             workerGroupifies[worker],
+                             null,
+                             snapshot,
+                             transition,
+                             partitionStart,
+                             partitionStop,
+                             null,
+                             workerBuffers[worker]);
+            futures.add(workerPool.submit(transformer));
+        }
+        
+        // Merge in order
+        try {
+            for (Future<HashGroupify> future : futures) {
+                HashGroupify local = future.get();
+                target.addAll(local);
+                local.stateClear();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            for (Future<HashGroupify> future : futures) {
+                future.cancel(true);
+            }
+            throw new RuntimeException("Error while transforming data", e.getCause() != null ? e.getCause() : e);
+        }
+        
+        // Done
+        return target;
+    }
+
+    /**
+     * Returns the number of workers that should process the given number of rows or snapshot entries
+     * @param transition
+     * @param size
+     * @return
+     */
+    private int getNumberOfWorkers(final TransitionType transition, final int size) {
+        if (parallelism <= 1 || transition == TransitionType.ROLLUP) {
+            return 1;
+        }
+        return Math.max(1, Math.min(parallelism, size / PARALLEL_MIN_ROWS_PER_WORKER));
+    }
+
+    /**
+     * Lazily creates the thread pool, transformers and groupify operators needed by the workers
+     * @param prototype
+     */
+    private void initializeWorkers(final HashGroupify prototype) {
+        if (workerPool != null) {
+            return;
+        }
+        workerInstances = new AbstractTransformer[parallelism][];
+        workerBuffers = new DataMatrix[parallelism];
+        workerGroupifies = new HashGroupify[parallelism];
+        int capacity = (int) (inputGeneralized.getNumRows() * 0.01d / parallelism);
+        for (int worker = 0; worker < parallelism; worker++) {
+            DataMatrix analyzed = inputAnalyzed != null ? inputAnalyzed.createView() : null;
+            workerInstances[worker] = buildTransformers(inputGeneralized.createView(), analyzed);
+            workerBuffers[worker] = outputGeneralized.createView();
+            workerGroupifies[worker] = prototype.createLocalInstance(capacity, analyzed);
+        }
+        workerPool = new ForkJoinPool(parallelism, new ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, null, false);
     }
 
     /**
@@ -387,9 +551,15 @@ public class Transformer {
             break;
         }
 
+        // Process in parallel, if enabled
+        int workers = getNumberOfWorkers(transition, stopIndex - startIndex);
+        if (workers > 1) {
+            return applyParallel(projection, state, target, snapshot, transition, startIndex, stopIndex, workers);
+        }
+
         AbstractTransformer transformer = null;
 
-        transformer = getTransformer(projection);
+        transformer = getTransformer(instances, projection);
         
         transformer.init(projection,
                  state,
@@ -408,10 +578,11 @@ public class Transformer {
     /**
      * Gets the applicator.
      * 
+     * @param instances the instances
      * @param projection the projection
      * @return the applicator
      */
-    protected AbstractTransformer getTransformer(final long projection) {
+    protected AbstractTransformer getTransformer(final AbstractTransformer[] instances, final long projection) {
         final int index = dimensions - Long.bitCount(projection);
         if (index > (instances.length - 1)) {
             return instances[0];
@@ -17,6 +17,9 @@
 
 package org.deidentifier.arx.framework.check.groupify;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.RowSet;
 import org.deidentifier.arx.criteria.DPresence;
@@ -35,8 +38,10 @@ import org.deidentifier.arx.metric.Metric;
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 
 /**
- * A hash groupify operator. It implements a hash table with chaining and keeps
- * track of additional properties per equivalence class
+ * A hash groupify operator. It implements a hash table with open addressing and keeps
+ * track of additional properties per equivalence class. Hash codes and references to
+ * entries are stored in primitive arrays, which are probed linearly. Entries are kept
+ * in insertion order and are reused after the operator has been cleared.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -49,8 +54,14 @@ public class HashGroupify {
     /** The current number of outliers. */
     private int                          currentNumOutliers;
 
-    /** The entry array. */
-    private HashGroupifyEntry[]          hashTableBuckets;
+    /** The slots of the table, storing the index of an entry plus one. Zero marks an empty slot. */
+    private int[]                        hashTableSlots;
+
+    /** The hash codes of the entries stored in the slots of the table. */
+    private int[]                        hashTableHashes;
+
+    /** The entries in insertion order. Elements beyond the current count are reused. */
+    private HashGroupifyEntry[]          hashTableEntries;
 
     /** Current number of elements. */
     private int                          hashTableElementCount;
@@ -62,7 +73,7 @@ public class HashGroupify {
     private HashGroupifyEntry            hashTableLastEntry;
 
     /** Load factor. */
-    private final float                  hashTableLoadFactor = 0.75f;
+    private final float                  hashTableLoadFactor = 0.5f;
 
     /** Maximum number of elements that can be put in this map before having to rehash. */
     private int                          hashTableThreshold;
@@ -142,8 +153,10 @@ public class HashGroupify {
         // Set capacity
         capacity = HashTableUtil.calculateCapacity(capacity);
         this.hashTableElementCount = 0;
-        this.hashTableBuckets = new HashGroupifyEntry[capacity];
-        this.hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
+        this.hashTableSlots = new int[capacity];
+        this.hashTableHashes = new int[capacity];
+        this.hashTableEntries = new HashGroupifyEntry[HashTableUtil.calculateThreshold(capacity, hashTableLoadFactor)];
+        this.hashTableThreshold = HashTableUtil.calculateThreshold(capacity, hashTableLoadFactor);
         
         // Set params
         this.currentNumOutliers = 0;
@@ -174,6 +187,59 @@ public class HashGroupify {
         // Remember, if (real) d-presence is part of the criteria that must be enforced
         privacyModelContainsDPresence = (classBasedCriteria.length > 0 && (classBasedCriteria[0] instanceof DPresence) && !(classBasedCriteria[0] instanceof Inclusion));
     }
+
+    /**
+     * Constructs a new hash groupify operator with the same configuration as the given prototype
+     * 
+     * @param capacity The capacity
+     * @param prototype The prototype
+     * @param analyzed The analyzed data
+     */
+    private HashGroupify(int capacity, HashGroupify prototype, DataMatrix analyzed) {
+        
+        // Store
+        this.dataInput = prototype.dataInput;
+        this.dataOutput = prototype.dataOutput;
+        this.dataAnalyzed = analyzed;
+        this.dataAnalyzedNumberOfColumns = prototype.dataAnalyzedNumberOfColumns;
+        this.suppressedCodes = prototype.suppressedCodes;
+        this.suppressedHashCode = prototype.suppressedHashCode;
+        
+        // Set capacity
+        capacity = HashTableUtil.calculateCapacity(capacity);
+        this.hashTableElementCount = 0;
+        this.hashTableSlots = new int[capacity];
+        this.hashTableHashes = new int[capacity];
+        this.hashTableEntries = new HashGroupifyEntry[HashTableUtil.calculateThreshold(capacity, hashTableLoadFactor)];
+        this.hashTableThreshold = HashTableUtil.calculateThreshold(capacity, hashTableLoadFactor);
+        
+        // Copy params
+        this.currentNumOutliers = 0;
+        this.suppressionLimit = prototype.suppressionLimit;
+        this.utilityMeasure = prototype.utilityMeasure;
+        this.heuristicForSampleBasedCriteria = prototype.heuristicForSampleBasedCriteria;
+        this.privacyModelDefinesSubset = prototype.privacyModelDefinesSubset;
+        this.classBasedCriteria = prototype.classBasedCriteria;
+        this.sampleBasedCriteria = prototype.sampleBasedCriteria;
+        this.minimalClassSize = prototype.minimalClassSize;
+        this.privacyModelContainsDPresence = prototype.privacyModelContainsDPresence;
+    }
+
+    /**
+     * Adds all classes from the given groupify operator, which must have been created
+     * with createLocalInstance(). Classes are added in the order in which they have been 
+     * found, and the result is identical to having added the underlying tuples to this 
+     * instance directly.
+     * 
+     * @param source
+     */
+    public void addAll(HashGroupify source) {
+        HashGroupifyEntry entry = source.hashTableFirstEntry;
+        while (entry != null) {
+            addFromGroupify(entry.getRow(), entry.distributions, entry.representative, entry.count, entry.pcount);
+            entry = entry.nextOrdered;
+        }
+    }
     
     /**
      * Adds a tuple from the buffer
@@ -275,6 +341,18 @@ public class HashGroupify {
         }
     }
     
+    /**
+     * Creates an operator with the same configuration, which can be used by a different thread
+     * to group a part of the output data. The results can then be merged via addAll().
+     * 
+     * @param capacity
+     * @param analyzed A view on the analyzed data that is owned by the thread
+     * @return
+     */
+    public HashGroupify createLocalInstance(int capacity, DataMatrix analyzed) {
+        return new HashGroupify(capacity, this, analyzed);
+    }
+
     /**
      * Returns the entry for the given tuple
      * @param tuple
@@ -282,12 +360,16 @@ public class HashGroupify {
      */
     public HashGroupifyEntry getEntry(int[] tuple) {
         final int hash = dataOutput.hashCode(tuple);
-        int index = hash & (hashTableBuckets.length - 1);
-        HashGroupifyEntry m = hashTableBuckets[index];
-        while ((m != null) && ((m.hashcode != hash) || !dataOutput.equals(m.row, tuple))) {
-            m = m.next;
+        final int mask = hashTableSlots.length - 1;
+        int index = mix(hash) & mask;
+        while (hashTableSlots[index] != 0) {
+            HashGroupifyEntry m = hashTableEntries[hashTableSlots[index] - 1];
+            if (hashTableHashes[index] == hash && dataOutput.equals(m.getRow(), tuple)) {
+                return m;
+            }
+            index = (index + 1) & mask;
         }
-        return m;
+        return null;
     }
     
     /**
@@ -328,7 +410,7 @@ public class HashGroupify {
      * @return
      */
     public boolean isCompletelyGeneralized(HashGroupifyEntry entry) {
-        if (entry.hashcode != this.suppressedHashCode) {
+        if (entry.getHashcode() != this.suppressedHashCode) {
             return false;
         }
         int column = 0;
@@ -357,6 +439,54 @@ public class HashGroupify {
         return privacyModelFulfilled;
     }
     
+    /**
+     * Returns the index of the equivalence class of each record, ignoring the outlier flag. Classes
+     * are indexed in the order in which they are first encountered. For records which are not included
+     * in the research subset, -1 is returned. If a bitmap is given, records are suppressed in the same
+     * pass as in {@link #performSuppression()}, but the outlier flags are stored in the bitmap, with one
+     * bit per record, instead of the output data.
+     * 
+     * @param outliers The bitmap, or null if records should not be suppressed
+     * @param distributions If not null, the distributions of each class are added in the order of their indices
+     * @return
+     */
+    public int[] getEquivalenceClasses(long[] outliers, List<Distribution[]> distributions) {
+        
+        // Indices of classes, by entry
+        int[] indices = new int[hashTableElementCount];
+        Arrays.fill(indices, -1);
+        int count = 0;
+        
+        // For each record
+        int[] classes = new int[dataOutput.getNumRows()];
+        for (int row = 0; row < dataOutput.getNumRows(); row++) {
+            if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
+                int entry = findIndexIgnoringOutliers(row);
+                if (entry == -1) {
+                    throw new RuntimeException("Invalid state! Group the data before suppressing records!");
+                }
+                HashGroupifyEntry m = hashTableEntries[entry];
+                if (outliers != null && (!m.isNotOutlier || this.isCompletelyGeneralized(m))) {
+                    outliers[row >>> 6] |= 1L << row;
+                    m.isNotOutlier = false;
+                }
+                if (indices[entry] == -1) {
+                    indices[entry] = count++;
+                    if (distributions != null) {
+                        distributions.add(m.distributions);
+                    }
+                }
+                classes[row] = indices[entry];
+            } else {
+                if (outliers != null) {
+                    outliers[row >>> 6] |= 1L << row;
+                }
+                classes[row] = -1;
+            }
+        }
+        return classes;
+    }
+    
     /**
      * Returns a data object with microaggregation performed
      * @param microaggregationData
@@ -373,18 +503,13 @@ public class HashGroupify {
         int[] columns = microaggregationData.getMicroaggregationColumns();
         
         // Prepare result
-        Data result = Data.createWrapper(new DataMatrix(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
+        Data result = Data.createWrapper(dataOutput.createInstance(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
 
         // TODO: To improve performance, microaggregation and marking of outliers could be performed in one pass
         ObjectIntOpenHashMap<Distribution> cache = new ObjectIntOpenHashMap<Distribution>();
         for (int row = 0; row < dataOutput.getNumRows(); row++) {
             if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
+                HashGroupifyEntry m = findEntryIgnoringOutliers(row);
                 if (m == null) { throw new RuntimeException("Invalid state! Groupify the data before performing microaggregation!"); }
                 result.getArray().iterator(row);
                 for (int i = 0; i < indices.length; i++) {
@@ -408,6 +533,47 @@ public class HashGroupify {
         return result;
     }
     
+    /**
+     * Performs microaggregation once for each equivalence class, based on the distributions returned
+     * by {@link #getEquivalenceClasses(long[], List)}. The aggregated values are registered at the
+     * dictionary, which is finalized afterwards.
+     * 
+     * @param microaggregationData
+     * @param dictionary
+     * @param distributions The distributions of each class
+     * @return The codes of the aggregated values, indexed by class and microaggregated attribute
+     */
+    public static int[][] performMicroaggregation(DataAggregationInformation microaggregationData,
+                                                  Dictionary dictionary,
+                                                  Distribution[][] distributions) {
+        
+        // Initialize
+        int[] indices = microaggregationData.getMicroaggregationIndices();
+        DistributionAggregateFunction[] functions = microaggregationData.getMicroaggregationFunctions();
+        
+        // Aggregate
+        int[][] result = new int[distributions.length][indices.length];
+        ObjectIntOpenHashMap<Distribution> cache = new ObjectIntOpenHashMap<Distribution>();
+        for (int index = 0; index < distributions.length; index++) {
+            for (int i = 0; i < indices.length; i++) {
+                Distribution distribution = distributions[index][indices[i]];
+                int code = cache.getOrDefault(distribution, -1);
+                if (code == -1) {
+                    String value = functions[i].aggregate(distribution);
+                    code = dictionary.register(i, value);
+                    cache.put(distribution, code);
+                }
+                result[index][i] = code;
+            }
+        }
+        
+        // Finalize
+        dictionary.finalizeAll();
+        
+        // Returns the result
+        return result;
+    }
+    
     /**
      * Suppresses all records in the output dataset which <br>
      * (a) do not satisfy privacy requirements, or <br>
@@ -418,12 +584,7 @@ public class HashGroupify {
         
         for (int row = 0; row < dataOutput.getNumRows(); row++) {
             if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
+                HashGroupifyEntry m = findEntryIgnoringOutliers(row);
                 if (m == null) {
                     throw new RuntimeException("Invalid state! Group the data before suppressing records!");
                 }
@@ -448,15 +609,20 @@ public class HashGroupify {
     }
     
     /**
-     * Clears all entries
+     * Clears all entries. The entries will be reused, but they no longer reference
+     * their distributions or each other.
      */
     public void stateClear() {
         if (hashTableElementCount > 0) {
+            for (int i = 0; i < hashTableElementCount; i++) {
+                hashTableEntries[i].distributions = null;
+                hashTableEntries[i].nextOrdered = null;
+            }
             this.hashTableElementCount = 0;
             this.currentNumOutliers = 0;
             this.hashTableFirstEntry = null;
             this.hashTableLastEntry = null;
-            HashTableUtil.nullifyArray(hashTableBuckets);
+            Arrays.fill(hashTableSlots, 0);
         }
     }
     
@@ -485,12 +651,14 @@ public class HashGroupify {
     private HashGroupifyEntry addInternal(final int generalized, final int hash, final int representative, int count, final int pcount) {
         
         // Find or create entry
-        int index = hash & (hashTableBuckets.length - 1);
-        HashGroupifyEntry entry = findEntry(generalized, index, hash);
-        if (entry == null) {
-            if (++hashTableElementCount > hashTableThreshold) {
+        int index = findSlot(generalized, hash);
+        HashGroupifyEntry entry;
+        if (hashTableSlots[index] != 0) {
+            entry = hashTableEntries[hashTableSlots[index] - 1];
+        } else {
+            if (hashTableElementCount + 1 > hashTableThreshold) {
                 rehash();
-                index = hash & (hashTableBuckets.length - 1);
+                index = findSlot(generalized, hash);
             }
             entry = createEntry(generalized, index, hash, representative);
         }
@@ -689,12 +857,12 @@ public class HashGroupify {
     }
 
     /**
-     * Creates a new entry.
+     * Creates a new entry or reuses an existing one.
      * 
      * @param row
      *            the row
      * @param index
-     *            the index
+     *            the index of the (empty) slot
      * @param hash
      *            the hash
      * @param line
@@ -702,10 +870,23 @@ public class HashGroupify {
      * @return the hash groupify entry
      */
     private HashGroupifyEntry createEntry(final int row, final int index, final int hash, final int line) {
-        final HashGroupifyEntry entry = new HashGroupifyEntry(this.dataOutput, row, hash);
-        entry.next = hashTableBuckets[index];
+        
+        // Obtain entry
+        if (hashTableElementCount == hashTableEntries.length) {
+            hashTableEntries = Arrays.copyOf(hashTableEntries, Math.max(16, hashTableEntries.length << 1));
+        }
+        HashGroupifyEntry entry = hashTableEntries[hashTableElementCount];
+        if (entry == null) {
+            entry = new HashGroupifyEntry(this.dataOutput, row, hash);
+            hashTableEntries[hashTableElementCount] = entry;
+        } else {
+            entry.reset(row, hash);
+        }
         entry.representative = line;
-        hashTableBuckets[index] = entry;
+        
+        // Store
+        hashTableSlots[index] = ++hashTableElementCount;
+        hashTableHashes[index] = hash;
         if (hashTableFirstEntry == null) {
             hashTableFirstEntry = entry;
             hashTableLastEntry = entry;
@@ -717,22 +898,58 @@ public class HashGroupify {
     }
 
     /**
-     * Returns the according entry.
+     * Returns the entry for the given row, ignoring the outlier flag.
+     * 
+     * @param row
+     *            the row
+     * @return the hash groupify entry, or null
+     */
+    private HashGroupifyEntry findEntryIgnoringOutliers(final int row) {
+        int index = findIndexIgnoringOutliers(row);
+        return index == -1 ? null : hashTableEntries[index];
+    }
+
+    /**
+     * Returns the index of the entry for the given row, ignoring the outlier flag.
+     * 
+     * @param row
+     *            the row
+     * @return the index of the entry, or -1
+     */
+    private int findIndexIgnoringOutliers(final int row) {
+        final int hash = dataOutput.hashCode(row);
+        final int mask = hashTableSlots.length - 1;
+        int index = mix(hash) & mask;
+        while (hashTableSlots[index] != 0) {
+            int entry = hashTableSlots[index] - 1;
+            if (hashTableHashes[index] == hash && dataOutput.equalsIgnoringOutliers(row, hashTableEntries[entry].getRow())) {
+                return entry;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot which contains the entry for the given row, or the empty
+     * slot in which it must be stored.
      * 
      * @param row
      *            the row
-     * @param index
-     *            the index
      * @param keyHash
      *            the key hash
-     * @return the hash groupify entry
+     * @return the index of the slot
      */
-    private HashGroupifyEntry findEntry(final int row, final int index, final int keyHash) {
-        HashGroupifyEntry m = hashTableBuckets[index];
-        while ((m != null) && ((m.hashcode != keyHash) || !dataOutput.equals(row, m.row))) {
-            m = m.next;
+    private int findSlot(final int row, final int keyHash) {
+        final int mask = hashTableSlots.length - 1;
+        int index = mix(keyHash) & mask;
+        while (hashTableSlots[index] != 0) {
+            if (hashTableHashes[index] == keyHash && dataOutput.equals(row, hashTableEntries[hashTableSlots[index] - 1].getRow())) {
+                return index;
+            }
+            index = (index + 1) & mask;
         }
-        return m;
+        return index;
     }
 
     /**
@@ -762,21 +979,37 @@ public class HashGroupify {
         return -1;
     }
 
+    /**
+     * Spreads the bits of the given hash code, as the table is probed linearly.
+     * 
+     * @param hash
+     * @return
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
     /**
      * Rehashes this operator.
      */
     private void rehash() {
         
-        final int length = HashTableUtil.calculateCapacity((hashTableBuckets.length == 0 ? 1 : hashTableBuckets.length << 1));
-        final HashGroupifyEntry[] newData = new HashGroupifyEntry[length];
-        HashGroupifyEntry entry = hashTableFirstEntry;
-        while (entry != null) {
-            final int index = entry.hashcode & (length - 1);
-            entry.next = newData[index];
-            newData[index] = entry;
-            entry = entry.nextOrdered;
+        final int length = HashTableUtil.calculateCapacity((hashTableSlots.length == 0 ? 1 : hashTableSlots.length << 1));
+        final int mask = length - 1;
+        final int[] slots = new int[length];
+        final int[] hashes = new int[length];
+        for (int i = 0; i < hashTableElementCount; i++) {
+            final int hash = hashTableEntries[i].getHashcode();
+            int index = mix(hash) & mask;
+            while (slots[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = i + 1;
+            hashes[index] = hash;
         }
-        hashTableBuckets = newData;
-        hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
+        hashTableSlots = slots;
+        hashTableHashes = hashes;
+        hashTableThreshold = HashTableUtil.calculateThreshold(length, hashTableLoadFactor);
     }
 }
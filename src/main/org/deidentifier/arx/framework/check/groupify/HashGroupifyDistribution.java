@@ -18,6 +18,7 @@
 package org.deidentifier.arx.framework.check.groupify;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -46,7 +47,9 @@ import org.deidentifier.arx.risk.RiskModelHistogram;
 import com.carrotsearch.hppc.IntIntOpenHashMap;
 
 /**
- * A distribution of equivalence classes
+ * A distribution of equivalence classes. The histogram of class sizes is maintained incrementally
+ * while entries are suppressed and unsuppressed, which means that each step only costs time
+ * proportional to the number of entries changed.
  * @author Fabian Prasser
  */
 public class HashGroupifyDistribution {
@@ -75,8 +78,12 @@ public class HashGroupifyDistribution {
         public State isFulfilled(HashGroupifyDistribution distribution);
     }
 
-    /** The backing map */
-    private IntIntOpenHashMap   distribution = new IntIntOpenHashMap();
+    /** Distinct sizes of the classes that can be suppressed, in ascending order */
+    private int[]               sizes;
+    /** Number of classes that are not suppressed, indexed like sizes */
+    private int[]               frequencies;
+    /** Number of sizes with a frequency larger than zero */
+    private int                 numSizes;
     /** The number of suppressed tuples */
     private int                 internalNumSuppressed   = 0;
     /** Entries that can be suppressed */
@@ -107,9 +114,12 @@ public class HashGroupifyDistribution {
         // Initialize
         HashGroupifyEntry entry = groupify.getFirstEquivalenceClass();
         List<HashGroupifyEntry> list = new ArrayList<HashGroupifyEntry>();
+        IntIntOpenHashMap distribution = new IntIntOpenHashMap();
         while(entry != null) {
             if (entry.isNotOutlier && entry.count > 0 && !groupify.isCompletelyGeneralized(entry)) {
-                addToDistribution(entry.count);
+                this.numClasses++;
+                this.numRecords += entry.count;
+                distribution.putOrAdd(entry.count, 1, 1);
                 list.add(entry);
             } else {
                 this.internalNumSuppressed += !groupify.isCompletelyGeneralized(entry) ? entry.count : 0;
@@ -117,6 +127,21 @@ public class HashGroupifyDistribution {
             entry = entry.nextOrdered;
         }
         
+        // Build histogram
+        this.sizes = new int[distribution.size()];
+        int index = 0;
+        for (int i = 0; i < distribution.allocated.length; i++) {
+            if (distribution.allocated[i]) {
+                this.sizes[index++] = distribution.keys[i];
+            }
+        }
+        Arrays.sort(this.sizes);
+        this.frequencies = new int[this.sizes.length];
+        for (int i = 0; i < this.sizes.length; i++) {
+            this.frequencies[i] = distribution.get(this.sizes[i]);
+        }
+        this.numSizes = this.sizes.length;
+        
         Comparator<HashGroupifyEntry> comparator;
         
         // Blacklist metrics for which information loss of individual entries
@@ -195,14 +220,43 @@ public class HashGroupifyDistribution {
      * @return
      */
     public double getFractionOfRecordsInClassesOfSize(int size) {
-        return (int)numRecords == 0 ? 0 : ((double)distribution.getOrDefault(size, 0) * (double)size / numRecords);
+        int index = Arrays.binarySearch(sizes, size);
+        int frequency = index >= 0 ? frequencies[index] : 0;
+        return (int)numRecords == 0 ? 0 : ((double)frequency * (double)size / numRecords);
+    }
+
+    /**
+     * Returns the fraction of tuples that are in classes smaller than the given size. This equals
+     * the sum of {@link #getFractionOfRecordsInClassesOfSize(int)} over all smaller sizes.
+     * @param size
+     * @return
+     */
+    public double getFractionOfRecordsInClassesSmallerThan(int size) {
+        double result = 0d;
+        if ((int)numRecords == 0) {
+            return result;
+        }
+        for (int i = 0; i < sizes.length && sizes[i] < size; i++) {
+            if (frequencies[i] != 0) {
+                result += (double)frequencies[i] * (double)sizes[i] / numRecords;
+            }
+        }
+        return result;
     }
 
     /**
      * Returns a set of classes as an input for the risk model
      */
     public RiskModelHistogram getHistogram() {
-        return new RiskModelHistogram(this.distribution);
+        int[] histogram = new int[numSizes * 2];
+        int index = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            if (frequencies[i] != 0) {
+                histogram[index++] = sizes[i];
+                histogram[index++] = frequencies[i];
+            }
+        }
+        return new RiskModelHistogram(histogram);
     }
 
     /**
@@ -305,7 +359,10 @@ public class HashGroupifyDistribution {
     private void addToDistribution(int size) {
         this.numClasses++;
         this.numRecords += size;
-        this.distribution.putOrAdd(size, 1, 1);   
+        int index = Arrays.binarySearch(sizes, size);
+        if (frequencies[index]++ == 0) {
+            numSizes++;
+        }
     }
 
     /**
@@ -315,9 +372,9 @@ public class HashGroupifyDistribution {
     private void removeFromDistribution(int size) {
         this.numClasses--;
         this.numRecords -= size;
-        int previous = distribution.remove(size);
-        if (previous != 1) {
-            distribution.put(size, previous - 1);
+        int index = Arrays.binarySearch(sizes, size);
+        if (--frequencies[index] == 0) {
+            numSizes--;
         }
     }
 
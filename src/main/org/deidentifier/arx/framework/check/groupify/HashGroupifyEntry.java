@@ -34,15 +34,6 @@ public class HashGroupifyEntry {
     /** The number of elements in this class. Including elements from the public table */
     public int               pcount         = 0;
 
-    /** The hashcode of this class. */
-    public final int         hashcode;
-
-    /** The key of this class. */
-    public final int         row;
-
-    /** The next element in this bucket. */
-    public HashGroupifyEntry next           = null;
-
     /** The overall next element in original order. */
     public HashGroupifyEntry nextOrdered    = null;
 
@@ -58,6 +49,12 @@ public class HashGroupifyEntry {
     /** Matrix*/
     private final DataMatrix matrix;
 
+    /** The hashcode of this class. Only modified when the entry is reused. */
+    private int              hashcode;
+
+    /** The key of this class. Only modified when the entry is reused. */
+    private int              row;
+
     /**
      * Creates a new entry.
      * 
@@ -71,6 +68,39 @@ public class HashGroupifyEntry {
         this.matrix = matrix;
     }
     
+    /**
+     * Resets this entry, so that it can be reused for another class.
+     * 
+     * @param row the row
+     * @param hash the hash
+     */
+    void reset(final int row, final int hash) {
+        this.hashcode = hash;
+        this.row = row;
+        this.count = 0;
+        this.pcount = 0;
+        this.nextOrdered = null;
+        this.representative = -1;
+        this.isNotOutlier = false;
+        this.distributions = null;
+    }
+    
+    /**
+     * Returns the hashcode of this class
+     * @return
+     */
+    public int getHashcode() {
+        return hashcode;
+    }
+    
+    /**
+     * Returns the key of this class
+     * @return
+     */
+    public int getRow() {
+        return row;
+    }
+    
     /**
      * Return has next
      * @return
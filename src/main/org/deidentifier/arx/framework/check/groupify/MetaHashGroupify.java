@@ -79,21 +79,21 @@ public class MetaHashGroupify {
         }
         
         // Calculate hash
-        final int hash = output.hashCodeIgnore(_entry.row, analysisIndex);
+        final int hash = output.hashCodeIgnore(_entry.getRow(), analysisIndex);
         
         // Find or create entry
         int index = hash & (hashTableBuckets.length - 1);
-        MetaHashGroupifyEntry entry = findEntry(_entry.row, index, hash);
+        MetaHashGroupifyEntry entry = findEntry(_entry.getRow(), index, hash);
         if (entry == null) {
             if (++hashTableElementCount > hashTableThreshold) {
                 rehash();
                 index = hash & (hashTableBuckets.length - 1);
             }
-            entry = createEntry(_entry.row, index, hash);
+            entry = createEntry(_entry.getRow(), index, hash);
         }
         
         // Add
-        entry.distribution.add(output.get(_entry.row, analysisIndex), _entry.count);
+        entry.distribution.add(output.get(_entry.getRow(), analysisIndex), _entry.count);
     }
     
     /**
@@ -0,0 +1,103 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.util.Map;
+
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.framework.lattice.TransformationList;
+
+/**
+ * Evicts the snapshot with the lowest expected number of rows saved per byte. 
+ * Applying a snapshot instead of the dataset saves one row per record that has been 
+ * merged into an equivalence class. This saving is expected for each direct successor 
+ * of the snapshot's transformation which still needs to be checked. Ties are resolved 
+ * by evicting the least recently used snapshot.
+ * 
+ * @author Fabian Prasser
+ */
+public class EvictionPolicyExpectedSavings implements EvictionPolicy {
+
+    /** The solution space */
+    private final SolutionSpace<?> solutionSpace;
+
+    /** The number of rows in the dataset */
+    private final int              rows;
+
+    /** The length of the snapshot of a single equivalence class */
+    private final int              snapshotLength;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param solutionSpace
+     * @param rows
+     * @param snapshotLength
+     */
+    public EvictionPolicyExpectedSavings(SolutionSpace<?> solutionSpace, int rows, int snapshotLength) {
+        this.solutionSpace = solutionSpace;
+        this.rows = rows;
+        this.snapshotLength = snapshotLength;
+    }
+
+    @Override
+    public MRUCacheEntryMetadata getVictim(MRUCache<MRUCacheEntryMetadata> cache, Map<Object, int[]> snapshots) {
+        
+        MRUCacheEntryMetadata result = null;
+        double resultScore = Double.MAX_VALUE;
+        MRUCacheEntry<MRUCacheEntryMetadata> entry = cache.getHead();
+        while (entry != null) {
+            double score = getScore(entry.data, snapshots.get(entry.data.id));
+            if (score < resultScore) {
+                result = entry.data;
+                resultScore = score;
+            }
+            entry = entry.next;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the expected number of rows saved per byte
+     * 
+     * @param metadata
+     * @param snapshot
+     * @return
+     */
+    private double getScore(MRUCacheEntryMetadata metadata, int[] snapshot) {
+        
+        // Rows saved by a single application
+        int classes = snapshot.length / snapshotLength;
+        double saved = rows - classes;
+        
+        // Successors which still need to be checked
+        int successors = 0;
+        TransformationList<?> list = solutionSpace.getTransformation(metadata.id).getSuccessors();
+        for (int i = 0; i < list.size(); i++) {
+            Transformation<?> successor = solutionSpace.getTransformation(list.getQuick(i));
+            if (!successor.hasProperty(solutionSpace.getPropertyChecked()) &&
+                !successor.hasProperty(solutionSpace.getPropertyInsufficientUtility())) {
+                successors++;
+            }
+        }
+        
+        // Per byte
+        return saved * successors / (snapshot.length * 4d);
+    }
+}
@@ -47,6 +47,15 @@ public class History {
         NON_ANONYMOUS
     }
 
+    /**
+     * Built-in strategies for evicting snapshots
+     * @author Fabian Prasser
+     */
+    public static enum EvictionStrategy {
+        LEAST_RECENTLY_USED,
+        EXPECTED_SAVINGS
+    }
+
     /** The actual buffer. */
     private MRUCache<MRUCacheEntryMetadata> cache                         = null;
 
@@ -65,6 +74,12 @@ public class History {
     /** The current requirements. */
     private final int                       requirements;
 
+    /** The number of rows in the dataset. */
+    private final int                       rowCount;
+
+    /** The policy for evicting snapshots. */
+    private EvictionPolicy                  evictionPolicy                = new EvictionPolicyLRU();
+
     /** The node backing the last returned snapshot. */
     private MRUCacheEntryMetadata           resultMetadata;
 
@@ -80,6 +95,9 @@ public class History {
     /** The solution space */
     private final SolutionSpace<?>             solutionSpace;
 
+    /** Second tier for evicted and oversized snapshots, if any */
+    private final SnapshotStore                store;
+
     /** Store the results of all types of transformations. */
     private final DependentAction STORAGE_TRIGGER_ALL = new DependentAction(){
         @Override
@@ -106,6 +124,7 @@ public class History {
      * @param size the max size
      * @param snapshotSizeDataset the snapshotSizeDataset
      * @param snapshotSizeSnapshot
+     * @param storeSize the budget of the second tier in bytes, 0 to disable it
      * @param config
      * @param dictionarySensValue
      * @param dictionarySensFreq
@@ -115,11 +134,13 @@ public class History {
                    final int size,
                    final double snapshotSizeDataset,
                    final double snapshotSizeSnapshot,
+                   final long storeSize,
                    final ARXConfigurationInternal config,
                    final IntArrayDictionary dictionarySensValue,
                    final IntArrayDictionary dictionarySensFreq,
                    final SolutionSpace<?> solutionSpace) {
         
+        this.rowCount = rowCount;
         this.snapshotSizeDataset = (long) (rowCount * snapshotSizeDataset);
         this.snapshotSizeSnapshot = snapshotSizeSnapshot;
         this.cache = new MRUCache<MRUCacheEntryMetadata>(size);
@@ -131,6 +152,18 @@ public class History {
         this.requirements = config.getRequirements();
         this.storageTrigger = STORAGE_TRIGGER_NON_ANONYMOUS;
         this.solutionSpace = solutionSpace;
+        
+        // Snapshots only need to be released if they reference distributions
+        SnapshotStore.ReleaseHandler handler = null;
+        if ((requirements & ARXConfiguration.REQUIREMENT_DISTRIBUTION) != 0) {
+            handler = new SnapshotStore.ReleaseHandler() {
+                @Override
+                public void release(int[] snapshot) {
+                    releaseSnapshot(snapshot);
+                }
+            };
+        }
+        this.store = storeSize == 0 ? null : new SnapshotStore(storeSize, config.getSnapshotLength(), handler);
     }
     
     /**
@@ -162,9 +195,29 @@ public class History {
             entry = entry.next;
         }
 
+        // Search second tier
+        Object storeId = null;
+        if (store != null) {
+            int resultLength = resultSnapshot == null ? Integer.MAX_VALUE : resultSnapshot.length;
+            for (MRUCacheEntryMetadata currentMetadata : store.getMetadata()) {
+                if (currentMetadata.level < level) {
+                    final int currentLength = store.getLength(currentMetadata.id);
+                    if (currentLength < resultLength && solutionSpace.isParentChildOrEqual(transformation, currentMetadata.transformation)) {
+                        resultMetadata = currentMetadata;
+                        resultLength = currentLength;
+                        storeId = currentMetadata.id;
+                    }
+                }
+            }
+        }
+
         // Manager
-        if (resultMetadata != null) {
+        if (storeId != null) {
+            resultSnapshot = store.get(storeId);
+        } else if (resultMetadata != null) {
             cache.touch(resultMetadata);
+        } else if (store != null) {
+            store.miss();
         }
         this.resultMetadata = resultMetadata;
 
@@ -190,6 +243,24 @@ public class History {
         return dictionarySensValue;
     }
 
+    /**
+     * Returns the policy for evicting snapshots.
+     *
+     * @return
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Returns the second tier of the history, null if it is disabled.
+     *
+     * @return
+     */
+    public SnapshotStore getStore() {
+        return store;
+    }
+
     /**
      * Returns the current storage strategy.
      *
@@ -216,6 +287,9 @@ public class History {
      * Clears the history.
      */
     public void reset() {
+        if (this.store != null) {
+            this.store.clear();
+        }
         this.cache.clear();
         this.nodeToSnapshot.clear();
         this.dictionarySensFreq.clear();
@@ -223,6 +297,28 @@ public class History {
         this.resultMetadata = null;
     }
 
+    /**
+     * Sets the policy for evicting snapshots.
+     *
+     * @param policy
+     */
+    public void setEvictionPolicy(EvictionPolicy policy) {
+        this.evictionPolicy = policy;
+    }
+
+    /**
+     * Sets a built-in strategy for evicting snapshots.
+     *
+     * @param strategy
+     */
+    public void setEvictionStrategy(EvictionStrategy strategy) {
+        if (strategy == EvictionStrategy.LEAST_RECENTLY_USED) {
+            this.evictionPolicy = new EvictionPolicyLRU();
+        } else if (strategy == EvictionStrategy.EXPECTED_SAVINGS) {
+            this.evictionPolicy = new EvictionPolicyExpectedSavings(solutionSpace, rowCount, config.getSnapshotLength());
+        }
+    }
+
     /**
      * Sets the size of this history.
      *
@@ -254,8 +350,9 @@ public class History {
      */
     public boolean store(final Transformation<?> transformation, final HashGroupify groupify, final int[] snapshot) {
 
-        // Early abort if too large, or no space
-        if (size == 0 || groupify.getNumberOfEquivalenceClasses() > snapshotSizeDataset) {
+        // Early abort if too large, or no space. Such snapshots may still go to the second tier.
+        final boolean firstTier = size != 0 && groupify.getNumberOfEquivalenceClasses() <= snapshotSizeDataset;
+        if (!firstTier && store == null) {
             return false;
         }
 
@@ -274,9 +371,24 @@ public class History {
         // Clear the cache
         cleanUpHistory();
 
-        // Perform LRU eviction, if still too large
+        // Store in the second tier only
+        if (!firstTier) {
+            final int[] data = createSnapshot(groupify);
+            if (!store.put(new MRUCacheEntryMetadata(transformation), data)) {
+                releaseSnapshot(data);
+                return false;
+            }
+            return true;
+        }
+
+        // Perform eviction, if still too large
         if (cache.size() >= size) {
-            removeHistoryEntry(cache.removeHead());
+            final MRUCacheEntryMetadata metadata = evictionPolicy.getVictim(cache, nodeToSnapshot);
+            cache.remove(metadata);
+            final int[] evicted = nodeToSnapshot.remove(metadata.id);
+            if (store == null || !store.put(metadata, evicted)) {
+                releaseSnapshot(evicted);
+            }
         }
         
         // Create the snapshot
@@ -300,7 +412,14 @@ public class History {
             final MRUCacheEntryMetadata node = metadata.next();
             if (solutionSpace.hasProperty(node.transformation, solutionSpace.getPropertySuccessorsPruned())) {
                 metadata.remove();
-                removeHistoryEntry(node);
+                releaseSnapshot(nodeToSnapshot.remove(node.id));
+            }
+        }
+        if (store != null) {
+            for (MRUCacheEntryMetadata node : store.getMetadata()) {
+                if (solutionSpace.hasProperty(node.transformation, solutionSpace.getPropertySuccessorsPruned())) {
+                    store.remove(node.id);
+                }
             }
         }
     }
@@ -358,12 +477,11 @@ public class History {
     }
 
     /**
-     * Removes a snapshot.
+     * Releases the references of a removed snapshot.
      *
-     * @param metadata
+     * @param snapshot
      */
-    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
-        final int[] snapshot = nodeToSnapshot.remove(metadata.id);
+    private final void releaseSnapshot(final int[] snapshot) {
 
         switch (requirements) {
         case ARXConfiguration.REQUIREMENT_COUNTER | ARXConfiguration.REQUIREMENT_SECONDARY_COUNTER | ARXConfiguration.REQUIREMENT_DISTRIBUTION:
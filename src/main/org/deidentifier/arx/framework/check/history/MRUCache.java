@@ -137,6 +137,15 @@ public class MRUCache<T> {
         return new MRULinkedListIterator(this);
     }
 
+    /**
+     * Removes the given element.
+     * 
+     * @param node the node
+     */
+    public void remove(final T node) {
+        this.remove(this.elementToEntry.remove(node));
+    }
+
     /**
      * Removes the head.
      * 
@@ -0,0 +1,472 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A second tier for the history, which stores snapshots in a local file. Snapshots
+ * are compressed by encoding each field as the zig-zag encoded difference to the same
+ * field of the previous equivalence class, using a variable number of bytes. The store
+ * is bounded by a budget of bytes and evicts least recently used snapshots.
+ *
+ * @author Fabian Prasser
+ */
+public class SnapshotStore {
+
+    /**
+     * Callback for snapshots that are removed from the store
+     *
+     * @author Fabian Prasser
+     */
+    public static interface ReleaseHandler {
+
+        /**
+         * Called for each snapshot that is removed from the store
+         * @param snapshot
+         */
+        public void release(int[] snapshot);
+    }
+
+    /**
+     * An entry in the store
+     *
+     * @author Fabian Prasser
+     */
+    private static class StoreEntry {
+
+        /** Metadata */
+        private final MRUCacheEntryMetadata metadata;
+
+        /** Position in the file */
+        private long                        offset;
+
+        /** Number of bytes */
+        private final int                   bytes;
+
+        /** Number of ints */
+        private final int                   length;
+
+        /**
+         * Creates a new instance
+         * @param metadata
+         * @param offset
+         * @param bytes
+         * @param length
+         */
+        private StoreEntry(MRUCacheEntryMetadata metadata, long offset, int bytes, int length) {
+            this.metadata = metadata;
+            this.offset = offset;
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+
+    /** Minimal number of unused bytes before the file is compacted */
+    private static final long                      COMPACTION_THRESHOLD = 1L << 20;
+
+    /** The budget in bytes */
+    private final long                             budget;
+
+    /** The length of the snapshot of a single equivalence class */
+    private final int                              stride;
+
+    /** Handler for removed snapshots, if any */
+    private final ReleaseHandler                   handler;
+
+    /** Entries, least recently used first */
+    private final LinkedHashMap<Object, StoreEntry> entries              = new LinkedHashMap<Object, StoreEntry>();
+
+    /** Buffer for decoding */
+    private byte[]                                 input                = new byte[1024];
+
+    /** Buffer for encoding */
+    private byte[]                                 output               = new byte[1024];
+
+    /** The file */
+    private File                                   file;
+
+    /** The file */
+    private RandomAccessFile                       raf;
+
+    /** The channel */
+    private FileChannel                            channel;
+
+    /** End of the data in the file */
+    private long                                   position             = 0;
+
+    /** Number of bytes used by stored snapshots */
+    private long                                   size                 = 0;
+
+    /** Number of snapshots read from the store */
+    private long                                   hits                 = 0;
+
+    /** Number of lookups which could not be answered by the history */
+    private long                                   misses               = 0;
+
+    /** Number of snapshots written to the store */
+    private long                                   spills               = 0;
+
+    /**
+     * Creates a new instance
+     * @param budget
+     * @param stride
+     * @param handler handler for removed snapshots, may be null
+     */
+    public SnapshotStore(long budget, int stride, ReleaseHandler handler) {
+        this.budget = budget;
+        this.stride = stride;
+        this.handler = handler;
+    }
+
+    /**
+     * Removes all snapshots and deletes the file
+     */
+    public void clear() {
+        for (StoreEntry entry : entries.values()) {
+            release(entry);
+        }
+        entries.clear();
+        size = 0;
+        position = 0;
+        close();
+    }
+
+    /**
+     * Returns whether the store contains the given transformation
+     * @param id
+     * @return
+     */
+    public boolean contains(Object id) {
+        return entries.containsKey(id);
+    }
+
+    /**
+     * Returns the snapshot for the given transformation and marks it as used
+     * @param id
+     * @return
+     */
+    public int[] get(Object id) {
+        StoreEntry entry = entries.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        entries.put(id, entry);
+        hits++;
+        return read(entry);
+    }
+
+    /**
+     * Returns the budget in bytes
+     * @return
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns the length of the snapshot for the given transformation
+     * @param id
+     * @return
+     */
+    public int getLength(Object id) {
+        return entries.get(id).length;
+    }
+
+    /**
+     * Returns the metadata of all stored snapshots
+     * @return
+     */
+    public List<MRUCacheEntryMetadata> getMetadata() {
+        List<MRUCacheEntryMetadata> result = new ArrayList<MRUCacheEntryMetadata>(entries.size());
+        for (StoreEntry entry : entries.values()) {
+            result.add(entry.metadata);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of snapshots read from the store
+     * @return
+     */
+    public long getNumHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups, which could not be answered by the history
+     * @return
+     */
+    public long getNumMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of snapshots written to the store
+     * @return
+     */
+    public long getNumSpills() {
+        return spills;
+    }
+
+    /**
+     * Returns the number of bytes used by stored snapshots
+     * @return
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Stores a snapshot. Evicts least recently used snapshots, if needed. Returns false
+     * if the snapshot exceeds the budget.
+     *
+     * @param metadata
+     * @param snapshot
+     * @return
+     */
+    public boolean put(MRUCacheEntryMetadata metadata, int[] snapshot) {
+
+        // Encode
+        int bytes = encode(snapshot);
+        if (bytes > budget || entries.containsKey(metadata.id)) {
+            return false;
+        }
+
+        // Evict
+        Iterator<StoreEntry> iterator = entries.values().iterator();
+        while (size + bytes > budget && iterator.hasNext()) {
+            StoreEntry entry = iterator.next();
+            iterator.remove();
+            size -= entry.bytes;
+            release(entry);
+        }
+
+        // Compact
+        if (position - size > Math.max(size, COMPACTION_THRESHOLD)) {
+            compact();
+        }
+
+        // Write
+        write(output, bytes, position);
+        entries.put(metadata.id, new StoreEntry(metadata, position, bytes, snapshot.length));
+        position += bytes;
+        size += bytes;
+        spills++;
+        return true;
+    }
+
+    /**
+     * Removes the snapshot for the given transformation
+     * @param id
+     */
+    public void remove(Object id) {
+        StoreEntry entry = entries.remove(id);
+        if (entry != null) {
+            size -= entry.bytes;
+            release(entry);
+        }
+    }
+
+    /**
+     * Registers a lookup, which could not be answered by the history
+     */
+    void miss() {
+        misses++;
+    }
+
+    /**
+     * Closes and deletes the file
+     */
+    private void close() {
+        if (channel != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+            channel = null;
+            raf = null;
+            file = null;
+        }
+    }
+
+    /**
+     * Moves all stored snapshots to the beginning of the file
+     */
+    private void compact() {
+        
+        // Process entries in the order of their positions
+        List<StoreEntry> list = new ArrayList<StoreEntry>(entries.values());
+        Collections.sort(list, new Comparator<StoreEntry>() {
+            @Override
+            public int compare(StoreEntry o1, StoreEntry o2) {
+                return Long.compare(o1.offset, o2.offset);
+            }
+        });
+        
+        // Move
+        long target = 0;
+        for (StoreEntry entry : list) {
+            if (entry.offset != target) {
+                input = ensureCapacity(input, entry.bytes);
+                read(input, entry.bytes, entry.offset);
+                write(input, entry.bytes, target);
+                entry.offset = target;
+            }
+            target += entry.bytes;
+        }
+        position = target;
+        try {
+            channel.truncate(position);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Decodes a snapshot from the input buffer
+     * @param length
+     * @return
+     */
+    private int[] decode(int length) {
+        int[] snapshot = new int[length];
+        int offset = 0;
+        for (int i = 0; i < length; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = input[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value = (value >>> 1) ^ -(value & 1);
+            snapshot[i] = i < stride ? value : snapshot[i - stride] + value;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Encodes a snapshot into the output buffer. Returns the number of bytes
+     * @param snapshot
+     * @return
+     */
+    private int encode(int[] snapshot) {
+        output = ensureCapacity(output, snapshot.length * 5);
+        int offset = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            int value = i < stride ? snapshot[i] : snapshot[i] - snapshot[i - stride];
+            value = (value << 1) ^ (value >> 31);
+            while ((value & ~0x7F) != 0) {
+                output[offset++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            output[offset++] = (byte) value;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns a buffer with at least the given capacity
+     * @param buffer
+     * @param capacity
+     * @return
+     */
+    private byte[] ensureCapacity(byte[] buffer, int capacity) {
+        if (buffer.length < capacity) {
+            return new byte[Math.max(capacity, buffer.length * 2)];
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads a snapshot
+     * @param entry
+     * @return
+     */
+    private int[] read(StoreEntry entry) {
+        input = ensureCapacity(input, entry.bytes);
+        read(input, entry.bytes, entry.offset);
+        return decode(entry.length);
+    }
+
+    /**
+     * Reads from the file
+     * @param data
+     * @param length
+     * @param offset
+     */
+    private void read(byte[] data, int length, long offset) {
+        try {
+            ByteBuffer wrapper = ByteBuffer.wrap(data, 0, length);
+            while (wrapper.hasRemaining()) {
+                if (channel.read(wrapper, offset + wrapper.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Passes a removed snapshot to the handler
+     * @param entry
+     */
+    private void release(StoreEntry entry) {
+        if (handler != null) {
+            handler.release(read(entry));
+        }
+    }
+
+    /**
+     * Writes to the file
+     * @param data
+     * @param length
+     * @param offset
+     */
+    private void write(byte[] data, int length, long offset) {
+        try {
+            if (channel == null) {
+                file = File.createTempFile("arx", ".history");
+                raf = new RandomAccessFile(file, "rw");
+                channel = raf.getChannel();
+            }
+            ByteBuffer wrapper = ByteBuffer.wrap(data, 0, length);
+            while (wrapper.hasRemaining()) {
+                channel.write(wrapper, offset + wrapper.position());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -17,9 +17,12 @@
 
 package org.deidentifier.arx.framework.data;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.RowSet;
 
@@ -62,7 +65,7 @@ public class Data implements Cloneable, Serializable {
         }
 
         // Clone matrix
-        DataMatrix matrix = new DataMatrix(data.getNumRows(), columns.length);
+        DataMatrix matrix = data.createInstance(data.getNumRows(), columns.length);
         for (int row = 0; row < data.getNumRows(); row++) {
             
             // Prepare row
@@ -86,6 +89,27 @@ public class Data implements Cloneable, Serializable {
         return new Data(matrix, newHeader, columns, new Dictionary(dictionary, columns));
     }
 
+    /**
+     * Creates an object whose matrix is created by the given callable on first access to the
+     * matrix or to the dictionary. The callable may register values at the dictionary.
+     * 
+     * @param data
+     * @param header
+     * @param columns
+     * @param dictionary
+     * @return
+     */
+    public static Data createLazyWrapper(final Callable<DataMatrix> data,
+                                         final String[] header,
+                                         final int[] columns,
+                                         final Dictionary dictionary) {
+        
+        // Return
+        Data result = new Data(null, header, columns, dictionary);
+        result.initializer = data;
+        return result;
+    }
+
     /**
      * Creates an object which simply encapsulates the provided objects
      * @param data
@@ -104,7 +128,7 @@ public class Data implements Cloneable, Serializable {
     }
 
     /** Row, Dimension. */
-    private final DataMatrix           data;
+    private DataMatrix                 data;
 
     /** The header. */
     private final String[]             header;
@@ -118,6 +142,9 @@ public class Data implements Cloneable, Serializable {
     /** Maps attributes to their index */
     private final Map<String, Integer> map;
 
+    /** Creates the matrix on first access, if any */
+    private transient volatile Callable<DataMatrix> initializer;
+
     /**
      * Creates a new data object.
      * 
@@ -143,6 +170,7 @@ public class Data implements Cloneable, Serializable {
 
     @Override
     public Data clone(){
+        initialize();
         return new Data(data != null ? data.clone() : null, header, columns, dictionary);
     }
 
@@ -152,6 +180,7 @@ public class Data implements Cloneable, Serializable {
      * @return
      */
     public DataMatrix getArray() {
+        initialize();
         return data;
     }
 
@@ -170,7 +199,7 @@ public class Data implements Cloneable, Serializable {
      * @return the data length
      */
     public int getDataLength() {
-        return data.getNumRows();
+        return getArray().getNumRows();
     }
 
     /**
@@ -179,6 +208,7 @@ public class Data implements Cloneable, Serializable {
      * @return
      */
     public Dictionary getDictionary() {
+        initialize();
         return dictionary;
     }
     
@@ -200,12 +230,38 @@ public class Data implements Cloneable, Serializable {
         return !map.containsKey(attribute) ? -1 : map.get(attribute);
     }
 
+    /**
+     * Returns a new instance which stores the data in a bit-packed matrix. The number
+     * of bits per column is derived from the cardinalities of the dictionary.
+     * @return
+     */
+    public Data getPackedInstance() {
+        
+        // Prepare
+        initialize();
+        String[][] mapping = dictionary.getMapping();
+        int[] cardinalities = new int[mapping.length];
+        for (int column = 0; column < mapping.length; column++) {
+            cardinalities[column] = mapping[column].length;
+        }
+        
+        // Copy
+        DataMatrix matrix = new DataMatrixPacked(data.getNumRows(), cardinalities);
+        for (int row = 0; row < data.getNumRows(); row++) {
+            matrix.copyFrom(row, data, row);
+        }
+        
+        // Return
+        return new Data(matrix, header, columns, dictionary);
+    }
+
     /**
      * Returns a new instance that is projected onto the given subset
      * @param rowset
      * @return
      */
     public Data getSubsetInstance(RowSet rowset) {
+        initialize();
         int[] rows = new int[rowset.size()];
         int index = 0;
         for (int row = 0; row < rowset.length(); row++) {
@@ -223,4 +279,48 @@ public class Data implements Cloneable, Serializable {
     public boolean isEmpty() {
         return header == null || header.length == 0;
     }
+
+    /**
+     * Creates the matrix, if this has not been done before
+     */
+    private void initialize() {
+        if (initializer != null) {
+            synchronized (this) {
+                if (initializer != null) {
+                    try {
+                        data = initializer.call();
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new RuntimeException("Error while creating data", e);
+                    }
+                    initializer = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the matrix, if it has been created, and drops the initializer otherwise.
+     * The object must not be used afterwards.
+     */
+    public void release() {
+        synchronized (this) {
+            initializer = null;
+            if (data != null) {
+                data.release();
+                data = null;
+            }
+        }
+    }
+
+    /**
+     * Creates the matrix before serialization
+     * @param stream
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        initialize();
+        stream.defaultWriteObject();
+    }
 }
@@ -0,0 +1,387 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.framework.data;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.deidentifier.arx.DataType;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * Encodes rows of strings into a data matrix. If more than one thread is used, rows are
+ * split into chunks, which are encoded concurrently using chunk-local dictionaries. The
+ * chunks are then merged into the global dictionary in the order in which they have been
+ * read. As a consequence, the resulting codes are identical to the ones obtained by
+ * registering all values sequentially. Rows may be provided by several iterators over
+ * consecutive parts of the data, which are then also parsed concurrently.
+ *
+ * @author Fabian Prasser
+ */
+public class DataEncoder {
+
+    /**
+     * An encoded chunk of rows
+     *
+     * @author Fabian Prasser
+     */
+    private static class Chunk {
+
+        /** Number of rows */
+        private final int        rows;
+
+        /** Local codes, row-major */
+        private final int[]      codes;
+
+        /** Distinct values per column, indexed by local code */
+        private final String[][] values;
+
+        /**
+         * Creates a new instance
+         *
+         * @param rows
+         * @param codes
+         * @param values
+         */
+        private Chunk(int rows, int[] codes, String[][] values) {
+            this.rows = rows;
+            this.codes = codes;
+            this.values = values;
+        }
+    }
+
+    /** Number of rows per chunk */
+    private static final int CHUNK_SIZE = 10000;
+
+    /** Dictionary */
+    private final Dictionary dictionary;
+
+    /** Number of columns */
+    private final int        columns;
+
+    /** Number of threads */
+    private final int        parallelism;
+
+    /**
+     * Creates a new instance
+     *
+     * @param dictionary Global dictionary to register values at
+     * @param columns Number of columns
+     * @param parallelism Number of threads
+     */
+    public DataEncoder(Dictionary dictionary, int columns, int parallelism) {
+        if (parallelism < 1) { throw new IllegalArgumentException("Degree of parallelism must be at least 1"); }
+        this.dictionary = dictionary;
+        this.columns = columns;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Encodes all remaining rows provided by the iterator. Missing values are
+     * replaced with the <code>NULL</code> value.
+     *
+     * @param iterator Rows
+     * @param rows Number of rows, if known in advance. May be null.
+     * @param threshold Memory-mapping threshold
+     * @return
+     */
+    public DataMatrix encode(Iterator<String[]> iterator, Integer rows, long threshold) {
+        return encode(iterator, null, rows, threshold);
+    }
+
+    /**
+     * Encodes all remaining rows provided by the iterator, followed by the rows of all further
+     * parts. Each part which is followed by another part is parsed and encoded as a whole by
+     * a worker thread and must thus fit into memory. The last part is read in chunks and may
+     * be arbitrarily large. Missing values are replaced with the <code>NULL</code> value.
+     *
+     * @param iterator Rows of the first part
+     * @param parts Further parts
+     * @param threshold Memory-mapping threshold
+     * @return
+     */
+    public DataMatrix encode(Iterator<String[]> iterator, Iterator<Iterator<String[]>> parts, long threshold) {
+        return encode(iterator, parts, null, threshold);
+    }
+
+    /**
+     * Creates an executor with daemon threads
+     *
+     * @return
+     */
+    private ExecutorService createExecutor() {
+        return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("ARX Data Encoder");
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Encodes the rows using chunk-local dictionaries
+     *
+     * @param iterator
+     * @return
+     */
+    private Chunk encode(Iterator<String[]> iterator) {
+
+        // Prepare
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        ObjectIntOpenHashMap<String>[] maps = new ObjectIntOpenHashMap[columns];
+        for (int column = 0; column < columns; column++) {
+            maps[column] = new ObjectIntOpenHashMap<String>();
+        }
+        int[] codes = new int[CHUNK_SIZE * columns];
+
+        // Encode
+        int rows = 0;
+        int offset = 0;
+        while (iterator.hasNext()) {
+            String[] tuple = iterator.next();
+            if (offset + columns > codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            for (int column = 0; column < columns; column++) {
+                String value = (column < tuple.length) ? tuple[column] : DataType.NULL_VALUE;
+                value = (value != null) ? value : DataType.NULL_VALUE;
+                ObjectIntOpenHashMap<String> map = maps[column];
+                int size = map.size();
+                codes[offset++] = map.putIfAbsent(value, size) ? size : map.lget();
+            }
+            rows++;
+        }
+
+        // Extract values in order of first occurrence
+        String[][] values = new String[columns][];
+        for (int column = 0; column < columns; column++) {
+            ObjectIntOpenHashMap<String> map = maps[column];
+            values[column] = new String[map.size()];
+            final Object[] keys = map.keys;
+            final int[] indices = map.values;
+            final boolean[] allocated = map.allocated;
+            for (int i = 0; i < allocated.length; i++) {
+                if (allocated[i]) {
+                    values[column][indices[i]] = (String) keys[i];
+                }
+            }
+        }
+
+        // Done
+        return new Chunk(rows, codes, values);
+    }
+
+    /**
+     * Encodes all rows
+     *
+     * @param iterator Rows of the first part
+     * @param parts Further parts. May be null.
+     * @param rows Number of rows, if known in advance. May be null.
+     * @param threshold Memory-mapping threshold
+     * @return
+     */
+    private DataMatrix encode(Iterator<String[]> iterator, Iterator<Iterator<String[]>> parts, Integer rows, long threshold) {
+
+        // Prepare
+        DataMatrix matrix = rows != null ? DataMatrix.create(rows, columns, threshold) : null;
+        DataMatrixBuilder builder = rows != null ? null : new DataMatrixBuilder(columns);
+        int row = 0;
+
+        // Encode sequentially
+        if (parallelism == 1) {
+            int[] tuple = new int[columns];
+            while (iterator != null) {
+                while (iterator.hasNext()) {
+                    encode(iterator.next(), tuple);
+                    if (matrix == null) {
+                        builder.add(tuple);
+                    } else if (row < rows) {
+                        matrix.setRow(row, tuple);
+                    } else {
+                        throw new IllegalStateException("Invalid internal state. Numbers of records don't match. Expected: <" + rows + "> is: <" + (row + 1) + ">");
+                    }
+                    row++;
+                }
+                iterator = parts != null && parts.hasNext() ? parts.next() : null;
+            }
+            return finish(matrix, builder, rows, row, threshold);
+        }
+
+        // Encode concurrently
+        Deque<Future<Chunk>> pending = new ArrayDeque<Future<Chunk>>();
+        ExecutorService executor = createExecutor();
+        try {
+            while (iterator != null) {
+
+                // Parts which are followed by further parts are parsed by a worker thread
+                final Iterator<String[]> rowsToEncode;
+                if (parts != null && parts.hasNext()) {
+                    rowsToEncode = iterator;
+                    iterator = parts.next();
+
+                // Otherwise, read a chunk
+                } else if (iterator.hasNext()) {
+                    String[][] strings = new String[CHUNK_SIZE][];
+                    int size = 0;
+                    while (size < CHUNK_SIZE && iterator.hasNext()) {
+                        strings[size++] = iterator.next();
+                    }
+                    rowsToEncode = Arrays.asList(strings).subList(0, size).iterator();
+                } else {
+                    iterator = null;
+                    continue;
+                }
+
+                // Encode
+                pending.add(executor.submit(new Callable<Chunk>() {
+                    @Override
+                    public Chunk call() throws Exception {
+                        return encode(rowsToEncode);
+                    }
+                }));
+
+                // Limit the number of chunks held in memory
+                if (pending.size() > 2 * parallelism) {
+                    row = merge(pending.poll().get(), matrix, builder, rows, row);
+                }
+            }
+
+            // Merge remaining chunks
+            while (!pending.isEmpty()) {
+                row = merge(pending.poll().get(), matrix, builder, rows, row);
+            }
+
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Error while encoding data", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Error while encoding data", e.getCause());
+        } finally {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+
+        // Done
+        return finish(matrix, builder, rows, row, threshold);
+    }
+
+    /**
+     * Registers the values of the row at the global dictionary
+     *
+     * @param strings
+     * @param tuple
+     */
+    private void encode(String[] strings, int[] tuple) {
+        for (int column = 0; column < columns; column++) {
+            String value = (column < strings.length) ? strings[column] : DataType.NULL_VALUE;
+            value = (value != null) ? value : DataType.NULL_VALUE;
+            tuple[column] = dictionary.register(column, value);
+        }
+    }
+
+    /**
+     * Returns the matrix
+     *
+     * @param matrix
+     * @param builder
+     * @param rows
+     * @param row
+     * @param threshold
+     * @return
+     */
+    private DataMatrix finish(DataMatrix matrix, DataMatrixBuilder builder, Integer rows, int row, long threshold) {
+
+        // Sanity check to prevent loading errors
+        if (rows != null) {
+            if (row != rows) {
+                throw new IllegalStateException("Invalid internal state. Numbers of records don't match. Expected: <" + rows + "> is: <" + row + ">");
+            }
+            return matrix;
+        }
+
+        // Build array
+        return builder.build(threshold);
+    }
+
+    /**
+     * Registers the values of the chunk at the global dictionary and maps the local codes
+     * to global codes. If a matrix is given, the rows are written to it. Otherwise, they
+     * are appended to the builder.
+     *
+     * @param chunk
+     * @param matrix
+     * @param builder
+     * @param rows
+     * @param row
+     * @return The next row
+     */
+    private int merge(Chunk chunk, DataMatrix matrix, DataMatrixBuilder builder, Integer rows, int row) {
+
+        // Register values in order of first occurrence
+        int[][] mapping = new int[columns][];
+        for (int column = 0; column < columns; column++) {
+            String[] values = chunk.values[column];
+            mapping[column] = new int[values.length];
+            for (int code = 0; code < values.length; code++) {
+                mapping[column][code] = dictionary.register(column, values[code]);
+            }
+        }
+
+        // Translate codes
+        int[] codes = chunk.codes;
+        for (int offset = 0; offset < chunk.rows * columns; offset += columns) {
+            for (int column = 0; column < columns; column++) {
+                codes[offset + column] = mapping[column][codes[offset + column]];
+            }
+        }
+
+        // Append
+        if (matrix == null) {
+            builder.add(codes, 0, chunk.rows);
+            return row + chunk.rows;
+        }
+
+        // Sanity check to prevent loading errors
+        if (row + chunk.rows > rows) {
+            throw new IllegalStateException("Invalid internal state. Numbers of records don't match. Expected: <" + rows + "> is: <" + (row + chunk.rows) + ">");
+        }
+
+        // Write
+        int[] tuple = new int[columns];
+        for (int offset = 0; offset < chunk.rows * columns; offset += columns) {
+            System.arraycopy(codes, offset, tuple, 0, columns);
+            matrix.setRow(row++, tuple);
+        }
+        return row;
+    }
+}
@@ -61,7 +61,7 @@ public class DataManager {
     private final Data                        dataAnalyzed;
 
     /** Data */
-    private final Data                        dataGeneralized;
+    private Data                              dataGeneralized;
 
     /** Data. */
     private final Data                        dataInput;
@@ -275,6 +275,11 @@ public class DataManager {
         dataGeneralized.getDictionary().finalizeAll();
         dataAnalyzed.getDictionary().finalizeAll();
 
+        // Pack generalized data, if requested
+        if (config.isPackedDataEnabled() && !dataGeneralized.isEmpty()) {
+            this.dataGeneralized = dataGeneralized.getPackedInstance();
+        }
+
         // Store research subset
         for (PrivacyCriterion c : config.getPrivacyModels()) {
             if (c instanceof EDDifferentialPrivacy) {
@@ -65,6 +65,34 @@ public class DataMatrix implements Serializable {
         }
     }
 
+    /**
+     * Creates a new matrix. If the matrix would occupy more than the given number of
+     * bytes, it is backed by a memory-mapped file instead of the heap.
+     * 
+     * @param rows
+     * @param columns
+     * @param threshold
+     * @return
+     */
+    public static DataMatrix create(final int rows, final int columns, final long threshold) {
+        if ((long) rows * (long) columns * 4L > threshold) {
+            return new DataMatrixMapped(rows, columns);
+        } else {
+            return new DataMatrix(rows, columns);
+        }
+    }
+
+    /**
+     * Instantiates a view on the given memory block
+     * 
+     * @param source
+     */
+    private DataMatrix(final DataMatrix source) {
+        this.columns = source.columns;
+        this.rows = source.rows;
+        this.array = source.array;
+    }
+
     /**
      * ANDs the first value of the row with the given value
      * @param row
@@ -81,6 +109,40 @@ public class DataMatrix implements Serializable {
         return result;
     }
     
+    /**
+     * Returns a view on this matrix. The view shares the backing array but maintains
+     * its own row pointer and iterator. Views may be used concurrently, as long as
+     * different threads write to disjoint sets of rows.
+     * 
+     * @return
+     */
+    public DataMatrix createView() {
+        return new DataMatrix(this);
+    }
+
+    /**
+     * Creates a new matrix with the given number of rows, which has the
+     * same number of columns and the same storage layout as this matrix.
+     * 
+     * @param rows
+     * @return
+     */
+    public DataMatrix createInstance(int rows) {
+        return new DataMatrix(rows, this.columns);
+    }
+
+    /**
+     * Creates a new matrix with the given number of rows and columns, which uses
+     * the same kind of storage as this matrix.
+     * 
+     * @param rows
+     * @param columns
+     * @return
+     */
+    public DataMatrix createInstance(int rows, int columns) {
+        return new DataMatrix(rows, columns);
+    }
+
     /**
      * Copies a row from the given matrix into this matrix
      * @param row
@@ -88,6 +150,12 @@ public class DataMatrix implements Serializable {
      * @param sourceRow
      */
     public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        if (sourceMatrix.getClass() != DataMatrix.class) {
+            for (int column = 0; column < columns; column++) {
+                set(row, column, sourceMatrix.get(sourceRow, column));
+            }
+            return;
+        }
         int sourceOffset = sourceRow * columns;
         int thisOffset = row * columns;
         System.arraycopy(sourceMatrix.array, sourceOffset, this.array, thisOffset, columns);
@@ -373,6 +441,14 @@ public class DataMatrix implements Serializable {
         array[row * columns] |= value;
     }
 
+    /**
+     * Releases resources which are not managed by the heap, if any.
+     * The matrix must not be used afterwards.
+     */
+    public void release() {
+        // Empty by design
+    }
+
     /**
      * Sets a value
      * @param row
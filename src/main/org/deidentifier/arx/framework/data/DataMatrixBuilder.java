@@ -0,0 +1,141 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.framework.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a data matrix with a number of rows that is not known in advance. Rows are
+ * appended to fixed-size primitive chunks, which are released while the final matrix
+ * is being filled.
+ *
+ * @author Fabian Prasser
+ */
+public class DataMatrixBuilder {
+
+    /** Approximate number of cells per chunk */
+    private static final int  CHUNK_CELLS = 1 << 20;
+
+    /** Number of columns */
+    private final int         columns;
+
+    /** Number of rows per chunk */
+    private final int         chunkRows;
+
+    /** Chunks */
+    private final List<int[]> chunks      = new ArrayList<int[]>();
+
+    /** Current chunk */
+    private int[]             chunk;
+
+    /** Offset in current chunk */
+    private int               offset;
+
+    /** Number of rows */
+    private long              rows;
+
+    /**
+     * Creates a new instance
+     *
+     * @param columns
+     */
+    public DataMatrixBuilder(int columns) {
+        this.columns = columns;
+        this.chunkRows = Math.max(1, CHUNK_CELLS / Math.max(1, columns));
+    }
+
+    /**
+     * Appends a row
+     *
+     * @param row
+     */
+    public void add(int[] row) {
+        add(row, 0, 1);
+    }
+
+    /**
+     * Appends the given number of rows, which are stored consecutively in the array
+     * starting at the given offset
+     *
+     * @param data
+     * @param offset
+     * @param rows
+     */
+    public void add(int[] data, int offset, int rows) {
+        int cells = rows * columns;
+        while (cells > 0) {
+            if (chunk == null || this.offset == chunk.length) {
+                chunk = new int[chunkRows * columns];
+                chunks.add(chunk);
+                this.offset = 0;
+            }
+            int length = Math.min(cells, chunk.length - this.offset);
+            System.arraycopy(data, offset, chunk, this.offset, length);
+            this.offset += length;
+            offset += length;
+            cells -= length;
+        }
+        this.rows += rows;
+    }
+
+    /**
+     * Creates the matrix. The builder is empty afterwards.
+     *
+     * @param threshold Memory-mapping threshold
+     * @return
+     */
+    public DataMatrix build(long threshold) {
+
+        // Check
+        if (rows > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Not more then 2^31-1 rows supported");
+        }
+
+        // Create
+        DataMatrix matrix = DataMatrix.create((int) rows, columns, threshold);
+        int[] tuple = new int[columns];
+        int row = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            int[] chunk = chunks.get(i);
+            int length = (i == chunks.size() - 1) ? this.offset : chunk.length;
+            for (int offset = 0; offset < length; offset += columns) {
+                System.arraycopy(chunk, offset, tuple, 0, columns);
+                matrix.setRow(row++, tuple);
+            }
+
+            // Release
+            chunks.set(i, null);
+        }
+
+        // Reset
+        this.chunks.clear();
+        this.chunk = null;
+        this.offset = 0;
+        this.rows = 0;
+        return matrix;
+    }
+
+    /**
+     * Returns the number of rows added so far
+     *
+     * @return
+     */
+    public long getNumRows() {
+        return rows;
+    }
+}
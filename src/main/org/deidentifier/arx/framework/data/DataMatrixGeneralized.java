@@ -0,0 +1,347 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.framework.data;
+
+/**
+ * A view on generalized data, which generalizes the codes of the input data on demand
+ * using the generalization hierarchies. Only the outlier flags are stored, using one bit
+ * per row. The view shares the input matrix, whose rows must be swapped together with the
+ * rows of the view. Hence, swapping rows of the view only swaps the outlier flags.<br>
+ * <br>
+ * Modifying generalized values, e.g. when applying local recoding, materializes the view
+ * into a copy, to which all further operations are delegated.
+ *
+ * @author Fabian Prasser
+ */
+public class DataMatrixGeneralized extends DataMatrix {
+
+    /** SVUID */
+    private static final long serialVersionUID = -1939530574286541306L;
+
+    /** Input data */
+    private final DataMatrix  input;
+
+    /** Hierarchies, indexed by column, input code and level */
+    private final int[][][]   hierarchies;
+
+    /** Generalization levels */
+    private final int[]       levels;
+
+    /** Outlier flags, one bit per row */
+    private final long[]      outliers;
+
+    /** The number of rows. */
+    private final int         rows;
+
+    /** The number of columns. */
+    private final int         columns;
+
+    /** Materialized copy, if values have been modified */
+    private DataMatrix        materialized;
+
+    /** Iterate */
+    private int               iteratorI   = 0;
+
+    /** Iterate */
+    private int               iteratorRow = 0;
+
+    /** Iterate */
+    private int               baseRow     = 0;
+
+    /**
+     * Creates a new view with the given outlier flags, which must have been determined for the
+     * input matrix generalized with the given levels
+     *
+     * @param input Input data
+     * @param hierarchies Hierarchies of all columns
+     * @param levels Generalization levels of all columns
+     * @param outliers Outlier flags, one bit per row, as created by {@link #getBitmap(int)}
+     */
+    public DataMatrixGeneralized(final DataMatrix input,
+                                 final GeneralizationHierarchy[] hierarchies,
+                                 final int[] levels,
+                                 final long[] outliers) {
+        super(0, 0);
+        this.input = input;
+        this.rows = input.getNumRows();
+        this.columns = input.getNumColumns();
+        this.levels = levels.clone();
+        this.hierarchies = new int[columns][][];
+        for (int column = 0; column < columns; column++) {
+            this.hierarchies[column] = hierarchies[column].getArray();
+        }
+        this.outliers = outliers;
+    }
+
+    /**
+     * Returns an empty bitmap for the given number of rows
+     * @param rows
+     * @return
+     */
+    public static long[] getBitmap(int rows) {
+        return new long[(rows + 63) >>> 6];
+    }
+
+    @Override
+    public void and(int row, int value) {
+        if (materialized == null && (~value & Data.REMOVE_OUTLIER_MASK) == 0) {
+            if ((value & Data.OUTLIER_MASK) == 0) {
+                outliers[row >>> 6] &= ~(1L << row);
+            }
+            return;
+        }
+        materialize().and(row, value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        if (materialized != null) {
+            return materialized.clone();
+        }
+        DataMatrix result = input.createInstance(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            result.copyFrom(row, this, row);
+        }
+        return result;
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        materialize().copyFrom(row, sourceMatrix, sourceRow);
+    }
+
+    @Override
+    public DataMatrix createInstance(int rows) {
+        return input.createInstance(rows);
+    }
+
+    @Override
+    public DataMatrix createInstance(int rows, int columns) {
+        return input.createInstance(rows, columns);
+    }
+
+    @Override
+    public DataMatrix createView() {
+        return materialize().createView();
+    }
+
+    @Override
+    public boolean equals(int row1, int row2) {
+        return equals(row1, row2, -1, ~0);
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        if (materialized != null) {
+            return materialized.equals(row, data);
+        }
+        for (int column = 0; column < columns; column++) {
+            if (get(row, column) != data[column]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        return equals(row1, row2, ignore, ~0);
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        return equals(row1, row2, -1, Data.REMOVE_OUTLIER_MASK);
+    }
+
+    @Override
+    public int get(final int row, final int column) {
+        if (materialized != null) {
+            return materialized.get(row, column);
+        }
+        int value = hierarchies[column][input.get(row, column)][levels[column]];
+        if (column == 0 && (outliers[row >>> 6] & (1L << row)) != 0) {
+            value |= Data.OUTLIER_MASK;
+        }
+        return value;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return get(baseRow, column);
+    }
+
+    @Override
+    public int hashCode(final int row) {
+        return hashCodeIgnore(row, -1);
+    }
+
+    @Override
+    public int hashCodeIgnore(final int row, final int ignore) {
+        if (materialized != null) {
+            return materialized.hashCodeIgnore(row, ignore);
+        }
+        int result = 23;
+        for (int column = 0; column < columns; column++) {
+            result = (column == ignore) ? result : ((37 * result) + get(row, column));
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the view has been materialized
+     * @return
+     */
+    public boolean isMaterialized() {
+        return materialized != null;
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorRow = row;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        return get(iteratorRow, iteratorI++);
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        set(iteratorRow, iteratorI++, value);
+    }
+
+    @Override
+    public void or(int row, int value) {
+        if (materialized == null && (value & Data.REMOVE_OUTLIER_MASK) == 0) {
+            if ((value & Data.OUTLIER_MASK) != 0) {
+                outliers[row >>> 6] |= 1L << row;
+            }
+            return;
+        }
+        materialize().or(row, value);
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        materialize().set(row, column, value);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseRow = row;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        materialize().setRow(row, data);
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        set(baseRow, column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        if (materialized != null) {
+            materialized.swap(row1, row2);
+            return;
+        }
+        long flag1 = (outliers[row1 >>> 6] >>> row1) & 1L;
+        long flag2 = (outliers[row2 >>> 6] >>> row2) & 1L;
+        if (flag1 != flag2) {
+            outliers[row1 >>> 6] ^= 1L << row1;
+            outliers[row2 >>> 6] ^= 1L << row2;
+        }
+    }
+
+    /**
+     * Internal equals
+     * @param row1
+     * @param row2
+     * @param ignore
+     * @param flag
+     * @return
+     */
+    private boolean equals(int row1, int row2, int ignore, int flag) {
+        if (materialized != null) {
+            if (flag != ~0) {
+                return materialized.equalsIgnoringOutliers(row1, row2);
+            } else if (ignore != -1) {
+                return materialized.equalsIgnore(row1, row2, ignore);
+            } else {
+                return materialized.equals(row1, row2);
+            }
+        }
+        for (int column = 0; column < columns; column++) {
+            if (column != ignore) {
+                int mask = column == 0 ? flag : ~0;
+                if ((get(row1, column) & mask) != (get(row2, column) & mask)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Materializes the view, if this has not been done before
+     * @return
+     */
+    private DataMatrix materialize() {
+        if (materialized == null) {
+            materialized = clone();
+        }
+        return materialized;
+    }
+
+    /**
+     * Serializes a materialized copy of the view
+     * @return
+     */
+    private Object writeReplace() {
+        return clone();
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+        if (materialized != null) {
+            return materialized.clone(subset);
+        }
+        DataMatrix result = input.createInstance(subset.length, columns);
+        for (int row = 0; row < subset.length; row++) {
+            result.copyFrom(row, this, subset[row]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.framework.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A data matrix which is backed by a memory-mapped temporary file instead of the heap.
+ * The file is split into segments of at most 1 GB, each of which holds a power-of-two
+ * number of rows. The number of rows is therefore limited by the available disk space
+ * rather than by the size of the heap.
+ *
+ * @author Fabian Prasser
+ */
+public class DataMatrixMapped extends DataMatrix {
+
+    /** SVUID */
+    private static final long   serialVersionUID = 6034251946394577142L;
+
+    /** Maximal number of ints per segment */
+    private static final int    SEGMENT_SIZE     = 1 << 28;
+
+    /** Backing segments */
+    private transient IntBuffer[] segments;
+
+    /** The number of rows. */
+    private int                 rows;
+
+    /** The number of columns. */
+    private int                 columns;
+
+    /** log2 of the number of rows per segment */
+    private int                 segmentShift;
+
+    /** The number of rows per segment - 1 */
+    private int                 segmentMask;
+
+    /** Iterate */
+    private transient int       iteratorI        = 0;
+
+    /** Iterate */
+    private transient int       iteratorRow      = 0;
+
+    /** Iterate */
+    private transient int       baseRow          = 0;
+
+    /**
+     * Instantiates a new memory-mapped matrix.
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     */
+    public DataMatrixMapped(final int rows, final int columns) {
+        super(0, 0);
+        this.rows = rows;
+        this.columns = columns;
+        this.allocate();
+    }
+
+    /**
+     * Instantiates a view on the given matrix
+     *
+     * @param source
+     */
+    private DataMatrixMapped(final DataMatrixMapped source) {
+        super(0, 0);
+        this.rows = source.rows;
+        this.columns = source.columns;
+        this.segmentShift = source.segmentShift;
+        this.segmentMask = source.segmentMask;
+        this.segments = source.segments;
+    }
+
+    @Override
+    public void and(int row, int value) {
+        segments[row >>> segmentShift].put((row & segmentMask) * columns, get(row, 0) & value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        DataMatrixMapped result = new DataMatrixMapped(this.rows, this.columns);
+        for (int row = 0; row < rows; row++) {
+            result.copyFrom(row, this, row);
+        }
+        return result;
+    }
+
+    @Override
+    public DataMatrix createInstance(int rows) {
+        return new DataMatrixMapped(rows, this.columns);
+    }
+
+    @Override
+    public DataMatrix createInstance(int rows, int columns) {
+        return new DataMatrixMapped(rows, columns);
+    }
+
+    @Override
+    public DataMatrix createView() {
+        return new DataMatrixMapped(this);
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int column = 0; column < columns; column++) {
+            segment.put(offset++, sourceMatrix.get(sourceRow, column));
+        }
+    }
+
+    @Override
+    public boolean equals(int row1, int row2) {
+        return equals(row1, row2, -1, ~0);
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int column = 0; column < columns; column++) {
+            if (segment.get(offset++) != data[column]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        return equals(row1, row2, ignore, ~0);
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        return equals(row1, row2, -1, Data.REMOVE_OUTLIER_MASK);
+    }
+
+    @Override
+    public int get(final int row, final int column) {
+        return segments[row >>> segmentShift].get((row & segmentMask) * columns + column);
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return get(baseRow, column);
+    }
+
+    @Override
+    public int hashCode(final int row) {
+        return hashCodeIgnore(row, -1);
+    }
+
+    @Override
+    public int hashCodeIgnore(final int row, final int ignore) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        int result = 23;
+        for (int column = 0; column < columns; column++) {
+            result = (column == ignore) ? result : ((37 * result) + segment.get(offset));
+            offset++;
+        }
+        return result;
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorRow = row;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        return get(iteratorRow, iteratorI++);
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        set(iteratorRow, iteratorI++, value);
+    }
+
+    @Override
+    public void or(int row, int value) {
+        segments[row >>> segmentShift].put((row & segmentMask) * columns, get(row, 0) | value);
+    }
+
+    /**
+     * Drops the mapped segments. Java offers no means of unmapping a buffer explicitly, so the
+     * mapping is released once neither this matrix nor any of its views references it.
+     */
+    @Override
+    public void release() {
+        this.segments = null;
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        segments[row >>> segmentShift].put((row & segmentMask) * columns + column, value);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseRow = row;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int column = 0; column < data.length; column++) {
+            segment.put(offset++, data[column]);
+        }
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        set(baseRow, column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        IntBuffer segment1 = segments[row1 >>> segmentShift];
+        IntBuffer segment2 = segments[row2 >>> segmentShift];
+        int offset1 = (row1 & segmentMask) * columns;
+        int offset2 = (row2 & segmentMask) * columns;
+        for (int i = 0; i < columns; i++) {
+            int temp = segment1.get(offset1);
+            segment1.put(offset1, segment2.get(offset2));
+            segment2.put(offset2, temp);
+            offset1++;
+            offset2++;
+        }
+    }
+
+    /**
+     * Creates the backing file and maps it into memory
+     */
+    private void allocate() {
+
+        // Determine segmentation, such that rows do not span segments
+        int rowsPerSegment = Integer.highestOneBit(Math.max(1, SEGMENT_SIZE / Math.max(1, columns)));
+        this.segmentShift = Integer.numberOfTrailingZeros(rowsPerSegment);
+        this.segmentMask = rowsPerSegment - 1;
+        int numSegments = rows == 0 ? 0 : ((rows - 1) >>> segmentShift) + 1;
+        this.segments = new IntBuffer[numSegments];
+        if (numSegments == 0) {
+            return;
+        }
+
+        // Map the file
+        File file = null;
+        try {
+            file = File.createTempFile("arx", ".matrix");
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+                long size = (long) rows * (long) columns * 4L;
+                raf.setLength(size);
+                for (int segment = 0; segment < numSegments; segment++) {
+                    long position = ((long) segment << segmentShift) * columns * 4L;
+                    long length = Math.min(size - position, (long) rowsPerSegment * columns * 4L);
+                    this.segments[segment] = channel.map(MapMode.READ_WRITE, position, length).asIntBuffer();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot create memory-mapped data", e);
+        } finally {
+            // Mappings remain valid after the file has been deleted
+            if (file != null && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Internal equals
+     * @param row1
+     * @param row2
+     * @param ignore
+     * @param flag
+     * @return
+     */
+    private boolean equals(int row1, int row2, int ignore, int flag) {
+        IntBuffer segment1 = segments[row1 >>> segmentShift];
+        IntBuffer segment2 = segments[row2 >>> segmentShift];
+        int offset1 = (row1 & segmentMask) * columns;
+        int offset2 = (row2 & segmentMask) * columns;
+        if ((ignore != 0) && (segment1.get(offset1) & flag) != (segment2.get(offset2) & flag)) {
+            return false;
+        }
+        for (int i = 1; i < columns; i++) {
+            if ((ignore != i) && segment1.get(offset1 + i) != segment2.get(offset2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deserializes the matrix into a new backing file
+     * @param stream
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        this.allocate();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                set(row, column, stream.readInt());
+            }
+        }
+    }
+
+    /**
+     * Serializes the content of the backing file
+     * @param stream
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.defaultWriteObject();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                stream.writeInt(get(row, column));
+            }
+        }
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+        DataMatrixMapped result = new DataMatrixMapped(subset.length, this.columns);
+        for (int row = 0; row < subset.length; row++) {
+            result.copyFrom(row, this, subset[row]);
+        }
+        return result;
+    }
+}
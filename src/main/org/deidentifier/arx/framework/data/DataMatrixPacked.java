@@ -0,0 +1,377 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.framework.data;
+
+import java.util.Arrays;
+
+/**
+ * A data matrix which packs each row into one or more longs. The number of bits used
+ * for each column is derived from the number of distinct values in the column. Values
+ * never span two longs, which allows comparing rows word by word. The first column
+ * reserves an additional bit for the outlier flag.
+ *
+ * @author Fabian Prasser
+ */
+public class DataMatrixPacked extends DataMatrix {
+
+    /** SVUID */
+    private static final long serialVersionUID = -3480618395040342735L;
+
+    /**
+     * Returns the number of bits needed to store the given number of distinct values
+     * @param cardinality
+     * @return
+     */
+    public static int getBits(int cardinality) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(cardinality - 1));
+    }
+
+    /**
+     * Allocates the backing array for the given number of rows and words per row
+     * @param rows
+     * @param words
+     * @return
+     */
+    private static long[] allocate(int rows, int words) {
+        try {
+            return new long[Math.multiplyExact(rows, words)];
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not more then 2^31-1 cells supported");
+        }
+    }
+
+    /** Backing array */
+    private final long[] array;
+
+    /** The number of rows. */
+    private final int    rows;
+
+    /** The number of columns. */
+    private final int    columns;
+
+    /** The number of longs per row */
+    private final int    words;
+
+    /** Bits per column, excluding the outlier flag */
+    private final int[]  bits;
+
+    /** Index of the long storing each column */
+    private final int[]  word;
+
+    /** Offset of each column within its long */
+    private final int[]  shift;
+
+    /** Value mask of each column, including the outlier flag */
+    private final long[] mask;
+
+    /** Masks for each long, which remove the outlier flag */
+    private final long[] outlierMask;
+
+    /** Iterate */
+    private int          iteratorI   = 0;
+
+    /** Iterate */
+    private int          iteratorRow = 0;
+
+    /** Iterate */
+    private int          baseRow     = 0;
+
+    /**
+     * Instantiates a new matrix.
+     *
+     * @param rows the num rows
+     * @param cardinalities the number of distinct values in each column
+     */
+    public DataMatrixPacked(final int rows, final int[] cardinalities) {
+        super(0, 0);
+
+        // Prepare
+        this.rows = rows;
+        this.columns = cardinalities.length;
+        this.bits = new int[columns];
+        this.word = new int[columns];
+        this.shift = new int[columns];
+        this.mask = new long[columns];
+
+        // Layout columns, such that no value spans two longs
+        int index = 0;
+        int offset = 0;
+        for (int column = 0; column < columns; column++) {
+            this.bits[column] = getBits(cardinalities[column]);
+            int width = this.bits[column] + (column == 0 ? 1 : 0);
+            if (offset + width > 64) {
+                index++;
+                offset = 0;
+            }
+            this.word[column] = index;
+            this.shift[column] = offset;
+            this.mask[column] = (1L << width) - 1L;
+            offset += width;
+        }
+        this.words = columns == 0 ? 0 : index + 1;
+
+        // Masks for comparing rows while ignoring outliers
+        this.outlierMask = new long[words];
+        Arrays.fill(this.outlierMask, ~0L);
+        if (columns != 0) {
+            this.outlierMask[0] = ~(1L << (shift[0] + bits[0]));
+        }
+
+        // Allocate
+        this.array = allocate(rows, words);
+    }
+
+    /**
+     * Instantiates a matrix with the same layout as the given matrix
+     *
+     * @param source
+     * @param array
+     * @param rows
+     */
+    private DataMatrixPacked(final DataMatrixPacked source, final long[] array, final int rows) {
+        super(0, 0);
+        this.rows = rows;
+        this.columns = source.columns;
+        this.words = source.words;
+        this.bits = source.bits;
+        this.word = source.word;
+        this.shift = source.shift;
+        this.mask = source.mask;
+        this.outlierMask = source.outlierMask;
+        this.array = array;
+    }
+
+    @Override
+    public void and(int row, int value) {
+        set(row, 0, get(row, 0) & value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        return new DataMatrixPacked(this, this.array.clone(), this.rows);
+    }
+
+    @Override
+    public DataMatrix createInstance(int rows) {
+        return new DataMatrixPacked(this, allocate(rows, words), rows);
+    }
+
+    @Override
+    public DataMatrix createInstance(int rows, int columns) {
+        return columns == this.columns ? createInstance(rows) : new DataMatrix(rows, columns);
+    }
+
+    @Override
+    public DataMatrix createView() {
+        return new DataMatrixPacked(this, this.array, this.rows);
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        if (sourceMatrix instanceof DataMatrixPacked && Arrays.equals(((DataMatrixPacked)sourceMatrix).bits, this.bits)) {
+            System.arraycopy(((DataMatrixPacked)sourceMatrix).array, sourceRow * words, this.array, row * words, words);
+        } else {
+            for (int column = 0; column < columns; column++) {
+                set(row, column, sourceMatrix.get(sourceRow, column));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(int row1, int row2) {
+        int offset1 = row1 * words;
+        int offset2 = row2 * words;
+        for (int i = 0; i < words; i++) {
+            if (this.array[offset1++] != this.array[offset2++]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        for (int column = 0; column < columns; column++) {
+            if (get(row, column) != data[column]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        int offset1 = row1 * words;
+        int offset2 = row2 * words;
+        for (int i = 0; i < words; i++) {
+            long difference = this.array[offset1++] ^ this.array[offset2++];
+            if (ignore >= 0 && ignore < columns && word[ignore] == i) {
+                difference &= ~(mask[ignore] << shift[ignore]);
+            }
+            if (difference != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        int offset1 = row1 * words;
+        int offset2 = row2 * words;
+        for (int i = 0; i < words; i++) {
+            if (((this.array[offset1++] ^ this.array[offset2++]) & outlierMask[i]) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int get(final int row, final int column) {
+        long value = (this.array[row * words + word[column]] >>> shift[column]) & mask[column];
+        if (column == 0) {
+            return (int) (value & ~(1L << bits[0])) | ((int) (value >>> bits[0]) << 31);
+        }
+        return (int) value;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return get(baseRow, column);
+    }
+
+    @Override
+    public int hashCode(final int row) {
+        int result = 23;
+        for (int column = 0; column < columns; column++) {
+            result = (37 * result) + get(row, column);
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCodeIgnore(final int row, final int ignore) {
+        int result = 23;
+        for (int column = 0; column < columns; column++) {
+            result = (column == ignore) ? result : ((37 * result) + get(row, column));
+        }
+        return result;
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorRow = row;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        return get(iteratorRow, iteratorI++);
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        set(iteratorRow, iteratorI++, value);
+    }
+
+    @Override
+    public void or(int row, int value) {
+        set(row, 0, get(row, 0) | value);
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+
+        // Check
+        long encoded = column == 0 ? (value & Data.REMOVE_OUTLIER_MASK) : value;
+        if ((encoded >>> bits[column]) != 0L) {
+            throw new IllegalArgumentException("Value does not fit into packed column: " + value);
+        }
+
+        // Encode outlier flag
+        if (column == 0 && value < 0) {
+            encoded |= 1L << bits[0];
+        }
+
+        // Store
+        int index = row * words + word[column];
+        this.array[index] = (this.array[index] & ~(mask[column] << shift[column])) | (encoded << shift[column]);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseRow = row;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        for (int column = 0; column < data.length; column++) {
+            set(row, column, data[column]);
+        }
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        set(baseRow, column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        int offset1 = row1 * words;
+        int offset2 = row2 * words;
+        for (int i = 0; i < words; i++) {
+            long temp = this.array[offset1];
+            this.array[offset1] = this.array[offset2];
+            this.array[offset2] = temp;
+            offset1++;
+            offset2++;
+        }
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+
+        // Create instance
+        DataMatrixPacked result = new DataMatrixPacked(this, allocate(subset.length, words), subset.length);
+
+        // Copy subset
+        int targetOffset = 0;
+        for (int source : subset) {
+            System.arraycopy(this.array, source * words, result.array, targetOffset, words);
+            targetOffset += words;
+        }
+
+        // Return
+        return result;
+    }
+}
@@ -53,6 +53,21 @@ public class DataMatrixSubset extends DataMatrix {
         return matrix.clone(this.subset);
     }
 
+    @Override
+    public DataMatrix createView() {
+        return new DataMatrixSubset(matrix == null ? null : matrix.createView(), subset);
+    }
+
+    @Override
+    public DataMatrix createInstance(int rows) {
+        return matrix.createInstance(rows);
+    }
+
+    @Override
+    public DataMatrix createInstance(int rows, int columns) {
+        return matrix.createInstance(rows, columns);
+    }
+
     @Override
     public boolean equals(int row1, int row2) {
         return matrix.equals(subset[row1], subset[row2]);
@@ -0,0 +1,377 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+
+/**
+ * Provides methods for reading data in the columnar binary format written by
+ * {@link BinaryDataOutput}. Values are registered at the dictionary once per distinct value
+ * and the packed codes are translated directly into the data matrix, without parsing any records.
+ * Data types are validated, and values are cleansed, once per distinct value.
+ *
+ * @author Fabian Prasser
+ */
+public class BinaryDataInput implements Closeable {
+
+    /** The stream */
+    private final InputStream   stream;
+
+    /** The channel */
+    private ReadableByteChannel channel;
+
+    /** The buffer */
+    private ByteBuffer          buffer;
+
+    /** The inflater, if any */
+    private Inflater            inflater;
+
+    /** Number of rows */
+    private final int           rows;
+
+    /** Header of the file */
+    private final String[]      names;
+
+    /** Columns to import */
+    private final int[]         columns;
+
+    /** Header of the imported data */
+    private final String[]      header;
+
+    /** Data types of the imported columns, null if values should not be validated */
+    private final DataType<?>[] datatypes;
+
+    /** Cleansing flags of the imported columns */
+    private final boolean[]     cleansing;
+
+    /**
+     * Creates a new instance, which imports all columns.
+     *
+     * @param file the file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public BinaryDataInput(final File file) throws IOException {
+        this(new FileInputStream(file), null);
+    }
+
+    /**
+     * Creates a new instance, which imports the columns described by the configuration.
+     *
+     * @param config the configuration
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public BinaryDataInput(final ImportConfigurationBinary config) throws IOException {
+        this(new FileInputStream(new File(config.getFileLocation())), config);
+    }
+
+    /**
+     * Creates a new instance, which imports all columns. The stream will be closed when
+     * the data has been read.
+     *
+     * @param stream the stream
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public BinaryDataInput(final InputStream stream) throws IOException {
+        this(stream, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param stream
+     * @param config
+     * @throws IOException
+     */
+    private BinaryDataInput(final InputStream stream, ImportConfigurationBinary config) throws IOException {
+
+        this.stream = stream;
+        try {
+
+            // Preamble
+            this.channel = stream instanceof FileInputStream ? ((FileInputStream) stream).getChannel() : Channels.newChannel(stream);
+            ByteBuffer preamble = ByteBuffer.allocate(BinaryDataOutput.PREAMBLE);
+            while (preamble.hasRemaining()) {
+                if (channel.read(preamble) < 0) {
+                    throw new IOException("File contains no data");
+                }
+            }
+            preamble.flip();
+            if (preamble.getInt() != BinaryDataOutput.MAGIC) {
+                throw new IOException("Unknown file format");
+            }
+            int version = preamble.getInt();
+            if (version != BinaryDataOutput.VERSION) {
+                throw new IOException("Unsupported version of file format: " + version);
+            }
+            if (preamble.get() != 0) {
+                this.inflater = new Inflater();
+                this.channel = Channels.newChannel(new InflaterInputStream(Channels.newInputStream(channel), inflater, BinaryDataOutput.BUFFER_SIZE));
+            }
+            this.buffer = ByteBuffer.allocateDirect(BinaryDataOutput.BUFFER_SIZE);
+            this.buffer.flip();
+
+            // Header
+            this.rows = getInt();
+            this.names = new String[getInt()];
+            for (int column = 0; column < names.length; column++) {
+                names[column] = getString();
+            }
+
+            // Columns to import
+            List<ImportColumn> columns = config != null ? config.getColumns() : null;
+            if (columns == null || columns.isEmpty()) {
+                this.columns = new int[names.length];
+                for (int column = 0; column < names.length; column++) {
+                    this.columns[column] = column;
+                }
+                this.header = names.clone();
+                this.datatypes = null;
+                this.cleansing = null;
+            } else {
+                config.prepare(names);
+                this.columns = new int[columns.size()];
+                this.header = new String[columns.size()];
+                this.datatypes = new DataType<?>[columns.size()];
+                this.cleansing = new boolean[columns.size()];
+                for (int i = 0; i < columns.size(); i++) {
+                    ImportColumnBinary column = (ImportColumnBinary) columns.get(i);
+                    this.columns[i] = column.getIndex();
+                    this.header[i] = column.getAliasName() != null ? column.getAliasName() : names[column.getIndex()];
+                    this.datatypes[i] = column.getDataType();
+                    this.cleansing[i] = column.isCleansing();
+                    column.setAliasName(header[i]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+        stream.close();
+    }
+
+    /**
+     * Returns the data types of the imported columns, null if they have not been specified
+     * @return
+     */
+    public DataType<?>[] getDataTypes() {
+        return datatypes;
+    }
+
+    /**
+     * Returns the header of the imported columns
+     * @return
+     */
+    public String[] getHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the number of rows
+     * @return
+     */
+    public int getNumRows() {
+        return rows;
+    }
+
+    /**
+     * Reads the imported columns into a data matrix and registers their values at the dictionary,
+     * in the order of their first occurrence. Closes the input afterwards.
+     *
+     * @param dictionary Dictionary with one dimension per imported column
+     * @param threshold Memory-mapping threshold
+     * @return
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public DataMatrix read(Dictionary dictionary, long threshold) throws IOException {
+
+        try {
+            DataMatrix matrix = DataMatrix.create(rows, columns.length, threshold);
+            for (int column = 0; column < names.length; column++) {
+
+                // Determine targets
+                int count = 0;
+                for (int i = 0; i < columns.length; i++) {
+                    count += columns[i] == column ? 1 : 0;
+                }
+                int[] targets = new int[count];
+                count = 0;
+                for (int i = 0; i < columns.length; i++) {
+                    if (columns[i] == column) {
+                        targets[count++] = i;
+                    }
+                }
+
+                // Dictionary
+                int size = getInt();
+                int[][] mapping = new int[targets.length][size];
+                for (int code = 0; code < size; code++) {
+                    if (targets.length == 0) {
+                        skip(getInt());
+                        continue;
+                    }
+                    String value = getString();
+                    for (int i = 0; i < targets.length; i++) {
+                        mapping[i][code] = dictionary.register(targets[i], validate(targets[i], value));
+                    }
+                }
+
+                // Codes
+                int bits = getInt();
+                if (bits < 1 || bits > 32) {
+                    throw new IOException("Invalid number of bits per code: " + bits);
+                }
+                int perWord = 64 / bits;
+                if (targets.length == 0) {
+                    skip(((long) rows + perWord - 1) / perWord * 8L);
+                    continue;
+                }
+                long mask = (1L << bits) - 1L;
+                long word = 0L;
+                int offset = perWord;
+                for (int row = 0; row < rows; row++) {
+                    if (offset == perWord) {
+                        word = getLong();
+                        offset = 0;
+                    }
+                    int code = (int) ((word >>> (offset++ * bits)) & mask);
+                    if (code >= size) {
+                        throw new IOException("Invalid code: " + code);
+                    }
+                    for (int i = 0; i < targets.length; i++) {
+                        matrix.set(row, targets[i], mapping[i][code]);
+                    }
+                }
+            }
+            return matrix;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Makes sure that the buffer contains at least the given number of bytes
+     * @param bytes
+     * @throws IOException
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of file");
+                }
+            }
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Reads an int
+     * @return
+     * @throws IOException
+     */
+    private int getInt() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a long
+     * @return
+     * @throws IOException
+     */
+    private long getLong() throws IOException {
+        ensure(8);
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a string
+     * @return
+     * @throws IOException
+     */
+    private String getString() throws IOException {
+        int length = getInt();
+        if (length < 0) {
+            throw new IOException("Invalid length of string: " + length);
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            ensure(1);
+            int count = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, count);
+            offset += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the given number of bytes
+     * @param bytes
+     * @throws IOException
+     */
+    private void skip(long bytes) throws IOException {
+        while (bytes > 0) {
+            ensure(1);
+            int count = (int) Math.min(buffer.remaining(), bytes);
+            buffer.position(buffer.position() + count);
+            bytes -= count;
+        }
+    }
+
+    /**
+     * Validates the value of the given imported column
+     * @param index
+     * @param value
+     * @return
+     */
+    private String validate(int index, String value) {
+        if (datatypes == null || datatypes[index].isValid(value)) {
+            return value;
+        } else if (cleansing[index]) {
+            return DataType.NULL_VALUE;
+        } else {
+            throw new IllegalArgumentException("Data value does not match data type");
+        }
+    }
+}
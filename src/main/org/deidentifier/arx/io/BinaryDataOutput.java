@@ -0,0 +1,325 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.DataMatrixPacked;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * Provides methods for writing data in a columnar binary format. For each column, the format
+ * stores a dictionary of the distinct values, in order of their first occurrence, followed by
+ * the codes of all records, packed with the minimal number of bits. Data is thus written without
+ * converting the records into strings and can be read without parsing them.
+ * When read, the codes are identical to the ones obtained by importing the data from CSV.<br>
+ * <br>
+ * Layout: magic number, version and compression flag, followed by the optionally deflated
+ * content: number of rows and columns, header and, for each column, the dictionary,
+ * the number of bits per code and the packed codes. Codes do not span two longs.
+ *
+ * @author Fabian Prasser
+ */
+public class BinaryDataOutput {
+
+    /** Magic number */
+    static final int    MAGIC       = 0x41525842;
+
+    /** Version of the format */
+    static final int    VERSION     = 1;
+
+    /** Size of the buffer */
+    static final int    BUFFER_SIZE = 1 << 16;
+
+    /** Length of the uncompressed preamble */
+    static final int    PREAMBLE    = 9;
+
+    /** The file */
+    private final File         file;
+
+    /** The output stream */
+    private final OutputStream out;
+
+    /** Compress the content */
+    private final boolean      compressed;
+
+    /** The channel */
+    private WritableByteChannel channel;
+
+    /** The buffer */
+    private ByteBuffer          buffer;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param file the file
+     * @param compressed whether to deflate the content
+     */
+    public BinaryDataOutput(final File file, final boolean compressed) {
+        this.file = file;
+        this.out = null;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Creates a new writer. The stream will not be closed.
+     *
+     * @param out the output stream
+     * @param compressed whether to deflate the content
+     */
+    public BinaryDataOutput(final OutputStream out, final boolean compressed) {
+        this.file = null;
+        this.out = out;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Writes the data represented by the given handle.
+     *
+     * @param handle the handle
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void write(final DataHandleInternal handle) throws IOException {
+
+        FileOutputStream stream = file != null ? new FileOutputStream(file) : null;
+        Deflater deflater = null;
+        try {
+
+            // Preamble
+            this.channel = stream != null ? stream.getChannel() : Channels.newChannel(out);
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.put((byte) (compressed ? 1 : 0));
+            flush();
+
+            // Content
+            DeflaterOutputStream deflated = null;
+            if (compressed) {
+                deflater = new Deflater(Deflater.BEST_SPEED);
+                deflated = new DeflaterOutputStream(Channels.newOutputStream(channel), deflater, BUFFER_SIZE);
+                this.channel = Channels.newChannel(deflated);
+            }
+
+            // Header
+            int rows = handle.getNumRows();
+            int columns = handle.getNumColumns();
+            putInt(rows);
+            putInt(columns);
+            for (int column = 0; column < columns; column++) {
+                putString(handle.getAttributeName(column));
+            }
+
+            // Columns
+            for (int column = 0; column < columns; column++) {
+                write(handle, column, rows);
+            }
+
+            // Done
+            flush();
+            if (deflated != null) {
+                deflated.finish();
+                deflated.flush();
+            }
+            if (stream == null) {
+                out.flush();
+            }
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            if (stream != null) {
+                stream.close();
+            }
+            this.channel = null;
+            this.buffer = null;
+        }
+    }
+
+    /**
+     * Flushes the buffer to the channel
+     * @throws IOException
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Returns the code of the given cell, registering its value if needed. Suppressed values are
+     * represented by -1 in the dictionary of the handle and are registered as {@link DataType#ANY_VALUE}.
+     *
+     * @param handle
+     * @param row
+     * @param column
+     * @param dictionary Dictionary of the handle, null if the column is not encoded
+     * @param mapping Codes of the handle + 1 mapped to codes + 1
+     * @param map
+     * @param values
+     * @return
+     */
+    private int getCode(DataHandleInternal handle,
+                        int row,
+                        int column,
+                        String[] dictionary,
+                        int[] mapping,
+                        ObjectIntOpenHashMap<String> map,
+                        List<String> values) {
+
+        // Read string, if the column is not encoded
+        if (dictionary == null) {
+            return register(map, values, handle.getValue(row, column));
+        }
+
+        // Translate code
+        int code = handle.getEncodedValue(row, column, false) + 1;
+        if (mapping[code] == 0) {
+            mapping[code] = register(map, values, code == 0 ? DataType.ANY_VALUE : dictionary[code - 1]) + 1;
+        }
+        return mapping[code] - 1;
+    }
+
+    /**
+     * Makes sure that the buffer has at least the given number of bytes remaining
+     * @param bytes
+     * @throws IOException
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes an int
+     * @param value
+     * @throws IOException
+     */
+    private void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long
+     * @param value
+     * @throws IOException
+     */
+    private void putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a string
+     * @param value
+     * @throws IOException
+     */
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Registers a value
+     * @param map
+     * @param values
+     * @param value
+     * @return
+     */
+    private int register(ObjectIntOpenHashMap<String> map, List<String> values, String value) {
+        int size = values.size();
+        if (map.putIfAbsent(value, size)) {
+            values.add(value);
+            return size;
+        } else {
+            return map.lget();
+        }
+    }
+
+    /**
+     * Writes the given column. The dictionary only contains values which are used
+     * in the column, in order of their first occurrence.
+     *
+     * @param handle
+     * @param column
+     * @param rows
+     * @throws IOException
+     */
+    private void write(DataHandleInternal handle, int column, int rows) throws IOException {
+
+        // Prepare
+        ObjectIntOpenHashMap<String> map = new ObjectIntOpenHashMap<String>();
+        List<String> values = new ArrayList<String>();
+        String[] dictionary = handle.getDictionary(column);
+        int[] mapping = dictionary != null ? new int[dictionary.length + 1] : null;
+
+        // Collect values
+        for (int row = 0; row < rows; row++) {
+            getCode(handle, row, column, dictionary, mapping, map, values);
+        }
+
+        // Write dictionary
+        putInt(values.size());
+        for (String value : values) {
+            putString(value);
+        }
+
+        // Write codes
+        int bits = DataMatrixPacked.getBits(values.size());
+        int perWord = 64 / bits;
+        putInt(bits);
+        long word = 0L;
+        int offset = 0;
+        for (int row = 0; row < rows; row++) {
+            word |= ((long) getCode(handle, row, column, dictionary, mapping, map, values)) << (offset * bits);
+            if (++offset == perWord) {
+                putLong(word);
+                word = 0L;
+                offset = 0;
+            }
+        }
+        if (offset != 0) {
+            putLong(word);
+        }
+    }
+}
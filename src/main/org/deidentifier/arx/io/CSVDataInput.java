@@ -17,6 +17,8 @@
 
 package org.deidentifier.arx.io;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
@@ -24,8 +26,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.SequenceInputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.deidentifier.arx.DataType;
 
@@ -81,6 +86,233 @@ public class CSVDataInput {
         }
     }
 
+    /**
+     * Splits a file into parts at record boundaries, which can be parsed independently.
+     * To this end, the bytes of the file are scanned for delimiters, quotes and line breaks.
+     * If a record is encountered whose boundaries cannot be determined reliably this way,
+     * e.g. because a quote does not start a field, all remaining data is returned as the last part.
+     * 
+     * @author Fabian Prasser
+     */
+    private class Splitter implements Iterator<Iterator<String[]>> {
+
+        /** Result of scanning a byte */
+        private static final int CONTINUE  = 0;
+
+        /** Result of scanning a byte */
+        private static final int BOUNDARY  = 1;
+
+        /** Result of scanning a byte */
+        private static final int IRREGULAR = 2;
+
+        /** File */
+        private final File       file;
+
+        /** Charset */
+        private final Charset    charset;
+
+        /** Delimiter */
+        private final byte       delimiter;
+
+        /** Quote */
+        private final byte       quote;
+
+        /** Escape */
+        private final byte       escape;
+
+        /** Line break */
+        private final byte[]     linebreak;
+
+        /** Buffer */
+        private final byte[]     buffer    = new byte[1 << 16];
+
+        /** Position in buffer */
+        private int              position  = 0;
+
+        /** Limit of buffer */
+        private int              limit     = 0;
+
+        /** Stream */
+        private InputStream      stream    = null;
+
+        /** Whether the next part is the first one */
+        private boolean          first     = true;
+
+        /** Whether all parts have been returned */
+        private boolean          done      = false;
+
+        /** State */
+        private boolean          quoted    = false;
+
+        /** State */
+        private boolean          closing   = false;
+
+        /** State */
+        private boolean          closed    = false;
+
+        /** State */
+        private boolean          start     = true;
+
+        /** State */
+        private byte             previous  = 0;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param file
+         * @param charset
+         * @param format
+         */
+        private Splitter(File file, Charset charset, CsvFormat format) {
+            this.file = file;
+            this.charset = charset;
+            this.delimiter = (byte) format.getDelimiter();
+            this.quote = (byte) format.getQuote();
+            this.escape = (byte) format.getQuoteEscape();
+            char[] linebreak = format.getLineSeparator();
+            this.linebreak = new byte[linebreak.length];
+            for (int i = 0; i < linebreak.length; i++) {
+                this.linebreak[i] = (byte) linebreak[i];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !done;
+        }
+
+        @Override
+        public Iterator<String[]> next() {
+
+            // Check
+            if (done) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                stream = stream != null ? stream : new FileInputStream(file);
+                ByteArrayOutputStream part = new ByteArrayOutputStream();
+                while (true) {
+
+                    // Read
+                    if (position == limit) {
+                        limit = Math.max(0, stream.read(buffer, 0, buffer.length));
+                        position = 0;
+                        if (limit == 0) {
+                            stream.close();
+                            stream = null;
+                            done = true;
+                            return parse(new ByteArrayInputStream(part.toByteArray()));
+                        }
+                    }
+
+                    // Scan
+                    int offset = position;
+                    while (position < limit) {
+                        switch (scan(buffer[position++])) {
+                        case BOUNDARY:
+                            if (part.size() + position - offset >= PART_SIZE) {
+                                part.write(buffer, offset, position - offset);
+                                return parse(new ByteArrayInputStream(part.toByteArray()));
+                            }
+                            break;
+                        case IRREGULAR:
+                            part.write(buffer, offset, limit - offset);
+                            InputStream remainder = new SequenceInputStream(new ByteArrayInputStream(part.toByteArray()), stream);
+                            stream = null;
+                            done = true;
+                            return parse(remainder);
+                        }
+                    }
+                    part.write(buffer, offset, limit - offset);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error while reading data", e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not implemented");
+        }
+
+        /**
+         * Returns an iterator over the records in the given part
+         * @param part
+         * @return
+         * @throws IOException
+         */
+        private Iterator<String[]> parse(InputStream part) throws IOException {
+            Reader reader = new InputStreamReader(part, charset);
+            Iterator<String[]> result = new CSVDataInput(reader, settings.clone(), datatypes).iterator(first);
+            first = false;
+            return result;
+        }
+
+        /**
+         * Scans the next byte
+         * @param current
+         * @return
+         */
+        private int scan(byte current) {
+
+            // Prepare
+            byte last = this.previous;
+            this.previous = current;
+
+            // Quote inside of a quoted field, which either escapes the current byte or closes the field
+            if (closing) {
+                closing = false;
+                if (current == quote) {
+                    return CONTINUE;
+                }
+                quoted = false;
+                closed = true;
+            }
+
+            // Inside of a quoted field
+            if (quoted) {
+                if (current == quote) {
+                    if (escape == quote) {
+                        closing = true;
+                    } else {
+                        quoted = false;
+                        closed = true;
+                    }
+                } else if (current == escape) {
+                    return IRREGULAR;
+                }
+                return CONTINUE;
+            }
+
+            // Outside of a quoted field
+            if (current == linebreak[linebreak.length - 1] && (linebreak.length == 1 || last == linebreak[0])) {
+                start = true;
+                closed = false;
+                return BOUNDARY;
+            } else if (current == delimiter) {
+                start = true;
+                closed = false;
+                return CONTINUE;
+            } else if (linebreak.length == 2 && current == linebreak[0]) {
+                start = false;
+                return CONTINUE;
+            } else if (current == quote && start && !closed) {
+                quoted = true;
+                start = false;
+                return CONTINUE;
+            } else if (current == quote || current == escape || closed) {
+                return IRREGULAR;
+            } else {
+                start = false;
+                return CONTINUE;
+            }
+        }
+    }
+
+    /** Approximate size of parts in bytes */
+    private static final int        PART_SIZE = 1 << 23;
+
     /** A reader. */
     private final Reader            reader;
 
@@ -478,6 +710,20 @@ public class CSVDataInput {
         this(new LazyFileReader(new File(filename), charset), config.getDelimiter(), config.getQuote(), config.getEscape(), config.getLinebreak(), datatypes);
     }
 
+    /**
+     * Instantiate.
+     *
+     * @param reader the reader
+     * @param settings the settings
+     * @param datatypes the data types
+     */
+    private CSVDataInput(final Reader reader, final CsvParserSettings settings, final DataType<?>[] datatypes) {
+        this.reader = reader;
+        this.settings = settings;
+        this.datatypes = datatypes;
+        this.cleansing = datatypes != null;
+    }
+
     /**
      * Closes the reader.
      *
@@ -497,6 +743,44 @@ public class CSVDataInput {
         return iterator(true);
     }
 
+    /**
+     * Returns iterators over consecutive parts of a file, which are split at record boundaries and
+     * can thus be parsed independently. The first record of the first part is the header. All parts
+     * but the last one fit into memory. Returns null if data is not read from a file or if the charset
+     * or syntax does not allow splitting it by scanning for ASCII characters. Must not be used in
+     * combination with {@link #iterator()}. <b>You must iterate trough all elements to prevent resource leaks!</b>
+     * 
+     * @return the parts
+     */
+    public Iterator<Iterator<String[]>> parts() {
+
+        // Check source and charset
+        if (!(reader instanceof LazyFileReader)) {
+            return null;
+        }
+        LazyFileReader file = (LazyFileReader) reader;
+        if (!file.charset.equals(StandardCharsets.UTF_8) &&
+            !file.charset.equals(StandardCharsets.US_ASCII) &&
+            !file.charset.equals(StandardCharsets.ISO_8859_1)) {
+            return null;
+        }
+
+        // Check syntax
+        CsvFormat format = settings.getFormat();
+        char[] linebreak = format.getLineSeparator();
+        if (linebreak.length < 1 || linebreak.length > 2) {
+            return null;
+        }
+        for (char c : new char[] { format.getDelimiter(), format.getQuote(), format.getQuoteEscape(), linebreak[0], linebreak[linebreak.length - 1] }) {
+            if (c > 127) {
+                return null;
+            }
+        }
+
+        // Split
+        return new Splitter(file.file, file.charset, format);
+    }
+
     /**
      * Returns an iterator. <b>You must iterate trough all elements to prevent resource leaks!</b>
      * 
@@ -17,12 +17,22 @@
 
 package org.deidentifier.arx.io;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 
 import org.deidentifier.arx.DataType;
 
@@ -31,11 +41,102 @@ import org.deidentifier.arx.DataType;
  * 
  * This adapter can import data from JDBC sources. The source itself is
  * described by an appropriate {@link ImportConfigurationJDBC} object.
+ * Data is read with forward-only and read-only cursors. If configured, the
+ * table is split into ranges of a numeric column, which are queried concurrently.
  * 
  * @author Karol Babioch
  * @author Fabian Prasser
  */
-public class ImportAdapterJDBC extends ImportAdapter {
+public class ImportAdapterJDBC extends ImportAdapter implements Closeable {
+    
+    /**
+     * A range of rows, which is read into a bounded queue
+     * 
+     * @author Fabian Prasser
+     */
+    private class Partition implements Runnable {
+        
+        /** Predicate */
+        private final String                  predicate;
+        
+        /** Rows */
+        private final BlockingQueue<String[]> queue;
+        
+        /** Error, if any */
+        private volatile Exception            error;
+        
+        /** Connection, if any */
+        private volatile Connection           connection;
+        
+        /** Statement, if any */
+        private volatile Statement            statement;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param predicate
+         */
+        private Partition(String predicate) {
+            this.predicate = predicate;
+            this.queue = new LinkedBlockingQueue<String[]>(config.getFetchSize() > 0 ? config.getFetchSize() : PARTITION_BUFFER_SIZE);
+        }
+        
+        @Override
+        public void run() {
+            ResultSet resultSet = null;
+            try {
+                if (closed) {
+                    return;
+                }
+                connection = threads > 1 ? config.createConnection() : config.getConnection();
+                statement = createStatement(connection);
+                if (closed) {
+                    return;
+                }
+                resultSet = statement.executeQuery("SELECT * FROM " + config.getTable() + " WHERE " + predicate);
+                while (!closed && resultSet.next()) {
+                    queue.put(read(resultSet));
+                }
+            } catch (InterruptedException e) {
+                /* Import has been aborted */
+                return;
+            } catch (Exception e) {
+                error = e;
+            } finally {
+                close();
+                ImportAdapterJDBC.this.close(resultSet, null, null);
+            }
+            try {
+                if (!closed) {
+                    queue.put(END_OF_PARTITION);
+                }
+            } catch (InterruptedException e) {
+                /* Import has been aborted */
+            }
+        }
+        
+        /**
+         * Closes the statement and the connection, if it is owned by this partition.
+         * May be called by other threads to abort the query.
+         */
+        private synchronized void close() {
+            ImportAdapterJDBC.this.close(null, statement, threads > 1 ? connection : null);
+            statement = null;
+            connection = null;
+        }
+    }
+    
+    /** Marks the end of a partition */
+    private static final String[]   END_OF_PARTITION      = new String[0];
+    
+    /** Number of rows buffered per partition, if no fetch size is given */
+    private static final int        PARTITION_BUFFER_SIZE = 10000;
+    
+    /** Number of partitions per thread */
+    private static final int        PARTITIONS_PER_THREAD = 4;
+    
+    /** Maximal number of validation results cached per column */
+    private static final int        MAX_CACHED_VALUES     = 100000;
     
     /** The configuration describing the CSV file being used. */
     private ImportConfigurationJDBC config;
@@ -69,6 +170,30 @@ public class ImportAdapterJDBC extends ImportAdapter {
      */
     private int                     totalRows;
     
+    /** Number of rows that have been returned */
+    private int                     returnedRows;
+    
+    /** Partitions, null if the table is queried at once */
+    private List<Partition>         partitions;
+    
+    /** Index of the current partition */
+    private int                     partition;
+    
+    /** Next row from the partitions */
+    private String[]                nextRow;
+    
+    /** Executor for partitions */
+    private ExecutorService         executor;
+    
+    /** Number of threads querying partitions */
+    private int                     threads;
+    
+    /** Cached results of validating values, per column */
+    private Map<String, Boolean>[]  valid;
+    
+    /** Whether the import has been closed */
+    private volatile boolean        closed;
+    
     /**
      * Creates a new instance of this object with given configuration.
      *
@@ -76,6 +201,7 @@ public class ImportAdapterJDBC extends ImportAdapter {
      * @throws IOException In case of communication errors with JDBC
      * @todo Fix IOException
      */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     protected ImportAdapterJDBC(ImportConfigurationJDBC config) throws IOException {
         
         super(config);
@@ -84,64 +210,93 @@ public class ImportAdapterJDBC extends ImportAdapter {
         /* Preparation work */
         indexes = getIndexesToImport();
         dataTypes = getColumnDatatypes();
+        valid = new Map[indexes.length];
+        for (int i = 0; i < valid.length; i++) {
+            valid[i] = new HashMap<String, Boolean>();
+        }
         
         try {
             
             /* Used to keep track of progress */
-            statement = config.getConnection().createStatement();
-            statement.execute("SELECT COUNT(*) FROM " + config.getTable());
-            resultSet = statement.getResultSet();
-            
-            if (resultSet.next()) {
+            if (config.isCountRows()) {
+                statement = createStatement(config.getConnection());
+                statement.execute("SELECT COUNT(*) FROM " + config.getTable());
+                resultSet = statement.getResultSet();
                 
-                totalRows = resultSet.getInt(1);
-                if (totalRows == 0) {
+                if (resultSet.next()) {
+                    
+                    totalRows = resultSet.getInt(1);
+                    if (totalRows == 0) {
+                        closeResources();
+                        throw new IOException("Table doesn't contain any rows");
+                    }
+                    
+                } else {
                     closeResources();
-                    throw new IOException("Table doesn't contain any rows");
+                    throw new IOException("Couldn't determine number of rows");
                 }
-                
-            } else {
-                closeResources();
-                throw new IOException("Couldn't determine number of rows");
+                close(resultSet, statement, null);
             }
             
             /* Query for actual data */
-            statement = config.getConnection().createStatement();
-            statement.execute("SELECT * FROM " + config.getTable());
-            resultSet = statement.getResultSet();
-            hasNext = resultSet.next();
+            if (config.getPartitionColumn() == null) {
+                statement = createStatement(config.getConnection());
+                resultSet = statement.executeQuery("SELECT * FROM " + config.getTable());
+                hasNext = resultSet.next();
+                header = createHeader();
+            } else {
+                statement = createStatement(config.getConnection());
+                resultSet = statement.executeQuery("SELECT * FROM " + config.getTable() + " WHERE 1 = 0");
+                header = createHeader();
+                startPartitions();
+                hasNext = fetchFromPartitions();
+            }
             
         } catch (SQLException e) {
             closeResources();
             throw new IOException(e.getMessage());
         }
         
-        // Create header
-        header = createHeader();
+        // Close, if empty
+        if (!hasNext) {
+            closeResources();
+        }
+    }
+    
+    /**
+     * Aborts the import and releases all resources, including threads querying partitions
+     * and their connections. Must be called if the import is not iterated to its end.
+     * Calling this method multiple times has no effect.
+     */
+    @Override
+    public void close() {
+        hasNext = false;
+        if (!closed) {
+            closeResources();
+        }
     }
     
     @Override
     public Integer getLength() {
-        return totalRows;
+        return config.isCountRows() ? totalRows : null;
     }
     
     /**
      * Returns the percentage of data that has already been returned
      * 
      * This divides the number of rows that have already been returned by the
-     * number of total rows and casts the result into a percentage. In case of
-     * an {@link SQLException} 0 will be returned.
+     * number of total rows and casts the result into a percentage. In case
+     * the number of rows has not been determined, 0 will be returned.
      *
      * @return
      */
     @Override
     public int getProgress() {
         
-        try {
-            return (int) (((double) resultSet.getRow() / (double) totalRows) * 100d);
-        } catch (SQLException e) {
+        if (totalRows == 0) {
             return 0;
         }
+        return (int) (((double) returnedRows / (double) totalRows) * 100d);
     }
     
     /**
@@ -173,11 +328,10 @@ public class ImportAdapterJDBC extends ImportAdapter {
         try {
             
             /* Create regular row */
-            String[] result = new String[indexes.length];
+            String[] result = partitions == null ? read(resultSet) : nextRow;
             for (int i = 0; i < indexes.length; i++) {
                 
-                result[i] = IOUtil.trim(resultSet.getString(indexes[i]));
-                if (!dataTypes[i].isValid(result[i])) {
+                if (!isValid(i, result[i])) {
                     if (config.columns.get(i).isCleansing()) {
                         result[i] = DataType.NULL_VALUE;
                     } else {
@@ -188,7 +342,8 @@ public class ImportAdapterJDBC extends ImportAdapter {
             }
             
             /* Move cursor forward and assign result to {@link #hasNext} */
-            hasNext = resultSet.next();
+            hasNext = partitions == null ? resultSet.next() : fetchFromPartitions();
+            returnedRows++;
             
             if (!hasNext) {
                 closeResources();
@@ -211,9 +366,13 @@ public class ImportAdapterJDBC extends ImportAdapter {
     }
     
     /**
-     * Closes the JDBC resources.
+     * Closes the given JDBC resources.
+     * 
+     * @param resultSet
+     * @param statement
+     * @param connection
      */
-    private void closeResources() {
+    private void close(ResultSet resultSet, Statement statement, Connection connection) {
         try {
             if (resultSet != null) {
                 resultSet.close();
@@ -229,12 +388,32 @@ public class ImportAdapterJDBC extends ImportAdapter {
             /* Ignore silently */
         }
         try {
-            if (config.isManageConnection()) {
-                config.getConnection().close();
+            if (connection != null) {
+                connection.close();
             }
         } catch (Exception e) {
-            /* Die silently */
+            /* Ignore silently */
+        }
+    }
+    
+    /**
+     * Closes the JDBC resources.
+     */
+    private void closeResources() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (partitions != null) {
+            for (Partition partition : partitions) {
+                if (partition != null) {
+                    partition.close();
+                    partition.queue.clear();
+                }
+            }
         }
+        close(resultSet, statement, config.isManageConnection() ? config.getConnection() : null);
     }
     
     /**
@@ -281,6 +460,142 @@ public class ImportAdapterJDBC extends ImportAdapter {
         return header;
         
     }
+    
+    /**
+     * Creates a forward-only and read-only statement
+     * 
+     * @param connection
+     * @return
+     * @throws SQLException
+     */
+    private Statement createStatement(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (config.getFetchSize() > 0) {
+            statement.setFetchSize(config.getFetchSize());
+        }
+        return statement;
+    }
+    
+    /**
+     * Fetches the next row from the partitions into {@link #nextRow}
+     * 
+     * @return Whether there is another row
+     * @throws SQLException
+     */
+    private boolean fetchFromPartitions() throws SQLException {
+        try {
+            while (partition < partitions.size()) {
+                Partition current = partitions.get(partition);
+                String[] row = current.queue.take();
+                if (row != END_OF_PARTITION) {
+                    nextRow = row;
+                    return true;
+                }
+                if (current.error != null) {
+                    throw new SQLException(current.error);
+                }
+                partitions.set(partition++, null);
+            }
+            nextRow = null;
+            return false;
+        } catch (InterruptedException e) {
+            throw new SQLException(e);
+        }
+    }
+    
+    /**
+     * Returns whether the value is valid for the given column. Results are cached.
+     * 
+     * @param column
+     * @param value
+     * @return
+     */
+    private boolean isValid(int column, String value) {
+        Map<String, Boolean> cache = valid[column];
+        Boolean result = cache.get(value);
+        if (result == null) {
+            result = dataTypes[column].isValid(value);
+            if (cache.size() < MAX_CACHED_VALUES) {
+                cache.put(value, result);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Reads the columns to import from the current row
+     * 
+     * @param resultSet
+     * @return
+     * @throws SQLException
+     */
+    private String[] read(ResultSet resultSet) throws SQLException {
+        String[] result = new String[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            result[i] = IOUtil.trim(resultSet.getString(indexes[i]));
+        }
+        return result;
+    }
+    
+    /**
+     * Splits the table into ranges of the partition column and starts querying them
+     * 
+     * @throws SQLException
+     */
+    private void startPartitions() throws SQLException {
+        
+        /* Determine range */
+        String column = config.getPartitionColumn();
+        Statement statement = createStatement(config.getConnection());
+        ResultSet resultSet = null;
+        List<Long> bounds = new ArrayList<Long>();
+        try {
+            resultSet = statement.executeQuery("SELECT MIN(" + column + "), MAX(" + column + ") FROM " + config.getTable());
+            if (resultSet.next() && resultSet.getObject(1) != null) {
+                
+                /* Split into ranges of equal size */
+                BigInteger min = BigInteger.valueOf(resultSet.getLong(1));
+                BigInteger span = BigInteger.valueOf(resultSet.getLong(2)).subtract(min);
+                int count = config.getThreads() * PARTITIONS_PER_THREAD;
+                for (int i = 1; i < count; i++) {
+                    long bound = min.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count))).longValue();
+                    if (bounds.isEmpty() || bounds.get(bounds.size() - 1) < bound) {
+                        bounds.add(bound);
+                    }
+                }
+            }
+        } finally {
+            close(resultSet, statement, null);
+        }
+        
+        /* Create partitions. The first and last range are unbounded */
+        partitions = new ArrayList<Partition>();
+        if (bounds.isEmpty()) {
+            partitions.add(new Partition(column + " IS NOT NULL"));
+        } else {
+            partitions.add(new Partition(column + " < " + bounds.get(0)));
+            for (int i = 1; i < bounds.size(); i++) {
+                partitions.add(new Partition(column + " >= " + bounds.get(i - 1) + " AND " + column + " < " + bounds.get(i)));
+            }
+            partitions.add(new Partition(column + " >= " + bounds.get(bounds.size() - 1)));
+        }
+        partitions.add(new Partition(column + " IS NULL"));
+        
+        /* Start. Separate connections are required for concurrent queries */
+        threads = config.isManageConnection() ? config.getThreads() : 1;
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("ARX JDBC Import");
+                return thread;
+            }
+        });
+        for (Partition partition : partitions) {
+            executor.execute(partition);
+        }
+    }
 
     /**
      * Returns an array with indexes of columns that should be imported
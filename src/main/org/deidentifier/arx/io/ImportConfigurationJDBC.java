@@ -52,6 +52,27 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
      */
     private final boolean manageConnection;
     
+    /** URL used for opening further connections, null if the connection has been passed */
+    private final String  url;
+    
+    /** User used for opening further connections */
+    private final String  user;
+    
+    /** Password used for opening further connections */
+    private final String  password;
+    
+    /** Number of rows fetched from the database at once, 0 for the driver's default */
+    private int           fetchSize        = 0;
+    
+    /** Whether the number of rows is determined before importing */
+    private boolean       countRows        = true;
+    
+    /** Numeric column used for partitioning the table into ranges, null for a single query */
+    private String        partitionColumn  = null;
+    
+    /** Number of threads used for querying partitions */
+    private int           threads          = 1;
+    
     /**
      * Creates a new instance of this object.
      *
@@ -62,6 +83,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = connection;
         this.table = table;
         this.manageConnection = false;
+        this.url = null;
+        this.user = null;
+        this.password = null;
     }
     
     /**
@@ -75,6 +99,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = DriverManager.getConnection(url);
         this.table = table;
         this.manageConnection = true;
+        this.url = url;
+        this.user = null;
+        this.password = null;
     }
     
     /**
@@ -90,6 +117,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = DriverManager.getConnection(url, user, password);
         this.table = table;
         this.manageConnection = true;
+        this.url = url;
+        this.user = user;
+        this.password = password;
     }
     
     /**
@@ -138,6 +168,83 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         }
     }
     
+    /**
+     * Returns the number of rows fetched from the database at once
+     * 
+     * @return
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+    
+    /**
+     * Returns the numeric column used for partitioning the table, null if none
+     * 
+     * @return
+     */
+    public String getPartitionColumn() {
+        return partitionColumn;
+    }
+    
+    /**
+     * Returns the number of threads used for querying partitions
+     * 
+     * @return
+     */
+    public int getThreads() {
+        return threads;
+    }
+    
+    /**
+     * Returns whether the number of rows is determined before importing
+     * 
+     * @return
+     */
+    public boolean isCountRows() {
+        return countRows;
+    }
+    
+    /**
+     * Sets whether the number of rows is determined with a separate query before importing. 
+     * If disabled, progress information will not be available. Default is <code>true</code>.
+     * 
+     * @param countRows
+     */
+    public void setCountRows(boolean countRows) {
+        this.countRows = countRows;
+    }
+    
+    /**
+     * Sets the number of rows fetched from the database at once. Use 0 for the driver's default.
+     * Note that some drivers, e.g. for PostgreSQL, only use cursors if auto-commit is disabled.
+     * Default is <code>0</code>.
+     * 
+     * @param fetchSize
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size must be >= 0");
+        }
+        this.fetchSize = fetchSize;
+    }
+    
+    /**
+     * Splits the table into ranges of values of the given numeric column, which are queried
+     * concurrently. Rows are returned ordered by range. Concurrent queries require separate
+     * connections, which can only be opened if the configuration has been created with a URL.
+     * Otherwise, the ranges are queried one after another.
+     * 
+     * @param column Numeric column, null to disable partitioning
+     * @param threads Number of threads
+     */
+    public void setPartitioning(String column, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1");
+        }
+        this.partitionColumn = column;
+        this.threads = threads;
+    }
+    
     /**
      * 
      *
@@ -181,6 +288,22 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         
     }
     
+    /**
+     * Opens a further connection, if the configuration has been created with a URL
+     * 
+     * @return The connection, null if not possible
+     * @throws SQLException
+     */
+    protected Connection createConnection() throws SQLException {
+        if (url == null) {
+            return null;
+        } else if (user == null) {
+            return DriverManager.getConnection(url);
+        } else {
+            return DriverManager.getConnection(url, user, password);
+        }
+    }
+    
     /**
      * @return {@link #connection}
      */
@@ -70,7 +70,7 @@ import org.deidentifier.arx.metric.v2.__MetricV2;
  * @author Florian Kohlmayer
  * @param <T>
  */
-public abstract class Metric<T extends InformationLoss<?>> implements Serializable {
+public abstract class Metric<T extends InformationLoss<?>> implements Serializable, Cloneable {
 
     /**
      * Pluggable aggregate functions.
@@ -1285,6 +1285,19 @@ public abstract class Metric<T extends InformationLoss<?>> implements Serializab
     @Deprecated
     public abstract InformationLoss<?> createMinInformationLoss();
     
+    /**
+     * Returns an instance of this model that can be used by another thread concurrently
+     * with this instance. Data that has been precomputed during initialization is shared,
+     * buffers and caches that are modified during evaluation are not. The default
+     * implementation returns this instance, as most models do not modify their state
+     * after initialization.
+     *
+     * @return
+     */
+    public Metric<T> createWorkerInstance() {
+        return this;
+    }
+    
     /**
      * Returns the aggregate function of a multi-dimensional metric, null otherwise.
      *
@@ -1564,6 +1577,21 @@ public abstract class Metric<T extends InformationLoss<?>> implements Serializab
         return this.getClass().getSimpleName();
     }
 
+    /**
+     * Returns a shallow copy of this instance. Intended for implementing
+     * <code>createWorkerInstance()</code>.
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    protected Metric<T> createShallowCopy() {
+        try {
+            return (Metric<T>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Evaluates the metric for the given node.
      *
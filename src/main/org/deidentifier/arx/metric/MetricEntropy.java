@@ -90,6 +90,20 @@ public class MetricEntropy extends MetricDefault {
         super(monotonicWithGeneralization, monotonicWithSuppression, independent);
     }
     
+    @Override
+    public Metric<InformationLossDefault> createWorkerInstance() {
+        
+        // The cache is filled during evaluation
+        MetricEntropy result = (MetricEntropy) createShallowCopy();
+        if (this.cache != null) {
+            result.cache = new double[this.cache.length][];
+            for (int i = 0; i < this.cache.length; i++) {
+                result.cache[i] = this.cache[i].clone();
+            }
+        }
+        return result;
+    }
+    
     @Override
     public ElementData render(ARXConfiguration config) {
         ElementData result = new ElementData("Non-uniform entropy");
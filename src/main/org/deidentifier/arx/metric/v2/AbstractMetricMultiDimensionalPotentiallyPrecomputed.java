@@ -27,6 +27,7 @@ import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.InformationLoss;
 import org.deidentifier.arx.metric.InformationLossWithBound;
+import org.deidentifier.arx.metric.Metric;
 
 /**
  * This class provides an abstract skeleton for the implementation of metrics
@@ -110,6 +111,14 @@ public abstract class AbstractMetricMultiDimensionalPotentiallyPrecomputed exten
 
 
 
+    @Override
+    public Metric<AbstractILMultiDimensional> createWorkerInstance() {
+        AbstractMetricMultiDimensionalPotentiallyPrecomputed result = (AbstractMetricMultiDimensionalPotentiallyPrecomputed) createShallowCopy();
+        result.defaultMetric = (AbstractMetricMultiDimensional) this.defaultMetric.createWorkerInstance();
+        result.precomputedMetric = (AbstractMetricMultiDimensional) this.precomputedMetric.createWorkerInstance();
+        return result;
+    }
+
     @Override
     public AggregateFunction getAggregateFunction() {
         if (precomputed) {
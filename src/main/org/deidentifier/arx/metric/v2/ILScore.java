@@ -19,6 +19,7 @@ package org.deidentifier.arx.metric.v2;
 
 import org.apache.commons.math3.fraction.BigFraction;
 import org.deidentifier.arx.metric.InformationLoss;
+import org.deidentifier.arx.reliability.IntervalDouble;
 
 /**
  * This class implements information loss using score values for data-independent
@@ -36,6 +37,9 @@ public class ILScore extends InformationLoss<BigFraction> {
     /** Value */
     private BigFraction       value            = null;
 
+    /** Interval enclosing the value, if known */
+    private IntervalDouble    bounds           = null;
+
     /**
      * Creates a new instance.
      *
@@ -44,14 +48,37 @@ public class ILScore extends InformationLoss<BigFraction> {
     ILScore(final BigFraction value) {
         this.value = value;
     }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param value
+     * @param bounds interval enclosing the value, may be null
+     */
+    ILScore(final BigFraction value, final IntervalDouble bounds) {
+        this.value = value;
+        this.bounds = bounds;
+    }
     
     @Override
     public InformationLoss<BigFraction> clone() {
-        return new ILScore(getValue());
+        return new ILScore(getValue(), bounds);
     }
 
     @Override
     public int compareTo(InformationLoss<?> other) {
+        
+        // Compare bounds, if possible
+        IntervalDouble otherBounds = ((ILScore)other).bounds;
+        if (bounds != null && otherBounds != null) {
+            if (bounds.upper < otherBounds.lower) {
+                return +1;
+            } else if (bounds.lower > otherBounds.upper) {
+                return -1;
+            }
+        }
+        
+        // Compare values
         BigFraction otherValue = ((ILScore)other).getValue();
         return value.compareTo(otherValue) * -1;
     }
@@ -64,6 +91,33 @@ public class ILScore extends InformationLoss<BigFraction> {
         return this.value.equals(otherValue);
     }
     
+    /**
+     * Returns the value converted into a double, which is within one ulp of the exact value.
+     * If the value is enclosed by an interval whose bounds are the same double, this double is
+     * returned without performing arbitrary-precision arithmetic. If no such double can be
+     * determined, an exception is thrown.
+     * 
+     * @return
+     */
+    public double getDoubleValue() {
+        
+        // Use bounds, if the value is represented exactly
+        if (bounds != null && bounds.lower == bounds.upper &&
+            !Double.isInfinite(bounds.lower) && !Double.isNaN(bounds.lower)) {
+            return bounds.lower;
+        }
+        
+        // Convert exact value
+        double result = value.doubleValue();
+        if (Double.isInfinite(result) || Double.isNaN(result)) {
+            throw new RuntimeException("Encountered a value which can not be represented as a double");
+        }
+        if (value.subtract(new BigFraction(result)).abs().compareTo(new BigFraction(Math.ulp(result))) > 0) {
+            throw new RuntimeException("Encountered a value with insufficient precision");
+        }
+        return result;
+    }
+
     @Override
     public BigFraction getValue() {
         return value;
@@ -78,6 +132,7 @@ public class ILScore extends InformationLoss<BigFraction> {
     public void max(final InformationLoss<?> other) {
         if (this.compareTo(other) < 0) {
             this.value = convert(other).value;
+            this.bounds = convert(other).bounds;
         }
     }
 
@@ -85,6 +140,7 @@ public class ILScore extends InformationLoss<BigFraction> {
     public void min(final InformationLoss<?> other) {
         if (this.compareTo(other) > 0) {
             this.value = convert(other).value;
+            this.bounds = convert(other).bounds;
         }
     }
     
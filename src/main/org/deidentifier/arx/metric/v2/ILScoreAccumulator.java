@@ -0,0 +1,191 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.metric.v2;
+
+import org.apache.commons.math3.fraction.BigFraction;
+import org.deidentifier.arx.reliability.IntervalArithmeticDouble;
+import org.deidentifier.arx.reliability.IntervalArithmeticException;
+import org.deidentifier.arx.reliability.IntervalDouble;
+
+/**
+ * Accumulates the exact value of a score as a fraction of two longs. Overflows are detected, in
+ * which case accumulation continues with arbitrary-precision arithmetic. The resulting score
+ * carries an interval enclosing its value, which allows converting it to a double without
+ * arbitrary-precision arithmetic.
+ *
+ * @author Fabian Prasser
+ */
+class ILScoreAccumulator {
+
+    /** Maximal absolute value of a long which can be represented exactly as a double */
+    private static final long MAX_EXACT = 1L << 53;
+
+    /**
+     * Returns the greatest common divisor of two non-negative values
+     * @param a
+     * @param b
+     * @return
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long temp = a % b;
+            a = b;
+            b = temp;
+        }
+        return a;
+    }
+
+    /** Numerator */
+    private long        numerator   = 0L;
+
+    /** Denominator, always positive */
+    private long        denominator = 1L;
+
+    /** Value, if an overflow occurred */
+    private BigFraction value       = null;
+
+    /**
+     * Adds the given value
+     * @param value
+     */
+    public void add(long value) {
+        add(value, 1L);
+    }
+
+    /**
+     * Adds the given fraction
+     * @param fraction
+     * @param factor
+     */
+    public void add(BigFraction fraction, long factor) {
+        if (value == null && fraction.getNumerator().bitLength() < 64 && fraction.getDenominator().bitLength() < 64) {
+            try {
+                add(Math.multiplyExact(fraction.getNumerator().longValue(), factor), fraction.getDenominator().longValue());
+                return;
+            } catch (ArithmeticException e) {
+                // Fall back to arbitrary-precision arithmetic
+            }
+        }
+        if (value == null) {
+            value = getFraction();
+        }
+        value = value.add(fraction.multiply(factor));
+    }
+
+    /**
+     * Adds the given fraction
+     * @param numerator
+     * @param denominator must be positive
+     */
+    public void add(long numerator, long denominator) {
+        if (value == null) {
+            try {
+                long gcd = gcd(this.denominator, denominator);
+                long lcm = Math.multiplyExact(this.denominator / gcd, denominator);
+                long sum = Math.addExact(Math.multiplyExact(this.numerator, lcm / this.denominator),
+                                         Math.multiplyExact(numerator, lcm / denominator));
+                set(sum, lcm);
+                return;
+            } catch (ArithmeticException e) {
+                value = getFraction();
+            }
+        }
+        value = value.add(new BigFraction(numerator, denominator));
+    }
+
+    /**
+     * Returns the score
+     * @return
+     */
+    public ILScore getScore() {
+
+        // Overflow
+        if (value != null) {
+            return new ILScore(value);
+        }
+
+        // Enclose value
+        IntervalDouble bounds = null;
+        try {
+            IntervalArithmeticDouble arithmetic = new IntervalArithmeticDouble();
+            bounds = arithmetic.div(getInterval(arithmetic, numerator), getInterval(arithmetic, denominator));
+        } catch (IntervalArithmeticException e) {
+            // Ignore, the value will be converted using arbitrary-precision arithmetic
+        }
+        return new ILScore(getFraction(), bounds);
+    }
+
+    /**
+     * Multiplies with the given fraction
+     * @param numerator
+     * @param denominator must be positive
+     */
+    public void multiply(long numerator, long denominator) {
+        if (value == null) {
+            try {
+                set(Math.multiplyExact(this.numerator, numerator), Math.multiplyExact(this.denominator, denominator));
+                return;
+            } catch (ArithmeticException e) {
+                value = getFraction();
+            }
+        }
+        value = value.multiply(new BigFraction(numerator, denominator));
+    }
+
+    /**
+     * Returns the current value as a fraction
+     * @return
+     */
+    private BigFraction getFraction() {
+        return new BigFraction(numerator, denominator);
+    }
+
+    /**
+     * Returns an interval enclosing the given value
+     * @param arithmetic
+     * @param value
+     * @return
+     * @throws IntervalArithmeticException
+     */
+    private IntervalDouble getInterval(IntervalArithmeticDouble arithmetic, long value) throws IntervalArithmeticException {
+        double result = value;
+        if (Math.abs(value) <= MAX_EXACT) {
+            return arithmetic.createInterval(result);
+        } else {
+            return arithmetic.createInterval(Math.nextDown(result), Math.nextUp(result));
+        }
+    }
+
+    /**
+     * Sets the value
+     * @param numerator
+     * @param denominator must be positive
+     */
+    private void set(long numerator, long denominator) {
+        if (numerator == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        long gcd = gcd(Math.abs(numerator), denominator);
+        if (gcd > 1) {
+            numerator /= gcd;
+            denominator /= gcd;
+        }
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+}
@@ -17,11 +17,8 @@
 
 package org.deidentifier.arx.metric.v2;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
-import org.apache.commons.math3.fraction.BigFraction;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.DataDefinition;
 import org.deidentifier.arx.certificate.elements.ElementData;
@@ -35,7 +32,7 @@ import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.MetricConfiguration;
 
-import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.carrotsearch.hppc.IntIntOpenHashMap;
 
 /**
  * This class implements a variant of the Loss metric.
@@ -148,10 +145,9 @@ public class MetricMDNMLoss extends AbstractMetricMultiDimensional {
         // Prepare
         int[] transformation = node.getGeneralization();
         int dimensionsGeneralized = getDimensionsGeneralized();
-        List<ObjectIntOpenHashMap<BigFraction>> dimensionSharesToCount =
-                new ArrayList<ObjectIntOpenHashMap<BigFraction>>(dimensionsGeneralized);
+        IntIntOpenHashMap[] dimensionValuesToCount = new IntIntOpenHashMap[dimensionsGeneralized];
         for (int dimension=0; dimension<dimensionsGeneralized; dimension++){
-            dimensionSharesToCount.add(new ObjectIntOpenHashMap<BigFraction>());
+            dimensionValuesToCount[dimension] = new IntIntOpenHashMap();
         }
 
         // Calculate counts. During these computations, no overflows can occur
@@ -166,10 +162,7 @@ public class MetricMDNMLoss extends AbstractMetricMultiDimensional {
                         numOutliers += m.count;
                     } else {
                         int value = m.next();
-                        int level = transformation[dimension];
-                        BigFraction shareReliable = sharesReliable[dimension].getShare(value, level);
-                        ObjectIntOpenHashMap<BigFraction> sharesToCount = dimensionSharesToCount.get(dimension);
-                        sharesToCount.putOrAdd(shareReliable, m.count, m.count);
+                        dimensionValuesToCount[dimension].putOrAdd(value, m.count, m.count);
                     }
                 }
                 numOutliers += m.pcount - m.count;
@@ -177,28 +170,31 @@ public class MetricMDNMLoss extends AbstractMetricMultiDimensional {
             m = m.nextOrdered;
         }
         
-        // Calculate score
-        BigFraction score = new BigFraction(numOutliers);
+        // Calculate score. The generalization level is the same for all values of a dimension,
+        // which is why the share of each distinct value is looked up only once.
+        ILScoreAccumulator score = new ILScoreAccumulator();
+        score.add(numOutliers);
         for (int dimension=0; dimension<dimensionsGeneralized; dimension++){
             
-            ObjectIntOpenHashMap<BigFraction> sharesToCount = dimensionSharesToCount.get(dimension);
-            final boolean[] states = sharesToCount.allocated;
-            final int[] counts = sharesToCount.values;
-            final Object[] sharesReliable = sharesToCount.keys;
+            IntIntOpenHashMap valuesToCount = dimensionValuesToCount[dimension];
+            final boolean[] states = valuesToCount.allocated;
+            final int[] values = valuesToCount.keys;
+            final int[] counts = valuesToCount.values;
+            final int level = transformation[dimension];
             
             for (int i=0; i<states.length; i++) {
                 if (states[i]) {
-                    score = score.add(((BigFraction)(sharesReliable[i])).multiply(counts[i]));
+                    score.add(sharesReliable[dimension].getShare(values[i], level), counts[i]);
                 }
             }
         }
 
         // Divide by sensitivity and multiply with -1 so that higher values are better
-        score = score.multiply(new BigFraction(-1, dimensionsGeneralized));
-        if (k > 1) score = score.divide(new BigFraction(k - 1));
+        score.multiply(-1L, dimensionsGeneralized);
+        if (k > 1) score.multiply(1L, k - 1);
 
         // Return
-        return new ILScore(score);
+        return score.getScore();
     }
     
     @Override
@@ -19,7 +19,6 @@ package org.deidentifier.arx.metric.v2;
 
 import java.util.Arrays;
 
-import org.apache.commons.math3.fraction.BigFraction;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.DataDefinition;
 import org.deidentifier.arx.RowSet;
@@ -32,6 +31,7 @@ import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.metric.Metric;
 import org.deidentifier.arx.metric.MetricConfiguration;
 
 import com.carrotsearch.hppc.IntIntOpenHashMap;
@@ -134,6 +134,20 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
         );
     }
     
+    @Override
+    public Metric<AbstractILMultiDimensional> createWorkerInstance() {
+        
+        // The cache is filled during evaluation
+        MetricMDNUEntropyPrecomputed result = (MetricMDNUEntropyPrecomputed) createShallowCopy();
+        if (this.cache != null) {
+            result.cache = new double[this.cache.length][];
+            for (int i = 0; i < this.cache.length; i++) {
+                result.cache[i] = this.cache[i].clone();
+            }
+        }
+        return result;
+    }
+    
     @Override
     /**
      * Implements the score function described in Section 5.3 of the article
@@ -156,7 +170,7 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
 
         // Compute score. The casts to long are required to avoid integer overflows
         // when large numbers are being multiplied.
-        BigFraction score = BigFraction.ZERO;
+        ILScoreAccumulator score = new ILScoreAccumulator();
         HashGroupifyEntry m = groupify.getFirstEquivalenceClass();
         while (m != null) {
             m.read();
@@ -168,10 +182,10 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
                     nonSuppressedValueToCount[dimension].putOrAdd(value, m.count, m.count);
                 } else {
                     // The attribute value has been suppressed because of record suppression or because of generalization
-                    score = score.add(new BigFraction((long)m.count * (long)rows));
+                    score.add((long)m.count * (long)rows);
                 }
                 // Add values for records which have been suppressed by sampling
-                score = score.add(new BigFraction((long)(m.pcount - m.count) * (long)rows));
+                score.add((long)(m.pcount - m.count) * (long)rows);
             }
             m = m.nextOrdered;
         }
@@ -181,17 +195,21 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
             final int [] counts = nonSuppressedValueToCount[dimension].values;
             for (int i=0; i<states.length; i++) {
                 if (states[i]) {
-                    score = score.add(new BigFraction((long)counts[i] * (long)counts[i]));
+                    score.add((long)counts[i] * (long)counts[i]);
                 }
             }
         }
 
         // Adjust sensitivity and multiply with -1 so that higher values are better
-        score = score.multiply(BigFraction.MINUS_ONE.divide(new BigFraction(((long)rows * (long)dimensionsGeneralized))));
-        score = score.divide((k == 1) ? new BigFraction(5) : new BigFraction(k * k).divide(new BigFraction(k - 1)).add(BigFraction.ONE));
+        score.multiply(-1L, (long)rows * (long)dimensionsGeneralized);
+        if (k == 1) {
+            score.multiply(1L, 5L);
+        } else {
+            score.multiply(k - 1, (long)k * (long)k + k - 1);
+        }
         
         // Return score
-        return new ILScore(score);
+        return score.getScore();
     }
     
     @Override
@@ -17,7 +17,6 @@
 
 package org.deidentifier.arx.metric.v2;
 
-import org.apache.commons.math3.fraction.BigFraction;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.DataDefinition;
 import org.deidentifier.arx.certificate.elements.ElementData;
@@ -115,28 +114,32 @@ public class MetricSDNMDiscernability extends AbstractMetricSingleDimensional {
         
         // Prepare
         int numSuppressed = 0;
-        BigFraction penaltyNotSuppressed = BigFraction.ZERO;
+        ILScoreAccumulator score = new ILScoreAccumulator();
         
         // Sum up penalties. The casts to long are required to avoid integer overflows
         // when large numbers are being multiplied.
         HashGroupifyEntry m = groupify.getFirstEquivalenceClass();
         while (m != null) {
             if (m.isNotOutlier) {
-                penaltyNotSuppressed = penaltyNotSuppressed.add(new BigFraction((long)m.count * (long)m.count));
+                score.add((long)m.count * (long)m.count);
             } else {
                 numSuppressed += m.count;
             }
             numSuppressed += m.pcount - m.count;
             m = m.nextOrdered;
         }
-        BigFraction penaltySuppressed = new BigFraction(numRows * (long)numSuppressed);
+        score.add(numRows * (long)numSuppressed);
         
         // Adjust sensitivity and multiply with -1 so that higher values are better
-        BigFraction score = BigFraction.MINUS_ONE.multiply(penaltySuppressed.add(penaltyNotSuppressed));
-        score = score.divide(new BigFraction(numRows).multiply((k == 1) ? new BigFraction(5) : new BigFraction(k * k).divide(new BigFraction(k - 1)).add(BigFraction.ONE)));
+        score.multiply(-1L, numRows);
+        if (k == 1) {
+            score.multiply(1L, 5L);
+        } else {
+            score.multiply(k - 1, k * k + k - 1);
+        }
         
         // Return score
-        return new ILScore(score);
+        return score.getScore();
     }
     
     @Override
@@ -31,6 +31,7 @@ import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.metric.Metric;
 import org.deidentifier.arx.metric.MetricConfiguration;
 
 /**
@@ -128,6 +129,17 @@ public class MetricSDNMKLDivergence extends AbstractMetricSingleDimensional {
         }
     }
 
+    @Override
+    public Metric<ILSingleDimensional> createWorkerInstance() {
+        
+        // The matcher uses a buffer during evaluation
+        MetricSDNMKLDivergence result = (MetricSDNMKLDivergence) createShallowCopy();
+        if (this.matcher != null) {
+            result.matcher = new TupleMatcher(this.matcher);
+        }
+        return result;
+    }
+
     @Override
     public ILSingleDimensional createMinInformationLoss() {
         return new ILSingleDimensional(0);
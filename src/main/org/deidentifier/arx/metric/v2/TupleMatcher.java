@@ -55,6 +55,15 @@ public class TupleMatcher implements Serializable {
         this.tuple = new int[this.hierarchies.length];
     }
     
+    /**
+     * Creates a new instance that shares the hierarchies with the given matcher
+     * @param other
+     */
+    TupleMatcher(TupleMatcher other) {
+        this.hierarchies = other.hierarchies;
+        this.tuple = new int[this.hierarchies.length];
+    }
+    
     /**
      * Returns the entry for the given input tuple
      * @param row
@@ -174,8 +174,39 @@ public class RiskEstimateBuilder {
      * @return the RiskModelAttributes data from risk analysis
      */
     public RiskModelAttributes getAttributeRisks() {
+        return getAttributeRisks(this.identifiers.size());
+    }
+
+    /**
+     * Returns a class providing access to an analysis of potential quasi-identifiers using
+     * the concepts of alpha distinction and alpha separation. Only quasi-identifiers consisting
+     * of at most the given number of attributes will be analyzed.
+     *
+     * @param maxSize maximal number of attributes in a quasi-identifier
+     * @return the RiskModelAttributes data from risk analysis
+     */
+    public RiskModelAttributes getAttributeRisks(int maxSize) {
+        return getAttributeRisks(maxSize, 1);
+    }
+
+    /**
+     * Returns a class providing access to an analysis of potential quasi-identifiers using
+     * the concepts of alpha distinction and alpha separation. Only quasi-identifiers consisting
+     * of at most the given number of attributes will be analyzed, using the given number of threads.
+     *
+     * @param maxSize maximal number of attributes in a quasi-identifier
+     * @param threads number of threads
+     * @return the RiskModelAttributes data from risk analysis
+     */
+    public RiskModelAttributes getAttributeRisks(int maxSize, int threads) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximal size of quasi-identifiers must be positive");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
         progress.value = 0;
-        return new RiskModelAttributes(this.population, this.handle, this.identifiers, this.stop, progress, this.solverconfig, this.arxconfig);
+        return new RiskModelAttributes(this.handle, this.identifiers, maxSize, threads, this.stop, progress);
     }
 
     /**
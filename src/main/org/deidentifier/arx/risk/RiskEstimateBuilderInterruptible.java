@@ -53,6 +53,39 @@ public class RiskEstimateBuilderInterruptible {
         }
     }
 
+    /**
+     * Returns a class providing access to an analysis of potential quasi-identifiers using
+     * the concepts of alpha distinction and alpha separation. Only quasi-identifiers consisting
+     * of at most the given number of attributes will be analyzed.
+     *
+     * @param maxSize maximal number of attributes in a quasi-identifier
+     * @return the RiskModelAttributes data from risk analysis
+     */
+    public RiskModelAttributes getAttributeRisks(int maxSize) throws InterruptedException {
+        try {
+            return parent.getAttributeRisks(maxSize);
+        } catch (ComputationInterruptedException e) {
+            throw new InterruptedException("Computation interrupted");
+        }
+    }
+
+    /**
+     * Returns a class providing access to an analysis of potential quasi-identifiers using
+     * the concepts of alpha distinction and alpha separation. Only quasi-identifiers consisting
+     * of at most the given number of attributes will be analyzed, using the given number of threads.
+     *
+     * @param maxSize maximal number of attributes in a quasi-identifier
+     * @param threads number of threads
+     * @return the RiskModelAttributes data from risk analysis
+     */
+    public RiskModelAttributes getAttributeRisks(int maxSize, int threads) throws InterruptedException {
+        try {
+            return parent.getAttributeRisks(maxSize, threads);
+        } catch (ComputationInterruptedException e) {
+            throw new InterruptedException("Computation interrupted");
+        }
+    }
+
     /**
      * Returns a model of the equivalence classes in this data set
      * 
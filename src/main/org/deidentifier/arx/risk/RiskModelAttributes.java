@@ -21,25 +21,31 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.deidentifier.arx.ARXConfiguration;
-import org.deidentifier.arx.ARXPopulationModel;
-import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
 
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.carrotsearch.hppc.LongIntOpenHashMap;
+
 /**
  * A class for analyzing attribute-related risks. Calculates alpha-distinction and
  * alpha separation as described in R. Motwani et al.
  * "Efficient algorithms for masking and finding quasi-identifiers" Proc. VLDB Conf., 2007.
- *
+ * <br>
+ * <br>
+ * Subsets of quasi-identifiers are enumerated depth-first, such that each subset is derived
+ * from the subset without the attribute with the largest column index. The equivalence
+ * classes of a subset are computed by refining the classes of this parent with the values of
+ * the additional attribute. Only the classes of the subsets on the current path are kept in
+ * memory. Independent subtrees may be evaluated in parallel.
  *
  * @author Fabian Prasser
  * @author Maximilian Zitzmann
@@ -65,20 +71,13 @@ public class RiskModelAttributes {
          * Creates a new instance
          *
          * @param identifier
+         * @param histogram
          */
-        private QuasiIdentifierRisk(List<String> identifier) {
+        private QuasiIdentifierRisk(List<String> identifier, RiskModelHistogram histogram) {
 
             // Store identifier
             this.identifier = identifier;
 
-            // Calculate distribution of class sizes
-            RiskModelHistogram histogram = new RiskEstimateBuilder(population,
-                                                                   handle,
-                                                                   new HashSet<String>(identifier),
-                                                                   stop,
-                                                                   solverconfig,
-                                                                   arxconfig).getEquivalenceClassModel();
-
             // Calculate distinction and separation
             this.alphaDistinction = getAlphaDistinction(histogram);
             this.alphaSeparation = getAlphaSeparation(histogram);
@@ -136,82 +135,168 @@ public class RiskModelAttributes {
             return Double.isNaN(alphaSeparation) ? 0d : alphaSeparation;
         }
     }
+    /**
+     * Evaluates a quasi-identifier, which is created by adding an attribute to a parent
+     * identifier, and all of its supersets containing attributes with larger column indices
+     *
+     * @author Fabian Prasser
+     */
+    private class Evaluation extends RecursiveAction {
+
+        /** SVUID */
+        private static final long  serialVersionUID = -2749553385453036101L;
+
+        /** The parent identifier */
+        private final List<String> parent;
+        /** The classes of the parent identifier */
+        private final int[]        classes;
+        /** The attribute to add */
+        private final int          attribute;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param parent
+         * @param classes
+         * @param attribute
+         */
+        private Evaluation(List<String> parent, int[] classes, int attribute) {
+            this.parent = parent;
+            this.classes = classes;
+            this.attribute = attribute;
+        }
+
+        @Override
+        protected void compute() {
+
+            // Evaluate
+            List<String> identifier = new ArrayList<String>(parent);
+            identifier.add(attributes[attribute]);
+            int[] classes = evaluate(identifier, this.classes, attribute);
+
+            // Recursion
+            if (identifier.size() < maxSize) {
+                List<Evaluation> evaluations = new ArrayList<Evaluation>();
+                for (int next = attribute + 1; next < attributes.length; next++) {
+                    evaluations.add(new Evaluation(identifier, classes, next));
+                }
+                if (inForkJoinPool()) {
+                    invokeAll(evaluations);
+                } else {
+                    for (Evaluation evaluation : evaluations) {
+                        evaluation.compute();
+                    }
+                }
+            }
+        }
+    }
+
     /** Stop flag */
-    private final WrappedBoolean        stop;
+    private final WrappedBoolean            stop;
     /** Results */
-    private final QuasiIdentifierRisk[] risks;
-    /** Just needed for creating risk models */
-    private ARXPopulationModel          population;
+    private final QuasiIdentifierRisk[]     risks;
     /** Data handle */
-    private DataHandleInternal          handle;
-    /** Just needed for creating risk models */
-    private ARXSolverConfiguration      solverconfig;
-    /** Just needed for creating risk models */
-    private ARXConfiguration            arxconfig;
+    private final DataHandleInternal        handle;
+    /** Attributes, ordered by column index */
+    private final String[]                  attributes;
+    /** Column indices of the attributes */
+    private final int[][]                   columns;
+    /** Identifiers of the values of each attribute, indexed by code + 1 */
+    private final int[][]                   identifiers;
+    /** Number of distinct identifiers of each attribute */
+    private final int[]                     radix;
+    /** Maximal size of the quasi-identifiers */
+    private final int                       maxSize;
+    /** Results */
+    private final List<QuasiIdentifierRisk> results;
+    /** Progress */
+    private final WrappedInteger            percentageDone;
+    /** Progress */
+    private final AtomicInteger             done = new AtomicInteger();
+    /** Progress */
+    private final double                    total;
 
     /**
      * Creates a new instance
-     * @param population
      * @param handle
      * @param identifiers
+     * @param maxSize
+     * @param threads
      * @param stop
      * @param percentageDone
-     * @param solverconfig
-     * @param arxconfig
      */
-    RiskModelAttributes(final ARXPopulationModel population,
-                        final DataHandleInternal handle,
+    RiskModelAttributes(final DataHandleInternal handle,
                         final Set<String> identifiers,
+                        final int maxSize,
+                        final int threads,
                         final WrappedBoolean stop,
-                        final WrappedInteger percentageDone,
-                        final ARXSolverConfiguration solverconfig,
-                        final ARXConfiguration arxconfig) {
+                        final WrappedInteger percentageDone) {
         
-        this.population = population;
         this.handle = handle;
         this.stop = stop;
-        this.solverconfig = solverconfig;
-        this.arxconfig = arxconfig;
+        this.percentageDone = percentageDone;
+        this.results = Collections.synchronizedList(new ArrayList<QuasiIdentifierRisk>());
+        this.maxSize = maxSize;
 
-        // Find order list of qis
-        List<List<String>> qis = new ArrayList<>();
-        Set<Set<String>> powerset = getPowerSet(identifiers);
-        for (Set<String> set : powerset) {
-            
-            // Exclude empty set
-            if (!set.isEmpty()) {
-                
-                // Create and add
-                List<String> qi = new ArrayList<String>(set);
-                qis.add(qi);
-                
-                // Sort by column index
-                Collections.sort(qi, new Comparator<String>(){
-                    @Override
-                    public int compare(String o1, String o2) {
-                        int index1 = handle.getColumnIndexOf(o1);
-                        int index2 = handle.getColumnIndexOf(o2);
-                        return Integer.valueOf(index1).compareTo(index2);
-                    }
-                });
-            }
+        // Order qis by column index
+        for (String q : identifiers) {
+            if (handle.getColumnIndexOf(q) == -1) { throw new IllegalArgumentException(q + " is not an attribute"); }
         }
-        
-        // Compute risk estimates for all elements in the power set
-        Map<List<String>, QuasiIdentifierRisk> scores = new HashMap<>();
-        int done = 0;
-        for (List<String> qi : qis) {
+        this.attributes = identifiers.toArray(new String[identifiers.size()]);
+        Arrays.sort(this.attributes, new Comparator<String>(){
+            @Override
+            public int compare(String o1, String o2) {
+                int index1 = handle.getColumnIndexOf(o1);
+                int index2 = handle.getColumnIndexOf(o2);
+                return Integer.valueOf(index1).compareTo(index2);
+            }
+        });
+
+        // Prepare encoding
+        this.columns = new int[attributes.length][];
+        this.identifiers = new int[attributes.length][];
+        this.radix = new int[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            this.columns[i] = new int[] { handle.getColumnIndexOf(attributes[i]) };
+            this.identifiers[i] = RiskModelHistogram.getIdentifiers(handle, columns[i][0]);
+            this.radix[i] = RiskModelHistogram.getNumIdentifiers(this.identifiers[i]);
             checkInterrupt();
-            scores.put(qi, new QuasiIdentifierRisk(qi));
-            percentageDone.value = (int) Math.round((double) done++ / (double) (powerset.size() - 1) * 100d);
         }
 
-        // Now create sorted array
-        risks = new QuasiIdentifierRisk[scores.size()];
-        int idx = 0;
-        for (QuasiIdentifierRisk value : scores.values()) {
-            risks[idx++] = value;
+        // Number of subsets to evaluate
+        double total = 0d;
+        double binomial = 1d;
+        for (int size = 1; size <= Math.min(maxSize, attributes.length); size++) {
+            binomial = binomial * (attributes.length - size + 1) / size;
+            total += binomial;
+        }
+        this.total = total;
+
+        // Evaluate subsets, starting with each attribute
+        List<Evaluation> evaluations = new ArrayList<Evaluation>();
+        for (int attribute = 0; attribute < attributes.length; attribute++) {
+            evaluations.add(new Evaluation(new ArrayList<String>(), null, attribute));
         }
+        if (threads > 1 && attributes.length > 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (Evaluation evaluation : evaluations) {
+                    pool.execute(evaluation);
+                }
+                for (Evaluation evaluation : evaluations) {
+                    evaluation.join();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        } else {
+            for (Evaluation evaluation : evaluations) {
+                evaluation.compute();
+            }
+        }
+
+        // Now create sorted array
+        risks = results.toArray(new QuasiIdentifierRisk[results.size()]);
         Arrays.sort(risks);
     }
 
@@ -233,6 +318,75 @@ public class RiskModelAttributes {
         }
     }
 
+    /**
+     * Computes the equivalence classes of the given identifier by refining the classes of its
+     * parent with the values of the given attribute and stores the resulting risks. Returns
+     * the class of each record. Records, which are suppressed regarding all attributes of the
+     * identifier, are represented by the bitwise complement of their class.
+     * 
+     * @param identifier
+     * @param parent classes of the parent, <code>null</code> for the empty set
+     * @param attribute
+     * @return
+     */
+    private int[] evaluate(List<String> identifier, int[] parent, int attribute) {
+
+        // Prepare
+        int numRows = handle.getNumRows();
+        int[] classes = new int[numRows];
+        int[] sizes = new int[numRows];
+        int[] codes = identifiers[attribute];
+        int[] column = columns[attribute];
+        long multiplier = radix[attribute];
+        LongIntOpenHashMap map = new LongIntOpenHashMap();
+
+        // Refine
+        for (int row = 0; row < numRows; row++) {
+
+            // Extract parent class
+            int parentClass = parent == null ? 0 : parent[row];
+            boolean suppressed = parentClass < 0 || parent == null;
+            parentClass = parentClass < 0 ? ~parentClass : parentClass;
+
+            // Derive class
+            long key = parentClass * multiplier + codes[handle.getEncodedValue(row, column[0], false) + 1];
+            int clazz;
+            if (map.containsKey(key)) {
+                clazz = map.lget();
+            } else {
+                clazz = map.size();
+                map.put(key, clazz);
+            }
+
+            // Store
+            suppressed = suppressed && handle.isOutlier(row, column);
+            if (suppressed) {
+                classes[row] = ~clazz;
+            } else {
+                classes[row] = clazz;
+                sizes[clazz]++;
+            }
+            
+            // Check
+            if (stop.value) { throw new ComputationInterruptedException(); }
+        }
+        
+        // Group by size
+        IntIntOpenHashMap grouped = new IntIntOpenHashMap();
+        for (int clazz = 0; clazz < map.size(); clazz++) {
+            if (sizes[clazz] != 0) {
+                grouped.putOrAdd(sizes[clazz], 1, 1);
+            }
+        }
+        
+        // Store and track progress
+        results.add(new QuasiIdentifierRisk(identifier, new RiskModelHistogram(grouped)));
+        percentageDone.value = (int) Math.round((double) done.incrementAndGet() / total * 100d);
+        
+        // Return
+        return classes;
+    }
+
     /**
      * Calculates the Gaussian sum formula
      * 
@@ -307,31 +461,4 @@ public class RiskModelAttributes {
         // at least an alpha fraction of all record pairs
         return separatedRecords / totalNumberOfComparisons;
     }
-
-    /**
-     * Returns the power set
-     *
-     * @param originalSet
-     * @return
-     */
-    private <T> Set<Set<T>> getPowerSet(Set<T> originalSet) {
-        checkInterrupt();
-        Set<Set<T>> sets = new HashSet<Set<T>>();
-        if (originalSet.isEmpty()) {
-            sets.add(new HashSet<T>());
-            return sets;
-        }
-        List<T> list = new ArrayList<T>(originalSet);
-        T head = list.get(0);
-        Set<T> rest = new HashSet<T>(list.subList(1, list.size()));
-        for (Set<T> set : getPowerSet(rest)) {
-            checkInterrupt();
-            Set<T> newSet = new HashSet<T>();
-            newSet.add(head);
-            newSet.addAll(set);
-            sets.add(newSet);
-            sets.add(set);
-        }
-        return sets;
-    }
-}
\ No newline at end of file
+}
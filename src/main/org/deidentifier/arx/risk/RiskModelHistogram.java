@@ -19,9 +19,12 @@ package org.deidentifier.arx.risk;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.common.Groupify;
 import org.deidentifier.arx.common.Groupify.Group;
 import org.deidentifier.arx.common.TupleWrapper;
@@ -30,6 +33,7 @@ import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
 
 import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.carrotsearch.hppc.LongIntOpenHashMap;
 
 /**
  * This class encapsulates information about equivalence classes in a data set
@@ -47,6 +51,46 @@ public class RiskModelHistogram {
     /** Summary */
     private double numClasses;
 
+    /**
+     * Maps the codes of the given column to identifiers, such that codes representing the same
+     * string, including suppressed values, share an identifier. The resulting array is indexed
+     * by code + 1, as suppressed values are encoded as -1.
+     * 
+     * @param handle
+     * @param column
+     * @return
+     */
+    static int[] getIdentifiers(DataHandleInternal handle, int column) {
+        String[] dictionary = handle.getDictionary(column);
+        int length = dictionary == null ? 0 : dictionary.length;
+        Map<String, Integer> mapping = new HashMap<String, Integer>();
+        mapping.put(DataType.ANY_VALUE, 0);
+        int[] identifiers = new int[length + 1];
+        for (int code = 0; code < length; code++) {
+            Integer identifier = mapping.get(dictionary[code]);
+            if (identifier == null) {
+                identifier = mapping.size();
+                mapping.put(dictionary[code], identifier);
+            }
+            identifiers[code + 1] = identifier;
+        }
+        return identifiers;
+    }
+
+    /**
+     * Returns the number of distinct identifiers in the given mapping
+     * 
+     * @param identifiers
+     * @return
+     */
+    static int getNumIdentifiers(int[] identifiers) {
+        int max = 0;
+        for (int identifier : identifiers) {
+            max = Math.max(max, identifier);
+        }
+        return max + 1;
+    }
+
     /**
      * Creates a new instance from the given distribution.
      * IMPORTANT: Suppressed records should have been ignored before calling this.
@@ -59,6 +103,18 @@ public class RiskModelHistogram {
                                new WrappedInteger());
     }
 
+    /**
+     * Creates a new instance from the given histogram, which contains class sizes and the
+     * numbers of classes of the respective size, ordered ascending by class size, 
+     * as returned by {@link #getHistogram()}. The array is not copied.
+     * IMPORTANT: Suppressed records should have been ignored before calling this.
+     * 
+     * @param histogram
+     */
+    public RiskModelHistogram(final int[] histogram) {
+        this.analyze(histogram, new WrappedBoolean());
+    }
+
     /**
      * Creates a new instance by analyzing the given data handle. 
      * IMPORTANT: Suppressed records will be ignored!
@@ -91,43 +147,12 @@ public class RiskModelHistogram {
         }
         Arrays.sort(indices);
 
-        // Calculate equivalence classes
-        int capacity = handle.getNumRows() / 10;
-        capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> map = new Groupify<TupleWrapper>(capacity);
-        int numRows = handle.getNumRows();
-        for (int row = 0; row < numRows; row++) {
-
-            int prog = (int) Math.round((double) row / (double) numRows * factor * 80d);
-            if (prog != progress.value) {
-                progress.value = prog;
-            }
-
-            if (!handle.isOutlier(row, indices)) {
-                TupleWrapper tuple = new TupleWrapper(handle, indices, row);
-                map.add(tuple);
-            }
-            if (stop.value) { throw new ComputationInterruptedException(); }
-        }
-
-        // Group by size
-        IntIntOpenHashMap grouped = new IntIntOpenHashMap();
-
-        int i = 0;
-        int size = map.size();
-        Group<TupleWrapper> element = map.first();
-        while (element != null) {
-            int prog = (int) Math.round((80d + (double) i++ / (double) size * 20d) * factor);
-            if (prog != progress.value) {
-                progress.value = prog;
-            }
-            grouped.putOrAdd(element.getCount(), 1, 1);
-            element = element.next();
-            if (stop.value) { throw new ComputationInterruptedException(); }
+        // Calculate equivalence classes, preferably on the encoded data
+        IntIntOpenHashMap grouped = getClassSizesEncoded(handle, indices, stop, progress, factor);
+        if (grouped == null) {
+            grouped = getClassSizes(handle, indices, stop, progress, factor);
         }
 
-        map = null;
-
         convertAndAnalyze(grouped, stop, progress);
     }
 
@@ -176,6 +201,26 @@ public class RiskModelHistogram {
         return numRecords == 0d;
     }
 
+    /**
+     * Stores and analyzes the given histogram
+     * 
+     * @param histogram
+     * @param stop
+     */
+    private void analyze(int[] histogram, final WrappedBoolean stop) {
+        int numClasses = 0;
+        int numTuples = 0;
+        for (int idx = 0; idx < histogram.length; idx += 2) {
+            numClasses += histogram[idx + 1];
+            numTuples += histogram[idx] * histogram[idx + 1];
+            if (stop.value) { throw new ComputationInterruptedException(); }
+        }
+        this.equivalenceClasses = histogram;
+        this.numRecords = numTuples;
+        this.numClasses = numClasses;
+        this.avgClassSize = this.numRecords / this.numClasses;
+    }
+
     /**
      * Convert and analyze
      * 
@@ -209,20 +254,150 @@ public class RiskModelHistogram {
             }
         });
 
-        // Convert and analyze
-        int numClasses = 0;
-        int numTuples = 0;
-        this.equivalenceClasses = new int[temp.length * 2];
+        // Convert
+        int[] histogram = new int[temp.length * 2];
         idx = 0;
         for (int[] entry : temp) {
-            this.equivalenceClasses[idx++] = entry[0];
-            this.equivalenceClasses[idx++] = entry[1];
-            numClasses += entry[1];
-            numTuples += entry[0] * entry[1];
+            histogram[idx++] = entry[0];
+            histogram[idx++] = entry[1];
             if (stop.value) { throw new ComputationInterruptedException(); }
         }
-        this.numRecords = numTuples;
-        this.numClasses = numClasses;
-        this.avgClassSize = this.numRecords / this.numClasses;
+        
+        // Analyze
+        analyze(histogram, stop);
+    }
+
+    /**
+     * Computes the sizes of equivalence classes by comparing the values of the
+     * quasi-identifiers as strings
+     * 
+     * @param handle
+     * @param indices
+     * @param stop
+     * @param progress
+     * @param factor
+     * @return
+     */
+    private IntIntOpenHashMap getClassSizes(final DataHandleInternal handle,
+                                            final int[] indices,
+                                            final WrappedBoolean stop,
+                                            final WrappedInteger progress,
+                                            final double factor) {
+
+        // Calculate equivalence classes
+        int capacity = handle.getNumRows() / 10;
+        capacity = capacity > 10 ? capacity : 10;
+        Groupify<TupleWrapper> map = new Groupify<TupleWrapper>(capacity);
+        int numRows = handle.getNumRows();
+        for (int row = 0; row < numRows; row++) {
+
+            int prog = (int) Math.round((double) row / (double) numRows * factor * 80d);
+            if (prog != progress.value) {
+                progress.value = prog;
+            }
+
+            if (!handle.isOutlier(row, indices)) {
+                TupleWrapper tuple = new TupleWrapper(handle, indices, row);
+                map.add(tuple);
+            }
+            if (stop.value) { throw new ComputationInterruptedException(); }
+        }
+
+        // Group by size
+        IntIntOpenHashMap grouped = new IntIntOpenHashMap();
+
+        int i = 0;
+        int size = map.size();
+        Group<TupleWrapper> element = map.first();
+        while (element != null) {
+            int prog = (int) Math.round((80d + (double) i++ / (double) size * 20d) * factor);
+            if (prog != progress.value) {
+                progress.value = prog;
+            }
+            grouped.putOrAdd(element.getCount(), 1, 1);
+            element = element.next();
+            if (stop.value) { throw new ComputationInterruptedException(); }
+        }
+        
+        // Return
+        return grouped;
+    }
+
+    /**
+     * Computes the sizes of equivalence classes on the dictionary-encoded values of the
+     * quasi-identifiers. Codes are first mapped to identifiers and the identifiers of
+     * each record are then combined into a single long. Returns <code>null</code>, if the
+     * number of possible combinations exceeds the range of a long.
+     * 
+     * @param handle
+     * @param indices
+     * @param stop
+     * @param progress
+     * @param factor
+     * @return
+     */
+    private IntIntOpenHashMap getClassSizesEncoded(final DataHandleInternal handle,
+                                                   final int[] indices,
+                                                   final WrappedBoolean stop,
+                                                   final WrappedInteger progress,
+                                                   final double factor) {
+
+        // Map codes to identifiers
+        int[][] identifiers = new int[indices.length][];
+        long[] multipliers = new long[indices.length];
+        long multiplier = 1L;
+        for (int i = 0; i < indices.length; i++) {
+            identifiers[i] = getIdentifiers(handle, indices[i]);
+            multipliers[i] = multiplier;
+            try {
+                multiplier = Math.multiplyExact(multiplier, (long) getNumIdentifiers(identifiers[i]));
+            } catch (ArithmeticException e) {
+                return null;
+            }
+            if (stop.value) { throw new ComputationInterruptedException(); }
+        }
+
+        // Calculate equivalence classes
+        int capacity = handle.getNumRows() / 10;
+        capacity = capacity > 10 ? capacity : 10;
+        LongIntOpenHashMap classes = new LongIntOpenHashMap(capacity);
+        int numRows = handle.getNumRows();
+        for (int row = 0; row < numRows; row++) {
+
+            int prog = (int) Math.round((double) row / (double) numRows * factor * 80d);
+            if (prog != progress.value) {
+                progress.value = prog;
+            }
+
+            if (!handle.isOutlier(row, indices)) {
+                long key = 0L;
+                for (int i = 0; i < indices.length; i++) {
+                    key += identifiers[i][handle.getEncodedValue(row, indices[i], false) + 1] * multipliers[i];
+                }
+                classes.putOrAdd(key, 1, 1);
+            }
+            if (stop.value) { throw new ComputationInterruptedException(); }
+        }
+
+        // Group by size
+        IntIntOpenHashMap grouped = new IntIntOpenHashMap();
+
+        int i = 0;
+        int size = classes.size();
+        final int[] values = classes.values;
+        final boolean[] states = classes.allocated;
+        for (int j = 0; j < states.length; j++) {
+            if (states[j]) {
+                int prog = (int) Math.round((80d + (double) i++ / (double) size * 20d) * factor);
+                if (prog != progress.value) {
+                    progress.value = prog;
+                }
+                grouped.putOrAdd(values[j], 1, 1);
+                if (stop.value) { throw new ComputationInterruptedException(); }
+            }
+        }
+        
+        // Return
+        return grouped;
     }
 }
@@ -104,6 +104,16 @@ public abstract class AbstractAnonymizationTest extends AbstractTest {
         public Map<String, HierarchyBuilder<?>> builders;
         /** Delta accepted when comparing the resulting information loss */
         public Double                           delta              = null;
+        /** Number of threads used for transforming data */
+        public int                              parallelism        = 1;
+        /** Size in bytes above which data is memory-mapped, null for the default */
+        public Long                             mappingThreshold   = null;
+        /** Maximal number of snapshots kept in memory, null for the default */
+        public Integer                          historySize        = null;
+        /** Budget of the on-disk snapshot store in bytes, null for the default */
+        public Long                             historyStoreSize   = null;
+        /** Whether snapshots are evicted by expected savings */
+        public boolean                          historyCostAware   = false;
                                  
         /**
          * Creates a new instance.
@@ -384,6 +394,9 @@ public abstract class AbstractAnonymizationTest extends AbstractTest {
     public static Data getDataObject(final ARXAnonymizationTestCase testCase) throws IOException {
         
         final Data data = Data.create(testCase.dataset, StandardCharsets.UTF_8, ';');
+        if (testCase.mappingThreshold != null) {
+            data.setMemoryMappingThreshold(testCase.mappingThreshold);
+        }
         
         // Read generalization hierachies
         final FilenameFilter hierarchyFilter = new FilenameFilter() {
@@ -493,6 +506,14 @@ public abstract class AbstractAnonymizationTest extends AbstractTest {
         
         // Create an instance of the anonymizer
         final ARXAnonymizer anonymizer = new ARXAnonymizer();
+        anonymizer.setParallelism(testCase.parallelism);
+        if (testCase.historySize != null) {
+            anonymizer.setHistorySize(testCase.historySize);
+        }
+        if (testCase.historyStoreSize != null) {
+            anonymizer.setHistoryStoreSize(testCase.historyStoreSize);
+        }
+        anonymizer.setHistoryCostAware(testCase.historyCostAware);
         testCase.config.setPracticalMonotonicity(testCase.practical);
         
         // Test or warmup
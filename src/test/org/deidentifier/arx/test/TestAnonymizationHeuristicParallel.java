@@ -0,0 +1,85 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.criteria.HierarchicalDistanceTCloseness;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests the heuristic lightning algorithm with concurrent checks. The expected
+ * results equal the ones obtained with a single thread.
+ *
+ * @author Fabian Prasser
+ */
+@RunWith(Parameterized.class)
+public class TestAnonymizationHeuristicParallel extends AbstractAnonymizationTest {
+    
+    /**
+     * Returns the test cases.
+     *
+     * @return
+     * @throws IOException 
+     */
+    @Parameters(name = "{index}:[{0}]")
+    public static Collection<Object[]> cases() throws IOException {
+        
+        // Create list
+        List<Object[]> cases = new ArrayList<Object[]>(TestAnonymizationHeuristic.cases());
+        
+        // Models which require worker instances
+        List<Object[]> workerCases = new ArrayList<Object[]>();
+        workerCases.add(new Object[] { new ARXAnonymizationTestCase(ARXConfiguration.create(0.04d, Metric.createPrecomputedEntropyMetric(0.1d, true)).addPrivacyModel(new KAnonymity(5)).addPrivacyModel(new HierarchicalDistanceTCloseness("occupation", 0.2, Hierarchy.create("./data/adult_hierarchy_occupation.csv", StandardCharsets.UTF_8, ';'))), "occupation", "./data/adult.csv", 392857.38858687796, new int[] {1, 4, 1, 1, 2, 2, 2, 1}, false) });
+        workerCases.add(new Object[] { new ARXAnonymizationTestCase(ARXConfiguration.create(0.04d, Metric.createEntropyMetric()).addPrivacyModel(new KAnonymity(5)), "./data/adult.csv", 275845.60630412877, new int[] {0, 1, 1, 1, 2, 2, 2, 0, 1}, false) });
+        workerCases.add(new Object[] { new ARXAnonymizationTestCase(ARXConfiguration.create(0.04d, Metric.createKLDivergenceMetric()).addPrivacyModel(new KAnonymity(5)), "./data/adult.csv", 26.52253353262517, new int[] {1, 4, 0, 0, 3, 0, 0, 2, 0}, false) });
+        for (Object[] testcase : workerCases) {
+            ((ARXAnonymizationTestCase)testcase[0]).config.setHeuristicSearchEnabled(true);
+            ((ARXAnonymizationTestCase)testcase[0]).config.setHeuristicSearchTimeLimit(Integer.MAX_VALUE);
+            ((ARXAnonymizationTestCase)testcase[0]).config.setHeuristicSearchStepLimit(1000);
+        }
+        cases.addAll(workerCases);
+        
+        // Enable concurrent checks
+        for (Object[] testcase : cases) {
+            ((ARXAnonymizationTestCase)testcase[0]).config.setHeuristicSearchThreads(3);
+        }
+        
+        // Return
+        return cases;
+    }
+    
+    /**
+     * Creates a new instance.
+     *
+     * @param testCase
+     */
+    public TestAnonymizationHeuristicParallel(final ARXAnonymizationTestCase testCase) {
+        super(testCase);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test for anonymizing data with a small history, which spills snapshots to disk. The
+ * expected results equal the ones obtained with the default history.
+ *
+ * @author Fabian Prasser
+ */
+@RunWith(Parameterized.class)
+public class TestAnonymizationHistoryStore extends AbstractAnonymizationTest {
+    
+    /**
+     * Returns the test cases.
+     *
+     * @return
+     * @throws IOException
+     */
+    @Parameters(name = "{index}:[{0}]")
+    public static Collection<Object[]> cases() throws IOException {
+        
+        // Create list
+        List<Object[]> cases = new ArrayList<Object[]>();
+        cases.addAll(TestAnonymizationKAnonymity.cases());
+        cases.addAll(TestAnonymizationParallel.cases());
+        
+        // Use a small history and a store
+        for (Object[] testcase : cases) {
+            ((ARXAnonymizationTestCase)testcase[0]).historySize = 2;
+            ((ARXAnonymizationTestCase)testcase[0]).historyStoreSize = 1L << 20;
+        }
+        
+        // Return
+        return cases;
+    }
+    
+    /**
+     * Creates a new instance.
+     *
+     * @param testCase
+     */
+    public TestAnonymizationHistoryStore(final ARXAnonymizationTestCase testCase) {
+        super(testCase);
+    }
+}
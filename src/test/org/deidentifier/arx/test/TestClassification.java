@@ -22,8 +22,10 @@ import static org.junit.Assert.assertEquals;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,8 +36,10 @@ import org.deidentifier.arx.ARXResult;
 import org.deidentifier.arx.AttributeType;
 import org.deidentifier.arx.AttributeType.Hierarchy;
 import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.StatisticsClassification;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMatrix;
 import org.deidentifier.arx.criteria.KAnonymity;
 import org.deidentifier.arx.io.CSVHierarchyInput;
 import org.junit.Test;
@@ -200,6 +204,103 @@ public class TestClassification {
         assertEquals(30162, classResult.getNumMeasurements(), 0d);
     }
 
+    /**
+     * Performs a test
+     * 
+     * @throws IOException
+     * @throws ParseException
+     */
+    @Test
+    public void testParallelEvaluation() throws IOException, ParseException {
+        
+        // Classify
+        StatisticsClassification sequential = getResult().getOutput().getStatistics().getClassificationPerformance(getFeatures(), getClazz(), 
+                                                                       ARXClassificationConfiguration.createNaiveBayes());
+        StatisticsClassification parallel = getResult().getOutput().getStatistics().getClassificationPerformance(getFeatures(), getClazz(), 
+                                                                       ARXClassificationConfiguration.createNaiveBayes().setNumThreads(3));
+
+        // Compare
+        assertIdentical(sequential, parallel);
+    }
+
+    /**
+     * Performs a test
+     * 
+     * @throws IOException
+     * @throws ParseException
+     */
+    @Test
+    public void testFeatureMatrixCache() throws IOException, ParseException {
+        
+        // Classify and sort
+        DataHandle output = getResult().getOutput();
+        output.getStatistics().getClassificationPerformance(getFeatures(), getClazz(), ARXClassificationConfiguration.createNaiveBayes());
+        output.sort(true, 0, 1);
+        
+        // Classify with and without cache
+        StatisticsClassification cached = output.getStatistics().getClassificationPerformance(getFeatures(), getClazz(), 
+                                                                       ARXClassificationConfiguration.createNaiveBayes());
+        ClassificationFeatureMatrix.clearCache();
+        StatisticsClassification uncached = output.getStatistics().getClassificationPerformance(getFeatures(), getClazz(), 
+                                                                       ARXClassificationConfiguration.createNaiveBayes());
+
+        // Compare
+        assertIdentical(uncached, cached);
+    }
+
+    /**
+     * Performs a test
+     * 
+     * @throws IOException
+     * @throws ParseException
+     * @throws ReflectiveOperationException
+     */
+    @Test
+    public void testFeatureMatrixRelease() throws IOException, ParseException, ReflectiveOperationException {
+        
+        // Classify
+        ClassificationFeatureMatrix.clearCache();
+        DataHandle output = getResult().getOutput();
+        output.getStatistics().getClassificationPerformance(getFeatures(), getClazz(), ARXClassificationConfiguration.createNaiveBayes());
+        assertEquals(2, getCacheSize());
+        
+        // Release
+        output.release();
+        assertEquals(1, getCacheSize());
+    }
+
+    /**
+     * Returns the number of matrices cached
+     * @return
+     * @throws ReflectiveOperationException
+     */
+    private int getCacheSize() throws ReflectiveOperationException {
+        Field field = ClassificationFeatureMatrix.class.getDeclaredField("CACHE");
+        field.setAccessible(true);
+        return ((Map<?, ?>) field.get(null)).size();
+    }
+
+    /**
+     * Asserts that both results are identical
+     * @param expected
+     * @param actual
+     */
+    private void assertIdentical(StatisticsClassification expected, StatisticsClassification actual) {
+        assertEquals(expected.getAccuracy(), actual.getAccuracy(), 0d);
+        assertEquals(expected.getOriginalAccuracy(), actual.getOriginalAccuracy(), 0d);
+        assertEquals(expected.getZeroRAccuracy(), actual.getZeroRAccuracy(), 0d);
+        assertEquals(expected.getAverageError(), actual.getAverageError(), 0d);
+        assertEquals(expected.getOriginalAverageError(), actual.getOriginalAverageError(), 0d);
+        assertEquals(expected.getZeroRAverageError(), actual.getZeroRAverageError(), 0d);
+        assertEquals(expected.getBrierScore(), actual.getBrierScore(), 0d);
+        assertEquals(expected.getNumMeasurements(), actual.getNumMeasurements());
+        for (String clazz : expected.getClassValues()) {
+            assertEquals(expected.getROCCurve(clazz).getAUC(), actual.getROCCurve(clazz).getAUC(), 0d);
+            assertEquals(expected.getOriginalROCCurve(clazz).getAUC(), actual.getOriginalROCCurve(clazz).getAUC(), 0d);
+            assertEquals(expected.getZeroRROCCurve(clazz).getAUC(), actual.getZeroRROCCurve(clazz).getAUC(), 0d);
+        }
+    }
+
     @Test
     public void testNaiveBayes() throws IOException, ParseException {
 
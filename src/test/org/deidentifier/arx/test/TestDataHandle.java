@@ -17,11 +17,21 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
@@ -34,9 +44,11 @@ import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataSelector;
 import org.deidentifier.arx.DataSubset;
+import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.criteria.DPresence;
 import org.deidentifier.arx.criteria.Inclusion;
 import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.io.CSVDataInput;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -66,6 +78,180 @@ public class TestDataHandle extends AbstractTest {
         
     }
     
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testParallelParsing() throws IllegalArgumentException, IOException {
+        
+        // Create a file with quoted delimiters, quotes and line breaks, and a record
+        // with a quote inside of an unquoted field, which prevents further splitting
+        File file = File.createTempFile("arx", ".csv");
+        try {
+            try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                writer.write("id;name;city;value\n");
+                for (int row = 0; row < 800000; row++) {
+                    String name = row % 1000 == 0 ? "\"first\nsecond\"" : row % 7 == 0 ? "\"a;b\"" : row % 11 == 0 ? "\"x\"\"y\"" : "name" + (row % 97);
+                    String city = row == 750000 ? "ab\"c" : "city-\u00e4" + (row % 13);
+                    writer.write(row + ";" + name + ";" + city + ";" + (row % 1013) + "\n");
+                }
+            }
+            
+            // Check that data is split
+            int parts = 0;
+            Iterator<Iterator<String[]>> iterator = new CSVDataInput(file, StandardCharsets.UTF_8, ';').parts();
+            while (iterator.hasNext()) {
+                Iterator<String[]> part = iterator.next();
+                while (part.hasNext()) {
+                    part.next();
+                }
+                parts++;
+            }
+            assertTrue(parts > 2);
+            
+            // Compare
+            DataHandle sequential = Data.create(file, StandardCharsets.UTF_8, ';').getHandle();
+            Data data = Data.create(file, StandardCharsets.UTF_8, ';');
+            data.setParallelism(3);
+            DataHandle parallel = data.getHandle();
+            assertEquals(800000, sequential.getNumRows());
+            assertEquals(sequential.getNumRows(), parallel.getNumRows());
+            for (int column = 0; column < sequential.getNumColumns(); column++) {
+                assertTrue(Arrays.equals(sequential.getDistinctValues(column), parallel.getDistinctValues(column)));
+                for (int row = 0; row < sequential.getNumRows(); row++) {
+                    assertEquals(sequential.getValue(row, column), parallel.getValue(row, column));
+                }
+            }
+            assertEquals("first\nsecond", sequential.getValue(0, 1));
+            assertEquals("x\"y", sequential.getValue(11, 1));
+            assertEquals("ab\"c", sequential.getValue(750000, 2));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testParallelEncoding() throws IllegalArgumentException, IOException {
+        
+        // Sequential
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        DataHandle sequential = data.getHandle();
+        
+        // Parallel, unknown length
+        data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        data.setParallelism(3);
+        DataHandle parallel = data.getHandle();
+        
+        // Parallel, known length
+        data = Data.create(sequential.iterator(), sequential.getNumRows());
+        data.setParallelism(3);
+        DataHandle parallelWithLength = data.getHandle();
+        
+        // Compare
+        assertEquals(sequential.getNumRows(), parallel.getNumRows());
+        assertEquals(sequential.getNumRows(), parallelWithLength.getNumRows());
+        for (int column = 0; column < sequential.getNumColumns(); column++) {
+            assertTrue(Arrays.equals(sequential.getDistinctValues(column), parallel.getDistinctValues(column)));
+            assertTrue(Arrays.equals(sequential.getDistinctValues(column), parallelWithLength.getDistinctValues(column)));
+            for (int row = 0; row < sequential.getNumRows(); row++) {
+                assertEquals(sequential.getValue(row, column), parallel.getValue(row, column));
+                assertEquals(sequential.getValue(row, column), parallelWithLength.getValue(row, column));
+            }
+        }
+    }
+    
+    /**
+     * Test case
+     */
+    @Test
+    public void testStreamingImport() {
+        
+        final int rows = 300000;
+        for (long threshold : new long[] { 0L, Long.MAX_VALUE }) {
+            
+            // Create data of unknown length
+            Data data = Data.create(new Iterator<String[]>() {
+                int row = -1;
+                @Override
+                public boolean hasNext() {
+                    return row < rows;
+                }
+                @Override
+                public String[] next() {
+                    String[] result = row == -1 ? new String[] { "a", "b", "c", "d" } :
+                                                  new String[] { String.valueOf(row % 7), String.valueOf(row % 11), String.valueOf(row % 13), String.valueOf(row) };
+                    row++;
+                    return result;
+                }
+            });
+            data.setMemoryMappingThreshold(threshold);
+            
+            // Check
+            DataHandle handle = data.getHandle();
+            assertEquals(rows, handle.getNumRows());
+            for (int row = 0; row < rows; row++) {
+                assertEquals(String.valueOf(row % 7), handle.getValue(row, 0));
+                assertEquals(String.valueOf(row % 11), handle.getValue(row, 1));
+                assertEquals(String.valueOf(row % 13), handle.getValue(row, 2));
+                assertEquals(String.valueOf(row), handle.getValue(row, 3));
+            }
+            handle.release();
+        }
+    }
+    
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     * @throws ParseException
+     */
+    @Test
+    public void testTypedGetters() throws IllegalArgumentException, IOException, ParseException {
+        
+        provider.createDataDefinition();
+        provider.getData().getDefinition().setDataType("age", DataType.INTEGER);
+        final DataHandle inHandle = provider.getData().getHandle();
+        
+        // Parse
+        for (int row = 0; row < inHandle.getNumRows(); row++) {
+            assertEquals(Long.valueOf(inHandle.getValue(row, 0)), inHandle.getLong(row, 0));
+            assertEquals(Integer.valueOf(inHandle.getValue(row, 0)), inHandle.getInt(row, 0));
+            assertEquals(Double.valueOf(inHandle.getValue(row, 0)), inHandle.getDouble(row, 0));
+        }
+        
+        // Replace
+        String original = inHandle.getValue(0, 0);
+        String replacement = String.valueOf(Long.valueOf(original) + 1000);
+        inHandle.replace(0, original, replacement);
+        for (int row = 0; row < inHandle.getNumRows(); row++) {
+            assertEquals(Long.valueOf(inHandle.getValue(row, 0)), inHandle.getLong(row, 0));
+        }
+        assertEquals(Long.valueOf(replacement), inHandle.getLong(0, 0));
+        
+        // Change data type
+        provider.getData().getDefinition().setDataType("age", DataType.DECIMAL);
+        assertTrue(inHandle == provider.getData().getHandle());
+        for (int row = 0; row < inHandle.getNumRows(); row++) {
+            assertEquals(Double.valueOf(inHandle.getValue(row, 0)), inHandle.getDouble(row, 0));
+        }
+        try {
+            inHandle.getLong(0, 0);
+            Assert.fail("Expected exception");
+        } catch (ParseException e) {
+            // Expected
+        }
+    }
+    
     /**
      * Test case
      *
@@ -164,6 +350,95 @@ public class TestDataHandle extends AbstractTest {
         
     }
     
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testReleaseForkedMemoryMapped() throws IllegalArgumentException, IOException {
+        
+        provider.createDataDefinition();
+        provider.getData().setMemoryMappingThreshold(0L);
+        final ARXAnonymizer anonymizer = new ARXAnonymizer();
+        final DataHandle inHandle = provider.getData().getHandle();
+        final String[][] input = iteratorToArray(inHandle.iterator());
+        
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(0d);
+        
+        final ARXResult result = anonymizer.anonymize(provider.getData(), config);
+        final ARXNode bottom = result.getLattice().getBottom();
+        final ARXNode optimum = result.getGlobalOptimum();
+        
+        // Release one of two forked handles
+        DataHandle first = result.getOutput(optimum);
+        DataHandle second = result.getOutput(bottom);
+        final String[][] expected = iteratorToArray(first.iterator());
+        final String[][] remaining = iteratorToArray(second.iterator());
+        first.release();
+        assertTrue(first.isReleased());
+        
+        // Remaining data must still be accessible
+        assertTrue(Arrays.deepEquals(input, iteratorToArray(inHandle.iterator())));
+        assertTrue(Arrays.deepEquals(remaining, iteratorToArray(second.iterator())));
+        assertTrue(Arrays.deepEquals(expected, iteratorToArray(result.getOutput(optimum).iterator())));
+    }
+    
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testMultipleDataHandlesForkViews() throws IllegalArgumentException, IOException {
+        
+        provider.createDataDefinition();
+        final ARXAnonymizer anonymizer = new ARXAnonymizer();
+        final DataHandle inHandle = provider.getData().getHandle();
+        
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(1d);
+        
+        final ARXResult result = anonymizer.anonymize(provider.getData(), config);
+        
+        // Obtain the data of all transformations from the shared buffer
+        List<ARXNode> nodes = new ArrayList<ARXNode>();
+        List<String[][]> expected = new ArrayList<String[][]>();
+        DataHandle handle = null;
+        for (ARXNode[] level : result.getLattice().getLevels()) {
+            for (ARXNode node : level) {
+                handle = result.getOutput(node, false);
+                nodes.add(node);
+                expected.add(iteratorToArray(handle.iterator()));
+            }
+        }
+        handle.release();
+        
+        // Keep forked handles of all transformations open
+        List<DataHandle> handles = new ArrayList<DataHandle>();
+        for (int i = 0; i < nodes.size(); i++) {
+            handles.add(result.getOutput(nodes.get(i)));
+            assertTrue(Arrays.deepEquals(expected.get(i), iteratorToArray(handles.get(i).iterator())));
+        }
+        
+        // Pair records in input and output data
+        List<List<String>> records = new ArrayList<List<String>>();
+        for (DataHandle output : handles) {
+            records.add(getRecords(inHandle, output));
+        }
+        
+        // Sort and check whether records are still paired
+        handles.get(handles.size() - 1).sort(false, 0, 1);
+        for (int i = 0; i < handles.size(); i++) {
+            assertEquals(records.get(i), getRecords(inHandle, handles.get(i)));
+        }
+    }
+    
     /**
      * Test case
      *
@@ -498,4 +773,27 @@ public class TestDataHandle extends AbstractTest {
         
         assertTrue(Arrays.deepEquals(given, expected));
     }
+    
+    /**
+     * Returns the records of the input and output data, paired by row, in sorted order
+     * @param input
+     * @param output
+     * @return
+     */
+    private List<String> getRecords(DataHandle input, DataHandle output) {
+        List<String> result = new ArrayList<String>();
+        for (int row = 0; row < input.getNumRows(); row++) {
+            StringBuilder builder = new StringBuilder();
+            for (int column = 0; column < input.getNumColumns(); column++) {
+                builder.append(input.getValue(row, column)).append(";");
+            }
+            for (int column = 0; column < output.getNumColumns(); column++) {
+                builder.append(output.getValue(row, column)).append(";");
+            }
+            builder.append(output.isOutlier(row));
+            result.add(builder.toString());
+        }
+        Collections.sort(result);
+        return result;
+    }
 }
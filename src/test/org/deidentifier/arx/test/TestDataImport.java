@@ -17,14 +17,36 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXResult;
 import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataSource;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.io.ImportAdapter;
+import org.deidentifier.arx.io.ImportAdapterJDBC;
+import org.deidentifier.arx.io.ImportColumnJDBC;
+import org.deidentifier.arx.io.ImportConfigurationJDBC;
 import org.junit.Test;
 
 import cern.colt.Arrays;
@@ -52,4 +74,233 @@ public class TestDataImport extends AbstractTest {
             System.out.println(Arrays.toString(result.get(result.size() - 1)));
         }
     }
+    
+    /**
+     * Test
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testBinary() throws IOException {
+        
+        // Anonymize
+        provider.createDataDefinition();
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(3));
+        config.setSuppressionLimit(0.5d);
+        ARXResult result = new ARXAnonymizer().anonymize(provider.getData(), config);
+        DataHandle input = provider.getData().getHandle();
+        DataHandle output = result.getOutput();
+        DataHandle top = result.getOutput(result.getLattice().getTop());
+        
+        for (DataHandle handle : new DataHandle[] { input, output, top }) {
+            for (boolean compressed : new boolean[] { false, true }) {
+                
+                // Write
+                File file = File.createTempFile("arx", ".bin");
+                file.deleteOnExit();
+                handle.saveBinary(file, compressed);
+                File csv = File.createTempFile("arx", ".csv");
+                csv.deleteOnExit();
+                handle.save(csv);
+                
+                // Compare with the handle and with importing from CSV
+                DataHandle binary = Data.createBinary(file).getHandle();
+                DataHandle text = Data.create(csv, StandardCharsets.UTF_8).getHandle();
+                assertEquals(getRows(handle.iterator()), getRows(binary.iterator()));
+                for (int column = 0; column < handle.getNumColumns(); column++) {
+                    assertEquals(Arrays.toString(text.getDistinctValues(column)), Arrays.toString(binary.getDistinctValues(column)));
+                }
+                
+                // Import selected columns
+                DataSource source = DataSource.createBinarySource(file);
+                source.addColumn("zipcode", "zip", DataType.INTEGER, true);
+                source.addColumn(0);
+                Data data = Data.create(source);
+                assertEquals(DataType.INTEGER, data.getDefinition().getDataType("zip"));
+                List<String> expected = new ArrayList<String>();
+                expected.add(Arrays.toString(new String[] { "zip", "age" }));
+                Iterator<String[]> iter = handle.iterator();
+                iter.next();
+                while (iter.hasNext()) {
+                    String[] row = iter.next();
+                    String zip = DataType.INTEGER.isValid(row[2]) ? row[2] : DataType.NULL_VALUE;
+                    expected.add(Arrays.toString(new String[] { zip, row[0] }));
+                }
+                assertEquals(expected, getRows(data.getHandle().iterator()));
+            }
+        }
+    }
+    
+    /**
+     * Test
+     *
+     * @throws IOException
+     * @throws SQLException
+     * @throws ClassNotFoundException
+     */
+    @Test
+    public void testJDBC() throws IOException, SQLException, ClassNotFoundException {
+        
+        // Create database
+        String url = createDatabase();
+        
+        // Import with a single query
+        List<String> expected = getRows(getJDBCSource(url));
+        assertEquals(2500, expected.size());
+        
+        // Import with fetch size, without counting
+        DataSource source = getJDBCSource(url);
+        source.setFetchSize(100);
+        source.setCountRows(false);
+        assertEquals(expected, getRows(source));
+        
+        // Import partitions
+        for (int threads : new int[] { 1, 3 }) {
+            source = getJDBCSource(url);
+            source.setFetchSize(100);
+            source.setPartitioning("id", threads);
+            assertEquals(expected, getRows(source));
+        }
+    }
+    
+    /**
+     * Tests aborting partitioned imports, which must stop all threads querying partitions
+     *
+     * @throws IOException
+     * @throws SQLException
+     * @throws ClassNotFoundException
+     * @throws InterruptedException
+     */
+    @Test
+    public void testJDBCAbort() throws IOException, SQLException, ClassNotFoundException, InterruptedException {
+        
+        // Create database
+        String url = createDatabase();
+        
+        // Abandon imports with full buffers
+        for (int threads : new int[] { 1, 3 }) {
+            ImportConfigurationJDBC config = new ImportConfigurationJDBC(url, "test");
+            config.addColumn(new ImportColumnJDBC("id", DataType.INTEGER, true));
+            config.addColumn(new ImportColumnJDBC("age", DataType.INTEGER));
+            config.addColumn(new ImportColumnJDBC("zipcode", DataType.STRING));
+            config.setFetchSize(10);
+            config.setPartitioning("id", threads);
+            ImportAdapter adapter = ImportAdapter.create(config);
+            for (int i = 0; i < 100; i++) {
+                adapter.next();
+            }
+            assertTrue(adapter.hasNext());
+            
+            // Wait for the buffers to be filled and abort
+            Thread.sleep(100);
+            ((ImportAdapterJDBC) adapter).close();
+            ((ImportAdapterJDBC) adapter).close();
+            assertFalse(adapter.hasNext());
+            
+            // Wait for the threads to terminate
+            long timeout = System.currentTimeMillis() + 10000;
+            while (getNumImportThreads() > 0 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, getNumImportThreads());
+        }
+    }
+    
+    /**
+     * Creates a database with a table of 2500 rows and returns its URL
+     * 
+     * @return
+     * @throws IOException
+     * @throws SQLException
+     * @throws ClassNotFoundException
+     */
+    private String createDatabase() throws IOException, SQLException, ClassNotFoundException {
+        Class.forName("org.sqlite.JDBC");
+        File file = File.createTempFile("arx", ".db");
+        file.deleteOnExit();
+        String url = "jdbc:sqlite:" + file.getAbsolutePath();
+        Connection connection = DriverManager.getConnection(url);
+        Statement statement = connection.createStatement();
+        statement.execute("CREATE TABLE test (id INTEGER, age INTEGER, zipcode TEXT)");
+        statement.close();
+        connection.setAutoCommit(false);
+        PreparedStatement insert = connection.prepareStatement("INSERT INTO test VALUES (?, ?, ?)");
+        for (int i = 0; i < 2500; i++) {
+            if (i % 50 == 0) {
+                insert.setNull(1, Types.INTEGER);
+            } else {
+                insert.setInt(1, (i * 7919) % 2500);
+            }
+            insert.setInt(2, 20 + i % 60);
+            insert.setString(3, String.valueOf(81000 + i % 100));
+            insert.executeUpdate();
+        }
+        connection.commit();
+        insert.close();
+        connection.close();
+        return url;
+    }
+    
+    /**
+     * Creates a JDBC source
+     * 
+     * @param url
+     * @return
+     * @throws SQLException
+     */
+    private DataSource getJDBCSource(String url) throws SQLException {
+        DataSource source = DataSource.createJDBCSource(url, "test");
+        source.addColumn("id", DataType.INTEGER, true);
+        source.addColumn("age", DataType.INTEGER);
+        source.addColumn("zipcode", DataType.STRING);
+        return source;
+    }
+    
+    /**
+     * Returns the number of live threads querying partitions
+     * 
+     * @return
+     */
+    private int getNumImportThreads() {
+        int result = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().equals("ARX JDBC Import")) {
+                result++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the rows provided by the given iterator, including the header
+     * 
+     * @param iter
+     * @return
+     */
+    private List<String> getRows(Iterator<String[]> iter) {
+        List<String> result = new ArrayList<String>();
+        while (iter.hasNext()) {
+            result.add(Arrays.toString(iter.next()));
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the sorted rows imported from the given source
+     * 
+     * @param source
+     * @return
+     * @throws IOException
+     */
+    private List<String> getRows(DataSource source) throws IOException {
+        Iterator<String[]> iter = Data.create(source).getHandle().iterator();
+        iter.next();
+        List<String> result = new ArrayList<String>();
+        while (iter.hasNext()) {
+            result.add(Arrays.toString(iter.next()));
+        }
+        Collections.sort(result);
+        return result;
+    }
 }
@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -24,16 +25,20 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataSubset;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable.Entry;
 import org.deidentifier.arx.aggregates.StatisticsFrequencyDistribution;
+import org.deidentifier.arx.aggregates.StatisticsQuality;
+import org.deidentifier.arx.aggregates.StatisticsSummary;
 import org.deidentifier.arx.criteria.DPresence;
 import org.deidentifier.arx.criteria.KAnonymity;
 import org.junit.Test;
@@ -296,6 +301,109 @@ public class TestDataStatistics extends AbstractTest {
         assertTrue(Arrays.equals(frequency, distribution.frequency));
     }
     
+    /**
+     * Compares summary statistics computed from frequencies with the exact results
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testSummary() throws IllegalArgumentException, IOException {
+        
+        this.provider.createDataDefinition();
+        this.provider.getData().getDefinition().setDataType("age", DataType.INTEGER);
+        
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(1d);
+        
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        ARXResult result = anonymizer.anonymize(this.provider.getData(), config);
+        
+        // Check input and output
+        for (DataHandle handle : new DataHandle[] { this.provider.getData().getHandle(), result.getOutput(false) }) {
+            for (boolean listwiseDeletion : new boolean[] { false, true }) {
+                Map<String, StatisticsSummary<?>> expected = handle.getStatistics().getSummaryStatistics(listwiseDeletion);
+                for (int threads = 1; threads <= 2; threads++) {
+                    Map<String, StatisticsSummary<?>> actual = handle.getStatistics().getSummaryStatistics(listwiseDeletion, threads);
+                    assertEquals(expected.keySet(), actual.keySet());
+                    for (String attribute : expected.keySet()) {
+                        StatisticsSummary<?> summary1 = expected.get(attribute);
+                        StatisticsSummary<?> summary2 = actual.get(attribute);
+                        assertEquals(summary1.getScale(), summary2.getScale());
+                        assertEquals(summary1.getNumberOfMeasuresAsString(), summary2.getNumberOfMeasuresAsString());
+                        assertEquals(summary1.getNumberOfDistinctValuesAsInt(), summary2.getNumberOfDistinctValuesAsInt());
+                        assertEquals(summary1.getModeAsString(), summary2.getModeAsString());
+                        assertEquals(summary1.getMedianAsString(), summary2.getMedianAsString());
+                        assertEquals(summary1.getMinAsString(), summary2.getMinAsString());
+                        assertEquals(summary1.getMaxAsString(), summary2.getMaxAsString());
+                        if (summary1.isArithmeticMeanAvailable()) {
+                            assertEquals(summary1.getArithmeticMeanAsDouble(), summary2.getArithmeticMeanAsDouble(), 1e-9);
+                            assertEquals(summary1.getSampleVarianceAsDouble(), summary2.getSampleVarianceAsDouble(), 1e-9);
+                            assertEquals(summary1.getKurtosisAsDouble(), summary2.getKurtosisAsDouble(), 1e-9);
+                            assertEquals(summary1.getGeometricMeanAsDouble(), summary2.getGeometricMeanAsDouble(), 1e-9);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Compares quality statistics computed with multiple threads with the sequential results
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testQuality() throws IllegalArgumentException, IOException {
+        
+        this.provider.createDataDefinition();
+        this.provider.getData().getDefinition().setDataType("age", DataType.INTEGER);
+        
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(1d);
+        
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        ARXResult result = anonymizer.anonymize(this.provider.getData(), config);
+        DataHandle output = result.getOutput(false);
+        
+        // Compare with results of models evaluated on strings
+        StatisticsQuality expected = output.getStatistics().getQualityStatistics();
+        String[] attributes = new String[] { "age", "gender", "zipcode" };
+        double[][] values = new double[][] { { 0.4285714285714286, 0.5714285714285714, 0.505190257900143, 0.757039420756235 },
+                                             { 0.8571428571428572, 0.8571428571428572, 1.0, 0.8571428571428572 },
+                                             { 0.34285714285714286, 0.0, 0.0, 0.0 } };
+        for (int i = 0; i < attributes.length; i++) {
+            assertEquals(values[i][0], expected.getGeneralizationIntensity().getValue(attributes[i]), 1e-12);
+            assertEquals(values[i][1], expected.getGranularity().getValue(attributes[i]), 1e-12);
+            assertEquals(values[i][2], expected.getNonUniformEntropy().getValue(attributes[i]), 1e-12);
+            assertEquals(values[i][3], expected.getAttributeLevelSquaredError().getValue(attributes[i]), 1e-12);
+        }
+        assertEquals(0.663594470046083, expected.getAmbiguity().getValue(), 1e-12);
+        assertEquals(0.8333333333333334, expected.getAverageClassSize().getValue(), 1e-12);
+        assertEquals(0.7142857142857143, expected.getDiscernibility().getValue(), 1e-12);
+        assertEquals(0.29747080232897316, expected.getRecordLevelSquaredError().getValue(), 1e-12);
+        assertEquals(0.5925647765677806, expected.getSSESST().getValue(), 1e-12);
+        
+        // Compare with results of concurrent evaluation
+        for (int threads = 1; threads <= 3; threads++) {
+            StatisticsQuality actual = output.getStatistics().getQualityStatistics(output, new HashSet<String>(), threads);
+            for (String attribute : new String[] { "age", "gender", "zipcode" }) {
+                assertEquals(expected.getGeneralizationIntensity().getValue(attribute), actual.getGeneralizationIntensity().getValue(attribute), 0d);
+                assertEquals(expected.getGranularity().getValue(attribute), actual.getGranularity().getValue(attribute), 0d);
+                assertEquals(expected.getNonUniformEntropy().getValue(attribute), actual.getNonUniformEntropy().getValue(attribute), 0d);
+                assertEquals(expected.getAttributeLevelSquaredError().getValue(attribute), actual.getAttributeLevelSquaredError().getValue(attribute), 0d);
+            }
+            assertEquals(expected.getAmbiguity().getValue(), actual.getAmbiguity().getValue(), 0d);
+            assertEquals(expected.getAverageClassSize().getValue(), actual.getAverageClassSize().getValue(), 0d);
+            assertEquals(expected.getDiscernibility().getValue(), actual.getDiscernibility().getValue(), 0d);
+            assertEquals(expected.getRecordLevelSquaredError().getValue(), actual.getRecordLevelSquaredError().getValue(), 0d);
+            assertEquals(expected.getSSESST().getValue(), actual.getSSESST().getValue(), 0d);
+        }
+    }
+    
     /**
      * Checks the two arrays regarding equality, treating a double[][]
      * as a set of comparable double[]'s
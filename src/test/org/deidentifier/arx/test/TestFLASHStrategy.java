@@ -0,0 +1,136 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.Hierarchy.DefaultHierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.Data.DefaultData;
+import org.deidentifier.arx.algorithm.FLASHStrategy;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.data.Dictionary;
+import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.junit.Test;
+
+/**
+ * Tests for the total order used by the Flash algorithm
+ *
+ * @author Fabian Prasser
+ */
+public class TestFLASHStrategy {
+
+    /**
+     * Compares transformations which are mapped to the same slot of the cache
+     */
+    @Test
+    public void testCollidingTransformations() {
+
+        // Solution space with 10^5 transformations, which is larger than the cache
+        int dimensions = 5;
+        int height = 10;
+        Dictionary dictionary = new Dictionary(dimensions);
+        GeneralizationHierarchy[] hierarchies = new GeneralizationHierarchy[dimensions];
+        for (int dimension = 0; dimension < dimensions; dimension++) {
+            String[] rule = new String[height];
+            for (int level = 0; level < height; level++) {
+                rule[level] = "v" + level;
+            }
+            dictionary.register(dimension, rule[0]);
+            hierarchies[dimension] = new GeneralizationHierarchy("a" + dimension, new String[][] { rule }, dimension, dictionary);
+        }
+        int[] min = new int[dimensions];
+        int[] max = new int[dimensions];
+        for (int dimension = 0; dimension < dimensions; dimension++) {
+            max[dimension] = height - 1;
+        }
+        SolutionSpace<?> solutionSpace = SolutionSpace.create(min, max);
+        assertEquals(100000, solutionSpace.getSize().intValue());
+
+        // Identifiers which differ by the size of the cache collide
+        FLASHStrategy strategy = new FLASHStrategy(solutionSpace, hierarchies);
+        long bottom = 0L;
+        long other = 1L << 16;
+        assertTrue(solutionSpace.getTransformation(Long.valueOf(other)).getLevel() > 0);
+        assertEquals(-1, strategy.compare(bottom, other));
+        assertEquals(+1, strategy.compare(other, bottom));
+        assertEquals(0, strategy.compare(other, other));
+        assertEquals(-1, strategy.compare(bottom, other));
+    }
+
+    /**
+     * Anonymizes data with a solution space of more than 2^31 transformations using FLASH
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testLargeSolutionSpace() throws IOException {
+
+        // Data with 32 attributes and two generalization levels each, which is 2-anonymous
+        int dimensions = 32;
+        String[][] records = new String[][] { { "a", "x" }, { "a", "x" }, { "b", "y" }, { "b", "y" }, { "c", "y" }, { "c", "y" } };
+        DefaultData data = Data.create();
+        String[] header = new String[dimensions];
+        for (int dimension = 0; dimension < dimensions; dimension++) {
+            header[dimension] = "a" + dimension;
+        }
+        data.add(header);
+        for (String[] record : records) {
+            String[] row = new String[dimensions];
+            for (int dimension = 0; dimension < dimensions; dimension++) {
+                row[dimension] = record[dimension % 2];
+            }
+            data.add(row);
+        }
+        for (int dimension = 0; dimension < dimensions; dimension++) {
+            DefaultHierarchy hierarchy = Hierarchy.create();
+            for (String[] record : records) {
+                hierarchy.add(record[dimension % 2], "*");
+            }
+            data.getDefinition().setAttributeType(header[dimension], hierarchy);
+        }
+
+        // Configure optimal search, which would be stopped after the first step by the heuristic
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(0d);
+        config.setHeuristicSearchThreshold(1L << 33);
+        config.setHeuristicSearchStepLimit(1);
+        assertEquals(1L << 33, config.getHeuristicSearchThreshold());
+
+        // Anonymize
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        assertEquals(BigInteger.ONE.shiftLeft(dimensions), result.getLattice().getVirtualSize());
+        assertTrue(result.getLattice().getVirtualSize().compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0);
+        assertTrue(result.getOptimumFound());
+        assertNotNull(result.getGlobalOptimum());
+        assertArrayEquals(new int[dimensions], result.getGlobalOptimum().getTransformation());
+        assertNotNull(result.getOutput());
+    }
+}
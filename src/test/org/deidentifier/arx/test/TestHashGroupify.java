@@ -0,0 +1,255 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.groupify.HashGroupifyDistribution;
+import org.deidentifier.arx.framework.check.groupify.HashGroupifyDistribution.PrivacyCondition;
+import org.deidentifier.arx.framework.check.groupify.HashGroupifyDistribution.PrivacyCondition.State;
+import org.deidentifier.arx.framework.check.groupify.HashGroupifyEntry;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.metric.Metric;
+import org.deidentifier.arx.risk.RiskModelHistogram;
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+
+/**
+ * Tests for the hash table used for grouping records
+ *
+ * @author Fabian Prasser
+ */
+public class TestHashGroupify {
+
+    /**
+     * Tests records with colliding hash codes, and reusing entries after clearing the table
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCollisionsAndReuse() throws Exception {
+
+        // Records (0, 37) and (1, 0) have the same hash code
+        int[][] records = { { 0, 37 }, { 1, 0 }, { 0, 37 }, { 2, 5 }, { 1, 0 }, { 0, 37 } };
+        DataMatrix output = new DataMatrix(records.length, 2);
+        DataMatrix analyzed = new DataMatrix(records.length, 1);
+        for (int row = 0; row < records.length; row++) {
+            output.setRow(row, records[row]);
+            analyzed.setRow(row, new int[] { row % 2 });
+        }
+        assertEquals(output.hashCode(0), output.hashCode(1));
+
+        // Group
+        HashGroupify groupify = new HashGroupify(2, getConfiguration(), 1, output, output, analyzed, new int[] { 9, 9 });
+        for (int row = 0; row < records.length; row++) {
+            groupify.addFromBuffer(row, row, row, 1, 1);
+        }
+        assertEquals(3, groupify.getNumberOfEquivalenceClasses());
+        HashGroupifyEntry first = groupify.getEntry(records[0]);
+        HashGroupifyEntry second = groupify.getEntry(records[1]);
+        assertNotSame(first, second);
+        assertEquals(3, first.count);
+        assertEquals(2, second.count);
+        assertEquals(1, groupify.getEntry(records[3]).count);
+        assertNull(groupify.getEntry(new int[] { 2, -32 }));
+        assertArrayEquals(new int[] { 2, 1 }, getFrequencies(first, 0, 1));
+        assertArrayEquals(new int[] { 1, 1 }, getFrequencies(second, 0, 1));
+
+        // Clear and reuse
+        groupify.stateClear();
+        assertEquals(0, groupify.getNumberOfEquivalenceClasses());
+        assertNull(first.distributions);
+        assertNull(second.distributions);
+        assertNull(groupify.getEntry(records[0]));
+        groupify.addFromBuffer(1, 0, 1, 1, 1);
+        assertEquals(1, groupify.getNumberOfEquivalenceClasses());
+        assertSame(first, groupify.getEntry(records[1]));
+        assertNull(groupify.getEntry(records[0]));
+        assertEquals(1, first.count);
+        assertNull(first.nextOrdered);
+        assertArrayEquals(new int[] { 1, 0 }, getFrequencies(first, 0, 1));
+    }
+
+    /**
+     * Tests the histogram of class sizes, which is maintained incrementally while
+     * suppressing and unsuppressing classes, against histograms built from scratch
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDistribution() throws Exception {
+
+        // Records with random class sizes
+        Random random = new Random(0xDEADBEEF);
+        List<Integer> classes = new ArrayList<Integer>();
+        for (int clazz = 0; clazz < 100; clazz++) {
+            int size = 1 + random.nextInt(random.nextBoolean() ? 3 : 12);
+            for (int i = 0; i < size; i++) {
+                classes.add(clazz);
+            }
+        }
+        Collections.shuffle(classes, random);
+        DataMatrix output = new DataMatrix(classes.size(), 1);
+        DataMatrix analyzed = new DataMatrix(classes.size(), 1);
+        for (int row = 0; row < classes.size(); row++) {
+            output.setRow(row, new int[] { classes.get(row) });
+            analyzed.setRow(row, new int[] { 0 });
+        }
+
+        // Group
+        HashGroupify groupify = new HashGroupify(16, getConfiguration(), 1, output, output, analyzed, new int[] { -1 });
+        for (int row = 0; row < classes.size(); row++) {
+            groupify.addFromBuffer(row, row, row, 1, 1);
+        }
+        for (HashGroupifyEntry entry = groupify.getFirstEquivalenceClass(); entry != null; entry = entry.nextOrdered) {
+            entry.isNotOutlier = true;
+        }
+
+        // Create distribution
+        Constructor<HashGroupifyDistribution> constructor = HashGroupifyDistribution.class.getDeclaredConstructor(Metric.class, Transformation.class, HashGroupify.class);
+        constructor.setAccessible(true);
+        final HashGroupifyDistribution distribution = constructor.newInstance(null, null, groupify);
+        final HashGroupify _groupify = groupify;
+        assertDistribution(distribution, groupify);
+
+        // Check each step of a binary search
+        distribution.suppressWhileNotFulfilledBinary(new PrivacyCondition() {
+            @Override
+            public State isFulfilled(HashGroupifyDistribution distribution) {
+                assertDistribution(distribution, _groupify);
+                return distribution.getFractionOfRecordsInClassesSmallerThan(5) <= 0.05d ? State.FULFILLED : State.NOT_FULFILLED;
+            }
+        });
+        assertDistribution(distribution, groupify);
+
+        // Check random sequences of suppressing and unsuppressing
+        Field field = HashGroupifyDistribution.class.getDeclaredField("entries");
+        field.setAccessible(true);
+        HashGroupifyEntry[] entries = (HashGroupifyEntry[]) field.get(distribution);
+        Method suppress = HashGroupifyDistribution.class.getDeclaredMethod("suppressEntry", HashGroupifyEntry.class);
+        Method unsuppress = HashGroupifyDistribution.class.getDeclaredMethod("unSuppressEntry", HashGroupifyEntry.class);
+        suppress.setAccessible(true);
+        unsuppress.setAccessible(true);
+        for (int i = 0; i < 1000; i++) {
+            HashGroupifyEntry entry = entries[random.nextInt(entries.length)];
+            (entry.isNotOutlier ? suppress : unsuppress).invoke(distribution, entry);
+            assertDistribution(distribution, groupify);
+        }
+
+        // Suppress all and unsuppress all
+        for (HashGroupifyEntry entry : entries) {
+            if (entry.isNotOutlier) {
+                suppress.invoke(distribution, entry);
+            }
+        }
+        assertDistribution(distribution, groupify);
+        assertTrue(distribution.isEmpty());
+        for (HashGroupifyEntry entry : entries) {
+            unsuppress.invoke(distribution, entry);
+        }
+        assertDistribution(distribution, groupify);
+    }
+
+    /**
+     * Compares the distribution with a histogram built from the entries which are not suppressed
+     * @param distribution
+     * @param groupify
+     */
+    private void assertDistribution(HashGroupifyDistribution distribution, HashGroupify groupify) {
+
+        // Rebuild
+        IntIntOpenHashMap sizes = new IntIntOpenHashMap();
+        int records = 0;
+        for (HashGroupifyEntry entry = groupify.getFirstEquivalenceClass(); entry != null; entry = entry.nextOrdered) {
+            if (entry.isNotOutlier) {
+                sizes.putOrAdd(entry.count, 1, 1);
+                records += entry.count;
+            }
+        }
+        RiskModelHistogram expected = new RiskModelHistogram(sizes);
+
+        // Compare histograms
+        RiskModelHistogram actual = distribution.getHistogram();
+        assertArrayEquals(expected.getHistogram(), actual.getHistogram());
+        assertEquals(expected.getNumRecords(), actual.getNumRecords(), 0d);
+        assertEquals(expected.getNumClasses(), actual.getNumClasses(), 0d);
+        assertEquals(records == 0, distribution.isEmpty());
+
+        // Compare fractions
+        for (int size = 1; size <= 14; size++) {
+            double fraction = 0d;
+            for (int smaller = 1; smaller < size; smaller++) {
+                fraction += distribution.getFractionOfRecordsInClassesOfSize(smaller);
+            }
+            assertEquals(fraction, distribution.getFractionOfRecordsInClassesSmallerThan(size), 0d);
+            double count = 0d;
+            for (int i = 0; i < expected.getHistogram().length; i += 2) {
+                count += expected.getHistogram()[i] < size ? expected.getHistogram()[i] * expected.getHistogram()[i + 1] : 0;
+            }
+            assertEquals(records == 0 ? 0d : count / records, fraction, 1e-12);
+        }
+    }
+
+    /**
+     * Returns an internal configuration without privacy models
+     * @return
+     * @throws Exception
+     */
+    private ARXConfigurationInternal getConfiguration() throws Exception {
+        Method method = ARXConfiguration.class.getDeclaredMethod("getInternalConfiguration");
+        method.setAccessible(true);
+        return (ARXConfigurationInternal) method.invoke(ARXConfiguration.create());
+    }
+
+    /**
+     * Returns the frequencies of the given values in the distribution of the first column
+     * @param entry
+     * @param values
+     * @return
+     */
+    private int[] getFrequencies(HashGroupifyEntry entry, int... values) {
+        int[][] packed = entry.distributions[0].pack();
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            for (int j = 0; j < packed[0].length; j++) {
+                if (packed[0][j] == values[i]) {
+                    result[i] = packed[1][j];
+                }
+            }
+        }
+        return result;
+    }
+}
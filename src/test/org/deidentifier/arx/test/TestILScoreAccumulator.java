@@ -0,0 +1,189 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Random;
+
+import org.apache.commons.math3.fraction.BigFraction;
+import org.deidentifier.arx.metric.v2.ILScore;
+import org.junit.Test;
+
+/**
+ * Tests for the accumulator of exact scores used by the differentially private search
+ *
+ * @author Fabian Prasser
+ */
+public class TestILScoreAccumulator {
+
+    /** Denominators whose least common multiple is small */
+    private static final long[] DENOMINATORS = { 1L, 2L, 3L, 4L, 6L, 12L };
+
+    /** The accumulator */
+    private Object accumulator;
+
+    /**
+     * Tests values which can be represented as fractions of longs
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExact() throws Exception {
+
+        Random random = new Random(0xDEADBEEF);
+        for (int i = 0; i < 100; i++) {
+            create();
+            BigFraction expected = BigFraction.ZERO;
+            for (int j = 0; j < 20; j++) {
+                long numerator = random.nextInt(1000000) - 500000;
+                long denominator = DENOMINATORS[random.nextInt(DENOMINATORS.length)];
+                add(numerator, denominator);
+                expected = expected.add(new BigFraction(numerator, denominator));
+            }
+            multiply(-3L, 7L);
+            expected = expected.multiply(new BigFraction(-3L, 7L));
+
+            // Still exact
+            assertNull(getOverflow());
+            ILScore score = getScore();
+            assertEquals(expected, score.getValue());
+            assertEquals(expected.doubleValue(), score.getDoubleValue(), 0d);
+        }
+    }
+
+    /**
+     * Tests the fallback to arbitrary-precision arithmetic on overflows
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testOverflow() throws Exception {
+
+        // Overflow during addition
+        create();
+        add(Long.MAX_VALUE, 1L);
+        assertNull(getOverflow());
+        add(Long.MAX_VALUE, 1L);
+        assertNotNull(getOverflow());
+        add(-5L, 3L);
+        BigFraction expected = new BigFraction(Long.MAX_VALUE).multiply(2).add(new BigFraction(-5L, 3L));
+        assertEquals(expected, getScore().getValue());
+
+        // Overflow during multiplication
+        create();
+        add(3L, 1L);
+        multiply(1L, 1048573L);
+        multiply(1L, 1048571L);
+        multiply(1L, 1048559L);
+        assertNull(getOverflow());
+        multiply(1L, 1048549L);
+        assertNotNull(getOverflow());
+        expected = new BigFraction(3L).divide(new BigFraction(1048573L))
+                                      .divide(new BigFraction(1048571L))
+                                      .divide(new BigFraction(1048559L))
+                                      .divide(new BigFraction(1048549L));
+        ILScore score = getScore();
+        assertEquals(expected, score.getValue());
+        assertEquals(expected.doubleValue(), score.getDoubleValue(), 0d);
+
+        // Scores are comparable irrespective of how they have been computed
+        create();
+        add(Long.MAX_VALUE, 1L);
+        ILScore exact = getScore();
+        create();
+        add(Long.MAX_VALUE, 1L);
+        add(Long.MAX_VALUE, 1L);
+        add(-Long.MAX_VALUE, 1L);
+        ILScore overflown = getScore();
+        assertEquals(exact.getValue(), overflown.getValue());
+        assertEquals(0, exact.compareTo(overflown));
+        add(1L, Long.MAX_VALUE);
+        assertTrue(exact.compareTo(getScore()) > 0);
+    }
+
+    /**
+     * Adds a fraction
+     * @param numerator
+     * @param denominator
+     * @throws Exception
+     */
+    private void add(long numerator, long denominator) throws Exception {
+        invoke("add", new Class<?>[] { long.class, long.class }, numerator, denominator);
+    }
+
+    /**
+     * Creates a new accumulator
+     * @throws Exception
+     */
+    private void create() throws Exception {
+        Constructor<?> constructor = Class.forName("org.deidentifier.arx.metric.v2.ILScoreAccumulator").getDeclaredConstructor();
+        constructor.setAccessible(true);
+        accumulator = constructor.newInstance();
+    }
+
+    /**
+     * Returns the arbitrary-precision value, which is only used after an overflow
+     * @return
+     * @throws Exception
+     */
+    private Object getOverflow() throws Exception {
+        Field field = accumulator.getClass().getDeclaredField("value");
+        field.setAccessible(true);
+        return field.get(accumulator);
+    }
+
+    /**
+     * Returns the score
+     * @return
+     * @throws Exception
+     */
+    private ILScore getScore() throws Exception {
+        return (ILScore) invoke("getScore", new Class<?>[0]);
+    }
+
+    /**
+     * Invokes a method of the accumulator
+     * @param name
+     * @param types
+     * @param args
+     * @return
+     * @throws Exception
+     */
+    private Object invoke(String name, Class<?>[] types, Object... args) throws Exception {
+        Method method = accumulator.getClass().getDeclaredMethod(name, types);
+        method.setAccessible(true);
+        return method.invoke(accumulator, args);
+    }
+
+    /**
+     * Multiplies with a fraction
+     * @param numerator
+     * @param denominator
+     * @throws Exception
+     */
+    private void multiply(long numerator, long denominator) throws Exception {
+        invoke("multiply", new Class<?>[] { long.class, long.class }, numerator, denominator);
+    }
+}
@@ -189,4 +189,41 @@ public class TestMicroaggregation extends AbstractTest {
                                            
         assertTrue(Arrays.deepEquals(resultArray, expectedArray));
     }
+    
+    /**
+     * Test microaggregation when sorting output data before accessing microaggregated values
+     * @throws IOException
+     */
+    @Test
+    public void testMicroaggregationSorted() throws IOException {
+        DataProvider provider = new DataProvider();
+        provider.createDataDefinition();
+        provider.data.getDefinition().setAttributeType("age", MicroAggregationFunction.createArithmeticMean());
+        provider.data.getDefinition().setAttributeType("gender", provider.getGender());
+        provider.data.getDefinition().setAttributeType("zipcode", provider.getZipcode());
+        
+        provider.data.getDefinition().setDataType("age", DataType.INTEGER);
+        
+        final ARXAnonymizer anonymizer = new ARXAnonymizer();
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(0d);
+        
+        ARXResult result = anonymizer.anonymize(provider.data, config);
+        DataHandle output = result.getOutput();
+        output.sort(true, 1);
+        
+        final String[][] resultArray = iteratorToArray(output.iterator());
+        
+        final String[][] expectedArray = { { "age", "gender", "zipcode" },
+                                           { "50", "female", "81***" },
+                                           { "50", "female", "81***" },
+                                           { "50", "female", "81***" },
+                                           { "54", "male", "81***" },
+                                           { "54", "male", "81***" },
+                                           { "54", "male", "81***" },
+                                           { "54", "male", "81***" } };
+                                           
+        assertTrue(Arrays.deepEquals(resultArray, expectedArray));
+    }
 }
@@ -17,27 +17,41 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXLattice.ARXNode;
 import org.deidentifier.arx.ARXPopulationModel;
 import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.AttributeType.Hierarchy;
 import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.criteria.PopulationUniqueness;
 import org.deidentifier.arx.io.CSVHierarchyInput;
 import org.deidentifier.arx.metric.Metric;
 import org.deidentifier.arx.metric.Metric.AggregateFunction;
+import org.deidentifier.arx.risk.RiskModelHistogram;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness.PopulationUniquenessModel;
 import org.junit.Test;
@@ -200,6 +214,42 @@ public class TestRiskMetrics {
         assertTrue(populationUniqueness + "/" + sampleUniqueness, compareUniqueness(populationUniqueness, sampleUniqueness) == 0);
     }
     
+    /**
+     * Compares memoized estimates of population uniqueness with estimates
+     * obtained from scratch
+     * 
+     * @throws IOException
+     * @throws ReflectiveOperationException
+     */
+    @Test
+    public void testPopulationUniquenessMemoization() throws IOException, ReflectiveOperationException {
+        
+        // Collect histograms
+        Data data = getDataObject("./data/adult.csv");
+        ARXPopulationModel population = ARXPopulationModel.create(data.getHandle().getNumRows(), 0.1d);
+        List<RiskModelHistogram> histograms = getHistograms(data, population);
+        
+        // For each model
+        Method method = PopulationUniqueness.class.getDeclaredMethod("getFractionOfUniqueTuples", RiskModelHistogram.class);
+        method.setAccessible(true);
+        for (PopulationUniquenessModel model : PopulationUniquenessModel.values()) {
+            
+            // Estimate each histogram twice with one instance
+            PopulationUniqueness criterion = new PopulationUniqueness(0.01d, model, population);
+            for (int pass = 0; pass < 2; pass++) {
+                for (RiskModelHistogram histogram : histograms) {
+                    
+                    // Estimate from scratch
+                    RiskModelPopulationUniqueness risks = new RiskModelPopulationUniqueness(population, histogram, ARXSolverConfiguration.create());
+                    double expected = model == PopulationUniquenessModel.DANKAR ? risks.getFractionOfUniqueTuplesDankar(false) : risks.getFractionOfUniqueTuples(model);
+                    
+                    // Compare
+                    assertEquals(model.toString(), expected, (Double) method.invoke(criterion, histogram), 0d);
+                }
+            }
+        }
+    }
+    
     /**
      * Compares two uniqueness measures with four significant digits
      * @param val1
@@ -210,6 +260,28 @@ public class TestRiskMetrics {
         return Integer.compare((int) (val1 * 10000d), (int) (val2 * 10000d));
     }
     
+    /**
+     * Returns histograms of transformations from different levels of the lattice
+     * @param data
+     * @param population
+     * @return
+     * @throws IOException
+     */
+    private List<RiskModelHistogram> getHistograms(Data data, ARXPopulationModel population) throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(0d);
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        List<RiskModelHistogram> histograms = new ArrayList<RiskModelHistogram>();
+        for (ARXNode[] level : result.getLattice().getLevels()) {
+            for (int i = 0; i < level.length; i += Math.max(1, level.length / 3)) {
+                DataHandle output = result.getOutput(level[i], false);
+                histograms.add(output.getRiskEstimator(population).getEquivalenceClassModel());
+            }
+        }
+        return histograms;
+    }
+    
     /**
      * Test highest individual risk using the test dataset.
      */
@@ -224,6 +296,32 @@ public class TestRiskMetrics {
         assertTrue(getAnonymizedData(provider.getData()).getRiskEstimator(ARXPopulationModel.create(provider.getData().getHandle().getNumRows(), 0.1d)).getSampleBasedReidentificationRisk().getHighestRisk() == 0.5d);
     }
     
+    /**
+     * Test whether histograms computed on encoded data match the ones computed on strings.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void testEncodedHistogram() throws IOException {
+        Data data = getDataObject("./data/adult.csv");
+        
+        // Input
+        DataHandle input = data.getHandle();
+        assertArrayEquals(getHistogram(input), input.getRiskEstimator().getEquivalenceClassModel().getHistogram());
+        
+        // Output with suppressed records
+        final ARXAnonymizer anonymizer = new ARXAnonymizer();
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(0.1d);
+        DataHandle output = anonymizer.anonymize(data, config).getOutput(false);
+        assertArrayEquals(getHistogram(output), output.getRiskEstimator().getEquivalenceClassModel().getHistogram());
+        
+        // Subset of the output
+        DataHandle view = output.getView();
+        assertArrayEquals(getHistogram(view), view.getRiskEstimator().getEquivalenceClassModel().getHistogram());
+    }
+    
     /**
      * Test highest individual risk using the adult dataset.
      *
@@ -239,6 +337,44 @@ public class TestRiskMetrics {
         assertTrue(getAnonymizedData(data).getRiskEstimator(ARXPopulationModel.create(data.getHandle().getNumRows(), 0.1d)).getSampleBasedReidentificationRisk().getHighestRisk() == 0.5d);
     }
     
+    /**
+     * Computes the histogram of class sizes by comparing the values of the
+     * quasi-identifiers as strings. Suppressed records are ignored.
+     *
+     * @param handle
+     * @return
+     */
+    private int[] getHistogram(DataHandle handle) {
+        
+        // Group
+        Set<String> qis = handle.getDefinition().getQuasiIdentifyingAttributes();
+        Map<List<String>, Integer> classes = new HashMap<List<String>, Integer>();
+        for (int row = 0; row < handle.getNumRows(); row++) {
+            if (!handle.isOutlier(row)) {
+                List<String> key = new ArrayList<String>();
+                for (String qi : qis) {
+                    key.add(handle.getValue(row, handle.getColumnIndexOf(qi)));
+                }
+                Integer count = classes.get(key);
+                classes.put(key, count == null ? 1 : count + 1);
+            }
+        }
+        
+        // Count sizes
+        TreeMap<Integer, Integer> sizes = new TreeMap<Integer, Integer>();
+        for (int size : classes.values()) {
+            Integer count = sizes.get(size);
+            sizes.put(size, count == null ? 1 : count + 1);
+        }
+        int[] histogram = new int[sizes.size() * 2];
+        int index = 0;
+        for (Entry<Integer, Integer> entry : sizes.entrySet()) {
+            histogram[index++] = entry.getKey();
+            histogram[index++] = entry.getValue();
+        }
+        return histogram;
+    }
+    
     /**
      * 2-Anonymizes the given data. No suppression allowed.
      *
@@ -64,15 +64,6 @@ public class TestRiskQuasiIdentifiers {
     @Test
     public void testWithDefinedDataSet() {
         
-        // Define data
-        Data.DefaultData data = Data.create();
-        data.add("age", "sex", "state");
-        data.add("20", "Female", "CA");
-        data.add("30", "Female", "CA");
-        data.add("40", "Female", "TX");
-        data.add("20", "Male", "NY");
-        data.add("40", "Male", "CA");
-
         // Calculated by hand
         ResultSet[] expectedResults = new ResultSet[]{
                 new ResultSet("[sex]", 0.4, 0.6),
@@ -84,15 +75,37 @@ public class TestRiskQuasiIdentifiers {
                 new ResultSet("[age, sex, state]", 1.0, 1.0),
         };
 
-        // Flag every identifier as quasi identifier
-        for (int i = 0; i < data.getHandle().getNumColumns(); i++) {
-            data.getDefinition().setAttributeType(data.getHandle().getAttributeName(i), AttributeType.QUASI_IDENTIFYING_ATTRIBUTE);
-        }
+        // Perform calculation
+        RiskEstimateBuilder builder = getData().getHandle().getRiskEstimator(null);
+        check(expectedResults, builder.getAttributeRisks().getAttributeRisks());
+        check(expectedResults, builder.getAttributeRisks(3, 2).getAttributeRisks());
+    }
+
+    @Test
+    public void testWithMaximalSize() {
+        
+        // Calculated by hand
+        ResultSet[] expectedResults = new ResultSet[]{
+                new ResultSet("[sex]", 0.4, 0.6),
+                new ResultSet("[state]", 0.6, 0.7),
+                new ResultSet("[age]", 0.6, 0.8),
+                new ResultSet("[sex, state]", 0.8, 0.9),
+                new ResultSet("[age, sex]", 1.0, 1.0),
+                new ResultSet("[age, state]", 1.0, 1.0),
+        };
 
         // Perform calculation
-        RiskEstimateBuilder builder = data.getHandle().getRiskEstimator(null);
-        RiskModelAttributes riskmodel = builder.getAttributeRisks();
-        RiskModelAttributes.QuasiIdentifierRisk risks[] = riskmodel.getAttributeRisks();
+        RiskEstimateBuilder builder = getData().getHandle().getRiskEstimator(null);
+        check(expectedResults, builder.getAttributeRisks(2).getAttributeRisks());
+        check(expectedResults, builder.getAttributeRisks(2, 2).getAttributeRisks());
+    }
+
+    /**
+     * Compares the results
+     * @param expectedResults
+     * @param risks
+     */
+    private void check(ResultSet[] expectedResults, RiskModelAttributes.QuasiIdentifierRisk risks[]) {
 
         // Check length
         assertTrue("Number of potential quasi-identifiers expected: " + risks.length, expectedResults.length == risks.length);
@@ -104,4 +117,26 @@ public class TestRiskQuasiIdentifiers {
             assertTrue("Separation expected: " + expectedResults[i].separation + "; got: " + risks[i].getSeparation(), expectedResults[i].separation == risks[i].getSeparation());
         }
     }
+
+    /**
+     * Returns the data set
+     * @return
+     */
+    private Data getData() {
+        
+        // Define data
+        Data.DefaultData data = Data.create();
+        data.add("age", "sex", "state");
+        data.add("20", "Female", "CA");
+        data.add("30", "Female", "CA");
+        data.add("40", "Female", "TX");
+        data.add("20", "Male", "NY");
+        data.add("40", "Male", "CA");
+
+        // Flag every identifier as quasi identifier
+        for (int i = 0; i < data.getHandle().getNumColumns(); i++) {
+            data.getDefinition().setAttributeType(data.getHandle().getAttributeName(i), AttributeType.QUASI_IDENTIFYING_ATTRIBUTE);
+        }
+        return data;
+    }
 }